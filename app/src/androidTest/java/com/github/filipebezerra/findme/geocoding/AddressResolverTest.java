@@ -0,0 +1,99 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.test.AndroidTestCase;
+import com.github.filipebezerra.findme.geocoding.offline.OfflineGeocoder;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of how {@link AddressResolver} copes with failing geocoders, against
+ * {@link FakeGeocoder}s.
+ */
+public class AddressResolverTest extends AndroidTestCase {
+    private static final long LATENCY_IN_MILLIS = 20;
+
+    private FakeGeocoder mNetwork;
+
+    private FakeGeocoder mFallback;
+
+    private AddressResolver mResolver;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mNetwork = new FakeGeocoder("Network address", LATENCY_IN_MILLIS);
+        mFallback = new FakeGeocoder("Fallback address", LATENCY_IN_MILLIS);
+        mResolver = FakeGeocoder.resolverOf(getContext(), mNetwork, mFallback);
+    }
+
+    public void testAnswerIsCached() {
+        assertSuccess("Network address", mResolver.resolve(-16.68, -49.25));
+        assertSuccess("Network address", mResolver.resolve(-16.68, -49.25));
+        assertEquals(1, mNetwork.getCallCount());
+        assertEquals(0, mFallback.getCallCount());
+    }
+
+    public void testLocationWithoutAddressIsNotLookedUpAgainRightAway() {
+        mNetwork.then(FakeGeocoder.NO_ADDRESS);
+        mFallback.then(FakeGeocoder.NO_ADDRESS);
+
+        final AddressResolver.Result result = mResolver.resolve(-16.68, -49.25);
+        assertEquals(Constants.FAILURE_RESULT, result.resultCode);
+        assertFalse(result.isRetryable());
+
+        assertEquals(Constants.FAILURE_RESULT, mResolver.resolve(-16.68, -49.25).resultCode);
+        assertEquals(1, mNetwork.getCallCount());
+        assertEquals(1, mFallback.getCallCount());
+
+        // Other locations are still looked up.
+        assertSuccess("Network address", mResolver.resolve(-16.60, -49.25));
+    }
+
+    public void testUnavailableGeocoderIsLeftAloneAndLookupRetryable() {
+        mNetwork.then(FakeGeocoder.UNAVAILABLE);
+        mFallback.then(FakeGeocoder.TIMEOUT);
+
+        final AddressResolver.Result result = mResolver.resolve(-16.68, -49.25);
+        assertEquals(Constants.FAILURE_RESULT, result.resultCode);
+        assertTrue(result.isRetryable());
+        assertTrue(result.retryDelayInMillis
+                <= Constants.GEOCODE_BACKOFF_TIMEOUT_BASE_IN_MILLISECONDS);
+
+        // Both geocoders are backing off, the lookup fails without calling them.
+        final long start = System.nanoTime();
+        final AddressResolver.Result again = mResolver.resolve(-16.60, -49.25);
+        assertTrue(again.isRetryable());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(LATENCY_IN_MILLIS));
+        assertEquals(1, mNetwork.getCallCount());
+        assertEquals(1, mFallback.getCallCount());
+    }
+
+    public void testFallbackAnswersWhileGeocoderBacksOff() {
+        mNetwork.then(FakeGeocoder.UNAVAILABLE);
+
+        assertSuccess("Fallback address", mResolver.resolve(-16.68, -49.25));
+        assertSuccess("Fallback address", mResolver.resolve(-16.60, -49.25));
+        assertEquals(1, mNetwork.getCallCount());
+        assertEquals(2, mFallback.getCallCount());
+    }
+
+    public void testNoAddressWithoutGazetteerIsNotRetried() {
+        // The offline geocoder of a device without gazetteer, which is the default.
+        final AddressResolver resolver = FakeGeocoder.resolverOf(getContext(), mNetwork,
+                OfflineGeocoder.getInstance(getContext()));
+        mNetwork.then(FakeGeocoder.NO_ADDRESS);
+
+        final AddressResolver.Result result = resolver.resolve(-16.68, -49.25);
+        assertEquals(Constants.FAILURE_RESULT, result.resultCode);
+        assertFalse(result.isRetryable());
+
+        // Known to have no address, so the network geocoder isn't asked again.
+        assertFalse(resolver.resolve(-16.68, -49.25).isRetryable());
+        assertEquals(1, mNetwork.getCallCount());
+    }
+
+    private static void assertSuccess(final String address, final AddressResolver.Result result) {
+        assertEquals(Constants.SUCCESS_RESULT, result.resultCode);
+        assertEquals(address, result.message);
+    }
+}
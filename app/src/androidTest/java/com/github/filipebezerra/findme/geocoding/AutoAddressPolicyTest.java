@@ -0,0 +1,123 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of when {@link AutoAddressPolicy} looks the address up, on simulated traces of one fix
+ * per second.
+ */
+public class AutoAddressPolicyTest extends TestCase {
+    private static final double METERS_PER_DEGREE = GeoMath.metersPerDegreeOfLatitude();
+
+    /**
+     * On the edge between two cells of 3 decimal places.
+     */
+    private static final double EDGE_LATITUDE = -16.6005;
+
+    private static final double LONGITUDE = -49.2706748;
+
+    private AutoAddressPolicy mPolicy;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mPolicy = new AutoAddressPolicy(100, 3, 20, 15000);
+    }
+
+    public void testStandingStillOnACellEdgeLooksUpOnce() {
+        final Random random = new Random(1);
+        final CoordinateQuantizer quantizer = new CoordinateQuantizer(3);
+        long previousCell = 0;
+        int cellChanges = 0;
+        int lookups = 0;
+
+        // An hour of jitter of a few meters, the fixes accurate to 10 to 20 meters.
+        for (int second = 0; second < 3600; second++) {
+            final double latitude = EDGE_LATITUDE + random.nextGaussian() * 5 / METERS_PER_DEGREE;
+            final double longitude = LONGITUDE + random.nextGaussian() * 5 / METERS_PER_DEGREE;
+            final long cell = quantizer.cellOf(latitude, longitude);
+
+            if (second > 0 && cell != previousCell) {
+                cellChanges++;
+            }
+            previousCell = cell;
+
+            if (mPolicy.onFix(second * 1000L, latitude, longitude,
+                    10 + random.nextFloat() * 10) == AutoAddressPolicy.LOOK_UP) {
+                lookups++;
+            }
+        }
+
+        // The trace keeps flipping cells, yet only the first fix is looked up.
+        assertTrue("Changed cells " + cellChanges + " times", cellChanges > 1000);
+        assertEquals(1, lookups);
+    }
+
+    public void testWalkingLooksUpAFewPercentOfTheFixes() {
+        final Random random = new Random(2);
+        double north = 0;
+        double east = 0;
+        int lookups = 0;
+
+        // An hour at 1.4 m/s, turning now and then, the fixes accurate to 5 meters.
+        double heading = 0.5;
+
+        for (int second = 0; second < 3600; second++) {
+            heading += random.nextGaussian() * 0.05;
+            north += Math.cos(heading) * 1.4;
+            east += Math.sin(heading) * 1.4;
+
+            if (mPolicy.onFix(second * 1000L,
+                    EDGE_LATITUDE + (north + random.nextGaussian() * 2) / METERS_PER_DEGREE,
+                    LONGITUDE + (east + random.nextGaussian() * 2) / METERS_PER_DEGREE,
+                    5) == AutoAddressPolicy.LOOK_UP) {
+                lookups++;
+            }
+        }
+
+        // About 5 km walked, a lookup every 70 meters or so, for 2% of the fixes.
+        assertTrue("Looked up " + lookups + " times", lookups >= 50 && lookups <= 90);
+    }
+
+    public void testLookupsDueWithinTheDebounceAreMadeOnceAtItsEnd() {
+        assertEquals(AutoAddressPolicy.LOOK_UP, mPolicy.onFix(0, EDGE_LATITUDE, LONGITUDE, 5));
+
+        // 150 meters away within a few seconds, then further on.
+        assertEquals(AutoAddressPolicy.LOOK_UP_LATER, mPolicy.onFix(5000,
+                EDGE_LATITUDE + 150 / METERS_PER_DEGREE, LONGITUDE, 5));
+        assertEquals(15000, mPolicy.getDebounceEnd());
+        assertEquals(AutoAddressPolicy.LOOK_UP_LATER, mPolicy.onFix(10000,
+                EDGE_LATITUDE + 200 / METERS_PER_DEGREE, LONGITUDE, 5));
+        assertEquals(AutoAddressPolicy.LOOK_UP, mPolicy.onFix(15000,
+                EDGE_LATITUDE + 250 / METERS_PER_DEGREE, LONGITUDE, 5));
+        assertEquals(AutoAddressPolicy.NONE, mPolicy.onFix(20000,
+                EDGE_LATITUDE + 250 / METERS_PER_DEGREE, LONGITUDE, 5));
+    }
+
+    public void testInaccurateFixesMustMoveFarther() {
+        mPolicy.onFix(0, EDGE_LATITUDE, LONGITUDE, 50);
+
+        // 110 meters and into the next cell, not beyond the accuracy of both fixes and the
+        // hysteresis.
+        assertEquals(AutoAddressPolicy.NONE, mPolicy.onFix(60000,
+                EDGE_LATITUDE + 110 / METERS_PER_DEGREE, LONGITUDE, 50));
+        assertEquals(AutoAddressPolicy.LOOK_UP, mPolicy.onFix(120000,
+                EDGE_LATITUDE + 220 / METERS_PER_DEGREE, LONGITUDE, 50));
+    }
+
+    public void testMuchMoreAccurateFixIsLookedUp() {
+        // A coarse first fix, as the network may answer before the GPS.
+        assertEquals(AutoAddressPolicy.LOOK_UP, mPolicy.onFix(0, EDGE_LATITUDE, LONGITUDE, 1000));
+
+        // A precise fix 300 meters away, well within the accuracy of the first one.
+        final double latitude = EDGE_LATITUDE + 300 / METERS_PER_DEGREE;
+        assertEquals(AutoAddressPolicy.LOOK_UP_LATER,
+                mPolicy.onFix(5000, latitude, LONGITUDE, 5));
+        assertEquals(AutoAddressPolicy.LOOK_UP, mPolicy.onFix(15000, latitude, LONGITUDE, 5));
+
+        // Not twice as accurate as that one.
+        assertEquals(AutoAddressPolicy.NONE, mPolicy.onFix(30000, latitude, LONGITUDE, 3));
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.content.Context;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for a geocoder service, answering with scripted outcomes after an
+ * injected latency. Once the script runs out, every call answers with the default address.
+ */
+public class FakeGeocoder implements ReverseGeocoder {
+    /**
+     * Outcome of a call failing to reach the service.
+     */
+    public static final String UNAVAILABLE = "unavailable";
+
+    /**
+     * Outcome of a call timing out.
+     */
+    public static final String TIMEOUT = "timeout";
+
+    /**
+     * Outcome of a call for a location without address.
+     */
+    public static final String NO_ADDRESS = "no address";
+
+    private final Queue<String> mScript = new ArrayDeque<>();
+
+    private final String mDefaultAddress;
+
+    private final long mLatencyInMillis;
+
+    private int mCallCount;
+
+    public FakeGeocoder(final String defaultAddress, final long latencyInMillis) {
+        mDefaultAddress = defaultAddress;
+        mLatencyInMillis = latencyInMillis;
+    }
+
+    /**
+     * Queues the outcomes of the next calls: an address, or one of {@link #UNAVAILABLE},
+     * {@link #TIMEOUT} and {@link #NO_ADDRESS}.
+     */
+    public synchronized FakeGeocoder then(final String... outcomes) {
+        for (String outcome : outcomes) {
+            mScript.add(outcome);
+        }
+        return this;
+    }
+
+    /**
+     * Returns a resolver asking the given geocoders, in order, with an empty cache and no disk
+     * cache.
+     */
+    public static AddressResolver resolverOf(final Context context,
+            final ReverseGeocoder... geocoders) {
+        return new AddressResolver(context,
+                new GeocodeCache(16, Constants.GEOCODE_CACHE_PRECISION, 1, TimeUnit.HOURS), null,
+                geocoders);
+    }
+
+    public synchronized int getCallCount() {
+        return mCallCount;
+    }
+
+    @Override
+    public String getAddress(final double latitude, final double longitude)
+            throws IOException {
+        final String outcome;
+
+        synchronized (this) {
+            mCallCount++;
+            outcome = mScript.isEmpty() ? mDefaultAddress : mScript.remove();
+        }
+
+        try {
+            Thread.sleep(mLatencyInMillis);
+        } catch (InterruptedException e) {
+            throw new IOException(e.toString());
+        }
+
+        switch (outcome) {
+            case UNAVAILABLE:
+                throw new IOException("Service not Available");
+            case TIMEOUT:
+                throw new SocketTimeoutException("timed out waiting for response from server");
+            case NO_ADDRESS:
+                return null;
+            default:
+                return outcome;
+        }
+    }
+
+    @Override
+    public boolean isOffline() {
+        return false;
+    }
+}
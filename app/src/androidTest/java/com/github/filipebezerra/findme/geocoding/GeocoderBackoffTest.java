@@ -0,0 +1,74 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of the delays of {@link GeocoderBackoff}.
+ */
+public class GeocoderBackoffTest extends TestCase {
+    private static final long UNAVAILABLE_BASE = 5000;
+
+    private static final long TIMEOUT_BASE = 2000;
+
+    private static final long MAX = 60000;
+
+    public void testDelayDoublesWithJitterUpToMaximum() {
+        final GeocoderBackoff backoff = newBackoff();
+        long expected = UNAVAILABLE_BASE;
+
+        for (int failure = 0; failure < 10; failure++) {
+            final long delay = backoff.onFailure(GeocoderBackoff.CAUSE_UNAVAILABLE, 1000) - 1000;
+            assertTrue("delay " + delay + " after failure " + failure,
+                    delay >= expected / 2 && delay <= expected);
+            expected = Math.min(expected * 2, MAX);
+        }
+    }
+
+    public void testCausesBackOffIndependently() {
+        final GeocoderBackoff backoff = newBackoff();
+
+        for (int failure = 0; failure < 4; failure++) {
+            backoff.onFailure(GeocoderBackoff.CAUSE_TIMEOUT, 0);
+        }
+
+        assertEquals(4, backoff.getFailureCount(GeocoderBackoff.CAUSE_TIMEOUT));
+        assertEquals(0, backoff.getFailureCount(GeocoderBackoff.CAUSE_UNAVAILABLE));
+
+        final long delay = backoff.onFailure(GeocoderBackoff.CAUSE_UNAVAILABLE, 0);
+        assertTrue(delay >= UNAVAILABLE_BASE / 2 && delay <= UNAVAILABLE_BASE);
+
+        // The geocoder is skipped until the longest of both backoffs ends.
+        assertTrue(backoff.isBackingOff(TIMEOUT_BASE * 4));
+        assertFalse(backoff.isBackingOff(TIMEOUT_BASE * 8));
+    }
+
+    public void testAnswerEndsEveryBackoff() {
+        final GeocoderBackoff backoff = newBackoff();
+        backoff.onFailure(GeocoderBackoff.CAUSE_UNAVAILABLE, 0);
+        backoff.onFailure(GeocoderBackoff.CAUSE_TIMEOUT, 0);
+        assertTrue(backoff.isBackingOff(1));
+
+        backoff.onSuccess();
+
+        assertFalse(backoff.isBackingOff(1));
+        assertEquals(0, backoff.getRetryTime());
+        assertEquals(0, backoff.getFailureCount(GeocoderBackoff.CAUSE_UNAVAILABLE));
+    }
+
+    public void testTimeoutsAreToldApart() {
+        assertEquals(GeocoderBackoff.CAUSE_TIMEOUT,
+                GeocoderBackoff.causeOf(new SocketTimeoutException()));
+        assertEquals(GeocoderBackoff.CAUSE_TIMEOUT,
+                GeocoderBackoff.causeOf(new IOException("Timed out waiting for server")));
+        assertEquals(GeocoderBackoff.CAUSE_UNAVAILABLE,
+                GeocoderBackoff.causeOf(new IOException("Service not Available")));
+        assertEquals(GeocoderBackoff.CAUSE_UNAVAILABLE, GeocoderBackoff.causeOf(new IOException()));
+    }
+
+    private static GeocoderBackoff newBackoff() {
+        return new GeocoderBackoff(UNAVAILABLE_BASE, TIMEOUT_BASE, MAX, new Random(42));
+    }
+}
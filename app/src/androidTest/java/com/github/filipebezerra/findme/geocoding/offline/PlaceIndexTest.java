@@ -0,0 +1,189 @@
+package com.github.filipebezerra.findme.geocoding.offline;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link PlaceIndexWriter} and of the nearest place searches of {@link PlaceIndex}.
+ */
+public class PlaceIndexTest extends TestCase {
+    private static final double MAX_DISTANCE_IN_METERS = 2000;
+
+    private File mFile;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mFile = File.createTempFile("places", ".idx");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mFile.delete();
+        super.tearDown();
+    }
+
+    public void testNearestIsTheNearestOfAll() throws IOException {
+        final Random random = new Random(1);
+        final double[][] places = new double[5000][];
+
+        // About a place every 1.5 km, queried beyond them too so some find none in range.
+        for (int i = 0; i < places.length; i++) {
+            places[i] = new double[] {-17 + grid(random.nextDouble()),
+                    -50 + grid(random.nextDouble())};
+        }
+
+        assertNearestOfAll(places, random, -17.1, -50.1, 1.2);
+    }
+
+    public void testNearestWithDuplicateSplitKeys() throws IOException {
+        final Random random = new Random(2);
+        final double[][] places = new double[1200][];
+
+        // A grid of 10 latitudes by 100 longitudes, some of its places twice.
+        for (int i = 0; i < places.length; i++) {
+            final int cell = i % 1000;
+            places[i] = new double[] {(cell / 100) * 0.001, (cell % 100) * 0.001};
+        }
+
+        assertNearestOfAll(places, random, -0.001, -0.001, 0.102);
+    }
+
+    public void testNoPlaceWithinTheMaxDistance() throws IOException {
+        final PlaceIndexWriter writer = new PlaceIndexWriter();
+        writer.add(0, 0, "Origin");
+        final PlaceIndex index = write(writer);
+
+        final double oneKilometer = 1000 / GeoMath.metersPerDegreeOfLatitude();
+        assertEquals("Origin", index.nearest(oneKilometer, 0, 1001));
+        assertNull(index.nearest(oneKilometer, 0, 999));
+        assertNull(write(new PlaceIndexWriter()).nearest(0, 0, MAX_DISTANCE_IN_METERS));
+    }
+
+    public void testGazetteerLines() throws IOException {
+        final PlaceIndexWriter writer = new PlaceIndexWriter();
+        final int count = writer.addAll(new StringReader("latitude,longitude,name\n"
+                + "# Goi\u00e1s\n"
+                + "\n"
+                + "-16.68, -49.25 , Goi\u00e2nia\n"
+                + "-16.33,-48.95,\"An\u00e1polis, GO\"\n"
+                + "-15.93,-48.26,Bras\u00edlia, DF\n"
+                + "-17.79,-50.92,\"The \"\"Rio Verde\"\"\"\n"
+                + "-18.00,-51.00,\n"
+                + "95,-49.25,Past the pole\n"
+                + "north,-49.25,Unparseable\n"));
+        assertEquals(4, count);
+
+        final PlaceIndex index = write(writer);
+        assertEquals(4, index.size());
+        assertEquals("Goi\u00e2nia", index.nearest(-16.68, -49.25, MAX_DISTANCE_IN_METERS));
+        assertEquals("An\u00e1polis, GO", index.nearest(-16.33, -48.95, MAX_DISTANCE_IN_METERS));
+        assertEquals("Bras\u00edlia, DF", index.nearest(-15.93, -48.26, MAX_DISTANCE_IN_METERS));
+        assertEquals("The \"Rio Verde\"", index.nearest(-17.79, -50.92, MAX_DISTANCE_IN_METERS));
+        assertNull(index.nearest(-18.00, -51.00, MAX_DISTANCE_IN_METERS));
+    }
+
+    public void testTruncatedIndexIsRejected() throws IOException {
+        final PlaceIndexWriter writer = new PlaceIndexWriter();
+
+        for (int i = 0; i < 100; i++) {
+            writer.add(i * 0.01, 0, "Place " + i);
+        }
+        write(writer);
+
+        final RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        file.setLength(PlaceIndex.HEADER_SIZE + 50 * PlaceIndex.RECORD_SIZE);
+        file.close();
+        assertNotAnIndex();
+
+        final RandomAccessFile empty = new RandomAccessFile(mFile, "rw");
+        empty.setLength(0);
+        empty.close();
+        assertNotAnIndex();
+    }
+
+    public void testForeignFileIsRejected() throws IOException {
+        final FileOutputStream output = new FileOutputStream(mFile);
+        output.write("latitude,longitude,name\n-16.68,-49.25,Goi\u00e2nia\n".getBytes("UTF-8"));
+        output.close();
+        assertNotAnIndex();
+    }
+
+    /**
+     * Indexes the given places, then checks that the place found for random queries within the
+     * given area is the nearest one, as found by measuring the distance to all of them.
+     */
+    private void assertNearestOfAll(final double[][] places, final Random random,
+            final double south, final double west, final double size) throws IOException {
+        final PlaceIndexWriter writer = new PlaceIndexWriter();
+
+        for (int i = 0; i < places.length; i++) {
+            writer.add(places[i][0], places[i][1], String.valueOf(i));
+        }
+
+        final PlaceIndex index = write(writer);
+        int found = 0;
+
+        for (int query = 0; query < 2000; query++) {
+            final double latitude = south + random.nextDouble() * size;
+            final double longitude = west + random.nextDouble() * size;
+            double nearestDistance = MAX_DISTANCE_IN_METERS;
+
+            for (double[] place : places) {
+                nearestDistance = Math.min(nearestDistance,
+                        distance(latitude, longitude, place));
+            }
+
+            final String name = index.nearest(latitude, longitude, MAX_DISTANCE_IN_METERS);
+
+            if (nearestDistance == MAX_DISTANCE_IN_METERS) {
+                assertNull(name);
+            } else {
+                // Ties may be broken either way, only the distance matters.
+                assertEquals(nearestDistance,
+                        distance(latitude, longitude, places[Integer.parseInt(name)]), 1e-6);
+                found++;
+            }
+        }
+
+        // Both found and missing places were checked.
+        assertTrue("Found " + found, found > 100 && found < 1900);
+    }
+
+    private PlaceIndex write(final PlaceIndexWriter writer) throws IOException {
+        writer.write(mFile);
+        return PlaceIndex.open(mFile);
+    }
+
+    private void assertNotAnIndex() {
+        try {
+            PlaceIndex.open(mFile);
+            fail("Opened " + mFile.length() + " bytes as an index");
+        } catch (IOException e) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Rounds a coordinate to the precision of the index.
+     */
+    private static double grid(final double degrees) {
+        return Math.round(degrees * PlaceIndex.COORDINATE_SCALE) / PlaceIndex.COORDINATE_SCALE;
+    }
+
+    /**
+     * Returns the distance to a place on the flat projection the index measures with.
+     */
+    private static double distance(final double latitude, final double longitude,
+            final double[] place) {
+        final double north = (place[0] - latitude) * GeoMath.metersPerDegreeOfLatitude();
+        final double east = (place[1] - longitude) * GeoMath.metersPerDegreeOfLongitude(latitude);
+        return Math.sqrt(north * north + east * east);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.filipebezerra.findme.geofence;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of the transitions {@link GeofenceMonitor} reports, on simulated traces of one fix per
+ * second around a fence of 100 meters.
+ */
+public class GeofenceMonitorTest extends TestCase {
+    private static final double METERS_PER_DEGREE = GeoMath.metersPerDegreeOfLatitude();
+
+    private static final double LATITUDE = -16.6799;
+
+    private static final double LONGITUDE = -49.2550;
+
+    private static final double RADIUS_IN_METERS = 100;
+
+    private static final double EXIT_HYSTERESIS_IN_METERS = 20;
+
+    private static final long DWELL_DELAY_IN_MILLIS = 60000;
+
+    private final List<String> mTransitions = new ArrayList<>();
+
+    private GeofenceMonitor mMonitor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final Geofence fence = new CircleGeofence("home", LATITUDE, LONGITUDE, RADIUS_IN_METERS);
+        final GeofenceIndex index = new GeofenceIndex(Collections.singletonList(fence), 0.01, 16);
+
+        mMonitor = new GeofenceMonitor(index, new GeofenceListener() {
+            @Override
+            public void onGeofenceTransition(Geofence fence, GeofenceMonitor.Transition transition,
+                    long timeInMillis) {
+                mTransitions.add(transition + "@" + timeInMillis);
+            }
+        }, EXIT_HYSTERESIS_IN_METERS, DWELL_DELAY_IN_MILLIS);
+    }
+
+    public void testStandingOnTheBoundaryDoesNotFlap() {
+        final Random random = new Random(1);
+
+        // Half an hour of jitter of a few meters right on the boundary, the fixes accurate to 10
+        // meters, so about half of them fall inside.
+        for (int second = 0; second < 1800; second++) {
+            mMonitor.onFix(second * 1000L,
+                    north(RADIUS_IN_METERS + random.nextGaussian() * 4),
+                    LONGITUDE + random.nextGaussian() * 4 / METERS_PER_DEGREE, 10);
+        }
+
+        assertEquals(1, mMonitor.getInsideCount());
+        assertEquals(2, mTransitions.size());
+        assertTrue(mTransitions.get(0), mTransitions.get(0).startsWith("ENTER@"));
+        assertTrue(mTransitions.get(1), mTransitions.get(1).startsWith("DWELL@"));
+
+        // Beyond the hysteresis, it is left.
+        mMonitor.onFix(1800000, north(RADIUS_IN_METERS + 25), LONGITUDE, 10);
+        assertEquals(0, mMonitor.getInsideCount());
+        assertEquals("EXIT@1800000", mTransitions.get(2));
+    }
+
+    public void testInaccurateFixMustBeFartherToExit() {
+        mMonitor.onFix(0, LATITUDE, LONGITUDE, 5);
+
+        // 40 meters outside, within the accuracy of the fix.
+        mMonitor.onFix(1000, north(RADIUS_IN_METERS + 40), LONGITUDE, 50);
+        assertEquals(1, mMonitor.getInsideCount());
+
+        mMonitor.onFix(2000, north(RADIUS_IN_METERS + 60), LONGITUDE, 50);
+        assertEquals(0, mMonitor.getInsideCount());
+        assertEquals(2, mTransitions.size());
+        assertEquals("EXIT@2000", mTransitions.get(1));
+    }
+
+    public void testDwellIsNotifiedOnceAfterTheDelay() {
+        // Five minutes inside.
+        for (int second = 0; second <= 300; second++) {
+            mMonitor.onFix(second * 1000L, north(second % 50), LONGITUDE, 5);
+        }
+
+        assertEquals(2, mTransitions.size());
+        assertEquals("ENTER@0", mTransitions.get(0));
+        assertEquals("DWELL@" + DWELL_DELAY_IN_MILLIS, mTransitions.get(1));
+
+        // Leaving before the delay, after entering again, makes no dwell.
+        mMonitor.onFix(301000, north(200), LONGITUDE, 5);
+        mMonitor.onFix(302000, LATITUDE, LONGITUDE, 5);
+        mMonitor.onFix(302000 + DWELL_DELAY_IN_MILLIS - 1000, LATITUDE, LONGITUDE, 5);
+        mMonitor.onFix(302000 + DWELL_DELAY_IN_MILLIS - 500, north(200), LONGITUDE, 5);
+        assertEquals(5, mTransitions.size());
+        assertEquals("EXIT@301000", mTransitions.get(2));
+        assertEquals("ENTER@302000", mTransitions.get(3));
+        assertEquals("EXIT@" + (302000 + DWELL_DELAY_IN_MILLIS - 500), mTransitions.get(4));
+    }
+
+    /**
+     * Returns the latitude the given meters north of the center of the fence.
+     */
+    private static double north(final double meters) {
+        return LATITUDE + meters / METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.filipebezerra.findme.geofence;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link PolygonGeofence#distanceInMeters(double, double)}, on an L shaped block of
+ * 200 by 200 meters missing its north east quarter.
+ */
+public class PolygonGeofenceTest extends TestCase {
+    private static final double LATITUDE = -16.6799;
+
+    private static final double LONGITUDE = -49.2550;
+
+    private PolygonGeofence mFence;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mFence = new PolygonGeofence("block",
+                new double[] {north(0), north(200), north(200), north(100), north(100), north(0)},
+                new double[] {east(0), east(0), east(100), east(100), east(200), east(200)});
+    }
+
+    public void testInsideIsNegative() {
+        // 50 meters from the west edge and the missing quarter, then 20 from the south edge.
+        assertEquals(-50, mFence.distanceInMeters(north(150), east(50)), 0.1);
+        assertEquals(-20, mFence.distanceInMeters(north(20), east(150)), 0.1);
+    }
+
+    public void testOutsideIsPositive() {
+        // Beyond the south edge, and within the missing quarter.
+        assertEquals(30, mFence.distanceInMeters(north(-30), east(100)), 0.1);
+        assertEquals(10, mFence.distanceInMeters(north(150), east(110)), 0.1);
+
+        // Diagonally off the south west corner, nearest to the corner itself.
+        assertEquals(Math.sqrt(200), mFence.distanceInMeters(north(-10), east(-10)), 0.1);
+    }
+
+    public void testBoundaryIsAtZero() {
+        assertEquals(0, Math.abs(mFence.distanceInMeters(north(0), east(50))), 0.1);
+        assertEquals(0, Math.abs(mFence.distanceInMeters(north(100), east(150))), 0.1);
+    }
+
+    public void testAgreesWithACircleOfManySides() {
+        final int sides = 360;
+        final double[] latitudes = new double[sides];
+        final double[] longitudes = new double[sides];
+
+        for (int i = 0; i < sides; i++) {
+            final double angle = 2 * Math.PI * i / sides;
+            latitudes[i] = north(100 * Math.cos(angle));
+            longitudes[i] = east(100 * Math.sin(angle));
+        }
+
+        final PolygonGeofence polygon = new PolygonGeofence("polygon", latitudes, longitudes);
+        final CircleGeofence circle = new CircleGeofence("circle", LATITUDE, LONGITUDE, 100);
+
+        for (int meters = -90; meters <= 200; meters += 10) {
+            assertEquals(circle.distanceInMeters(north(meters * 0.6), east(meters * 0.8)),
+                    polygon.distanceInMeters(north(meters * 0.6), east(meters * 0.8)), 0.5);
+        }
+    }
+
+    private static double north(final double meters) {
+        return LATITUDE + meters / GeoMath.metersPerDegreeOfLatitude();
+    }
+
+    private static double east(final double meters) {
+        return LONGITUDE + meters / GeoMath.metersPerDegreeOfLongitude(LATITUDE);
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.filipebezerra.findme.map;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link SimplifiedTrack}, simplifying and culling a track the way the map draws it.
+ */
+public class SimplifiedTrackTest extends TestCase {
+    private static final double TOLERANCE_IN_PIXELS = 1;
+
+    public void testSimplifiedTrackStaysWithinTolerance() {
+        final double[][] walk = walk(new Random(7), 5000, -16.6009500, -49.2706748, 0.0002);
+        final SimplifiedTrack track = newTrack();
+        add(track, walk);
+
+        for (int zoom = 2; zoom <= 18; zoom += 4) {
+            final List<double[]> runs = queryWorld(track, zoom);
+            assertEquals(1, runs.size());
+
+            final double[] run = runs.get(0);
+            final double tolerance = WebMercator.pixelsToWorld(TOLERANCE_IN_PIXELS, zoom);
+            assertEquals(track.sizeAt(zoom), run.length / 2);
+            int kept = 0;
+
+            // The points kept are a subsequence of the track, every point in between must lie
+            // close to the segment joining the kept ones around it.
+            for (double[] point : walk) {
+                final double x = WebMercator.x(point[1]);
+                final double y = WebMercator.y(point[0]);
+
+                if (x == run[2 * kept] && y == run[2 * kept + 1]) {
+                    if (kept < run.length / 2 - 1) {
+                        kept++;
+                    }
+                    continue;
+                }
+
+                final double distance = Math.sqrt(DouglasPeucker.distanceSquared(x, y,
+                        run[2 * kept - 2], run[2 * kept - 1], run[2 * kept], run[2 * kept + 1]));
+                assertTrue("Zoom " + zoom + ": " + distance / tolerance + " pixels away",
+                        distance <= tolerance);
+            }
+
+            assertEquals(run.length / 2 - 1, kept);
+        }
+
+        assertTrue(track.sizeAt(2) < track.sizeAt(18));
+        assertTrue(track.sizeAt(10) < walk.length / 10);
+    }
+
+    public void testQueryOnlyReturnsTheRunsCrossingTheBounds() {
+        // Zigzagging eastwards along the equator, then back westwards a degree further north.
+        final SimplifiedTrack track = newTrack();
+        long time = 0;
+
+        for (int i = 0; i <= 1000; i++) {
+            track.add(++time, (i % 2) * 0.0001, i * 0.01);
+        }
+        for (int i = 1000; i >= 0; i--) {
+            track.add(++time, 1 + (i % 2) * 0.0001, i * 0.01);
+        }
+
+        final List<double[]> runs = new ArrayList<>();
+        track.query(18, -0.5, 4, 0.5, 5, collector(runs));
+
+        assertFalse(runs.isEmpty());
+        double minLongitude = Double.MAX_VALUE;
+        double maxLongitude = -Double.MAX_VALUE;
+        int points = 0;
+
+        for (double[] run : runs) {
+            for (int i = 0; i < run.length; i += 2) {
+                assertTrue(WebMercator.latitude(run[i + 1]) < 0.5);
+                minLongitude = Math.min(minLongitude, WebMercator.longitude(run[i]));
+                maxLongitude = Math.max(maxLongitude, WebMercator.longitude(run[i]));
+            }
+            points += run.length / 2;
+        }
+
+        // Whole spans are returned, but the segments leaving the bounds are in them.
+        assertTrue(minLongitude < 4);
+        assertTrue(maxLongitude > 5);
+        assertTrue(points < track.sizeAt(18) / 2);
+    }
+
+    public void testQueryAcrossTheAntimeridian() {
+        final SimplifiedTrack track = newTrack();
+
+        for (int i = 0; i <= 200; i++) {
+            track.add(i, 0, 179 + i * 0.01 - (i > 100 ? 360 : 0));
+        }
+
+        final List<double[]> east = new ArrayList<>();
+        track.query(12, -1, 179.5, 1, -179.5, collector(east));
+        assertFalse(east.isEmpty());
+
+        final List<double[]> elsewhere = new ArrayList<>();
+        track.query(12, 10, 10, 20, 20, collector(elsewhere));
+        assertTrue(elsewhere.isEmpty());
+    }
+
+    public void testFixesNotNewerThanTheLastAreIgnored() {
+        final SimplifiedTrack track = newTrack();
+
+        assertTrue(track.add(1000, 0, 0));
+        assertFalse(track.add(1000, 1, 1));
+        assertFalse(track.add(999, 1, 1));
+        assertTrue(track.add(1001, 1, 1));
+
+        assertEquals(2, track.size());
+        assertEquals(1001, track.getLastTime());
+        assertEquals(1, track.getNorth(), 1e-9);
+        assertEquals(0, track.getWest(), 1e-9);
+    }
+
+    private static SimplifiedTrack newTrack() {
+        return new SimplifiedTrack(2, 18, TOLERANCE_IN_PIXELS, 256);
+    }
+
+    private static void add(final SimplifiedTrack track, final double[][] walk) {
+        for (int i = 0; i < walk.length; i++) {
+            assertTrue(track.add(i, walk[i][0], walk[i][1]));
+        }
+    }
+
+    private static List<double[]> queryWorld(final SimplifiedTrack track, final int zoom) {
+        final List<double[]> runs = new ArrayList<>();
+        track.query(zoom, -WebMercator.MAX_LATITUDE, -180, WebMercator.MAX_LATITUDE, 180,
+                collector(runs));
+        return runs;
+    }
+
+    /**
+     * Returns a sink adding every run to the given list, as x and y pairs.
+     */
+    private static PolylineSink collector(final List<double[]> runs) {
+        return new PolylineSink() {
+            private double[] mRun;
+
+            @Override
+            public void startRun() {
+                mRun = new double[0];
+                runs.add(mRun);
+            }
+
+            @Override
+            public void addPoint(double x, double y) {
+                final double[] run = new double[mRun.length + 2];
+                System.arraycopy(mRun, 0, run, 0, mRun.length);
+                run[mRun.length] = x;
+                run[mRun.length + 1] = y;
+                runs.set(runs.size() - 1, run);
+                mRun = run;
+            }
+        };
+    }
+
+    /**
+     * Returns a wandering trail of latitude and longitude pairs.
+     */
+    private static double[][] walk(final Random random, final int count, double latitude,
+            double longitude, final double step) {
+        final double[][] walk = new double[count][];
+        double heading = 0;
+
+        for (int i = 0; i < count; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.5;
+            latitude += Math.cos(heading) * step;
+            longitude += Math.sin(heading) * step;
+            walk[i] = new double[] {latitude, longitude};
+        }
+
+        return walk;
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.filipebezerra.findme.tasks;
+
+import android.location.Location;
+import android.os.Bundle;
+import android.os.ResultReceiver;
+import android.test.AndroidTestCase;
+import com.github.filipebezerra.findme.geocoding.FakeGeocoder;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests of how {@link GeocodeEngine} replays the lookups queued while the geocoder was
+ * unavailable, against a {@link FakeGeocoder}.
+ */
+public class GeocodeEngineTest extends AndroidTestCase {
+    private static final long LATENCY_IN_MILLIS = 20;
+
+    /**
+     * Longer than the first backoff after a timeout.
+     */
+    private static final long TIMEOUT_IN_MILLIS =
+            3 * Constants.GEOCODE_BACKOFF_TIMEOUT_BASE_IN_MILLISECONDS;
+
+    private FakeGeocoder mGeocoder;
+
+    private GeocodeEngine mEngine;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mGeocoder = new FakeGeocoder("Network address", LATENCY_IN_MILLIS);
+        mEngine = new GeocodeEngine(FakeGeocoder.resolverOf(getContext(), mGeocoder));
+    }
+
+    public void testQueueIsReplayedWhenTheProbeFindsNoAddress() throws Exception {
+        mGeocoder.then(FakeGeocoder.TIMEOUT, FakeGeocoder.NO_ADDRESS);
+
+        final RecordingReceiver probe = new RecordingReceiver();
+        mEngine.submit(location(-16.68, -49.25), probe);
+        assertEquals(Constants.FAILURE_RESULT, probe.next());
+
+        // Asked while the geocoder backs off, so queued behind the first one.
+        final RecordingReceiver queued = new RecordingReceiver();
+        mEngine.submit(location(-16.60, -49.25), queued);
+        assertEquals(Constants.FAILURE_RESULT, queued.next());
+        assertEquals(1, mGeocoder.getCallCount());
+
+        // The probe gets an answer, no address, so the geocoder is back for the other one.
+        assertEquals(Constants.FAILURE_RESULT, probe.next());
+        assertEquals(Constants.SUCCESS_RESULT, queued.next());
+        assertEquals(3, mGeocoder.getCallCount());
+    }
+
+    private static Location location(final double latitude, final double longitude) {
+        final Location location = new Location("test");
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        return location;
+    }
+
+    /**
+     * Keeps the result codes it gets, sent from the worker threads.
+     */
+    private static final class RecordingReceiver extends ResultReceiver {
+        private final BlockingQueue<Integer> mResultCodes = new LinkedBlockingQueue<>();
+
+        RecordingReceiver() {
+            super(null);
+        }
+
+        @Override
+        protected void onReceiveResult(final int resultCode, final Bundle resultData) {
+            mResultCodes.add(resultCode);
+        }
+
+        /**
+         * Waits for the next result and returns its code.
+         */
+        int next() throws InterruptedException {
+            final Integer resultCode = mResultCodes.poll(TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull("No result in time", resultCode);
+            return resultCode;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Round-trip tests of {@link TrackEncoder} and {@link TrackDecoder}.
+ */
+public class TrackCodecTest extends TestCase {
+    private static final double COORDINATE_TOLERANCE = 1e-7;
+
+    public void testRoundTripKeepsEveryField() throws IOException {
+        final Fix[] fixes = fixesWithVaryingFields(new Random(42), 1000);
+        final Fix[] decoded = decode(encode(fixes), fixes.length);
+
+        for (int i = 0; i < fixes.length; i++) {
+            assertEquals(fixes[i].time, decoded[i].time);
+            assertEquals(fixes[i].latitude, decoded[i].latitude, COORDINATE_TOLERANCE);
+            assertEquals(fixes[i].longitude, decoded[i].longitude, COORDINATE_TOLERANCE);
+            assertEquals(fixes[i].hasAccuracy, decoded[i].hasAccuracy);
+            assertEquals(fixes[i].hasSpeed, decoded[i].hasSpeed);
+            assertEquals(fixes[i].hasBearing, decoded[i].hasBearing);
+            assertEquals(fixes[i].hasAltitude, decoded[i].hasAltitude);
+
+            if (fixes[i].hasAccuracy) {
+                assertEquals(fixes[i].accuracy, decoded[i].accuracy, 0.05f);
+            }
+            if (fixes[i].hasSpeed) {
+                assertEquals(fixes[i].speed, decoded[i].speed, 0.005f);
+            }
+            if (fixes[i].hasBearing) {
+                assertEquals(fixes[i].bearing, decoded[i].bearing, 0.05f);
+            }
+            if (fixes[i].hasAltitude) {
+                assertEquals(fixes[i].altitude, decoded[i].altitude, 0.05);
+            }
+        }
+    }
+
+    public void testRoundTripOfExtremeCoordinatesAndTimeGoingBackwards() throws IOException {
+        final Fix[] fixes = {
+                new Fix().set(1438387200000L, -90, -180),
+                new Fix().set(1438387200000L, 90, 180),
+                new Fix().set(1438387100000L, 0, 0),
+                new Fix().set(0, -0.0000001, 179.9999999),
+        };
+        final Fix[] decoded = decode(encode(fixes), fixes.length);
+
+        for (int i = 0; i < fixes.length; i++) {
+            assertEquals(fixes[i].time, decoded[i].time);
+            assertEquals(fixes[i].latitude, decoded[i].latitude, COORDINATE_TOLERANCE);
+            assertEquals(fixes[i].longitude, decoded[i].longitude, COORDINATE_TOLERANCE);
+        }
+    }
+
+    public void testEncodedFixesAreCompact() throws IOException {
+        final Fix[] fixes = fixesWithVaryingFields(new Random(7), 10000);
+        final byte[] encoded = encode(fixes);
+
+        assertTrue("Took " + encoded.length + " bytes", encoded.length < fixes.length * 16);
+    }
+
+    public void testEmptyStreamHasNoFixes() throws IOException {
+        final TrackDecoder decoder = new TrackDecoder(
+                new ByteArrayInputStream(encode(new Fix[0])));
+
+        assertFalse(decoder.next(new Fix()));
+    }
+
+    public void testTruncatedStreamFails() throws IOException {
+        final byte[] encoded = encode(fixesWithVaryingFields(new Random(1), 10));
+        final TrackDecoder decoder = new TrackDecoder(
+                new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length - 1)));
+        final Fix fix = new Fix();
+
+        try {
+            while (decoder.next(fix)) {
+                // Keep reading until the truncated fix.
+            }
+            fail("Truncated stream decoded without errors");
+        } catch (EOFException expected) {
+            // Expected.
+        }
+    }
+
+    public void testNotATrackStreamFails() {
+        try {
+            new TrackDecoder(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+            fail("Garbage accepted as a track stream");
+        } catch (IOException expected) {
+            // Expected.
+        }
+    }
+
+    private static byte[] encode(final Fix[] fixes) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TrackEncoder encoder = new TrackEncoder(output);
+
+        for (Fix fix : fixes) {
+            encoder.write(fix);
+        }
+
+        encoder.close();
+        assertEquals(fixes.length, encoder.getFixCount());
+        assertEquals(output.size(), encoder.getByteCount());
+        return output.toByteArray();
+    }
+
+    private static Fix[] decode(final byte[] encoded, final int expectedCount) throws IOException {
+        final TrackDecoder decoder = new TrackDecoder(new ByteArrayInputStream(encoded));
+        final Fix[] fixes = new Fix[expectedCount];
+
+        for (int i = 0; i < expectedCount; i++) {
+            fixes[i] = new Fix();
+            assertTrue("Missing fix " + i, decoder.next(fixes[i]));
+        }
+
+        assertFalse(decoder.next(new Fix()));
+        decoder.close();
+        return fixes;
+    }
+
+    /**
+     * Returns fixes about 10 seconds and a few meters apart, each with a random subset of the
+     * optional fields, so every branch of the format is exercised. Plausible trails for
+     * measuring are generated by the benchmarks.
+     */
+    static Fix[] fixesWithVaryingFields(final Random random, final int count) {
+        final Fix[] fixes = new Fix[count];
+        long time = 1438387200000L;
+        double latitude = -16.6009500;
+        double longitude = -49.2706748;
+        double altitude = 750;
+
+        for (int i = 0; i < count; i++) {
+            time += 9000 + random.nextInt(2000);
+            latitude += (random.nextDouble() - 0.5) * 0.0005;
+            longitude += (random.nextDouble() - 0.5) * 0.0005;
+            altitude += random.nextGaussian();
+
+            final Fix fix = new Fix().set(time, latitude, longitude);
+            fix.hasAccuracy = random.nextInt(10) != 0;
+            fix.accuracy = 3 + random.nextFloat() * 30;
+            fix.hasSpeed = random.nextBoolean();
+            fix.speed = random.nextFloat() * 20;
+            fix.hasBearing = fix.hasSpeed;
+            fix.bearing = random.nextFloat() * 359;
+            fix.hasAltitude = random.nextInt(3) == 0;
+            fix.altitude = altitude;
+            fixes[i] = fix;
+        }
+
+        return fixes;
+    }
+}
@@ -0,0 +1,212 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.GeoMath;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link TrackCompactor}, and of reading its tiers back with {@link TrackHistory}.
+ */
+public class TrackCompactorTest extends TestCase {
+    private static final long START = 1438387200000L;
+
+    private static final long INTERVAL = 10000;
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static final long MIN_INTERVAL = 5 * 60 * 1000;
+
+    /**
+     * Degrees of latitude in 10 meters.
+     */
+    private static final double TEN_METERS = 10 / GeoMath.metersPerDegreeOfLatitude();
+
+    private File mRecentFile;
+
+    private File mArchiveFile;
+
+    private TrackRecorder mRecent;
+
+    private TrackRecorder mArchive;
+
+    private TrackCompactor mCompactor;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRecentFile = File.createTempFile("track", ".ring");
+        mArchiveFile = File.createTempFile("track-archive", ".ring");
+        open();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mRecent.close();
+        mArchive.close();
+        mRecentFile.delete();
+        mArchiveFile.delete();
+        super.tearDown();
+    }
+
+    public void testOlderFixesAreDownsampled() {
+        // Stopped for an hour, then an hour northwards at 1 m/s, then at 11 m/s.
+        long time = START;
+        double latitude = 0;
+
+        for (int i = 0; i < 360; i++) {
+            mRecent.append(new Fix().set(time += INTERVAL, latitude, 0));
+        }
+        for (int i = 0; i < 360; i++) {
+            mRecent.append(new Fix().set(time += INTERVAL, latitude += TEN_METERS, 0));
+        }
+        for (int i = 0; i < 360; i++) {
+            mRecent.append(new Fix().set(time += INTERVAL, latitude += 11 * TEN_METERS, 0));
+        }
+
+        // Every 5 minutes while stopped or slow, every 500 meters when fast. The last fix isn't
+        // kept, so it is left for the next run to archive if a gap follows it.
+        assertEquals(12 + 12 + 72, mCompactor.compact(time + DAY + 1));
+        assertEquals(Collections.singletonList(time),
+                times(mRecent.query(Long.MIN_VALUE, Long.MAX_VALUE)));
+
+        final List<Long> archived = times(mArchive.query(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Long.valueOf(START + INTERVAL), archived.get(0));
+        assertEquals(MIN_INTERVAL, archived.get(1) - archived.get(0));
+        assertEquals(5 * INTERVAL, archived.get(archived.size() - 1)
+                - archived.get(archived.size() - 2));
+    }
+
+    public void testRecentWindowIsKeptWhole() {
+        final long end = record(START, 3 * DAY);
+
+        mCompactor.compact(end);
+
+        // With the last fix before the window, which wasn't archived.
+        final List<Long> recent = times(mRecent.query(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(DAY / INTERVAL + 2, recent.size());
+        assertEquals(Long.valueOf(end - DAY - INTERVAL), recent.get(0));
+
+        final List<Long> archived = times(mArchive.query(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(2 * DAY / MIN_INTERVAL, archived.size());
+        assertTrue(archived.get(archived.size() - 1) < recent.get(0));
+    }
+
+    public void testHistoryReadsBothTiersOnce() throws IOException {
+        long end = record(START, 2 * DAY);
+        mCompactor.compact(end);
+        end = record(end, DAY);
+        mCompactor.compact(end);
+        mCompactor.compact(end);
+
+        final List<Long> history = times(new TrackHistory(mArchive, mRecent).query(
+                Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(2 * DAY / MIN_INTERVAL + DAY / INTERVAL + 2, history.size());
+
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.get(i) > history.get(i - 1));
+        }
+
+        // Only the archived fixes of the first day.
+        assertEquals(DAY / MIN_INTERVAL, times(new TrackHistory(mArchive, mRecent).query(
+                START + 1, START + DAY)).size());
+    }
+
+    public void testFixesPastTheHorizonAreDeleted() throws IOException {
+        final long end = record(START, 5 * DAY);
+
+        mCompactor.compact(end);
+        assertEquals(Long.valueOf(end - 3 * DAY),
+                times(mArchive.query(Long.MIN_VALUE, Long.MAX_VALUE)).get(0));
+
+        // The trims are kept in the files.
+        mRecent.close();
+        mArchive.close();
+        open();
+        assertEquals(2 * DAY / MIN_INTERVAL + DAY / INTERVAL + 2, times(new TrackHistory(
+                mArchive, mRecent).query(Long.MIN_VALUE, Long.MAX_VALUE)).size());
+
+        mRecent.append(new Fix().set(end + INTERVAL, 0, 0));
+        assertEquals(2, times(mRecent.query(end, Long.MAX_VALUE)).size());
+    }
+
+    public void testLastFixBeforeAGapIsArchived() {
+        mRecent.append(new Fix().set(START, 0, 0));
+        mRecent.append(new Fix().set(START + INTERVAL, TEN_METERS, 0));
+        mRecent.append(new Fix().set(START + 2 * INTERVAL, 2 * TEN_METERS, 0));
+        // Recording stopped for an hour.
+        mRecent.append(new Fix().set(START + 3600000, 3 * TEN_METERS, 0));
+
+        mCompactor.compact(START + 3600000 + DAY + 1);
+
+        final List<Long> archived = times(mArchive.query(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(3, archived.size());
+        assertEquals(Long.valueOf(START + 2 * INTERVAL), archived.get(1));
+    }
+
+    public void testLastFixBeforeAGapAcrossCompactionsIsArchived() {
+        mRecent.append(new Fix().set(START, 0, 0));
+        mRecent.append(new Fix().set(START + INTERVAL, TEN_METERS, 0));
+        mRecent.append(new Fix().set(START + 2 * INTERVAL, 2 * TEN_METERS, 0));
+
+        // Compacted before the end of the gap is known, the last fix is left in the recent tier.
+        mCompactor.compact(START + 2 * INTERVAL + DAY + 1);
+        assertEquals(1, times(mArchive.query(Long.MIN_VALUE, Long.MAX_VALUE)).size());
+        assertEquals(2, times(new TrackHistory(mArchive, mRecent).query(
+                Long.MIN_VALUE, Long.MAX_VALUE)).size());
+
+        // Recording stopped for an hour.
+        mRecent.append(new Fix().set(START + 3600000, 3 * TEN_METERS, 0));
+        mCompactor.compact(START + 3600000 + DAY + 1);
+
+        final List<Long> archived = times(mArchive.query(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(3, archived.size());
+        assertEquals(Long.valueOf(START + 2 * INTERVAL), archived.get(1));
+    }
+
+    private void open() throws IOException {
+        mRecent = TrackRecorder.open(mRecentFile, 65536);
+        mArchive = TrackRecorder.open(mArchiveFile, 4096);
+        // A day of fixes, the archive downsampled for 3 days.
+        mCompactor = new TrackCompactor(mRecent, mArchive, DAY, 3 * DAY, MIN_INTERVAL, 500);
+    }
+
+    /**
+     * Records a device standing still for the given duration after the given time.
+     *
+     * @return the time of the last fix
+     */
+    private long record(long time, final long duration) {
+        final long end = time + duration;
+
+        while (time < end) {
+            time += INTERVAL;
+            mRecent.append(new Fix().set(time, 0, 0));
+        }
+        return time;
+    }
+
+    private static List<Long> times(final TrackRecorder.Cursor cursor) {
+        final List<Long> times = new ArrayList<>();
+        final Fix fix = new Fix();
+
+        while (cursor.next(fix)) {
+            times.add(fix.time);
+        }
+        return times;
+    }
+
+    private static List<Long> times(final TrackHistory.Cursor cursor) {
+        final List<Long> times = new ArrayList<>();
+        final Fix fix = new Fix();
+
+        while (cursor.next(fix)) {
+            times.add(fix.time);
+        }
+        return times;
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of the range queries of {@link TrackRecorder}, checked against a scan of every fix.
+ */
+public class TrackRecorderTest extends TestCase {
+    private static final long START = 1438387200000L;
+
+    private static final long INTERVAL = 10000;
+
+    private File mFile;
+
+    private TrackRecorder mRecorder;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mFile = File.createTempFile("track", ".ring");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (mRecorder != null) {
+            mRecorder.close();
+        }
+        mFile.delete();
+        super.tearDown();
+    }
+
+    public void testTimeRangeQuery() throws IOException {
+        final List<Fix> fixes = record(8192, 10000);
+
+        // Between 14:00 and 14:30 of the first day.
+        final long from = START + 14 * 3600 * 1000;
+        final long to = from + 30 * 60 * 1000;
+        final TrackRecorder.Cursor cursor = mRecorder.query(from, to);
+
+        final List<Fix> found = collect(cursor);
+        assertEquals(181, found.size());
+        assertEquals(times(scan(fixes, from, to, -90, -180, 90, 180)), times(found));
+        // Only the fixes in range, and the one after it.
+        assertEquals(182, cursor.getReadCount());
+    }
+
+    public void testBoundsQueryOnlyReadsTheBlocksAround() throws IOException {
+        final List<Fix> fixes = record(8192, 10000);
+        final Fix middle = fixes.get(5000);
+        final double south = middle.latitude - 0.001;
+        final double west = middle.longitude - 0.001;
+        final double north = middle.latitude + 0.001;
+        final double east = middle.longitude + 0.001;
+
+        final TrackRecorder.Cursor cursor =
+                mRecorder.query(Long.MIN_VALUE, Long.MAX_VALUE, south, west, north, east);
+        final List<Fix> found = collect(cursor);
+
+        assertFalse(found.isEmpty());
+        assertEquals(times(scan(fixes, Long.MIN_VALUE, Long.MAX_VALUE, south, west, north,
+                east)), times(found));
+        assertTrue("Read " + cursor.getReadCount(), cursor.getReadCount() < fixes.size() / 4);
+    }
+
+    public void testQueriesAfterTheRingWrapped() throws IOException {
+        final List<Fix> fixes = record(10000, 4096);
+        final List<Fix> kept = fixes.subList(fixes.size() - 4096, fixes.size());
+        final Fix sample = kept.get(1000);
+
+        assertEquals(times(kept), times(collect(mRecorder.query(Long.MIN_VALUE,
+                Long.MAX_VALUE))));
+        assertEquals(times(scan(kept, START, Long.MAX_VALUE, sample.latitude - 0.002,
+                        sample.longitude - 0.002, sample.latitude + 0.002,
+                        sample.longitude + 0.002)),
+                times(collect(mRecorder.query(START, Long.MAX_VALUE, sample.latitude - 0.002,
+                        sample.longitude - 0.002, sample.latitude + 0.002,
+                        sample.longitude + 0.002))));
+    }
+
+    public void testIndexIsRebuiltWhenReopened() throws IOException {
+        final List<Fix> fixes = record(8192, 10000);
+        mRecorder.close();
+        mRecorder = TrackRecorder.open(mFile, 10000);
+
+        final Fix middle = fixes.get(3000);
+        final TrackRecorder.Cursor cursor = mRecorder.query(Long.MIN_VALUE, Long.MAX_VALUE,
+                middle.latitude - 0.001, middle.longitude - 0.001, middle.latitude + 0.001,
+                middle.longitude + 0.001);
+
+        assertEquals(times(scan(fixes, Long.MIN_VALUE, Long.MAX_VALUE, middle.latitude - 0.001,
+                middle.longitude - 0.001, middle.latitude + 0.001, middle.longitude + 0.001)),
+                times(collect(cursor)));
+        assertTrue(cursor.getReadCount() < fixes.size() / 4);
+    }
+
+    public void testBoundsAcrossTheAntimeridian() throws IOException {
+        mRecorder = TrackRecorder.open(mFile, 1000);
+        final Fix fix = new Fix();
+
+        for (int i = 0; i < 600; i++) {
+            mRecorder.append(fix.set(START + i * INTERVAL, 0, 179.7 + i * 0.001
+                    - (i >= 300 ? 360 : 0)));
+        }
+
+        // From 179.9 east to -179.9, the fixes at 180 being recorded as -180.
+        final List<Fix> found = collect(mRecorder.query(Long.MIN_VALUE, Long.MAX_VALUE, -1,
+                179.8995, 1, -179.8995));
+        assertEquals(201, found.size());
+        assertEquals(179.9, found.get(0).longitude, 1e-9);
+        assertEquals(-179.9, found.get(found.size() - 1).longitude, 1e-9);
+    }
+
+    public void testOlderFixesAreNotAppended() throws IOException {
+        final List<Fix> fixes = record(100, 1000);
+
+        assertFalse(mRecorder.append(new Fix().set(START + 50 * INTERVAL, 0, 0)));
+        assertEquals(100, mRecorder.getCount());
+
+        // Nor after reopening.
+        mRecorder.close();
+        mRecorder = TrackRecorder.open(mFile, 1000);
+        assertFalse(mRecorder.append(new Fix().set(START, 0, 0)));
+        assertTrue(mRecorder.append(new Fix().set(START + 100 * INTERVAL, 0, 0)));
+        assertEquals(times(fixes), times(collect(mRecorder.query(START,
+                START + 99 * INTERVAL))));
+    }
+
+    /**
+     * Records a wandering trail of the given length into a ring of the given capacity.
+     */
+    private List<Fix> record(final int count, final int capacity) throws IOException {
+        mRecorder = TrackRecorder.open(mFile, capacity);
+        final Random random = new Random(count);
+        final List<Fix> fixes = new ArrayList<>(count);
+        double latitude = -16.6009500;
+        double longitude = -49.2706748;
+        double heading = 0;
+
+        for (int i = 0; i < count; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.3;
+            latitude += Math.cos(heading) * 0.0001;
+            longitude += Math.sin(heading) * 0.0001;
+
+            final Fix fix = new Fix().set(START + i * INTERVAL, latitude, longitude);
+            fix.hasAccuracy = true;
+            fix.accuracy = 5;
+            mRecorder.append(fix);
+            fixes.add(fix);
+        }
+
+        return fixes;
+    }
+
+    private static List<Fix> scan(final List<Fix> fixes, final long fromTime, final long toTime,
+            final double south, final double west, final double north, final double east) {
+        final List<Fix> found = new ArrayList<>();
+
+        for (Fix fix : fixes) {
+            if (fix.time >= fromTime && fix.time <= toTime
+                    && fix.latitude >= south && fix.latitude <= north
+                    && (west <= east
+                    ? fix.longitude >= west && fix.longitude <= east
+                    : fix.longitude >= west || fix.longitude <= east)) {
+                found.add(fix);
+            }
+        }
+
+        return found;
+    }
+
+    private static List<Long> times(final List<Fix> fixes) {
+        final List<Long> times = new ArrayList<>(fixes.size());
+
+        for (Fix fix : fixes) {
+            times.add(fix.time);
+        }
+
+        return times;
+    }
+
+    private static List<Fix> collect(final TrackRecorder.Cursor cursor) {
+        final List<Fix> found = new ArrayList<>();
+        Fix fix = new Fix();
+
+        while (cursor.next(fix)) {
+            found.add(fix);
+            fix = new Fix();
+        }
+
+        return found;
+    }
+}
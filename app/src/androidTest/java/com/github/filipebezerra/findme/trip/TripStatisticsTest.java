@@ -0,0 +1,181 @@
+package com.github.filipebezerra.findme.trip;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.GeoMath;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link TripStatistics} and {@link TripFormatter}.
+ */
+public class TripStatisticsTest extends TestCase {
+    private static final long START = 1438387200000L;
+
+    /**
+     * Degrees of latitude in 10 meters.
+     */
+    private static final double TEN_METERS = 10 / GeoMath.metersPerDegreeOfLatitude();
+
+    private TripStatistics mTrip;
+
+    private final Fix mFix = new Fix();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mTrip = new TripStatistics(1, 10 * 60 * 1000, 30000, 5);
+    }
+
+    public void testDistanceAndTimeWhileMoving() {
+        // 10 meters north every 5 seconds, 2 m/s, the fixes accurate to 5 meters.
+        for (int i = 0; i <= 100; i++) {
+            mFix.set(START + i * 5000, i * TEN_METERS, 0);
+            mFix.hasAccuracy = true;
+            mFix.accuracy = 5;
+            assertTrue(mTrip.add(mFix));
+        }
+
+        final TripSnapshot trip = mTrip.snapshot();
+        assertEquals(101, trip.fixCount);
+        assertEquals(1000, trip.distanceInMeters, 0.01);
+        assertEquals(500000, trip.movingTimeInMillis);
+        assertEquals(0, trip.stationaryTimeInMillis);
+        assertEquals(2, trip.getAverageMovingSpeed(), 1e-3);
+        assertEquals(2, trip.maxSpeed, 1e-3);
+        assertEquals(2, trip.currentSpeed, 1e-3);
+        assertEquals(500000, trip.getElapsedTimeInMillis());
+    }
+
+    public void testJitterWhileStoppedIsNotTravelled() {
+        final Random random = new Random(1);
+
+        // A few meters of noise around the same spot, every 10 seconds for 10 minutes.
+        for (int i = 0; i <= 60; i++) {
+            mTrip.add(mFix.set(START + i * 10000, (random.nextDouble() - 0.5) * TEN_METERS,
+                    (random.nextDouble() - 0.5) * TEN_METERS));
+        }
+
+        final TripSnapshot trip = mTrip.snapshot();
+        assertEquals(0, trip.distanceInMeters, 0);
+        assertEquals(0, trip.movingTimeInMillis);
+        assertEquals(600000, trip.stationaryTimeInMillis);
+        assertTrue(trip.currentSpeed < 1);
+    }
+
+    public void testJitterWithinTheAccuracyIsNotTravelled() {
+        final Random random = new Random(2);
+        double north = 0;
+        double east = 0;
+
+        // An hour standing still, a fix every second wandering a few meters around the spot, as
+        // the fixes of a receiver do, each accurate to 5 to 15 meters.
+        for (int i = 0; i <= 3600; i++) {
+            north += random.nextGaussian() - north * 0.1;
+            east += random.nextGaussian() - east * 0.1;
+            mFix.set(START + i * 1000, north * TEN_METERS / 10, east * TEN_METERS / 10);
+            mFix.hasAccuracy = true;
+            mFix.accuracy = 5 + random.nextFloat() * 10;
+            mTrip.add(mFix);
+        }
+
+        final TripSnapshot trip = mTrip.snapshot();
+        assertEquals(0, trip.distanceInMeters, 0);
+        assertEquals(0, trip.movingTimeInMillis);
+
+        // But for the last seconds, which a slow move could still turn out to have taken.
+        assertEquals(3600000, trip.stationaryTimeInMillis, 22000);
+    }
+
+    public void testSlowWalkWithinTheAccuracyIsTravelled() {
+        // 1.4 meters north every second for 10 minutes, the fixes accurate to 10 meters, every
+        // step within the accuracy of the fixes.
+        for (int i = 0; i <= 600; i++) {
+            mFix.set(START + i * 1000, i * 0.14 * TEN_METERS, 0);
+            mFix.hasAccuracy = true;
+            mFix.accuracy = 10;
+            mTrip.add(mFix);
+        }
+
+        // Counted every 11 steps, the last few steps not yet.
+        final TripSnapshot trip = mTrip.snapshot();
+        assertEquals(840, trip.distanceInMeters, 15);
+        assertEquals(600000, trip.movingTimeInMillis, 11000);
+        assertEquals(0, trip.stationaryTimeInMillis);
+        assertEquals(1.4, trip.maxSpeed, 1e-3);
+        assertEquals(1.4, trip.currentSpeed, 1e-3);
+    }
+
+    public void testReportedSpeedDecidesWhetherMoving() {
+        mTrip.add(mFix.set(START, 0, 0));
+        mFix.set(START + 10000, TEN_METERS, 0);
+        mFix.hasSpeed = true;
+        mFix.speed = 0.2f;
+        mTrip.add(mFix);
+
+        assertEquals(0, mTrip.snapshot().distanceInMeters, 0);
+        assertEquals(10000, mTrip.snapshot().stationaryTimeInMillis);
+    }
+
+    public void testLongGapsAreNotMeasured() {
+        mTrip.add(mFix.set(START, 0, 0));
+        mTrip.add(mFix.set(START + 5000, TEN_METERS, 0));
+        // Recording paused for an hour, 50 kilometers away.
+        mTrip.add(mFix.set(START + 3605000, 5000 * TEN_METERS, 0));
+        mTrip.add(mFix.set(START + 3610000, 5001 * TEN_METERS, 0));
+
+        final TripSnapshot trip = mTrip.snapshot();
+        assertEquals(20, trip.distanceInMeters, 0.01);
+        assertEquals(10000, trip.movingTimeInMillis);
+        assertEquals(0, trip.stationaryTimeInMillis);
+        assertEquals(3610000, trip.getElapsedTimeInMillis());
+    }
+
+    public void testFixesNotNewerThanTheLastAreIgnored() {
+        assertTrue(mTrip.add(mFix.set(START, 0, 0)));
+        assertFalse(mTrip.add(mFix.set(START, TEN_METERS, 0)));
+        assertFalse(mTrip.add(mFix.set(START - 1000, TEN_METERS, 0)));
+        assertEquals(1, mTrip.snapshot().fixCount);
+    }
+
+    public void testElevationIgnoresNoise() {
+        final double[] altitudes = {100, 102, 99, 103, 106, 104, 112, 108, 101, 103, 100};
+
+        for (int i = 0; i < altitudes.length; i++) {
+            mFix.set(START + i * 5000, i * TEN_METERS, 0);
+            mFix.hasAltitude = true;
+            mFix.altitude = altitudes[i];
+            mTrip.add(mFix);
+        }
+
+        // Counted: 100 up to 106, up to 112, down to 101.
+        final TripSnapshot trip = mTrip.snapshot();
+        assertEquals(12, trip.elevationGainInMeters, 1e-9);
+        assertEquals(11, trip.elevationLossInMeters, 1e-9);
+    }
+
+    public void testSnapshotIsKeptUntilTheNextFix() {
+        assertSame(TripSnapshot.EMPTY, mTrip.snapshot());
+
+        mTrip.add(mFix.set(START, 0, 0));
+        final TripSnapshot first = mTrip.snapshot();
+        assertSame(first, mTrip.snapshot());
+
+        mTrip.add(mFix.set(START + 5000, TEN_METERS, 0));
+        final TripSnapshot second = mTrip.snapshot();
+        assertNotSame(first, second);
+        assertEquals(0, first.distanceInMeters, 0);
+        assertEquals(10, second.distanceInMeters, 0.01);
+
+        mTrip.reset();
+        assertSame(TripSnapshot.EMPTY, mTrip.snapshot());
+    }
+
+    public void testFormat() {
+        final char[] buffer = new char[TripFormatter.MAX_LENGTH];
+        final TripSnapshot trip = new TripSnapshot(10, START, START + 4000000, 12345, 3723000,
+                277000, 5, 3, 0, 0);
+
+        final int length = TripFormatter.format(trip, buffer);
+        assertEquals("12.35 km \u00b7 11.9 km/h \u00b7 1:02:03", new String(buffer, 0, length));
+    }
+}
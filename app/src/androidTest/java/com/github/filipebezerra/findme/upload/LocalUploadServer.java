@@ -0,0 +1,204 @@
+package com.github.filipebezerra.findme.upload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal HTTP/1.1 stand-in for the upload server, listening on the loopback interface.
+ * <p/>
+ * It stores the body of every batch under its {@code Idempotency-Key}, answering retries of a
+ * stored batch without storing it twice, and records how many requests it handled at the same
+ * time. Statuses can be scripted for the next requests, and every request waits an injected
+ * latency before it is answered.
+ */
+public class LocalUploadServer implements Closeable {
+    private final ServerSocket mServerSocket;
+
+    private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+
+    private final long mLatencyInMillis;
+
+    private final Queue<Integer> mScript = new ArrayDeque<>();
+
+    private final Map<String, byte[]> mBatches = new LinkedHashMap<>();
+
+    private final List<Map<String, String>> mRequestHeaders = new ArrayList<>();
+
+    private int mActiveCount;
+
+    private int mMaxActiveCount;
+
+    public LocalUploadServer(final long latencyInMillis) throws IOException {
+        mLatencyInMillis = latencyInMillis;
+        mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+    }
+
+    public URL getUrl() throws IOException {
+        return new URL("http://127.0.0.1:" + mServerSocket.getLocalPort() + "/batches");
+    }
+
+    /**
+     * Queues the statuses of the next requests. Once they run out, requests are answered with
+     * 201 Created.
+     */
+    public synchronized LocalUploadServer then(final Integer... statuses) {
+        for (Integer status : statuses) {
+            mScript.add(status);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the stored batches by idempotency key, in the order they were first stored.
+     */
+    public synchronized Map<String, byte[]> getBatches() {
+        return new LinkedHashMap<>(mBatches);
+    }
+
+    /**
+     * Returns the headers of every request handled, with lower case names.
+     */
+    public synchronized List<Map<String, String>> getRequestHeaders() {
+        return new ArrayList<>(mRequestHeaders);
+    }
+
+    public synchronized int getRequestCount() {
+        return mRequestHeaders.size();
+    }
+
+    public synchronized int getMaxActiveCount() {
+        return mMaxActiveCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mServerSocket.close();
+        mExecutor.shutdownNow();
+    }
+
+    private void accept() {
+        while (! mServerSocket.isClosed()) {
+            try {
+                final Socket socket = mServerSocket.accept();
+                mExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (IOException e) {
+                // Closed.
+            }
+        }
+    }
+
+    private void serve(final Socket socket) {
+        try {
+            final DataInputStream input = new DataInputStream(socket.getInputStream());
+            final OutputStream output = socket.getOutputStream();
+
+            // Keeps answering requests on the same connection until the client closes it.
+            while (true) {
+                final String requestLine = readLine(input);
+
+                if (requestLine == null || requestLine.isEmpty()) {
+                    break;
+                }
+
+                final Map<String, String> headers = new HashMap<>();
+                String line;
+
+                while ((line = readLine(input)) != null && ! line.isEmpty()) {
+                    final int colon = line.indexOf(':');
+                    headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US),
+                            line.substring(colon + 1).trim());
+                }
+
+                final byte[] body = new byte[Integer.parseInt(headers.get("content-length"))];
+                input.readFully(body);
+
+                final int status = handle(headers, body);
+                output.write(String.format(Locale.US,
+                        "HTTP/1.1 %d Status\r\nContent-Length: 0\r\n\r\n", status)
+                        .getBytes("US-ASCII"));
+                output.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Connection closed by the client, or the server is closing.
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Closing anyway.
+            }
+        }
+    }
+
+    private int handle(final Map<String, String> headers, final byte[] body)
+            throws InterruptedException {
+        synchronized (this) {
+            mRequestHeaders.add(headers);
+            mActiveCount++;
+            mMaxActiveCount = Math.max(mMaxActiveCount, mActiveCount);
+        }
+
+        try {
+            Thread.sleep(mLatencyInMillis);
+        } finally {
+            synchronized (this) {
+                mActiveCount--;
+            }
+        }
+
+        synchronized (this) {
+            final Integer scripted = mScript.poll();
+            final int status = scripted != null ? scripted : 201;
+            final String key = headers.get("idempotency-key");
+
+            if (status >= 200 && status < 300 && key != null && ! mBatches.containsKey(key)) {
+                mBatches.put(key, body);
+            }
+            return status;
+        }
+    }
+
+    private static String readLine(final InputStream input) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+
+        while ((c = input.read()) != -1 && c != '\n') {
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+
+        if (c == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString("US-ASCII");
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.filipebezerra.findme.upload;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.tracking.TrackDecoder;
+import com.github.filipebezerra.findme.tracking.TrackEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import junit.framework.TestCase;
+
+/**
+ * Tests of the upload pipeline, from {@link UploadBatcher} to the {@link LocalUploadServer}.
+ */
+public class UploaderTest extends TestCase {
+    private static final long TIMEOUT_IN_MILLIS = 20000;
+
+    private File mDirectory;
+
+    private UploadQueue mQueue;
+
+    private LocalUploadServer mServer;
+
+    private Uploader mUploader;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDirectory = File.createTempFile("uploads", "");
+        assertTrue(mDirectory.delete());
+        mQueue = new UploadQueue(mDirectory, 1000);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (mUploader != null) {
+            mUploader.shutdown();
+        }
+        if (mServer != null) {
+            mServer.close();
+        }
+        for (String id : mQueue.getIds()) {
+            mQueue.remove(id);
+        }
+        mDirectory.delete();
+        super.tearDown();
+    }
+
+    public void testEveryFixArrivesOnceWithBoundedConcurrency() throws Exception {
+        startServer(20);
+        startUploader(mServer.getUrl(), 2);
+
+        final Fix[] fixes = walk(new Random(5), 1000);
+        final UploadBatcher batcher = new UploadBatcher(mQueue, 100, Long.MAX_VALUE, mUploader);
+        for (Fix fix : fixes) {
+            batcher.add(fix);
+        }
+        batcher.seal();
+
+        awaitEmptyQueue();
+
+        final Map<String, byte[]> batches = mServer.getBatches();
+        assertEquals(10, batches.size());
+        assertEquals(10, mServer.getRequestCount());
+        assertTrue(mServer.getMaxActiveCount() <= 2);
+
+        // Batches are stored in the order they complete, their ids sort in the order of their
+        // fixes.
+        final List<Fix> received = new ArrayList<>();
+        for (byte[] body : new TreeMap<>(batches).values()) {
+            received.addAll(decode(body));
+        }
+        assertEquals(fixes.length, received.size());
+
+        for (int i = 0; i < fixes.length; i++) {
+            assertEquals(fixes[i].time, received.get(i).time);
+            assertEquals(fixes[i].latitude, received.get(i).latitude, 1e-7);
+        }
+
+        for (Map<String, String> headers : mServer.getRequestHeaders()) {
+            assertEquals("gzip", headers.get("content-encoding"));
+            assertEquals(BatchSender.CONTENT_TYPE, headers.get("content-type"));
+            assertEquals("device", headers.get("x-device-id"));
+        }
+    }
+
+    public void testBatchIsSealedOnceTooOld() throws IOException {
+        final UploadBatcher batcher = new UploadBatcher(mQueue, 100, 60000, null);
+        final Fix fix = new Fix();
+
+        batcher.add(fix.set(0, 0, 0));
+        batcher.add(fix.set(60000, 0, 0));
+        assertEquals(0, mQueue.size());
+
+        batcher.add(fix.set(60001, 0, 0));
+        assertEquals(1, mQueue.size());
+        assertEquals(1, batcher.getPendingFixCount());
+    }
+
+    public void testFailedBatchIsRetriedWithTheSameKey() throws Exception {
+        startServer(5);
+        mServer.then(503, 429);
+        startUploader(mServer.getUrl(), 1);
+
+        final String id = mQueue.enqueue(gzippedBatch(walk(new Random(1), 10)));
+        mUploader.drain();
+
+        awaitEmptyQueue();
+
+        assertEquals(3, mServer.getRequestCount());
+        assertEquals(1, mServer.getBatches().size());
+        for (Map<String, String> headers : mServer.getRequestHeaders()) {
+            assertEquals(id, headers.get("idempotency-key"));
+        }
+    }
+
+    public void testRejectedBatchIsDropped() throws Exception {
+        startServer(5);
+        mServer.then(400);
+        startUploader(mServer.getUrl(), 1);
+
+        mQueue.enqueue(gzippedBatch(walk(new Random(1), 10)));
+        mUploader.drain();
+
+        awaitEmptyQueue();
+        assertEquals(1, mServer.getRequestCount());
+        assertTrue(mServer.getBatches().isEmpty());
+    }
+
+    public void testBatchesAreKeptWhileOffline() throws Exception {
+        startServer(0);
+        final URL url = mServer.getUrl();
+        mServer.close();
+        startUploader(url, 2);
+
+        mQueue.enqueue(gzippedBatch(walk(new Random(1), 10)));
+        mQueue.enqueue(gzippedBatch(walk(new Random(2), 10)));
+        mUploader.drain();
+
+        // Both batches failed, and stay queued while the uploader waits to send them again.
+        awaitFailures(2);
+        assertEquals(2, mQueue.size());
+        assertEquals(2, new UploadQueue(mDirectory, 1000).size());
+    }
+
+    public void testFullQueueDropsTheOldestBatches() throws IOException {
+        final UploadQueue queue = new UploadQueue(mDirectory, 3);
+        final List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            ids.add(queue.enqueue(new byte[] {(byte) i}));
+        }
+
+        assertEquals(ids.subList(2, 5), queue.getIds());
+        assertEquals(2, queue.getDroppedCount());
+    }
+
+    public void testBatchesAreRecoveredFromTheDirectory() throws IOException {
+        final List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            ids.add(mQueue.enqueue(new byte[] {(byte) i}));
+        }
+        mQueue.remove(ids.get(1));
+        assertTrue(new File(mDirectory, "interrupted.tmp").createNewFile());
+
+        final UploadQueue recovered = new UploadQueue(mDirectory, 1000);
+        assertEquals(Arrays.asList(ids.get(0), ids.get(2)), recovered.getIds());
+        assertEquals(Arrays.asList(ids.get(0)), recovered.getOldestIds(1));
+        assertEquals(2, mDirectory.list().length);
+    }
+
+    private void startServer(final long latencyInMillis) throws IOException {
+        mServer = new LocalUploadServer(latencyInMillis);
+    }
+
+    private void startUploader(final URL url, final int maxConcurrent) {
+        mUploader = new Uploader(mQueue, new BatchSender(url, "device", 5000), maxConcurrent,
+                50, 200);
+    }
+
+    private void awaitEmptyQueue() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_IN_MILLIS;
+
+        while (mQueue.size() > 0 || mUploader.getInFlightCount() > 0) {
+            assertTrue("Batches left: " + mQueue.size(), System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitFailures(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_IN_MILLIS;
+
+        while (mUploader.getFailureCount() < count) {
+            assertTrue("Failures: " + mUploader.getFailureCount(),
+                    System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static byte[] gzippedBatch(final Fix[] fixes) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TrackEncoder encoder = new TrackEncoder(new GZIPOutputStream(output));
+
+        for (Fix fix : fixes) {
+            encoder.write(fix);
+        }
+
+        encoder.close();
+        return output.toByteArray();
+    }
+
+    private static List<Fix> decode(final byte[] body) throws IOException {
+        final TrackDecoder decoder =
+                new TrackDecoder(new GZIPInputStream(new ByteArrayInputStream(body)));
+        final List<Fix> fixes = new ArrayList<>();
+        Fix fix = new Fix();
+
+        while (decoder.next(fix)) {
+            fixes.add(fix);
+            fix = new Fix();
+        }
+
+        decoder.close();
+        return fixes;
+    }
+
+    /**
+     * Returns a trail of a fix every 10 seconds, a few meters apart.
+     */
+    private static Fix[] walk(final Random random, final int count) {
+        final Fix[] fixes = new Fix[count];
+        long time = 1438387200000L;
+        double latitude = -16.6009500;
+        double longitude = -49.2706748;
+
+        for (int i = 0; i < count; i++) {
+            time += 10000;
+            latitude += (random.nextDouble() - 0.5) * 0.0005;
+            longitude += (random.nextDouble() - 0.5) * 0.0005;
+            fixes[i] = new Fix().set(time, latitude, longitude);
+        }
+
+        return fixes;
+    }
+}
@@ -1,6 +1,51 @@
 package com.github.filipebezerra.findme;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Process;
+import com.github.filipebezerra.findme.geocoding.DiskGeocodeCache;
+import com.github.filipebezerra.findme.geocoding.offline.OfflineGeocoder;
+import com.github.filipebezerra.findme.geofence.Geofence;
+import com.github.filipebezerra.findme.geofence.GeofenceIndex;
+import com.github.filipebezerra.findme.geofence.GeofenceListener;
+import com.github.filipebezerra.findme.geofence.GeofenceMonitor;
+import com.github.filipebezerra.findme.geofence.GeofenceReader;
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.logging.CrashLogWriter;
+import com.github.filipebezerra.findme.logging.FastLog;
+import com.github.filipebezerra.findme.logging.LogcatSink;
+import com.github.filipebezerra.findme.logging.RingBufferTree;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.state.LiveFixSubscriber;
+import com.github.filipebezerra.findme.state.LocationState;
+import com.github.filipebezerra.findme.state.StateStore;
+import com.github.filipebezerra.findme.tracking.TrackCompactor;
+import com.github.filipebezerra.findme.tracking.TrackHistory;
+import com.github.filipebezerra.findme.tracking.TrackRecorder;
+import com.github.filipebezerra.findme.trip.TripSnapshot;
+import com.github.filipebezerra.findme.trip.TripStatistics;
+import com.github.filipebezerra.findme.upload.BatchSender;
+import com.github.filipebezerra.findme.upload.DeviceId;
+import com.github.filipebezerra.findme.upload.UploadBatcher;
+import com.github.filipebezerra.findme.upload.UploadQueue;
+import com.github.filipebezerra.findme.upload.Uploader;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import timber.log.Timber;
 
 /**
@@ -10,10 +55,454 @@ import timber.log.Timber;
  * @version #, 06/04/2015
  * @since #
  */
-public class FindMeApplication extends Application {
+public class FindMeApplication extends Application implements GeofenceListener {
+    private final StateStore<LocationState> mLocationStateStore =
+            new StateStore<>(LocationState.EMPTY);
+
+    private TrackRecorder mTrackRecorder;
+
+    private TrackRecorder mTrackArchive;
+
+    /**
+     * Runs everything done with {@link #mTrackRecorder} and {@link #mTrackArchive}, in order.
+     */
+    private final Executor mTrackRecorderExecutor = newBackgroundExecutor("TrackRecorder");
+
+    /**
+     * Only used on {@link #mTrackRecorderExecutor}, null until the trail is first compacted.
+     */
+    private TrackCompactor mTrackCompactor;
+
+    /**
+     * Only used on {@link #mTrackRecorderExecutor}.
+     */
+    private long mLastTrackCompactionTime;
+
+    private volatile GeofenceMonitor mGeofenceMonitor;
+
+    private final StateStore<TripSnapshot> mTripStore = new StateStore<>(TripSnapshot.EMPTY);
+
+    /**
+     * Runs everything done with {@link #mTripStatistics}, in order, being the writer of
+     * {@link #mTripStore}.
+     */
+    private final Executor mTripExecutor = newBackgroundExecutor("TripStatistics");
+
+    /**
+     * Only used on {@link #mTripExecutor}.
+     */
+    private final TripStatistics mTripStatistics = new TripStatistics(
+            Constants.MOVING_SPEED_IN_METERS_PER_SECOND, Constants.TRIP_MAX_GAP_IN_MILLISECONDS,
+            Constants.TRIP_SPEED_SMOOTHING_IN_MILLISECONDS,
+            Constants.TRIP_ELEVATION_THRESHOLD_IN_METERS);
+
+    /**
+     * Runs everything done with {@link #mUploadBatcher}, in order.
+     */
+    private final Executor mUploadExecutor = newBackgroundExecutor("UploadBatcher");
+
+    /**
+     * Only used on {@link #mUploadExecutor}, null if uploads are disabled.
+     */
+    private UploadBatcher mUploadBatcher;
+
+    private volatile Uploader mUploader;
+
+    /**
+     * Runs the one-off work of the screens, such as loading the trail shown on the map.
+     */
+    private final Executor mBackgroundExecutor = newBackgroundExecutor("Background");
+
+    private GoogleApiClientManager mGoogleApiClientManager;
+
+    public static FindMeApplication get(Context context) {
+        return (FindMeApplication) context.getApplicationContext();
+    }
+
     @Override
     public void onCreate() {
         super.onCreate();
-        Timber.plant(new Timber.DebugTree());
+        plantLogTrees();
+        DiskGeocodeCache.getInstance(this).warmUpInBackground();
+        OfflineGeocoder.getInstance(this).prepareInBackground();
+        loadGeofencesInBackground();
+        subscribeToLiveFixes();
+        compactTrackInBackground();
+        startUploads();
+    }
+
+    /**
+     * Logs to logcat in debug builds only, and always to memory, so the last entries can be
+     * written out after a crash.
+     */
+    private void plantLogTrees() {
+        if (BuildConfig.DEBUG) {
+            Timber.plant(new Timber.DebugTree());
+            FastLog.setSink(new LogcatSink());
+        }
+        Timber.plant(new RingBufferTree(FastLog.DEBUG));
+        CrashLogWriter.install(this);
+    }
+
+    /**
+     * Returns the store of the location and address, shared by the whole application.
+     */
+    public StateStore<LocationState> getLocationStateStore() {
+        return mLocationStateStore;
+    }
+
+    /**
+     * Records the live fixes, tests them against the geofences and adds them to the trip, each
+     * on its own background thread so none slows the location callback nor the others down.
+     */
+    private void subscribeToLiveFixes() {
+        mLocationStateStore.subscribe(new LiveFixSubscriber() {
+            @Override
+            protected void onFix(Fix fix) {
+                final TrackRecorder recorder = getTrackRecorder();
+
+                if (recorder != null && ! recorder.append(fix)) {
+                    Timber.w("Fix of %d older than the track, not recorded", fix.time);
+                }
+
+                if (fix.time - mLastTrackCompactionTime
+                        >= Constants.TRACK_COMPACTION_INTERVAL_IN_MILLISECONDS) {
+                    compactTrack(fix.time);
+                }
+            }
+        }, mTrackRecorderExecutor, Constants.LOCATION_STATE_QUEUE_CAPACITY);
+
+        mLocationStateStore.subscribe(new LiveFixSubscriber() {
+            @Override
+            protected void onFix(Fix fix) {
+                final GeofenceMonitor monitor = mGeofenceMonitor;
+
+                if (monitor != null) {
+                    monitor.onFix(fix);
+                }
+            }
+        }, newBackgroundExecutor("GeofenceMonitor"), Constants.LOCATION_STATE_QUEUE_CAPACITY);
+
+        mLocationStateStore.subscribe(new LiveFixSubscriber() {
+            @Override
+            protected void onFix(Fix fix) {
+                if (mTripStatistics.add(fix)) {
+                    mTripStore.publish(mTripStatistics.snapshot());
+                }
+            }
+        }, mTripExecutor, Constants.LOCATION_STATE_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Uploads the live fixes in batches to {@link BuildConfig#UPLOAD_URL}, if there is one. The
+     * batches left from a previous run are sent first, and sending starts over as soon as the
+     * network is back.
+     */
+    private void startUploads() {
+        if (BuildConfig.UPLOAD_URL.length() == 0) {
+            return;
+        }
+
+        final URL url;
+
+        try {
+            url = new URL(BuildConfig.UPLOAD_URL);
+        } catch (MalformedURLException e) {
+            Timber.e(e, "Uploading to %s", BuildConfig.UPLOAD_URL);
+            return;
+        }
+
+        // The queue and the device id are read from disk, away from the main thread. Fixes are
+        // batched on the same thread, so none is missed meanwhile.
+        mUploadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final UploadQueue queue = new UploadQueue(
+                        new File(getFilesDir(), Constants.UPLOAD_QUEUE_DIRECTORY_NAME),
+                        Constants.UPLOAD_QUEUE_MAX_BATCHES);
+                final Uploader uploader = new Uploader(queue,
+                        new BatchSender(url, DeviceId.get(FindMeApplication.this),
+                                Constants.UPLOAD_TIMEOUT_IN_MILLISECONDS),
+                        Constants.UPLOAD_MAX_CONCURRENT_REQUESTS,
+                        Constants.UPLOAD_RETRY_BASE_IN_MILLISECONDS,
+                        Constants.UPLOAD_RETRY_MAX_IN_MILLISECONDS);
+                mUploadBatcher = new UploadBatcher(queue, Constants.UPLOAD_BATCH_MAX_FIXES,
+                        Constants.UPLOAD_BATCH_MAX_AGE_IN_MILLISECONDS, uploader);
+                mUploader = uploader;
+                uploader.drain();
+            }
+        });
+
+        mLocationStateStore.subscribe(new LiveFixSubscriber() {
+            @Override
+            protected void onFix(Fix fix) {
+                if (mUploadBatcher == null) {
+                    return;
+                }
+
+                try {
+                    mUploadBatcher.add(fix);
+                } catch (IOException e) {
+                    Timber.e(e, "Queuing the fixes for upload");
+                }
+            }
+        }, mUploadExecutor, Constants.LOCATION_STATE_QUEUE_CAPACITY);
+
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                final ConnectivityManager connectivityManager =
+                        (ConnectivityManager) getSystemService(CONNECTIVITY_SERVICE);
+                final NetworkInfo network = connectivityManager.getActiveNetworkInfo();
+                final Uploader uploader = mUploader;
+
+                if (uploader != null && network != null && network.isConnected()) {
+                    uploader.retryNow();
+                }
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+    }
+
+    /**
+     * Queues the fixes not uploaded yet, including those published but not batched yet, for
+     * upload without waiting for their batch to fill up.
+     */
+    public void flushUploads() {
+        mUploadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mUploadBatcher == null) {
+                    return;
+                }
+
+                try {
+                    mUploadBatcher.seal();
+                } catch (IOException e) {
+                    Timber.e(e, "Queuing the fixes for upload");
+                }
+            }
+        });
+    }
+
+    private static Executor newBackgroundExecutor(final String name) {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, name);
+            }
+        });
+    }
+
+    /**
+     * Returns the manager of the GoogleApiClient shared by the whole application, creating it on
+     * first use. Must only be called from the main thread.
+     */
+    public GoogleApiClientManager getGoogleApiClientManager() {
+        if (mGoogleApiClientManager == null) {
+            mGoogleApiClientManager = new GoogleApiClientManager(this,
+                    Constants.GOOGLE_API_CLIENT_DISCONNECT_GRACE_IN_MILLISECONDS);
+        }
+        return mGoogleApiClientManager;
+    }
+
+    /**
+     * Returns the recorder of the device's trail, opening it on first use, or null if it can't
+     * be opened.
+     */
+    public synchronized TrackRecorder getTrackRecorder() {
+        if (mTrackRecorder == null) {
+            try {
+                mTrackRecorder = TrackRecorder.open(
+                        new File(getFilesDir(), Constants.TRACK_FILE_NAME),
+                        Constants.TRACK_CAPACITY);
+            } catch (IOException e) {
+                Timber.e(e, "Opening the track recorder");
+            }
+        }
+        return mTrackRecorder;
+    }
+
+    /**
+     * Returns the recorder of the downsampled fixes older than the recent window, opening it on
+     * first use, or null if it can't be opened.
+     */
+    public synchronized TrackRecorder getTrackArchive() {
+        if (mTrackArchive == null) {
+            try {
+                mTrackArchive = TrackRecorder.open(
+                        new File(getFilesDir(), Constants.TRACK_ARCHIVE_FILE_NAME),
+                        Constants.TRACK_ARCHIVE_CAPACITY);
+            } catch (IOException e) {
+                Timber.e(e, "Opening the track archive");
+            }
+        }
+        return mTrackArchive;
+    }
+
+    /**
+     * Returns the whole recorded trail, archived and recent, or null if the recorder can't be
+     * opened.
+     */
+    public TrackHistory getTrackHistory() {
+        final TrackRecorder recorder = getTrackRecorder();
+        return recorder != null ? new TrackHistory(getTrackArchive(), recorder) : null;
+    }
+
+    /**
+     * Returns the executor for the one-off work of the screens, run in order at background
+     * priority and independently of their lifecycle.
+     */
+    public Executor getBackgroundExecutor() {
+        return mBackgroundExecutor;
+    }
+
+    /**
+     * Compacts the recorded trail on the recorder's thread, as done every
+     * {@link Constants#TRACK_COMPACTION_INTERVAL_IN_MILLISECONDS} while recording, so the fixes
+     * left from a previous run are archived even if nothing is recorded in this one.
+     */
+    private void compactTrackInBackground() {
+        mTrackRecorderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                compactTrack(System.currentTimeMillis());
+            }
+        });
+    }
+
+    /**
+     * Archives the recorded fixes older than the recent window and deletes those past the
+     * retention horizon. Must only be called on {@link #mTrackRecorderExecutor}.
+     */
+    private void compactTrack(final long now) {
+        mLastTrackCompactionTime = now;
+        final TrackRecorder recorder = getTrackRecorder();
+        final TrackRecorder archive = getTrackArchive();
+
+        if (recorder == null || archive == null) {
+            return;
+        }
+
+        if (mTrackCompactor == null) {
+            mTrackCompactor = new TrackCompactor(recorder, archive,
+                    Constants.TRACK_RECENT_WINDOW_IN_MILLISECONDS,
+                    Constants.TRACK_RETENTION_IN_MILLISECONDS,
+                    Constants.TRACK_ARCHIVE_MIN_INTERVAL_IN_MILLISECONDS,
+                    Constants.TRACK_ARCHIVE_MIN_DISTANCE_IN_METERS);
+        }
+
+        final long start = System.nanoTime();
+        final int archived = mTrackCompactor.compact(now);
+        final long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        Metrics.TRACK_COMPACTION_TIME.record(elapsedMillis);
+        Metrics.TRACK_FIXES_ARCHIVED.add(archived);
+        Timber.d("Archived %d fixes of the track in %d ms", archived, elapsedMillis);
+    }
+
+    /**
+     * Forces the fixes recorded so far, including those published but not appended yet, to
+     * storage, on the recorder's thread.
+     */
+    public void flushTrackRecorder() {
+        mTrackRecorderExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final TrackRecorder recorder = getTrackRecorder();
+
+                if (recorder != null) {
+                    recorder.flush();
+                }
+
+                final TrackRecorder archive = getTrackArchive();
+
+                if (archive != null) {
+                    archive.flush();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the store of the statistics of the current trip, updated with every live fix.
+     */
+    public StateStore<TripSnapshot> getTripStore() {
+        return mTripStore;
+    }
+
+    /**
+     * Starts a new trip from the next live fix.
+     */
+    public void resetTrip() {
+        mTripExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mTripStatistics.reset();
+                mTripStore.publish(mTripStatistics.snapshot());
+            }
+        });
+    }
+
+    /**
+     * Returns the monitor of the sideloaded fences, or null if there are none or they aren't
+     * loaded yet. It is fed with the live fixes on its own thread, where transitions are
+     * reported.
+     */
+    public GeofenceMonitor getGeofenceMonitor() {
+        return mGeofenceMonitor;
+    }
+
+    @Override
+    public void onGeofenceTransition(Geofence fence, GeofenceMonitor.Transition transition,
+            long timeInMillis) {
+        Timber.i("Geofence %s: %s", fence.getId(), transition);
+    }
+
+    private void loadGeofencesInBackground() {
+        final File externalDir = getExternalFilesDir(null);
+
+        if (externalDir == null) {
+            return;
+        }
+
+        final File file = new File(externalDir, Constants.GEOFENCES_FILE_NAME);
+
+        if (! file.isFile()) {
+            return;
+        }
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+                try {
+                    final InputStream input = new FileInputStream(file);
+                    final List<Geofence> fences;
+
+                    try {
+                        fences = GeofenceReader.readCsv(new InputStreamReader(input, "UTF-8"));
+                    } finally {
+                        input.close();
+                    }
+
+                    mGeofenceMonitor = new GeofenceMonitor(
+                            new GeofenceIndex(fences, Constants.GEOFENCE_GRID_CELL_IN_DEGREES,
+                                    Constants.GEOFENCE_MAX_CELLS_PER_FENCE),
+                            FindMeApplication.this,
+                            Constants.GEOFENCE_EXIT_HYSTERESIS_IN_METERS,
+                            Constants.GEOFENCE_DWELL_DELAY_IN_MILLISECONDS);
+                    Timber.d("Monitoring %d geofences", fences.size());
+                } catch (IOException e) {
+                    Timber.e(e, "Loading the geofences from %s", file);
+                }
+            }
+        }, "Geofences").start();
     }
 }
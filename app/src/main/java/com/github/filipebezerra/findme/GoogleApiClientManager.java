@@ -0,0 +1,190 @@
+package com.github.filipebezerra.findme;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.location.LocationServices;
+import java.util.ArrayList;
+import java.util.List;
+import timber.log.Timber;
+
+import static com.github.filipebezerra.findme.utils.ConnectionResultError.getConnectionResultErrorMessage;
+import static com.github.filipebezerra.findme.utils.ConnectionResultError.getConnectionSuspendedCauseMessage;
+import static com.google.android.gms.common.api.GoogleApiClient.ConnectionCallbacks;
+import static com.google.android.gms.common.api.GoogleApiClient.OnConnectionFailedListener;
+
+/**
+ * Owns the single {@link GoogleApiClient} of the application and keeps it connected while
+ * anyone uses it.
+ * <p/>
+ * Consumers {@link #acquire} the client when they start and {@link #release} it when they stop.
+ * Once the last one releases it, the client is only disconnected after a grace period, so a
+ * rotation or a quick back and forth between screens finds it still connected and gets
+ * {@link ConnectionCallbacks#onConnected} right away instead of waiting for a new handshake.
+ * <p/>
+ * Must only be used from the main thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 16/08/2015
+ * @since #
+ */
+public class GoogleApiClientManager implements ConnectionCallbacks, OnConnectionFailedListener {
+    private final GoogleApiClient mGoogleApiClient;
+
+    private final long mDisconnectGracePeriodInMillis;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final List<ConnectionCallbacks> mConnectionCallbacks = new ArrayList<>();
+
+    private final List<OnConnectionFailedListener> mConnectionFailedListeners =
+            new ArrayList<>();
+
+    private int mReferenceCount;
+
+    private long mConnectingSince = -1;
+
+    private final Runnable mDisconnectRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mReferenceCount == 0 && (mGoogleApiClient.isConnected()
+                    || mGoogleApiClient.isConnecting())) {
+                Timber.d("Disconnecting from Google Play Services...");
+                mGoogleApiClient.disconnect();
+                mConnectingSince = -1;
+            }
+        }
+    };
+
+    public GoogleApiClientManager(Context context, long disconnectGracePeriodInMillis) {
+        Timber.d("Building new GoogleApiClient instance...");
+        mGoogleApiClient = new GoogleApiClient.Builder(context.getApplicationContext())
+                .addConnectionCallbacks(this)
+                .addOnConnectionFailedListener(this)
+                .addApi(LocationServices.API)
+                .build();
+        mDisconnectGracePeriodInMillis = disconnectGracePeriodInMillis;
+    }
+
+    /**
+     * Returns the shared client. It is only guaranteed to be connected between the
+     * {@link ConnectionCallbacks#onConnected} call of a consumer and its {@link #release}.
+     */
+    public GoogleApiClient getClient() {
+        return mGoogleApiClient;
+    }
+
+    /**
+     * Registers a consumer of the client and connects it if needed. If the client is connected
+     * already, {@code callbacks} are notified before this method returns.
+     */
+    @MainThread
+    public void acquire(ConnectionCallbacks callbacks, OnConnectionFailedListener failedListener) {
+        mReferenceCount++;
+        mHandler.removeCallbacks(mDisconnectRunnable);
+
+        if (! mConnectionCallbacks.contains(callbacks)) {
+            mConnectionCallbacks.add(callbacks);
+        }
+
+        if (! mConnectionFailedListeners.contains(failedListener)) {
+            mConnectionFailedListeners.add(failedListener);
+        }
+
+        if (mGoogleApiClient.isConnected()) {
+            Timber.d("Reusing the connection with Google Play Services");
+            Metrics.PLAY_SERVICES_CONNECTION_REUSED.increment();
+            callbacks.onConnected(null);
+        } else {
+            connect();
+        }
+    }
+
+    /**
+     * Unregisters a consumer, disconnecting the client after the grace period if it was the last
+     * one.
+     */
+    @MainThread
+    public void release(ConnectionCallbacks callbacks, OnConnectionFailedListener failedListener) {
+        if (! mConnectionCallbacks.remove(callbacks)) {
+            Timber.w("Releasing GoogleApiClient not acquired by %s", callbacks);
+            return;
+        }
+
+        mConnectionFailedListeners.remove(failedListener);
+
+        if (--mReferenceCount == 0) {
+            mHandler.postDelayed(mDisconnectRunnable, mDisconnectGracePeriodInMillis);
+        }
+    }
+
+    /**
+     * Connects the client if it is neither connected nor connecting, e.g. after the user
+     * resolved a Google Play services error.
+     */
+    @MainThread
+    public void connect() {
+        if (! mGoogleApiClient.isConnected() && ! mGoogleApiClient.isConnecting()) {
+            Timber.d("Connecting with Google Play Services...");
+            mConnectingSince = SystemClock.elapsedRealtime();
+            mGoogleApiClient.connect();
+        }
+    }
+
+    @Override
+    public void onConnected(Bundle bundle) {
+        if (mConnectingSince >= 0) {
+            final long connectTime = SystemClock.elapsedRealtime() - mConnectingSince;
+            Timber.d("Connected with Google Play Services in %d ms", connectTime);
+            Metrics.PLAY_SERVICES_CONNECT_TIME.record(connectTime);
+            mConnectingSince = -1;
+        }
+
+        for (ConnectionCallbacks callbacks : snapshotOf(mConnectionCallbacks)) {
+            callbacks.onConnected(bundle);
+        }
+    }
+
+    @Override
+    public void onConnectionSuspended(int cause) {
+        Timber.d("Connection with Google Play Services suspended, %s",
+                getConnectionSuspendedCauseMessage(cause));
+        Metrics.PLAY_SERVICES_CONNECTION_SUSPENDED.increment();
+
+        for (ConnectionCallbacks callbacks : snapshotOf(mConnectionCallbacks)) {
+            callbacks.onConnectionSuspended(cause);
+        }
+
+        // The connection to Google Play services was lost for some reason. Attempt to
+        // re-establish it while someone still needs it.
+        if (mReferenceCount > 0) {
+            connect();
+        }
+    }
+
+    @Override
+    public void onConnectionFailed(ConnectionResult result) {
+        Timber.d("Connection with Google Play Services failed, %s",
+                getConnectionResultErrorMessage(result.getErrorCode()));
+        Metrics.PLAY_SERVICES_CONNECTION_FAILED.increment();
+        mConnectingSince = -1;
+
+        for (OnConnectionFailedListener listener : snapshotOf(mConnectionFailedListeners)) {
+            listener.onConnectionFailed(result);
+        }
+    }
+
+    /**
+     * Consumers may release the client while being notified.
+     */
+    private static <T> List<T> snapshotOf(List<T> listeners) {
+        return new ArrayList<>(listeners);
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.github.filipebezerra.findme.activities;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.view.Menu;
+import android.view.MenuItem;
+import com.github.filipebezerra.findme.BuildConfig;
 import com.github.filipebezerra.findme.R;
 import timber.log.Timber;
 
@@ -25,4 +29,22 @@ public class MainActivity extends AppCompatActivity {
         getSupportActionBar().setDisplayHomeAsUpEnabled(true);
         getSupportActionBar().setHomeAsUpIndicator(R.mipmap.ic_menu);
     }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        // The metrics screen is a debugging aid.
+        if (BuildConfig.DEBUG) {
+            getMenuInflater().inflate(R.menu.menu_main, menu);
+        }
+        return super.onCreateOptionsMenu(menu);
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
 }
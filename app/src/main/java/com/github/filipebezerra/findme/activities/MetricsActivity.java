@@ -0,0 +1,172 @@
+package com.github.filipebezerra.findme.activities;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.Toolbar;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+import com.github.filipebezerra.findme.R;
+import com.github.filipebezerra.findme.location.FirstFixStats;
+import com.github.filipebezerra.findme.logging.CrashLogWriter;
+import com.github.filipebezerra.findme.metrics.MetricsRegistry;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import timber.log.Timber;
+
+/**
+ * Debug screen showing the current values of the application metrics, refreshed every second,
+ * along with the times to first fix of every release, and dumping them to a JSON file in the app's
+ * external files directory. It also writes out the in-memory log on demand.
+ *
+ * @author Filipe Bezerra
+ * @version #, 18/08/2015
+ * @since #
+ */
+public class MetricsActivity extends AppCompatActivity {
+    private static final long REFRESH_INTERVAL_IN_MILLISECONDS = 1000;
+
+    private final Handler mHandler = new Handler();
+
+    private TextView mMetricsView;
+
+    private FirstFixStats mFirstFixStats;
+
+    /**
+     * Times to first fix of every release, which only change when tracking starts.
+     */
+    private String mFirstFixText;
+
+    private final Runnable mRefreshRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refresh();
+            mHandler.postDelayed(this, REFRESH_INTERVAL_IN_MILLISECONDS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        setSupportActionBar((Toolbar) findViewById(R.id.toolbar));
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        mMetricsView = (TextView) findViewById(R.id.metrics_text);
+        mFirstFixStats = new FirstFixStats(this);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mFirstFixText = mFirstFixStats.toText();
+        mHandler.post(mRefreshRunnable);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mHandler.removeCallbacks(mRefreshRunnable);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        switch (item.getItemId()) {
+            case android.R.id.home:
+                finish();
+                return true;
+            case R.id.action_refresh_metrics:
+                refresh();
+                return true;
+            case R.id.action_dump_metrics:
+                dump();
+                return true;
+            case R.id.action_reset_metrics:
+                MetricsRegistry.getInstance().reset();
+                refresh();
+                return true;
+            case R.id.action_dump_log:
+                dumpLog();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    private void refresh() {
+        mMetricsView.setText(MetricsRegistry.getInstance().toText() + mFirstFixText);
+    }
+
+    private void dump() {
+        final long now = System.currentTimeMillis();
+        final File file = new File(getExternalFilesDir(null), "metrics-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date(now))
+                + ".json");
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                boolean written = false;
+
+                try {
+                    final Writer writer =
+                            new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+                    try {
+                        MetricsRegistry.getInstance().writeJson(writer, now);
+                        written = true;
+                    } finally {
+                        writer.close();
+                    }
+                } catch (IOException e) {
+                    Timber.e(e, "Dumping the metrics to %s", file);
+                }
+
+                showMessage(written
+                        ? getString(R.string.metrics_dumped, file.getPath())
+                        : getString(R.string.metrics_dump_failed));
+            }
+        }, "MetricsDump").start();
+    }
+
+    private void dumpLog() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                String message;
+
+                try {
+                    message = getString(R.string.log_dumped,
+                            CrashLogWriter.dump(MetricsActivity.this, "log").getPath());
+                } catch (IOException e) {
+                    Timber.e(e, "Dumping the log");
+                    message = getString(R.string.log_dump_failed);
+                }
+
+                showMessage(message);
+            }
+        }, "LogDump").start();
+    }
+
+    private void showMessage(final String message) {
+        runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Toast.makeText(MetricsActivity.this, message, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+}
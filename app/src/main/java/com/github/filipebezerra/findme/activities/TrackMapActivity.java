@@ -0,0 +1,131 @@
+package com.github.filipebezerra.findme.activities;
+
+import android.os.Bundle;
+import android.support.v4.app.FragmentManager;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.Toolbar;
+import android.view.MenuItem;
+import com.github.filipebezerra.findme.R;
+import com.github.filipebezerra.findme.fragments.TrackLoaderFragment;
+import com.github.filipebezerra.findme.map.SimplifiedTrack;
+import com.github.filipebezerra.findme.map.TrackOverlay;
+import com.github.filipebezerra.findme.tracking.TrackingService;
+import com.google.android.gms.maps.CameraUpdateFactory;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.OnMapReadyCallback;
+import com.google.android.gms.maps.SupportMapFragment;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * Shows the recorded trail on a map, extended with the live fixes while the screen is open.
+ * <p/>
+ * The trail, archived and recent, is loaded and kept up to date by a retained
+ * {@link TrackLoaderFragment}, and drawn by a {@link TrackOverlay} once both it and the map are
+ * ready.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+public class TrackMapActivity extends AppCompatActivity
+        implements OnMapReadyCallback, TrackLoaderFragment.Callbacks {
+    private GoogleMap mMap;
+
+    private TrackLoaderFragment mLoader;
+
+    private TrackOverlay mOverlay;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_track_map);
+        setSupportActionBar((Toolbar) findViewById(R.id.toolbar));
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        // Created only once, then handed over to the activity recreated on rotation.
+        final FragmentManager fragmentManager = getSupportFragmentManager();
+        mLoader = (TrackLoaderFragment) fragmentManager.findFragmentByTag(
+                TrackLoaderFragment.TAG);
+
+        if (mLoader == null) {
+            mLoader = new TrackLoaderFragment();
+            fragmentManager.beginTransaction().add(mLoader, TrackLoaderFragment.TAG).commit();
+        }
+
+        ((SupportMapFragment) fragmentManager.findFragmentById(R.id.map)).getMapAsync(this);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        TrackingService.addViewer();
+    }
+
+    @Override
+    protected void onPause() {
+        TrackingService.removeViewer();
+        super.onPause();
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            finish();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    public void onMapReady(GoogleMap map) {
+        mMap = map;
+        showTrack();
+    }
+
+    @Override
+    public void onTrackLoaded() {
+        showTrack();
+    }
+
+    @Override
+    public void onTrackChanged() {
+        if (mOverlay != null) {
+            mOverlay.render();
+        }
+    }
+
+    private void showTrack() {
+        final SimplifiedTrack track = mLoader.getTrack();
+
+        if (mMap == null || track == null) {
+            return;
+        }
+
+        mOverlay = new TrackOverlay(mMap, track,
+                getResources().getColor(R.color.material_pink_700),
+                getResources().getDimension(R.dimen.track_map_line_width));
+        mMap.setOnCameraChangeListener(mOverlay);
+
+        if (track.isEmpty()) {
+            return;
+        }
+
+        final LatLngBounds bounds = new LatLngBounds(
+                new LatLng(track.getSouth(), track.getWest()),
+                new LatLng(track.getNorth(), track.getEast()));
+        final int padding = getResources().getDimensionPixelSize(R.dimen.track_map_padding);
+
+        try {
+            mMap.moveCamera(CameraUpdateFactory.newLatLngBounds(bounds, padding));
+        } catch (IllegalStateException e) {
+            // The map hasn't been laid out yet, so the bounds can't be fit until it is.
+            mMap.setOnMapLoadedCallback(new GoogleMap.OnMapLoadedCallback() {
+                @Override
+                public void onMapLoaded() {
+                    mMap.moveCamera(CameraUpdateFactory.newLatLngBounds(bounds, padding));
+                }
+            });
+        }
+    }
+}
@@ -6,18 +6,27 @@ import android.location.Location;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.ResultReceiver;
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
+import android.support.v4.view.ViewCompat;
 import android.view.View;
-import com.github.filipebezerra.findme.tasks.FetchAddressIntentService;
+import com.github.filipebezerra.findme.FindMeApplication;
+import com.github.filipebezerra.findme.GoogleApiClientManager;
+import com.github.filipebezerra.findme.geocoding.AutoAddressPolicy;
+import com.github.filipebezerra.findme.location.FirstFixRace;
+import com.github.filipebezerra.findme.location.FusedLocationProvider;
+import com.github.filipebezerra.findme.location.LocationProvider;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.state.LocationState;
+import com.github.filipebezerra.findme.state.MainThreadExecutor;
+import com.github.filipebezerra.findme.state.StateStore;
+import com.github.filipebezerra.findme.state.Subscriber;
+import com.github.filipebezerra.findme.tasks.GeocodeEngine;
+import com.github.filipebezerra.findme.tracking.TrackingService;
 import com.github.filipebezerra.findme.utils.Constants;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.location.LocationListener;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationServices;
-import java.text.DateFormat;
-import java.util.Date;
 import timber.log.Timber;
 
 import static com.github.filipebezerra.findme.utils.ConnectionResultError.getConnectionResultErrorMessage;
@@ -29,21 +38,24 @@ import static com.google.android.gms.common.api.GoogleApiClient.OnConnectionFail
 
 /**
  * Base fragment class containing helper methods from {@link com.google.android.gms.common.api.GoogleApiClient}.
+ * <p/>
+ * It shows the location tracked by the {@link TrackingService}, which keeps running while the
+ * UI is paused, and starts or stops the service.
  *
  * @author Filipe Bezerra
  * @version 1.0, 08/04/2015
  * @since #
  */
 public abstract class BaseGoogleApisFragment extends Fragment
-    implements ConnectionCallbacks, OnConnectionFailedListener, LocationListener {
+    implements ConnectionCallbacks, OnConnectionFailedListener {
 
     private static final String TAG = BaseGoogleApisFragment.class.getSimpleName();
 
-    protected static final String STATE_REQUESTING_LOCATION_UPDATES_KEY = "STATE_REQUESTING_LOCATION_UPDATES_KEY";
     protected static final String STATE_LOCATION_KEY = "STATE_LOCATION_KEY";
-    protected static final String STATE_LAST_UPDATED_TIME_STRING_KEY = "STATE_LAST_UPDATED_TIME_STRING_KEY";
+    protected static final String STATE_LAST_UPDATED_TIME_KEY = "STATE_LAST_UPDATED_TIME_KEY";
     protected static final String STATE_ADDRESS_REQUESTED_KEY = "STATE_ADDRESS_REQUESTED_KEY";
     protected static final String STATE_LOCATION_ADDRESS_KEY = "STATE_LOCATION_ADDRESS_KEY";
+    protected static final String STATE_AUTO_ADDRESS_KEY = "STATE_AUTO_ADDRESS_KEY";
 
     /**
      * Request code to call {@link com.google.android.gms.common.GooglePlayServicesUtil#getErrorDialog}
@@ -51,65 +63,108 @@ public abstract class BaseGoogleApisFragment extends Fragment
     protected static final int REQUEST_CODE_GET_ERROR_DIALOG = 1001;
 
     /**
-     * The desired interval for location updates. Inexact. Updates may be more or less frequent.
+     * Provides the entry point to Google Play services.
      */
-    public static final long UPDATE_INTERVAL_IN_MILLISECONDS = 10000;
+    protected GoogleApiClient mGoogleApiClient;
 
     /**
-     * The fastest rate for active location updates. Exact. Updates will never be more frequent
-     * than this value.
+     * Shares {@link #mGoogleApiClient} with the rest of the application.
      */
-    public static final long FASTEST_UPDATE_INTERVAL_IN_MILLISECONDS =
-            UPDATE_INTERVAL_IN_MILLISECONDS / 2;
+    protected GoogleApiClientManager mGoogleApiClientManager;
 
     /**
-     * Provides the entry point to Google Play services.
+     * Provides the last location known by the FusedLocationProviderApi, shown until the
+     * tracking service delivers a fix.
      */
-    protected GoogleApiClient mGoogleApiClient;
+    protected LocationProvider mLocationProvider;
+
+    /**
+     * Shows a last known location while waiting for the first live fix, and times both.
+     */
+    private FirstFixRace mFirstFixRace;
 
     /**
-     * Stores parameters for requests to the FusedLocationProviderApi.
+     * Holds the location and address shared by the whole application. It is written on the main
+     * thread only, by this fragment and the {@link TrackingService}.
      */
-    protected LocationRequest mLocationRequest;
+    protected StateStore<LocationState> mLocationStateStore;
 
     /**
-     * Represents a geographical location.
+     * Delivers the snapshots of {@link #mLocationStateStore} to the UI, keeping only the latest.
      */
-    protected Location mLastLocation;
+    private StateStore.Subscription<LocationState> mUiSubscription;
 
     /**
-     * Time when the location was updated represented as a String.
+     * The snapshot shown by the UI, only touched on the main thread.
      */
-    protected String mLastUpdateTime = "";
+    protected LocationState mState = LocationState.EMPTY;
 
     /**
-     * Tracks the status of the location updates request.
+     * Whether the {@link TrackingService} is running.
      */
     protected boolean mRequestingLocationUpdates = false;
 
     /**
-     * Tracks whether the user has requested an address. Becomes true when the user requests an
-     * address and false when the address (or an error message) is delivered.
-     * The user requests an address by pressing the Fetch Address button. This may happen
-     * before GoogleApiClient connects. This activity uses this boolean to keep track of the
-     * user's intent. If the value is true, the activity tries to fetch the address as soon as
-     * GoogleApiClient connects.
+     * Whether the address follows the device, looked up again as it moves.
+     */
+    protected boolean mAutoAddress = false;
+
+    /**
+     * Decides when the address following the device is looked up again.
+     */
+    private final AutoAddressPolicy mAutoAddressPolicy = new AutoAddressPolicy(
+            Constants.AUTO_ADDRESS_MIN_DISPLACEMENT_IN_METERS,
+            Constants.AUTO_ADDRESS_CELL_PRECISION,
+            Constants.AUTO_ADDRESS_CELL_HYSTERESIS_IN_METERS,
+            Constants.AUTO_ADDRESS_DEBOUNCE_IN_MILLISECONDS);
+
+    private final Handler mHandler = new Handler();
+
+    /**
+     * Makes the lookup put off by {@link #mAutoAddressPolicy}, with the latest location.
      */
-    protected boolean mAddressRequested = false;
+    private final Runnable mFollowAddressRunnable = new Runnable() {
+        @Override
+        public void run() {
+            followAddress();
+        }
+    };
 
     /**
-     * The formatted location address.
+     * Number of the latest address lookup. Results of older lookups are dropped, since they
+     * would replace a more current address.
      */
-    protected String mAddressOutput = "";
+    private int mAddressLookupSequence;
 
     /**
-     * Receiver registered with this activity to get the response from FetchAddressIntentService.
+     * The address lookup waiting for a result, if any.
      */
-    private AddressResultReceiver mResultReceiver;
+    private GeocodeEngine.Request mPendingAddressRequest;
 
 
     protected int mGoogleApiAvailability = -1;
 
+    /**
+     * Whether {@link #mUiUpdateRunnable} is already posted for the next frame.
+     */
+    private boolean mUiUpdatePending = false;
+
+    /**
+     * Updates the UI once per frame at most, however many fixes arrived in between.
+     */
+    private final Runnable mUiUpdateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mUiUpdatePending = false;
+
+            if (mState.hasLocation() && getView() != null) {
+                final long start = System.nanoTime();
+                updateGeographicalLocationUI();
+                Metrics.UI_UPDATE_TIME.record((System.nanoTime() - start) / 1000);
+            }
+        }
+    };
+
     protected abstract void updateGeographicalLocationUI();
 
     protected abstract void displayAddressOutput();
@@ -118,19 +173,38 @@ public abstract class BaseGoogleApisFragment extends Fragment
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         Timber.tag(TAG);
+        mFirstFixRace = new FirstFixRace(getActivity());
         buildGoogleApiClient();
-        mResultReceiver = new AddressResultReceiver(new Handler());
+        mLocationStateStore = FindMeApplication.get(getActivity()).getLocationStateStore();
+        mRequestingLocationUpdates = TrackingService.isRunning();
         updateValuesFromBundle(savedInstanceState);
+        mState = mLocationStateStore.get();
+        mUiSubscription = mLocationStateStore.subscribe(new Subscriber<LocationState>() {
+            @Override
+            public void onState(LocationState state) {
+                showState(state);
+            }
+        }, MainThreadExecutor.getInstance(), 1);
     }
 
     @Override
     public void onViewCreated(View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+
+        // Show what was restored or received while there was no view yet.
+        if (mState.hasLocation()) {
+            updateGeographicalLocationUI();
+        }
+
+        if (! mState.address.isEmpty()) {
+            displayAddressOutput();
+        }
     }
 
     @Override
     public void onStart() {
         super.onStart();
+        showLastKnownLocation(mFirstFixRace.start(mLocationStateStore.get().location));
         connectGoogleApiClient();
     }
 
@@ -138,15 +212,17 @@ public abstract class BaseGoogleApisFragment extends Fragment
     public void onResume() {
         super.onResume();
 
-        if (! showErrorDialogIfGooglePlayNotAvailable()) {
-            if (mRequestingLocationUpdates) {
-                startLocationUpdates();
-            }
+        // Tracking may have been stopped from its notification meanwhile.
+        mRequestingLocationUpdates = TrackingService.isRunning();
+        TrackingService.addViewer();
 
-            if (mAddressRequested) {
+        if (! showErrorDialogIfGooglePlayNotAvailable()) {
+            if (mLocationStateStore.get().addressRequested) {
                 fetchAddressHandler();
             }
         }
+
+        followAddress();
     }
 
     public boolean showErrorDialogIfGooglePlayNotAvailable() {
@@ -167,11 +243,11 @@ public abstract class BaseGoogleApisFragment extends Fragment
 
     protected void fetchAddressHandler() {
         if (! showErrorDialogIfGooglePlayNotAvailable()) {
-            if (isGoogleApiClientConnected() && mLastLocation != null) {
-                startIntentService();
+            if (isGoogleApiClientConnected() && mLocationStateStore.get().hasLocation()) {
+                startAddressLookup();
             }
 
-            mAddressRequested = true;
+            publish(mLocationStateStore.get().withAddressRequested(true));
             // TODO: showMessage
             //showMessage(getActivity(), "Getting your current address...");
         }
@@ -180,7 +256,13 @@ public abstract class BaseGoogleApisFragment extends Fragment
     @Override
     public void onPause() {
         super.onPause();
-        stopLocationUpdates();
+        TrackingService.removeViewer();
+        mHandler.removeCallbacks(mFollowAddressRunnable);
+        // Location updates go on in the TrackingService, if it is running.
+        final LocationState state = mLocationStateStore.get();
+        if (state.hasLocation()) {
+            mFirstFixRace.save(state.location);
+        }
     }
 
     @Override
@@ -190,23 +272,39 @@ public abstract class BaseGoogleApisFragment extends Fragment
     }
 
     @Override
-    public void onSaveInstanceState(Bundle outState) {
-        Timber.d("Saving requesting location updates state as %s", mRequestingLocationUpdates);
+    public void onDestroyView() {
+        if (mUiUpdatePending) {
+            getView().removeCallbacks(mUiUpdateRunnable);
+            mUiUpdatePending = false;
+        }
+        super.onDestroyView();
+    }
 
-        // Save whether the location updates has been requested.
-        outState.putBoolean(STATE_REQUESTING_LOCATION_UPDATES_KEY, mRequestingLocationUpdates);
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mUiSubscription.cancel();
+        cancelAddressLookup();
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        final LocationState state = mLocationStateStore.get();
 
         // Save the last location.
-        outState.putParcelable(STATE_LOCATION_KEY, mLastLocation);
+        outState.putParcelable(STATE_LOCATION_KEY, state.location);
 
-        // Save the last location update time string.
-        outState.putString(STATE_LAST_UPDATED_TIME_STRING_KEY, mLastUpdateTime);
+        // Save the last location update time.
+        outState.putLong(STATE_LAST_UPDATED_TIME_KEY, state.updateTime);
 
         // Save whether the address has been requested.
-        outState.putBoolean(STATE_ADDRESS_REQUESTED_KEY, mAddressRequested);
+        outState.putBoolean(STATE_ADDRESS_REQUESTED_KEY, state.addressRequested);
 
         // Save the address string.
-        outState.putString(STATE_LOCATION_ADDRESS_KEY, mAddressOutput);
+        outState.putString(STATE_LOCATION_ADDRESS_KEY, state.address);
+
+        // Save whether the address follows the device.
+        outState.putBoolean(STATE_AUTO_ADDRESS_KEY, mAutoAddress);
         super.onSaveInstanceState(outState);
 
     }
@@ -218,7 +316,7 @@ public abstract class BaseGoogleApisFragment extends Fragment
             case REQUEST_CODE_GET_ERROR_DIALOG:
                 if (resultCode == Activity.RESULT_OK) {
                     Timber.d("onActivityResult for GooglePlayServices error dialog result ok");
-                    mGoogleApiClient.connect();
+                    mGoogleApiClientManager.connect();
                 } else {
                     Timber.d("onActivityResult for GooglePlayServices error dialog result "
                             + "cancelled or failed with code %d", resultCode);
@@ -233,21 +331,13 @@ public abstract class BaseGoogleApisFragment extends Fragment
     public void onConnected(Bundle bundle) {
         Timber.d("onConnected, Google Play Services...");
 
-        if (mLastLocation == null) {
-            mLastLocation = LocationServices.FusedLocationApi.getLastLocation(mGoogleApiClient);
-
-            if (mLastLocation != null) {
-                mLastUpdateTime = DateFormat.getDateTimeInstance().format(new Date());
-                updateGeographicalLocationUI();
-            }
-        }
-
-        if (mRequestingLocationUpdates) {
-            startLocationUpdates();
+        if (! mFirstFixRace.hasLiveFix()) {
+            showLastKnownLocation(mFirstFixRace.offer(mLocationProvider.getLastLocation(),
+                    mLocationStateStore.get().location));
         }
 
-        if (mAddressRequested) {
-            startIntentService();
+        if (mLocationStateStore.get().addressRequested) {
+            startAddressLookup();
         }
     }
 
@@ -259,80 +349,102 @@ public abstract class BaseGoogleApisFragment extends Fragment
 
     @Override
     public void onConnectionSuspended(int cause) {
-        // The connection to Google Play services was lost for some reason. We call connect() to
-        // attempt to re-establish the connection.
+        // The connection to Google Play services was lost for some reason, the
+        // GoogleApiClientManager attempts to re-establish it.
         Timber.d("onConnectionSuspended, Google Play Services with error message %s",
                 getConnectionSuspendedCauseMessage(cause));
-        mGoogleApiClient.connect();
     }
 
-    @Override
-    public void onLocationChanged(Location location) {
-        Timber.d("onLocationChanged, the current location is %s", location.toString());
-        mLastLocation = location;
-        mLastUpdateTime = DateFormat.getDateTimeInstance().format(new Date());
+    /**
+     * Shows the given location until a live fix arrives, if it isn't the one shown already.
+     */
+    private void showLastKnownLocation(Location location) {
+        final LocationState state = mLocationStateStore.get();
 
-        if (mLastLocation != null) {
-            mLastUpdateTime = DateFormat.getDateTimeInstance().format(new Date());
-            updateGeographicalLocationUI();
+        if (location == null || location == state.location) {
+            return;
         }
+
+        // The time of the fix itself, so it doesn't look fresher than it is.
+        publish(state.withLocation(location, location.getTime(), false));
+        mFirstFixRace.onShown();
     }
 
     /**
-     * Builds a GoogleApiClient. Uses the {@code #addApi} method to request the
-     * LocationServices API.
+     * Publishes a new snapshot of the location state. The store is written by this fragment, with
+     * the last known locations and the addresses, and by the {@link TrackingService}, with the
+     * live fixes, both on the main thread.
      */
-    protected synchronized void buildGoogleApiClient() {
-        Timber.d("Building new GoogleApiClient instance...");
-        mGoogleApiClient = new GoogleApiClient.Builder(getActivity())
-                .addConnectionCallbacks(this)
-                .addOnConnectionFailedListener(this)
-                .addApi(LocationServices.API)
-                .build();
-        createLocationRequest();
+    protected void publish(LocationState state) {
+        if (state != mLocationStateStore.get()) {
+            mLocationStateStore.publish(state);
+        }
+    }
+
+    /**
+     * Shows a snapshot delivered by the store.
+     */
+    private void showState(LocationState state) {
+        final LocationState shown = mState;
+        mState = state;
+
+        if (state.live) {
+            mFirstFixRace.onLiveFix(state.location);
+        }
+
+        if (getView() == null) {
+            // onViewCreated shows the latest snapshot once there is a view.
+            return;
+        }
+
+        if (state.location != shown.location || state.updateTime != shown.updateTime) {
+            requestGeographicalLocationUIUpdate();
+            followAddress();
+        }
+
+        if (! state.address.equals(shown.address)) {
+            displayAddressOutput();
+        }
     }
 
     /**
-     * Sets up the location request. Android has two location request settings:
-     * {@code ACCESS_COARSE_LOCATION} and {@code ACCESS_FINE_LOCATION}. These settings control
-     * the accuracy of the current location. This sample uses ACCESS_FINE_LOCATION, as defined in
-     * the AndroidManifest.xml.
-     * <p/>
-     * When the ACCESS_FINE_LOCATION setting is specified, combined with a fast update
-     * interval (5 seconds), the Fused Location Provider API returns location updates that are
-     * accurate to within a few feet.
-     * <p/>
-     * These settings are appropriate for mapping applications that show real-time location
-     * updates.
+     * Schedules {@link #updateGeographicalLocationUI()} for the next display frame. Bursts of
+     * fixes arriving within the same frame cause a single update.
      */
-    protected void createLocationRequest() {
-        Timber.d("Creating location request");
-        mLocationRequest = new LocationRequest();
+    protected void requestGeographicalLocationUIUpdate() {
+        final View view = getView();
 
-        // Sets the desired interval for active location updates. This interval is
-        // inexact. You may not receive updates at all if no location sources are mGoogleApiAvailability, or
-        // you may receive them slower than requested. You may also receive updates faster than
-        // requested if other applications are requesting location at a faster interval.
-        mLocationRequest.setInterval(UPDATE_INTERVAL_IN_MILLISECONDS);
+        // Without a view, onViewCreated shows the location once there is one.
+        if (mUiUpdatePending || view == null) {
+            return;
+        }
 
-        // Sets the fastest rate for active location updates. This interval is exact, and your
-        // application will never receive updates faster than this value.
-        mLocationRequest.setFastestInterval(FASTEST_UPDATE_INTERVAL_IN_MILLISECONDS);
+        mUiUpdatePending = true;
+        ViewCompat.postOnAnimation(view, mUiUpdateRunnable);
+    }
 
-        mLocationRequest.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
+    /**
+     * Gets the GoogleApiClient shared by the whole application, which is kept connected across
+     * rotations and quick navigation. See {@link GoogleApiClientManager}.
+     */
+    protected void buildGoogleApiClient() {
+        mGoogleApiClientManager = FindMeApplication.get(getActivity()).getGoogleApiClientManager();
+        mGoogleApiClient = mGoogleApiClientManager.getClient();
+        mLocationProvider = new FusedLocationProvider(mGoogleApiClient);
     }
 
     protected void connectGoogleApiClient() {
-        if (mGoogleApiClient != null) {
-            Timber.d("Connecting with Google Play Services...");
-            mGoogleApiClient.connect();
+        if (mGoogleApiClientManager != null) {
+            mGoogleApiClientManager.acquire(this, this);
         }
     }
 
+    /**
+     * Stops using the shared GoogleApiClient, which other fragments may still be using.
+     */
     protected void disconnectGoogleApiClient() {
-        if (isGoogleApiClientConnected()) {
-            Timber.d("Disconnecting from Google Play Services...");
-            mGoogleApiClient.disconnect();
+        if (mGoogleApiClientManager != null) {
+            mGoogleApiClientManager.release(this, this);
         }
     }
 
@@ -341,118 +453,152 @@ public abstract class BaseGoogleApisFragment extends Fragment
     }
 
     /**
-     * Requests location updates from the FusedLocationApi.
+     * Starts tracking the device, which goes on until stopped, whether the UI is visible or not.
      */
     protected void startLocationUpdates() {
-        if (isGoogleApiClientConnected()) {
-            Timber.d("Staring location updates");
-            // The final argument to {@code requestLocationUpdates()} is a LocationListener
-            // (http://developer.android.com/reference/com/google/android/gms/location/LocationListener.html).
-            LocationServices.FusedLocationApi.requestLocationUpdates(
-                    mGoogleApiClient, mLocationRequest, this);
-        }
+        Timber.d("Starting the tracking service");
+        TrackingService.start(getActivity());
+    }
+
+    protected void stopLocationUpdates() {
+        Timber.d("Stopping the tracking service");
+        TrackingService.stop(getActivity());
     }
 
     /**
-     * Removes location updates from the FusedLocationApi.
+     * Makes the address follow the device or not.
      */
-    protected void stopLocationUpdates() {
-        if (isGoogleApiClientConnected()) {
-            Timber.d("Stopping location updates");
-            // It is a good practice to remove location requests when the activity is in a paused or
-            // stopped state. Doing so helps battery performance and is especially
-            // recommended in applications that request frequent location updates.
-
-            // The final argument to {@code requestLocationUpdates()} is a LocationListener
-            // (http://developer.android.com/reference/com/google/android/gms/location/LocationListener.html).
-            LocationServices.FusedLocationApi.removeLocationUpdates(mGoogleApiClient, this);
+    protected void setAutoAddress(boolean autoAddress) {
+        mAutoAddress = autoAddress;
+        mAutoAddressPolicy.reset();
+        mHandler.removeCallbacks(mFollowAddressRunnable);
+        followAddress();
+    }
+
+    /**
+     * Looks the address of the location up again if the device moved far enough since the last
+     * lookup, while the address follows the device and the fragment is resumed.
+     */
+    private void followAddress() {
+        final LocationState state = mLocationStateStore.get();
+
+        if (! mAutoAddress || ! isResumed() || ! state.hasLocation()) {
+            return;
+        }
+
+        final long now = SystemClock.elapsedRealtime();
+
+        switch (mAutoAddressPolicy.onFix(now, state.location.getLatitude(),
+                state.location.getLongitude(),
+                state.location.hasAccuracy() ? state.location.getAccuracy() : 0)) {
+            case AutoAddressPolicy.LOOK_UP:
+                mHandler.removeCallbacks(mFollowAddressRunnable);
+                Metrics.GEOCODE_AUTO_LOOKUPS.increment();
+                startAddressLookup();
+                break;
+            case AutoAddressPolicy.LOOK_UP_LATER:
+                mHandler.removeCallbacks(mFollowAddressRunnable);
+                mHandler.postDelayed(mFollowAddressRunnable,
+                        mAutoAddressPolicy.getDebounceEnd() - now);
+                break;
+            default:
+                break;
         }
     }
 
     /**
-     * Creates an intent, adds location data to it as an extra, and starts the intent service for
-     * fetching an address.
+     * Submits the last location to the GeocodeEngine for fetching an address. A lookup still
+     * pending for an older location is cancelled, while one for the same spot is simply joined.
      */
-    protected void startIntentService() {
-        // Create an intent for passing to the intent service responsible for fetching the address.
-        Intent intent = new Intent(getActivity(), FetchAddressIntentService.class);
+    protected void startAddressLookup() {
+        final GeocodeEngine.Request previousRequest = mPendingAddressRequest;
 
-        // Pass the result receiver as an extra to the service.
-        intent.putExtra(Constants.RECEIVER, mResultReceiver);
+        mPendingAddressRequest = GeocodeEngine.getInstance(getActivity())
+                .submit(mLocationStateStore.get().location,
+                        new AddressResultReceiver(new Handler(), ++mAddressLookupSequence));
 
-        // Pass the location data as an extra to the service.
-        intent.putExtra(Constants.LOCATION_DATA_EXTRA, mLastLocation);
+        if (previousRequest != null) {
+            previousRequest.cancel();
+        }
+    }
 
-        // Start the service. If the service isn't already running, it is instantiated and started
-        // (creating a process for it if needed); if it is running then it remains running. The
-        // service kills itself automatically once all intents are processed.
-        getActivity().startService(intent);
+    protected void cancelAddressLookup() {
+        if (mPendingAddressRequest != null) {
+            mPendingAddressRequest.cancel();
+            mPendingAddressRequest = null;
+        }
     }
 
     /**
-     * Updates fields based on data stored in the bundle.
+     * Updates fields based on data stored in the bundle. The location state is only restored
+     * when the store has none, as after the process was killed.
      *
      * @param savedInstanceState The activity state saved in the Bundle.
      */
     private void updateValuesFromBundle(Bundle savedInstanceState) {
         Timber.i(TAG, "Updating values from bundle");
         if (savedInstanceState != null) {
-            // Update the value of mRequestingLocationUpdates from the Bundle, and make sure that
-            // the Start Updates and Stop Updates buttons are correctly enabled or disabled.
-            if (savedInstanceState.keySet().contains(STATE_REQUESTING_LOCATION_UPDATES_KEY)) {
-                mRequestingLocationUpdates = savedInstanceState.getBoolean(
-                        STATE_REQUESTING_LOCATION_UPDATES_KEY);
-            }
+            // Check savedInstanceState to see if the address was following the device.
+            mAutoAddress = savedInstanceState.getBoolean(STATE_AUTO_ADDRESS_KEY);
 
-            // Update the value of mCurrentLocation from the Bundle and update the UI to show the
-            // correct latitude and longitude.
-            if (savedInstanceState.keySet().contains(STATE_LOCATION_KEY)) {
-                // Since LOCATION_KEY was found in the Bundle, we can be sure that mCurrentLocation
-                // is not null.
-                mLastLocation = savedInstanceState.getParcelable(STATE_LOCATION_KEY);
+            // A live store outlived this fragment, as on a rotation, and is more recent.
+            if (mLocationStateStore.get() != LocationState.EMPTY) {
+                return;
             }
 
-            // Update the value of mLastUpdateTime from the Bundle and update the UI.
-            if (savedInstanceState.keySet().contains(STATE_LAST_UPDATED_TIME_STRING_KEY)) {
-                mLastUpdateTime = savedInstanceState.getString(STATE_LAST_UPDATED_TIME_STRING_KEY);
-            }
+            LocationState state = LocationState.EMPTY;
 
-            // Check savedInstanceState to see if the address was previously requested.
-            if (savedInstanceState.keySet().contains(STATE_ADDRESS_REQUESTED_KEY)) {
-                mAddressRequested = savedInstanceState.getBoolean(STATE_ADDRESS_REQUESTED_KEY);
+            // Restore the last location and its update time, so the UI shows the correct
+            // latitude and longitude.
+            final Location location = savedInstanceState.getParcelable(STATE_LOCATION_KEY);
+            if (location != null) {
+                state = state.withLocation(location,
+                        savedInstanceState.getLong(STATE_LAST_UPDATED_TIME_KEY), false);
             }
 
             // Check savedInstanceState to see if the location address string was previously found
-            // and stored in the Bundle. If it was found, display the address string in the UI.
+            // and stored in the Bundle. If it was found, onViewCreated displays it in the UI.
             if (savedInstanceState.keySet().contains(STATE_LOCATION_ADDRESS_KEY)) {
-                mAddressOutput = savedInstanceState.getString(STATE_LOCATION_ADDRESS_KEY);
-                displayAddressOutput();
+                state = state.withAddress(
+                        savedInstanceState.getString(STATE_LOCATION_ADDRESS_KEY));
             }
 
-            if (mLastLocation != null) {
-                updateGeographicalLocationUI();
-            }
+            // Check savedInstanceState to see if the address was previously requested.
+            state = state.withAddressRequested(
+                    savedInstanceState.getBoolean(STATE_ADDRESS_REQUESTED_KEY));
+
+            publish(state);
         }
     }
 
     protected class AddressResultReceiver extends ResultReceiver {
+        /**
+         * Number of the lookup this receiver gets the result of.
+         */
+        private final int mSequence;
 
-        public AddressResultReceiver(Handler handler) {
+        public AddressResultReceiver(Handler handler, int sequence) {
             super(handler);
+            mSequence = sequence;
         }
         @Override
         protected void onReceiveResult(int resultCode, Bundle resultData) {
             Timber.d("onReceiveResult address with result %d", resultCode);
-            mAddressOutput = resultData.getString(Constants.RESULT_DATA_KEY);
 
-            if (resultCode == Constants.FAILURE_RESULT) {
-                // TODO: showMessage
-                //showMessage(getActivity(), mAddressOutput);
-            } else {
-                displayAddressOutput();
+            if (mSequence != mAddressLookupSequence) {
+                Metrics.GEOCODE_STALE_RESULTS.increment();
+                return;
+            }
+
+            // A lookup failing while the geocoders are unavailable may be replayed later, so it
+            // is kept to be cancelled by the next one.
+            if (resultCode == Constants.SUCCESS_RESULT) {
+                mPendingAddressRequest = null;
             }
 
-            mAddressRequested = false;
+            // The UI shows the address, or the error message, once the store delivers it.
+            publish(mLocationStateStore.get().withAddress(
+                    resultData.getString(Constants.RESULT_DATA_KEY)));
         }
     }
 }
\ No newline at end of file
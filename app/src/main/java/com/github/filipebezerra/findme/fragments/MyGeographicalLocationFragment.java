@@ -1,7 +1,9 @@
 package com.github.filipebezerra.findme.fragments;
 
+import android.content.Intent;
 import android.os.Bundle;
 import android.support.annotation.Nullable;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -11,7 +13,18 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import butterknife.Bind;
 import butterknife.ButterKnife;
+import com.github.filipebezerra.findme.FindMeApplication;
 import com.github.filipebezerra.findme.R;
+import com.github.filipebezerra.findme.activities.TrackMapActivity;
+import com.github.filipebezerra.findme.state.LocationState;
+import com.github.filipebezerra.findme.state.MainThreadExecutor;
+import com.github.filipebezerra.findme.state.StateStore;
+import com.github.filipebezerra.findme.state.Subscriber;
+import com.github.filipebezerra.findme.trip.TripFormatter;
+import com.github.filipebezerra.findme.trip.TripSnapshot;
+import com.github.filipebezerra.findme.utils.CoordinateFormatter;
+import com.github.filipebezerra.findme.utils.TextViewBuffer;
+import com.github.filipebezerra.findme.utils.TimestampFormatter;
 
 /**
  * .
@@ -27,11 +40,32 @@ public class MyGeographicalLocationFragment extends BaseGoogleApisFragment {
     @Bind(R.id.last_location_text) protected TextView mLastLocationView;
     @Bind(R.id.last_update_time_text) protected TextView mLastUpdateTimeView;
     @Bind(R.id.last_address_text) protected TextView mLastAddressView;
+    @Bind(R.id.trip_text) protected TextView mTripView;
+
+    /**
+     * Reused to render every location update without allocating.
+     */
+    private final TextViewBuffer mLastLocationText =
+            new TextViewBuffer(CoordinateFormatter.MAX_PAIR_LENGTH);
+    private final TextViewBuffer mLastUpdateTimeText = new TextViewBuffer(32);
+    private final TimestampFormatter mTimestampFormatter = new TimestampFormatter();
+    private final TextViewBuffer mTripText = new TextViewBuffer(TripFormatter.MAX_LENGTH);
+
+    private StateStore.Subscription<TripSnapshot> mTripSubscription;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setHasOptionsMenu(true);
+        mTripSubscription = FindMeApplication.get(getActivity()).getTripStore().subscribe(
+                new Subscriber<TripSnapshot>() {
+                    @Override
+                    public void onState(TripSnapshot trip) {
+                        if (getView() != null) {
+                            displayTrip(trip);
+                        }
+                    }
+                }, MainThreadExecutor.getInstance(), 1);
     }
 
     @Override
@@ -40,6 +74,10 @@ public class MyGeographicalLocationFragment extends BaseGoogleApisFragment {
         View fragmentView = inflater.inflate(R.layout.fragment_my_geographical_location, container,
                 false);
         ButterKnife.bind(this, fragmentView);
+        mLastLocationText.invalidate();
+        mLastUpdateTimeText.invalidate();
+        mTripText.invalidate();
+        displayTrip(FindMeApplication.get(getActivity()).getTripStore().get());
         return fragmentView;
     }
 
@@ -68,6 +106,11 @@ public class MyGeographicalLocationFragment extends BaseGoogleApisFragment {
     @Override
     public void onPrepareOptionsMenu(Menu menu) {
         updateMenuItemLocationUpdates(menu);
+
+        final MenuItem actionAutoAddress = menu.findItem(R.id.action_auto_address);
+        if (actionAutoAddress != null) {
+            actionAutoAddress.setChecked(mAutoAddress);
+        }
     }
 
     @Override
@@ -79,6 +122,16 @@ public class MyGeographicalLocationFragment extends BaseGoogleApisFragment {
             case R.id.action_fetch_address:
                 fetchAddressHandler();
                 return true;
+            case R.id.action_auto_address:
+                setAutoAddress(! item.isChecked());
+                item.setChecked(mAutoAddress);
+                return true;
+            case R.id.action_reset_trip:
+                FindMeApplication.get(getActivity()).resetTrip();
+                return true;
+            case R.id.action_track_map:
+                startActivity(new Intent(getActivity(), TrackMapActivity.class));
+                return true;
             default:
                 return super.onOptionsItemSelected(item);
         }
@@ -107,16 +160,35 @@ public class MyGeographicalLocationFragment extends BaseGoogleApisFragment {
         ButterKnife.unbind(this);
     }
 
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        mTripSubscription.cancel();
+    }
+
     @Override
     protected void updateGeographicalLocationUI() {
-        final String lastLocation = String.valueOf(mLastLocation.getLatitude()).concat(", ")
-                .concat(String.valueOf(mLastLocation.getLongitude()));
-        mLastLocationView.setText(lastLocation);
-        mLastUpdateTimeView.setText(mLastUpdateTime);
+        final LocationState state = mState;
+        final char[] lastLocation = mLastLocationText.scratch();
+        final int lastLocationLength = CoordinateFormatter.formatPair(
+                state.location.getLatitude(), state.location.getLongitude(), lastLocation);
+        mLastLocationText.commit(mLastLocationView, lastLocation, lastLocationLength);
+
+        final char[] lastUpdateTime = mTimestampFormatter.format(state.updateTime,
+                mLastUpdateTimeText.scratch());
+        mLastUpdateTimeText.commit(mLastUpdateTimeView, lastUpdateTime,
+                mTimestampFormatter.length());
+    }
+
+    private void displayTrip(final TripSnapshot trip) {
+        final char[] text = mTripText.scratch();
+        mTripText.commit(mTripView, text, trip.isEmpty() ? 0 : TripFormatter.format(trip, text));
     }
 
     @Override
     protected void displayAddressOutput() {
-        mLastAddressView.setText(mAddressOutput);
+        if (! TextUtils.equals(mLastAddressView.getText(), mState.address)) {
+            mLastAddressView.setText(mState.address);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.github.filipebezerra.findme.fragments;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.support.v4.app.Fragment;
+import com.github.filipebezerra.findme.FindMeApplication;
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.map.SimplifiedTrack;
+import com.github.filipebezerra.findme.state.LiveFixSubscriber;
+import com.github.filipebezerra.findme.state.LocationState;
+import com.github.filipebezerra.findme.state.MainThreadExecutor;
+import com.github.filipebezerra.findme.state.StateStore;
+import com.github.filipebezerra.findme.tracking.TrackHistory;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.ArrayList;
+import java.util.List;
+import timber.log.Timber;
+
+/**
+ * Headless fragment loading the recorded trail into a {@link SimplifiedTrack} and extending it
+ * with the live fixes, for its activity to draw.
+ * <p/>
+ * It is retained across configuration changes, so rotating the screen neither loads the trail
+ * again nor misses the fixes arriving meanwhile. The trail is read on the application's
+ * background executor, and the load is abandoned once the activity is finished for good.
+ *
+ * @author Filipe Bezerra
+ * @version #, 29/08/2015
+ * @since #
+ */
+public class TrackLoaderFragment extends Fragment {
+    public static final String TAG = TrackLoaderFragment.class.getSimpleName();
+
+    /**
+     * Implemented by the activity showing the trail. Called on the main thread.
+     */
+    public interface Callbacks {
+        /**
+         * The trail is loaded, see {@link #getTrack()}.
+         */
+        void onTrackLoaded();
+
+        /**
+         * A live fix was added to the loaded trail.
+         */
+        void onTrackChanged();
+    }
+
+    private Callbacks mCallbacks;
+
+    /**
+     * Null until the trail is loaded.
+     */
+    private SimplifiedTrack mTrack;
+
+    /**
+     * Live fixes received while the trail is loading, null once it is loaded.
+     */
+    private List<Fix> mPendingFixes = new ArrayList<>();
+
+    private StateStore.Subscription<LocationState> mSubscription;
+
+    private volatile boolean mDestroyed;
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setRetainInstance(true);
+
+        final FindMeApplication application = FindMeApplication.get(getActivity());
+        mSubscription = application.getLocationStateStore().subscribe(new LiveFixSubscriber() {
+            @Override
+            protected void onFix(Fix fix) {
+                onLiveFix(fix);
+            }
+        }, MainThreadExecutor.getInstance(), Constants.LOCATION_STATE_QUEUE_CAPACITY);
+
+        application.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                loadTrack(application);
+            }
+        });
+    }
+
+    @Override
+    public void onAttach(Activity activity) {
+        super.onAttach(activity);
+        mCallbacks = (Callbacks) activity;
+    }
+
+    @Override
+    public void onDetach() {
+        mCallbacks = null;
+        super.onDetach();
+    }
+
+    @Override
+    public void onDestroy() {
+        mDestroyed = true;
+        mSubscription.cancel();
+        super.onDestroy();
+    }
+
+    /**
+     * Returns the trail, or null while it is loading.
+     */
+    public SimplifiedTrack getTrack() {
+        return mTrack;
+    }
+
+    /**
+     * Reads the whole trail, off the main thread.
+     */
+    private void loadTrack(final FindMeApplication application) {
+        final long start = System.nanoTime();
+        final SimplifiedTrack track = new SimplifiedTrack(Constants.TRACK_MAP_MIN_ZOOM,
+                Constants.TRACK_MAP_MAX_ZOOM, Constants.TRACK_MAP_TOLERANCE_IN_PIXELS,
+                Constants.TRACK_MAP_CHUNK_SIZE);
+        final TrackHistory history = application.getTrackHistory();
+
+        if (history != null) {
+            final TrackHistory.Cursor cursor = history.query(Long.MIN_VALUE, Long.MAX_VALUE);
+            final Fix fix = new Fix();
+
+            while (! mDestroyed && cursor.next(fix)) {
+                track.add(fix.time, fix.latitude, fix.longitude);
+            }
+        }
+
+        if (mDestroyed) {
+            return;
+        }
+
+        Timber.d("Loaded %d fixes for the map in %d ms", track.size(),
+                (System.nanoTime() - start) / 1000000);
+
+        MainThreadExecutor.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                onTrackLoaded(track);
+            }
+        });
+    }
+
+    private void onTrackLoaded(final SimplifiedTrack track) {
+        if (mDestroyed) {
+            return;
+        }
+
+        for (Fix fix : mPendingFixes) {
+            track.add(fix.time, fix.latitude, fix.longitude);
+        }
+
+        mPendingFixes = null;
+        mTrack = track;
+
+        if (mCallbacks != null) {
+            mCallbacks.onTrackLoaded();
+        }
+    }
+
+    private void onLiveFix(final Fix fix) {
+        if (mPendingFixes != null) {
+            mPendingFixes.add(new Fix().set(fix));
+        } else if (mTrack.add(fix.time, fix.latitude, fix.longitude) && mCallbacks != null) {
+            mCallbacks.onTrackChanged();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import java.util.List;
+
+/**
+ * Formats the lines of an address found by the Geocoder into the text shown to the user.
+ *
+ * @author Filipe Bezerra
+ * @version #, 14/08/2015
+ * @since #
+ */
+public final class AddressFormatter {
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private AddressFormatter() {
+    }
+
+    /**
+     * Joins the address lines, one per line of text.
+     */
+    public static String join(final List<String> lines) {
+        final int size = lines.size();
+
+        if (size == 0) {
+            return "";
+        }
+
+        if (size == 1) {
+            return lines.get(0);
+        }
+
+        int length = (size - 1) * LINE_SEPARATOR.length();
+        for (int i = 0; i < size; i++) {
+            length += lines.get(i).length();
+        }
+
+        final StringBuilder builder = new StringBuilder(length).append(lines.get(0));
+        for (int i = 1; i < size; i++) {
+            builder.append(LINE_SEPARATOR).append(lines.get(i));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,266 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.content.Context;
+import android.support.annotation.WorkerThread;
+import com.github.filipebezerra.findme.R;
+import com.github.filipebezerra.findme.geocoding.offline.OfflineGeocoder;
+import com.github.filipebezerra.findme.logging.FastLog;
+import com.github.filipebezerra.findme.logging.Logger;
+import com.github.filipebezerra.findme.metrics.Histogram;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import timber.log.Timber;
+
+/**
+ * Resolves the address of a coordinate, trying the in-memory cache first, then the persisted
+ * cache and finally each of its {@link ReverseGeocoder}s in turn: the platform Geocoder and the
+ * offline one, in the order given by {@link Constants#OFFLINE_GEOCODER_FIRST}.
+ * <p/>
+ * Locations no geocoder has an address for are remembered for a short while, and a geocoder
+ * failing is left alone for a while after, see {@link GeocoderBackoff}. Lookups failing because
+ * of that tell when they are worth retrying.
+ *
+ * @author Filipe Bezerra
+ * @version #, 05/08/2015
+ * @since #
+ */
+public class AddressResolver {
+    private static final Logger LOG = FastLog.logger("Geocoding", Constants.LOG_SAMPLE_EVERY,
+            Constants.LOG_MAX_PER_SECOND);
+
+    private final Context mContext;
+
+    private final GeocodeCache mCache;
+
+    /**
+     * Cells no geocoder has an address for.
+     */
+    private final GeocodeCache mNegativeCache;
+
+    private final DiskGeocodeCache mDiskCache;
+
+    private final ReverseGeocoder[] mGeocoders;
+
+    private final GeocoderBackoff[] mBackoffs;
+
+    /**
+     * Time taken by each of {@link #mGeocoders}.
+     */
+    private final Histogram[] mGeocoderLatencies;
+
+    public AddressResolver(Context context) {
+        this(context, GeocodeCache.getInstance(), DiskGeocodeCache.getInstance(context),
+                createGeocoders(context));
+    }
+
+    /**
+     * @param diskCache the persisted cache, or null for addresses to only be cached in memory
+     */
+    AddressResolver(Context context, GeocodeCache cache, DiskGeocodeCache diskCache,
+            ReverseGeocoder... geocoders) {
+        mContext = context.getApplicationContext();
+        mCache = cache;
+        mNegativeCache = new GeocodeCache(Constants.GEOCODE_NEGATIVE_CACHE_MAX_ENTRIES,
+                cache.getQuantizer().getPrecision(),
+                Constants.GEOCODE_NEGATIVE_CACHE_TTL_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+        mDiskCache = diskCache;
+        mGeocoders = geocoders;
+        mBackoffs = new GeocoderBackoff[geocoders.length];
+        mGeocoderLatencies = new Histogram[geocoders.length];
+
+        final Random random = new Random();
+
+        for (int i = 0; i < geocoders.length; i++) {
+            mBackoffs[i] = new GeocoderBackoff(
+                    Constants.GEOCODE_BACKOFF_UNAVAILABLE_BASE_IN_MILLISECONDS,
+                    Constants.GEOCODE_BACKOFF_TIMEOUT_BASE_IN_MILLISECONDS,
+                    Constants.GEOCODE_BACKOFF_MAX_IN_MILLISECONDS, random);
+            mGeocoderLatencies[i] = Metrics.geocoderLatency(geocoders[i].getClass());
+        }
+    }
+
+    private static ReverseGeocoder[] createGeocoders(Context context) {
+        final ReverseGeocoder platform = new PlatformGeocoder(context);
+        final ReverseGeocoder offline = OfflineGeocoder.getInstance(context);
+        return Constants.OFFLINE_GEOCODER_FIRST
+                ? new ReverseGeocoder[] {offline, platform}
+                : new ReverseGeocoder[] {platform, offline};
+    }
+
+    /**
+     * Returns the grid cell used to key the address of the given coordinates. Lookups of
+     * coordinates in the same cell always resolve to the same address.
+     */
+    public long cellOf(final double latitude, final double longitude) {
+        return mCache.getQuantizer().cellOf(latitude, longitude);
+    }
+
+    /**
+     * Tries to get the address of the given coordinates. Never returns null: if no address can be
+     * found the result carries {@link Constants#FAILURE_RESULT} and an error message instead.
+     */
+    @WorkerThread
+    public Result resolve(final double latitude, final double longitude) {
+        final long start = System.nanoTime();
+        final Result result = lookUp(latitude, longitude);
+        Metrics.GEOCODE_LATENCY.record((System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    private Result lookUp(final double latitude, final double longitude) {
+        // Looking up the same spot again is answered from memory, or from disk after a cold
+        // start, without a network round trip.
+        final long cell = cellOf(latitude, longitude);
+        String cachedAddress = mCache.get(cell);
+
+        if (cachedAddress != null) {
+            Metrics.GEOCODE_MEMORY_CACHE_HITS.increment();
+        } else if (mDiskCache != null) {
+            cachedAddress = mDiskCache.get(cell);
+
+            if (cachedAddress != null) {
+                Metrics.GEOCODE_DISK_CACHE_HITS.increment();
+                mCache.put(cell, cachedAddress);
+            }
+        }
+
+        if (cachedAddress != null) {
+            LOG.d("Address found in cache from location %f, %f", latitude, longitude);
+            return new Result(Constants.SUCCESS_RESULT, cachedAddress);
+        }
+
+        if (mNegativeCache.get(cell) != null) {
+            Metrics.GEOCODE_NEGATIVE_CACHE_HITS.increment();
+            LOG.d("No address known from location %f, %f", latitude, longitude);
+            return new Result(Constants.FAILURE_RESULT,
+                    mContext.getString(R.string.no_address_found));
+        }
+
+        // Errors could still arise from using a geocoder (for example, if there is no
+        // connectivity, or if it is given illegal location data). Or, it may simply not have an
+        // address for a location. In all these cases the next geocoder is asked, and if none
+        // finds an address we communicate with the receiver using a resultCode indicating
+        // failure, with the message of the first error. A geocoder that failed recently isn't
+        // asked at all, the lookup is rather retried once the first of them may be asked again.
+        String errorMessage = "";
+        long retryTime = Long.MAX_VALUE;
+
+        for (int i = 0; i < mGeocoders.length; i++) {
+            final ReverseGeocoder geocoder = mGeocoders[i];
+            final GeocoderBackoff backoff = mBackoffs[i];
+
+            if (backoff.isBackingOff(now())) {
+                Metrics.GEOCODE_BACKED_OFF.increment();
+                if (errorMessage.isEmpty()) {
+                    errorMessage = mContext.getString(R.string.service_not_available);
+                }
+                retryTime = Math.min(retryTime, backoff.getRetryTime());
+                continue;
+            }
+
+            final long start = System.nanoTime();
+            final String address;
+
+            try {
+                address = geocoder.getAddress(latitude, longitude);
+            } catch (IOException e) {
+                // Catch network or other I/O problems.
+                Metrics.GEOCODE_IO_FAILURES.increment();
+                if (errorMessage.isEmpty()) {
+                    errorMessage = mContext.getString(R.string.service_not_available);
+                }
+                retryTime = Math.min(retryTime,
+                        backoff.onFailure(GeocoderBackoff.causeOf(e), now()));
+                Timber.e(e, "Getting reverse geocoding from location %f, %f with %s", latitude,
+                        longitude, geocoder.getClass().getSimpleName());
+                continue;
+            } catch (IllegalArgumentException e) {
+                // Catch invalid latitude or longitude values, no geocoder will do better.
+                Metrics.GEOCODE_INVALID_COORDINATES.increment();
+                Timber.e(e, "Invalid latitude and longitude from location %f, %f", latitude,
+                        longitude);
+                return new Result(Constants.FAILURE_RESULT,
+                        mContext.getString(R.string.invalid_lat_long_used));
+            } finally {
+                mGeocoderLatencies[i].record((System.nanoTime() - start) / 1000);
+            }
+
+            backoff.onSuccess();
+
+            if (address == null) {
+                continue;
+            }
+
+            // Offline addresses are cheaper to look up again than to cache, and shouldn't stand
+            // in for a more precise one from the network later.
+            if (! geocoder.isOffline()) {
+                mCache.put(cell, address);
+                if (mDiskCache != null) {
+                    mDiskCache.put(cell, address);
+                }
+            }
+
+            LOG.d("Address found from location %f, %f with %s", latitude, longitude,
+                    geocoder.getClass().getSimpleName());
+            return new Result(Constants.SUCCESS_RESULT, address);
+        }
+
+        if (errorMessage.isEmpty()) {
+            // Every geocoder answered, asking them again soon won't help.
+            Metrics.GEOCODE_NO_ADDRESS.increment();
+            mNegativeCache.put(cell, "");
+            Timber.e("None address found from location %f, %f", latitude, longitude);
+            return new Result(Constants.FAILURE_RESULT,
+                    mContext.getString(R.string.no_address_found));
+        }
+
+        return new Result(Constants.FAILURE_RESULT, errorMessage,
+                Math.max(0, retryTime - now()));
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Outcome of an address lookup.
+     */
+    public static final class Result {
+        /**
+         * Either {@link Constants#SUCCESS_RESULT} or {@link Constants#FAILURE_RESULT}.
+         */
+        public final int resultCode;
+
+        /**
+         * The formatted address, or an error message if the lookup failed.
+         */
+        public final String message;
+
+        /**
+         * How long to wait before retrying a lookup that failed because the geocoders were
+         * unavailable, or -1 if retrying won't help.
+         */
+        public final long retryDelayInMillis;
+
+        public Result(final int resultCode, final String message) {
+            this(resultCode, message, -1);
+        }
+
+        public Result(final int resultCode, final String message,
+                final long retryDelayInMillis) {
+            this.resultCode = resultCode;
+            this.message = message;
+            this.retryDelayInMillis = retryDelayInMillis;
+        }
+
+        /**
+         * Returns whether the lookup may succeed if retried later.
+         */
+        public boolean isRetryable() {
+            return retryDelayInMillis >= 0;
+        }
+    }
+}
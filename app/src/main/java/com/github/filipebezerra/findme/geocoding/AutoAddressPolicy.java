@@ -0,0 +1,131 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * Decides when the address should be looked up again while it follows the device, so only a
+ * small fraction of the fixes cost a geocode.
+ * <p/>
+ * A lookup is due once the device has moved farther than a minimum displacement from where the last
+ * lookup was made, or left the grid cell it was in, of a given precision, so that crossing into the
+ * next block counts even before the displacement is reached. Only the distance beyond the accuracy
+ * of both fixes counts as moved, and leaving the cell takes a further hysteresis, so the jitter of
+ * a device standing still, even right on a cell edge, makes no lookup. A fix at least twice as
+ * accurate as the last one looked up makes a lookup too, so a coarse first fix, which may be
+ * kilometers off, is soon replaced by a precise address. Lookups are then spaced by a debounce
+ * interval: a burst of fixes due within it makes a single lookup at its end, of the position of the
+ * latest one.
+ *
+ * @author Filipe Bezerra
+ * @version #, 22/08/2015
+ * @since #
+ */
+public class AutoAddressPolicy {
+    /**
+     * Nothing to look up.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The address of the fix must be looked up now.
+     */
+    public static final int LOOK_UP = 1;
+
+    /**
+     * A lookup is due, but not before {@link #getDebounceEnd()}, with the latest fix by then.
+     */
+    public static final int LOOK_UP_LATER = 2;
+
+    private final CoordinateQuantizer mQuantizer;
+
+    private final double mMinDisplacementInMeters;
+
+    private final double mCellHysteresisInMeters;
+
+    private final long mDebounceInMillis;
+
+    private boolean mHasAnchor;
+
+    private double mAnchorLatitude;
+
+    private double mAnchorLongitude;
+
+    private double mAnchorAccuracy;
+
+    private long mAnchorCell;
+
+    private long mLastLookupTimeInMillis;
+
+    private boolean mDue;
+
+    /**
+     * @param cellPrecision          number of decimal places of the cells, see
+     *                               {@link CoordinateQuantizer}
+     * @param cellHysteresisInMeters how far the device must have moved for leaving its cell to
+     *                               count
+     */
+    public AutoAddressPolicy(final double minDisplacementInMeters, final int cellPrecision,
+            final double cellHysteresisInMeters, final long debounceInMillis) {
+        mQuantizer = new CoordinateQuantizer(cellPrecision);
+        mMinDisplacementInMeters = minDisplacementInMeters;
+        mCellHysteresisInMeters = cellHysteresisInMeters;
+        mDebounceInMillis = debounceInMillis;
+    }
+
+    /**
+     * Feeds a new fix to the policy.
+     *
+     * @param timeInMillis when the fix was received, from a monotonic clock
+     * @param accuracy     accuracy radius of the fix in meters, 0 if unknown
+     * @return {@link #NONE}, {@link #LOOK_UP} or {@link #LOOK_UP_LATER}
+     */
+    public int onFix(final long timeInMillis, final double latitude, final double longitude,
+            final float accuracy) {
+        final long cell = mQuantizer.cellOf(latitude, longitude);
+
+        if (! mHasAnchor) {
+            mDue = true;
+        } else {
+            final double moved = GeoMath.distanceInMeters(mAnchorLatitude, mAnchorLongitude,
+                    latitude, longitude) - mAnchorAccuracy - accuracy;
+
+            if (moved > mMinDisplacementInMeters
+                    || (cell != mAnchorCell && moved > mCellHysteresisInMeters)
+                    || (accuracy > 0 && accuracy < mAnchorAccuracy / 2)) {
+                mDue = true;
+            }
+        }
+
+        if (! mDue) {
+            return NONE;
+        }
+
+        if (mHasAnchor && timeInMillis - mLastLookupTimeInMillis < mDebounceInMillis) {
+            return LOOK_UP_LATER;
+        }
+
+        mDue = false;
+        mHasAnchor = true;
+        mAnchorLatitude = latitude;
+        mAnchorLongitude = longitude;
+        mAnchorAccuracy = accuracy;
+        mAnchorCell = cell;
+        mLastLookupTimeInMillis = timeInMillis;
+        return LOOK_UP;
+    }
+
+    /**
+     * Returns when the next lookup may be made, on the clock of {@link #onFix}.
+     */
+    public long getDebounceEnd() {
+        return mLastLookupTimeInMillis + mDebounceInMillis;
+    }
+
+    /**
+     * Forgets where the last lookup was made, so the next fix is looked up right away.
+     */
+    public void reset() {
+        mHasAnchor = false;
+        mDue = false;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.filipebezerra.findme.geocoding;
+
+/**
+ * Snaps a latitude/longitude pair onto a regular grid and packs the grid cell into a single
+ * {@code long}, so nearby coordinates share the same cache key.
+ * <p/>
+ * The precision is the number of decimal places kept from each coordinate: 4 decimal places
+ * gives cells of roughly 11 meters at the equator, 3 decimal places roughly 110 meters.
+ *
+ * @author Filipe Bezerra
+ * @version #, 03/08/2015
+ * @since #
+ */
+public final class CoordinateQuantizer {
+    /**
+     * Highest supported precision. Seven decimal places still fit both cell indexes in a long.
+     */
+    public static final int MAX_PRECISION = 7;
+
+    private static final long[] SCALES = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L
+    };
+
+    private final int mPrecision;
+
+    private final double mScale;
+
+    public CoordinateQuantizer(final int precision) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between 0 and " + MAX_PRECISION);
+        }
+        mPrecision = precision;
+        mScale = SCALES[precision];
+    }
+
+    public int getPrecision() {
+        return mPrecision;
+    }
+
+    /**
+     * Returns the key of the grid cell containing the given coordinates.
+     */
+    public long cellOf(final double latitude, final double longitude) {
+        final long latIndex = Math.round((latitude + 90d) * mScale);
+        final long lonIndex = Math.round((longitude + 180d) * mScale);
+        return (latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the latitude of the center of the given cell.
+     */
+    public double latitudeOf(final long cell) {
+        return (cell >>> 32) / mScale - 90d;
+    }
+
+    /**
+     * Returns the longitude of the center of the given cell.
+     */
+    public double longitudeOf(final long cell) {
+        return (cell & 0xFFFFFFFFL) / mScale - 180d;
+    }
+}
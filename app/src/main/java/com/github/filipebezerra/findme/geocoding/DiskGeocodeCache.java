@@ -0,0 +1,211 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.os.Process;
+import android.support.annotation.WorkerThread;
+import com.github.filipebezerra.findme.utils.Constants;
+import timber.log.Timber;
+
+import static com.github.filipebezerra.findme.geocoding.GeocodeDatabase.COLUMN_ACCESSED_AT;
+import static com.github.filipebezerra.findme.geocoding.GeocodeDatabase.COLUMN_ADDRESS;
+import static com.github.filipebezerra.findme.geocoding.GeocodeDatabase.COLUMN_CELL;
+import static com.github.filipebezerra.findme.geocoding.GeocodeDatabase.COLUMN_CREATED_AT;
+import static com.github.filipebezerra.findme.geocoding.GeocodeDatabase.COLUMN_PRECISION;
+import static com.github.filipebezerra.findme.geocoding.GeocodeDatabase.TABLE_ADDRESSES;
+
+/**
+ * Persistent, size bounded store of reverse geocoding results kept in app-private storage, so a
+ * cold start near a known place can show an address without any network I/O. Entries are keyed
+ * by the same grid cell used by {@link GeocodeCache}.
+ * <p/>
+ * The database is only opened on first use, and every method touching it must be called from a
+ * worker thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 04/08/2015
+ * @since #
+ */
+public class DiskGeocodeCache {
+    private static final String TAG = DiskGeocodeCache.class.getSimpleName();
+
+    private static final String[] ADDRESS_COLUMNS = {COLUMN_ADDRESS, COLUMN_CREATED_AT};
+
+    private static final String[] CELL_COLUMNS = {COLUMN_CELL, COLUMN_ADDRESS};
+
+    private static final String CELL_SELECTION =
+            COLUMN_PRECISION + " = ? AND " + COLUMN_CELL + " = ?";
+
+    private static DiskGeocodeCache sInstance;
+
+    private final GeocodeDatabase mDatabase;
+
+    private final int mPrecision;
+
+    private final int mMaxEntries;
+
+    private final long mTimeToLiveInMillis;
+
+    private final ContentValues mValues = new ContentValues();
+
+    private int mPutsSinceTrim;
+
+    public static synchronized DiskGeocodeCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DiskGeocodeCache(context.getApplicationContext(),
+                    Constants.GEOCODE_CACHE_PRECISION, Constants.GEOCODE_DISK_CACHE_MAX_ENTRIES,
+                    Constants.GEOCODE_DISK_CACHE_TTL_IN_MILLISECONDS);
+        }
+        return sInstance;
+    }
+
+    DiskGeocodeCache(Context context, int precision, int maxEntries, long timeToLiveInMillis) {
+        mDatabase = new GeocodeDatabase(context);
+        mPrecision = precision;
+        mMaxEntries = maxEntries;
+        mTimeToLiveInMillis = timeToLiveInMillis;
+    }
+
+    /**
+     * Returns the persisted address for the given cell, or null if there is none or it has
+     * expired.
+     */
+    @WorkerThread
+    public synchronized String get(final long cell) {
+        final long now = System.currentTimeMillis();
+        final String[] selectionArgs = {String.valueOf(mPrecision), String.valueOf(cell)};
+        Cursor cursor = null;
+
+        try {
+            final SQLiteDatabase db = mDatabase.getWritableDatabase();
+            cursor = db.query(TABLE_ADDRESSES, ADDRESS_COLUMNS, CELL_SELECTION, selectionArgs,
+                    null, null, null);
+
+            if (! cursor.moveToFirst() || now - cursor.getLong(1) > mTimeToLiveInMillis) {
+                return null;
+            }
+
+            final String address = cursor.getString(0);
+
+            mValues.clear();
+            mValues.put(COLUMN_ACCESSED_AT, now);
+            db.update(TABLE_ADDRESSES, mValues, CELL_SELECTION, selectionArgs);
+            return address;
+        } catch (SQLiteException e) {
+            Timber.e(e, "Reading cell %d from the geocode database", cell);
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Persists the address found for the given cell, evicting the least recently used entries
+     * when the store grows beyond its maximum size.
+     */
+    @WorkerThread
+    public synchronized void put(final long cell, final String address) {
+        final long now = System.currentTimeMillis();
+
+        try {
+            final SQLiteDatabase db = mDatabase.getWritableDatabase();
+
+            mValues.clear();
+            mValues.put(COLUMN_PRECISION, mPrecision);
+            mValues.put(COLUMN_CELL, cell);
+            mValues.put(COLUMN_ADDRESS, address);
+            mValues.put(COLUMN_CREATED_AT, now);
+            mValues.put(COLUMN_ACCESSED_AT, now);
+            db.insertWithOnConflict(TABLE_ADDRESSES, null, mValues,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+
+            // Counting rows on every insert isn't worth it, the bound may be exceeded briefly.
+            if (++mPutsSinceTrim >= Constants.GEOCODE_DISK_CACHE_TRIM_EVERY) {
+                mPutsSinceTrim = 0;
+                trimToSize(db, mMaxEntries);
+            }
+        } catch (SQLiteException e) {
+            Timber.e(e, "Writing cell %d to the geocode database", cell);
+        }
+    }
+
+    /**
+     * Removes expired entries, trims the store to its maximum size and gives the freed pages back
+     * to the file system.
+     */
+    @WorkerThread
+    public synchronized void compact() {
+        try {
+            final SQLiteDatabase db = mDatabase.getWritableDatabase();
+            final long expiredBefore = System.currentTimeMillis() - mTimeToLiveInMillis;
+
+            int removed = db.delete(TABLE_ADDRESSES, COLUMN_CREATED_AT + " < ?",
+                    new String[] {String.valueOf(expiredBefore)});
+            removed += trimToSize(db, mMaxEntries);
+
+            if (removed > 0) {
+                db.execSQL("VACUUM");
+            }
+
+            Timber.d("Geocode database compacted, %d entries removed", removed);
+        } catch (SQLiteException e) {
+            Timber.e(e, "Compacting the geocode database");
+        }
+    }
+
+    /**
+     * Loads the most recently used entries into the given in-memory cache.
+     */
+    @WorkerThread
+    public synchronized void warmUp(final GeocodeCache cache, final int maxEntries) {
+        final long expiredBefore = System.currentTimeMillis() - mTimeToLiveInMillis;
+        Cursor cursor = null;
+        int loaded = 0;
+
+        try {
+            cursor = mDatabase.getReadableDatabase().query(TABLE_ADDRESSES, CELL_COLUMNS,
+                    COLUMN_PRECISION + " = ? AND " + COLUMN_CREATED_AT + " >= ?",
+                    new String[] {String.valueOf(mPrecision), String.valueOf(expiredBefore)},
+                    null, null, COLUMN_ACCESSED_AT + " DESC", String.valueOf(maxEntries));
+
+            while (cursor.moveToNext()) {
+                cache.put(cursor.getLong(0), cursor.getString(1));
+                loaded++;
+            }
+
+            Timber.d("Geocode cache warmed up with %d persisted entries", loaded);
+        } catch (SQLiteException e) {
+            Timber.e(e, "Warming up the geocode cache");
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Compacts the store and warms up the process-wide {@link GeocodeCache} on a background
+     * thread, so the first lookup after a cold start doesn't pay for opening the database.
+     */
+    public void warmUpInBackground() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                compact();
+                warmUp(GeocodeCache.getInstance(), Constants.GEOCODE_CACHE_WARM_UP_ENTRIES);
+            }
+        }, TAG).start();
+    }
+
+    private static int trimToSize(final SQLiteDatabase db, final int maxEntries) {
+        return db.delete(TABLE_ADDRESSES, "rowid IN (SELECT rowid FROM " + TABLE_ADDRESSES
+                + " ORDER BY " + COLUMN_ACCESSED_AT + " DESC LIMIT -1 OFFSET ?)",
+                new String[] {String.valueOf(maxEntries)});
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, process-wide LRU cache of reverse geocoding results. Entries are keyed by the grid
+ * cell of the looked up coordinates (see {@link CoordinateQuantizer}) and expire after a fixed
+ * time to live, so a repeated lookup from the same spot never reaches the network Geocoder.
+ *
+ * @author Filipe Bezerra
+ * @version #, 03/08/2015
+ * @since #
+ */
+public class GeocodeCache {
+    private static GeocodeCache sInstance;
+
+    private final CoordinateQuantizer mQuantizer;
+
+    private final int mMaxEntries;
+
+    private final long mTimeToLiveNanos;
+
+    private final LinkedHashMap<Long, CachedAddress> mEntries;
+
+    private long mHitCount;
+
+    private long mMissCount;
+
+    private long mExpiredCount;
+
+    private long mEvictionCount;
+
+    /**
+     * Returns the process-wide cache, configured from {@link Constants}.
+     */
+    public static synchronized GeocodeCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new GeocodeCache(Constants.GEOCODE_CACHE_MAX_ENTRIES,
+                    Constants.GEOCODE_CACHE_PRECISION, Constants.GEOCODE_CACHE_TTL_IN_MILLISECONDS,
+                    TimeUnit.MILLISECONDS);
+        }
+        return sInstance;
+    }
+
+    public GeocodeCache(final int maxEntries, final int precision, final long timeToLive,
+            final TimeUnit unit) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        mQuantizer = new CoordinateQuantizer(precision);
+        mMaxEntries = maxEntries;
+        mTimeToLiveNanos = unit.toNanos(timeToLive);
+        mEntries = new LinkedHashMap<Long, CachedAddress>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedAddress> eldest) {
+                if (size() > mMaxEntries) {
+                    mEvictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public CoordinateQuantizer getQuantizer() {
+        return mQuantizer;
+    }
+
+    /**
+     * Returns the cached address for the cell containing the given coordinates, or null if there
+     * is none or it has expired.
+     */
+    public String get(final double latitude, final double longitude) {
+        return get(mQuantizer.cellOf(latitude, longitude));
+    }
+
+    public synchronized String get(final long cell) {
+        final CachedAddress entry = mEntries.get(cell);
+
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+
+        if (System.nanoTime() - entry.createdAtNanos > mTimeToLiveNanos) {
+            mEntries.remove(cell);
+            mExpiredCount++;
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return entry.address;
+    }
+
+    public void put(final double latitude, final double longitude, final String address) {
+        put(mQuantizer.cellOf(latitude, longitude), address);
+    }
+
+    public synchronized void put(final long cell, final String address) {
+        mEntries.put(cell, new CachedAddress(address, System.nanoTime()));
+    }
+
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    public synchronized int size() {
+        return mEntries.size();
+    }
+
+    public synchronized long hitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long missCount() {
+        return mMissCount;
+    }
+
+    public synchronized long expiredCount() {
+        return mExpiredCount;
+    }
+
+    public synchronized long evictionCount() {
+        return mEvictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        final long accesses = mHitCount + mMissCount;
+        final int hitPercent = accesses != 0 ? (int) (100 * mHitCount / accesses) : 0;
+        return String.format("GeocodeCache[size=%d,maxSize=%d,hits=%d,misses=%d,expired=%d,"
+                        + "evictions=%d,hitRate=%d%%]", mEntries.size(), mMaxEntries, mHitCount,
+                mMissCount, mExpiredCount, mEvictionCount, hitPercent);
+    }
+
+    private static final class CachedAddress {
+        final String address;
+
+        final long createdAtNanos;
+
+        CachedAddress(final String address, final long createdAtNanos) {
+            this.address = address;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
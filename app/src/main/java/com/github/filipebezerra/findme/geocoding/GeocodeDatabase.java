@@ -0,0 +1,54 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * Opens the app-private database holding persisted reverse geocoding results.
+ *
+ * @author Filipe Bezerra
+ * @version #, 04/08/2015
+ * @since #
+ */
+class GeocodeDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "geocode_cache.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    static final String TABLE_ADDRESSES = "addresses";
+
+    static final String COLUMN_PRECISION = "precision";
+
+    static final String COLUMN_CELL = "cell";
+
+    static final String COLUMN_ADDRESS = "address";
+
+    static final String COLUMN_CREATED_AT = "created_at";
+
+    static final String COLUMN_ACCESSED_AT = "accessed_at";
+
+    GeocodeDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ADDRESSES + " ("
+                + COLUMN_PRECISION + " INTEGER NOT NULL, "
+                + COLUMN_CELL + " INTEGER NOT NULL, "
+                + COLUMN_ADDRESS + " TEXT NOT NULL, "
+                + COLUMN_CREATED_AT + " INTEGER NOT NULL, "
+                + COLUMN_ACCESSED_AT + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_PRECISION + ", " + COLUMN_CELL + "))");
+        db.execSQL("CREATE INDEX " + TABLE_ADDRESSES + "_" + COLUMN_ACCESSED_AT + " ON "
+                + TABLE_ADDRESSES + " (" + COLUMN_ACCESSED_AT + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Cached addresses can always be fetched again, so simply start over.
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ADDRESSES);
+        onCreate(db);
+    }
+}
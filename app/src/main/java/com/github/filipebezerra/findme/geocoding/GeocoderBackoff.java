@@ -0,0 +1,113 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import com.github.filipebezerra.findme.utils.ExponentialBackoff;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Keeps a geocoder from being called again right after it failed, so an unavailable service is
+ * not hammered by every new lookup.
+ * <p/>
+ * Each cause of failure has its own backoff: consecutive failures of the same cause double the
+ * delay before the geocoder is called again, from a base delay of that cause up to a maximum. A
+ * random half of each delay is jittered away so that lookups queued during an outage don't all
+ * come back at once. The geocoder is skipped while any cause is backing off, and a call that
+ * gets an answer, even no address, resets them all.
+ *
+ * @author Filipe Bezerra
+ * @version #, 24/08/2015
+ * @since #
+ */
+public class GeocoderBackoff {
+    /**
+     * The service couldn't be reached or refused to answer.
+     */
+    public static final int CAUSE_UNAVAILABLE = 0;
+
+    /**
+     * The service didn't answer in time.
+     */
+    public static final int CAUSE_TIMEOUT = 1;
+
+    private static final int CAUSE_COUNT = 2;
+
+    private final ExponentialBackoff[] mDelays;
+
+    private final int[] mFailureCounts = new int[CAUSE_COUNT];
+
+    private final long[] mRetryTimesInMillis = new long[CAUSE_COUNT];
+
+    /**
+     * @param unavailableBaseDelayInMillis delay after the first failure of
+     *                                     {@link #CAUSE_UNAVAILABLE}
+     * @param timeoutBaseDelayInMillis     delay after the first failure of {@link #CAUSE_TIMEOUT}
+     */
+    public GeocoderBackoff(final long unavailableBaseDelayInMillis,
+            final long timeoutBaseDelayInMillis, final long maxDelayInMillis,
+            final Random random) {
+        mDelays = new ExponentialBackoff[] {
+                new ExponentialBackoff(unavailableBaseDelayInMillis, maxDelayInMillis, random),
+                new ExponentialBackoff(timeoutBaseDelayInMillis, maxDelayInMillis, random)};
+    }
+
+    /**
+     * Returns the cause of a failed geocoder call, {@link #CAUSE_TIMEOUT} or
+     * {@link #CAUSE_UNAVAILABLE}.
+     */
+    public static int causeOf(final IOException e) {
+        // The platform Geocoder reports its timeouts as plain IOExceptions.
+        if (e instanceof SocketTimeoutException || (e.getMessage() != null
+                && e.getMessage().toLowerCase(Locale.US).contains("timed out"))) {
+            return CAUSE_TIMEOUT;
+        }
+        return CAUSE_UNAVAILABLE;
+    }
+
+    /**
+     * Records a failure of the given cause.
+     *
+     * @param nowInMillis the current time, from a monotonic clock
+     * @return when the geocoder may be called again, on the clock of {@code nowInMillis}
+     */
+    public synchronized long onFailure(final int cause, final long nowInMillis) {
+        mRetryTimesInMillis[cause] =
+                nowInMillis + mDelays[cause].getDelay(++mFailureCounts[cause]);
+        return mRetryTimesInMillis[cause];
+    }
+
+    /**
+     * Records a call that got an answer, ending every backoff.
+     */
+    public synchronized void onSuccess() {
+        for (int cause = 0; cause < CAUSE_COUNT; cause++) {
+            mFailureCounts[cause] = 0;
+            mRetryTimesInMillis[cause] = 0;
+        }
+    }
+
+    /**
+     * Returns whether the geocoder should not be called at the given time.
+     */
+    public synchronized boolean isBackingOff(final long nowInMillis) {
+        return nowInMillis < getRetryTime();
+    }
+
+    /**
+     * Returns when the geocoder may be called again, or 0 if it never failed since its last
+     * answer.
+     */
+    public synchronized long getRetryTime() {
+        long retryTime = 0;
+
+        for (int cause = 0; cause < CAUSE_COUNT; cause++) {
+            retryTime = Math.max(retryTime, mRetryTimesInMillis[cause]);
+        }
+        return retryTime;
+    }
+
+    public synchronized int getFailureCount(final int cause) {
+        return mFailureCounts[cause];
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Looks up addresses with the platform {@link Geocoder}, which usually needs a network round
+ * trip.
+ *
+ * @author Filipe Bezerra
+ * @version #, 14/08/2015
+ * @since #
+ */
+public class PlatformGeocoder implements ReverseGeocoder {
+    private final Context mContext;
+
+    public PlatformGeocoder(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    @Override
+    public String getAddress(final double latitude, final double longitude)
+            throws IOException {
+        if (! Geocoder.isPresent()) {
+            throw new IOException("No geocoder service available on this device");
+        }
+
+        // The Geocoder's responses are localized for the given Locale, which represents a
+        // specific geographical or linguistic region. Locales are used to alter the presentation
+        // of information such as numbers or dates to suit the conventions in the region they
+        // describe.
+        final Geocoder geocoder = new Geocoder(mContext, Locale.getDefault());
+        final List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
+
+        if (addresses == null || addresses.size() == 0) {
+            return null;
+        }
+
+        final Address address = addresses.get(0);
+        final List<String> addressFragments = new ArrayList<>();
+
+        for (int i = 0; i < address.getMaxAddressLineIndex(); i++) {
+            addressFragments.add(address.getAddressLine(i));
+        }
+
+        return AddressFormatter.join(addressFragments);
+    }
+
+    @Override
+    public boolean isOffline() {
+        return false;
+    }
+}
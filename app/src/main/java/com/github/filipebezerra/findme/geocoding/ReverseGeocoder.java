@@ -0,0 +1,29 @@
+package com.github.filipebezerra.findme.geocoding;
+
+import android.support.annotation.WorkerThread;
+import java.io.IOException;
+
+/**
+ * A source of addresses for coordinates. {@link AddressResolver} chains several of them, asking
+ * the next one when a source fails or knows no address.
+ *
+ * @author Filipe Bezerra
+ * @version #, 14/08/2015
+ * @since #
+ */
+public interface ReverseGeocoder {
+    /**
+     * Returns the address of the given coordinates, or null if none is known.
+     *
+     * @throws IOException if the source isn't available, e.g. there is no connectivity
+     * @throws IllegalArgumentException if the coordinates are invalid
+     */
+    @WorkerThread
+    String getAddress(double latitude, double longitude) throws IOException;
+
+    /**
+     * Returns whether addresses are looked up on the device. They are cheap to look up again and
+     * aren't cached.
+     */
+    boolean isOffline();
+}
@@ -0,0 +1,172 @@
+package com.github.filipebezerra.findme.geocoding.offline;
+
+import android.content.Context;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.WorkerThread;
+import com.github.filipebezerra.findme.geocoding.ReverseGeocoder;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import timber.log.Timber;
+
+/**
+ * Looks up the nearest known place on the device, without any network I/O.
+ * <p/>
+ * Places come from a gazetteer, a CSV file with one {@code latitude,longitude,name} line per
+ * place. A gazetteer sideloaded into the app's external files directory takes precedence over
+ * the one bundled in the assets, if any. It is turned into a {@link PlaceIndex} in app-private
+ * storage the first time it is needed, and again whenever the gazetteer changes. A prebuilt
+ * index can also be sideloaded in place of the gazetteer. Without a gazetteer, which is the
+ * default, every lookup answers no address, and the gazetteer is looked for again now and then.
+ *
+ * @author Filipe Bezerra
+ * @version #, 14/08/2015
+ * @since #
+ */
+public class OfflineGeocoder implements ReverseGeocoder {
+    private static final String TAG = OfflineGeocoder.class.getSimpleName();
+
+    private static OfflineGeocoder sInstance;
+
+    private final Context mContext;
+
+    private PlaceIndex mIndex;
+
+    /**
+     * When the index may be looked for again, on the {@link SystemClock#elapsedRealtime()} clock,
+     * while there is none.
+     */
+    private long mNextOpenTime;
+
+    public static synchronized OfflineGeocoder getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new OfflineGeocoder(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    OfflineGeocoder(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public String getAddress(final double latitude, final double longitude)
+            throws IOException {
+        final PlaceIndex index = getIndex();
+
+        // Without places, no address is known anywhere.
+        if (index == null) {
+            return null;
+        }
+
+        return index.nearest(latitude, longitude,
+                Constants.OFFLINE_GEOCODER_MAX_DISTANCE_IN_METERS);
+    }
+
+    @Override
+    public boolean isOffline() {
+        return true;
+    }
+
+    /**
+     * Builds the index on a background thread if needed, so the first lookup doesn't wait for
+     * it.
+     */
+    public void prepareInBackground() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                getIndex();
+            }
+        }, TAG).start();
+    }
+
+    /**
+     * Returns the index of places, opening or building it on first use, or null if there is no
+     * gazetteer or its index couldn't be opened. Both are tried again after a delay.
+     */
+    @WorkerThread
+    synchronized PlaceIndex getIndex() {
+        final long now = SystemClock.elapsedRealtime();
+
+        if (mIndex == null && now >= mNextOpenTime) {
+            try {
+                mIndex = openIndex();
+            } catch (IOException e) {
+                Timber.e(e, "Opening the offline geocoder index");
+            }
+
+            if (mIndex != null) {
+                Timber.d("Offline geocoder ready with %d places in %d ms", mIndex.size(),
+                        SystemClock.elapsedRealtime() - now);
+            } else {
+                mNextOpenTime = now + Constants.OFFLINE_GEOCODER_REOPEN_DELAY_IN_MILLISECONDS;
+            }
+        }
+        return mIndex;
+    }
+
+    private PlaceIndex openIndex() throws IOException {
+        final File externalDir = mContext.getExternalFilesDir(null);
+
+        if (externalDir != null) {
+            final File sideloadedIndex =
+                    new File(externalDir, Constants.OFFLINE_GEOCODER_INDEX_FILE_NAME);
+
+            if (sideloadedIndex.isFile()) {
+                return PlaceIndex.open(sideloadedIndex);
+            }
+
+            final File sideloadedGazetteer =
+                    new File(externalDir, Constants.OFFLINE_GEOCODER_GAZETTEER_FILE_NAME);
+
+            if (sideloadedGazetteer.isFile()) {
+                return openIndex(new FileInputStream(sideloadedGazetteer),
+                        sideloadedGazetteer.lastModified());
+            }
+        }
+
+        final InputStream bundledGazetteer;
+
+        try {
+            bundledGazetteer =
+                    mContext.getAssets().open(Constants.OFFLINE_GEOCODER_GAZETTEER_FILE_NAME);
+        } catch (FileNotFoundException e) {
+            Timber.i("No gazetteer found, the offline geocoder is disabled");
+            return null;
+        }
+
+        // The bundled gazetteer only changes along with the app.
+        return openIndex(bundledGazetteer,
+                new File(mContext.getApplicationInfo().sourceDir).lastModified());
+    }
+
+    /**
+     * Opens the index built from the given gazetteer, building it first if it is older than the
+     * gazetteer.
+     */
+    private PlaceIndex openIndex(final InputStream gazetteer, final long gazetteerModifiedAt)
+            throws IOException {
+        final File index =
+                new File(mContext.getFilesDir(), Constants.OFFLINE_GEOCODER_INDEX_FILE_NAME);
+
+        try {
+            if (! index.isFile() || index.lastModified() < gazetteerModifiedAt) {
+                final PlaceIndexWriter writer = new PlaceIndexWriter();
+                final int count = writer.addAll(new InputStreamReader(gazetteer, "UTF-8"));
+                writer.write(index);
+                Timber.d("Offline geocoder index built with %d places", count);
+            }
+        } finally {
+            gazetteer.close();
+        }
+
+        return PlaceIndex.open(index);
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.filipebezerra.findme.geocoding.offline;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Read-only index of named places, answering which place is the nearest to a coordinate. The
+ * index file is written by {@link PlaceIndexWriter} and mapped into memory, so opening it costs
+ * nothing and only the pages visited by queries are ever read.
+ * <p/>
+ * Places are laid out as an implicit k-d tree: the place in the middle of a range splits it in
+ * two halves, by latitude at even depths and by longitude at odd ones. A query visits about
+ * log<sub>2</sub>(n) places plus the few halves that may hold a nearer one.
+ * <p/>
+ * Distances are measured on a flat projection around the queried coordinate, which is accurate
+ * for the few kilometers a place can be away from it. Places across the antimeridian from the
+ * query aren't found.
+ * <p/>
+ * The index is safe to query from any number of threads.
+ *
+ * @author Filipe Bezerra
+ * @version #, 14/08/2015
+ * @since #
+ */
+public class PlaceIndex {
+    static final int MAGIC = 0x464d5049; // "FMPI"
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Latitude, longitude and name offset, as ints.
+     */
+    static final int RECORD_SIZE = 12;
+
+    /**
+     * Fixed-point units per degree of latitude or longitude.
+     */
+    static final double COORDINATE_SCALE = 1e7;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int HEADER_MAGIC = 0;
+
+    private static final int HEADER_VERSION = 4;
+
+    private static final int HEADER_COUNT = 8;
+
+    private static final int RECORD_LATITUDE = 0;
+
+    private static final int RECORD_LONGITUDE = 4;
+
+    private static final int RECORD_NAME = 8;
+
+    private final MappedByteBuffer mBuffer;
+
+    private final int mCount;
+
+    public static PlaceIndex open(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try {
+            // The mapping stays valid after the file is closed.
+            return new PlaceIndex(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                    raf.length()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    private PlaceIndex(final MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(HEADER_MAGIC) != MAGIC) {
+            throw new IOException("Not a place index");
+        }
+
+        if (buffer.getInt(HEADER_VERSION) != VERSION) {
+            throw new IOException("Unsupported place index version "
+                    + buffer.getInt(HEADER_VERSION));
+        }
+
+        mBuffer = buffer;
+        mCount = buffer.getInt(HEADER_COUNT);
+
+        if (mCount < 0 || HEADER_SIZE + (long) mCount * RECORD_SIZE > buffer.capacity()) {
+            throw new IOException("Truncated place index");
+        }
+    }
+
+    /**
+     * Returns the number of places in the index.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Returns the name of the place nearest to the given coordinates, or null if there is none
+     * within {@code maxDistanceInMeters}.
+     */
+    public String nearest(final double latitude, final double longitude,
+            final double maxDistanceInMeters) {
+        final Query query = new Query(latitude, longitude, maxDistanceInMeters);
+        search(query, 0, mCount, 0);
+        return query.nearest < 0 ? null : nameAt(query.nearest);
+    }
+
+    private void search(final Query query, final int from, final int to, final int depth) {
+        if (from >= to) {
+            return;
+        }
+
+        final int middle = (from + to) >>> 1;
+        final int offset = HEADER_SIZE + middle * RECORD_SIZE;
+        final double north = (mBuffer.getInt(offset + RECORD_LATITUDE) - query.latitude)
+                * query.metersPerLatitudeUnit;
+        final double east = (mBuffer.getInt(offset + RECORD_LONGITUDE) - query.longitude)
+                * query.metersPerLongitudeUnit;
+        final double squaredDistance = north * north + east * east;
+
+        if (squaredDistance < query.squaredDistance) {
+            query.squaredDistance = squaredDistance;
+            query.nearest = middle;
+        }
+
+        // How far the splitting plane is from the query, negative if the query is past it.
+        final double split = (depth & 1) == 0 ? north : east;
+
+        if (split > 0) {
+            search(query, from, middle, depth + 1);
+
+            if (split * split < query.squaredDistance) {
+                search(query, middle + 1, to, depth + 1);
+            }
+        } else {
+            search(query, middle + 1, to, depth + 1);
+
+            if (split * split < query.squaredDistance) {
+                search(query, from, middle, depth + 1);
+            }
+        }
+    }
+
+    private String nameAt(final int position) {
+        int offset = mBuffer.getInt(HEADER_SIZE + position * RECORD_SIZE + RECORD_NAME);
+        final int length = mBuffer.getShort(offset) & 0xffff;
+        final byte[] bytes = new byte[length];
+        offset += 2;
+
+        for (int i = 0; i < length; i++) {
+            bytes[i] = mBuffer.get(offset + i);
+        }
+
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * State of a single nearest place search, in fixed-point units.
+     */
+    private static final class Query {
+        final double latitude;
+
+        final double longitude;
+
+        final double metersPerLatitudeUnit;
+
+        final double metersPerLongitudeUnit;
+
+        double squaredDistance;
+
+        int nearest = -1;
+
+        Query(final double latitude, final double longitude, final double maxDistanceInMeters) {
+            this.latitude = latitude * COORDINATE_SCALE;
+            this.longitude = longitude * COORDINATE_SCALE;
+            metersPerLatitudeUnit = GeoMath.metersPerDegreeOfLatitude() / COORDINATE_SCALE;
+            metersPerLongitudeUnit =
+                    GeoMath.metersPerDegreeOfLongitude(latitude) / COORDINATE_SCALE;
+            squaredDistance = maxDistanceInMeters * maxDistanceInMeters;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.github.filipebezerra.findme.geocoding.offline;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.filipebezerra.findme.geocoding.offline.PlaceIndex.COORDINATE_SCALE;
+import static com.github.filipebezerra.findme.geocoding.offline.PlaceIndex.HEADER_SIZE;
+import static com.github.filipebezerra.findme.geocoding.offline.PlaceIndex.MAGIC;
+import static com.github.filipebezerra.findme.geocoding.offline.PlaceIndex.RECORD_SIZE;
+import static com.github.filipebezerra.findme.geocoding.offline.PlaceIndex.UTF_8;
+import static com.github.filipebezerra.findme.geocoding.offline.PlaceIndex.VERSION;
+
+/**
+ * Builds the file read by {@link PlaceIndex} from a list of named places, usually a gazetteer in
+ * CSV.
+ * <p/>
+ * The file holds a 16 byte header, then one record per place in k-d tree order and finally the
+ * names, each prefixed by its length in UTF-8 bytes.
+ *
+ * @author Filipe Bezerra
+ * @version #, 14/08/2015
+ * @since #
+ */
+public class PlaceIndexWriter {
+    /**
+     * Longest name stored, in UTF-8 bytes.
+     */
+    private static final int MAX_NAME_LENGTH = 0xffff;
+
+    private int[] mLatitudes = new int[1024];
+
+    private int[] mLongitudes = new int[1024];
+
+    /**
+     * Index of the name of each place in {@link #mNames}, moved along with its coordinates.
+     */
+    private int[] mNameIndexes = new int[1024];
+
+    private final List<String> mNames = new ArrayList<>();
+
+    private int mCount;
+
+    public int size() {
+        return mCount;
+    }
+
+    public void add(final double latitude, final double longitude, final String name) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates " + latitude + ", "
+                    + longitude);
+        }
+
+        if (mCount == mLatitudes.length) {
+            final int capacity = mCount * 2;
+            mLatitudes = Arrays.copyOf(mLatitudes, capacity);
+            mLongitudes = Arrays.copyOf(mLongitudes, capacity);
+            mNameIndexes = Arrays.copyOf(mNameIndexes, capacity);
+        }
+
+        mLatitudes[mCount] = (int) Math.round(latitude * COORDINATE_SCALE);
+        mLongitudes[mCount] = (int) Math.round(longitude * COORDINATE_SCALE);
+        mNameIndexes[mCount] = mNames.size();
+        mNames.add(name);
+        mCount++;
+    }
+
+    /**
+     * Adds the places of a gazetteer with one {@code latitude,longitude,name} line per place.
+     * The name is the rest of the line and may hold commas. Blank lines, lines starting with
+     * {@code #} and lines that can't be parsed are skipped.
+     *
+     * @return the number of places added
+     */
+    public int addAll(final Reader gazetteer) throws IOException {
+        final BufferedReader reader = new BufferedReader(gazetteer);
+        final int countBefore = mCount;
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            final int firstComma = line.indexOf(',');
+            final int secondComma = line.indexOf(',', firstComma + 1);
+
+            if (line.isEmpty() || line.charAt(0) == '#' || firstComma < 0 || secondComma < 0) {
+                continue;
+            }
+
+            String name = line.substring(secondComma + 1).trim();
+
+            if (name.length() > 1 && name.charAt(0) == '"'
+                    && name.charAt(name.length() - 1) == '"') {
+                name = name.substring(1, name.length() - 1).replace("\"\"", "\"");
+            }
+
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            try {
+                add(Double.parseDouble(line.substring(0, firstComma).trim()),
+                        Double.parseDouble(line.substring(firstComma + 1, secondComma).trim()),
+                        name);
+            } catch (IllegalArgumentException e) {
+                // Also covers NumberFormatException, a header line most likely.
+            }
+        }
+
+        return mCount - countBefore;
+    }
+
+    /**
+     * Writes the index to the given file, replacing it only once it is complete.
+     */
+    public void write(final File file) throws IOException {
+        build(0, mCount, 0);
+
+        // Names are written in the order they were added.
+        final byte[][] encodedNames = new byte[mNames.size()][];
+        final int[] nameOffsets = new int[mNames.size()];
+        long offset = HEADER_SIZE + (long) mCount * RECORD_SIZE;
+
+        for (int i = 0; i < encodedNames.length; i++) {
+            byte[] encoded = mNames.get(i).getBytes(UTF_8);
+
+            if (encoded.length > MAX_NAME_LENGTH) {
+                encoded = Arrays.copyOf(encoded, MAX_NAME_LENGTH);
+            }
+
+            encodedNames[i] = encoded;
+            nameOffsets[i] = (int) offset;
+            offset += 2 + encoded.length;
+        }
+
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Too many places for a single index");
+        }
+
+        final File temporary = new File(file.getPath() + ".tmp");
+        final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary)));
+
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(mCount);
+            output.writeInt(0);
+
+            for (int i = 0; i < mCount; i++) {
+                output.writeInt(mLatitudes[i]);
+                output.writeInt(mLongitudes[i]);
+                output.writeInt(nameOffsets[mNameIndexes[i]]);
+            }
+
+            for (byte[] encoded : encodedNames) {
+                output.writeShort(encoded.length);
+                output.write(encoded);
+            }
+        } finally {
+            output.close();
+        }
+
+        if (! temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Puts the median place of the range, by latitude at even depths and by longitude at odd
+     * ones, in its middle, with the places before it on one side and the ones after it on the
+     * other, then does the same with both halves.
+     */
+    private void build(final int from, final int to, final int depth) {
+        if (to - from < 2) {
+            return;
+        }
+
+        final int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, (depth & 1) == 0 ? mLatitudes : mLongitudes);
+        build(from, middle, depth + 1);
+        build(middle + 1, to, depth + 1);
+    }
+
+    /**
+     * Quickselect: partially sorts the places between {@code left} and {@code right}, inclusive,
+     * by the given coordinate until the place at {@code k} is in its sorted position.
+     */
+    private void select(int left, int right, final int k, final int[] keys) {
+        while (left < right) {
+            final int pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        final int latitude = mLatitudes[i];
+        final int longitude = mLongitudes[i];
+        final int nameIndex = mNameIndexes[i];
+        mLatitudes[i] = mLatitudes[j];
+        mLongitudes[i] = mLongitudes[j];
+        mNameIndexes[i] = mNameIndexes[j];
+        mLatitudes[j] = latitude;
+        mLongitudes[j] = longitude;
+        mNameIndexes[j] = nameIndex;
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.filipebezerra.findme.geofence;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * A fence covering a radius around a center.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public class CircleGeofence extends Geofence {
+    private final double mLatitude;
+
+    private final double mLongitude;
+
+    private final double mRadiusInMeters;
+
+    public CircleGeofence(final String id, final double latitude, final double longitude,
+            final double radiusInMeters) {
+        super(id, latitude - latitudeSpan(radiusInMeters),
+                latitude + latitudeSpan(radiusInMeters),
+                longitude - longitudeSpan(latitude, radiusInMeters),
+                longitude + longitudeSpan(latitude, radiusInMeters));
+        if (radiusInMeters <= 0) {
+            throw new IllegalArgumentException("radiusInMeters must be positive");
+        }
+        mLatitude = latitude;
+        mLongitude = longitude;
+        mRadiusInMeters = radiusInMeters;
+    }
+
+    public double getLatitude() {
+        return mLatitude;
+    }
+
+    public double getLongitude() {
+        return mLongitude;
+    }
+
+    public double getRadiusInMeters() {
+        return mRadiusInMeters;
+    }
+
+    @Override
+    public double distanceInMeters(final double latitude, final double longitude) {
+        return GeoMath.distanceInMeters(mLatitude, mLongitude, latitude, longitude)
+                - mRadiusInMeters;
+    }
+
+    private static double latitudeSpan(final double radiusInMeters) {
+        return radiusInMeters / GeoMath.metersPerDegreeOfLatitude();
+    }
+
+    /**
+     * Degrees of longitude spanned by the radius on the parallel of the circle farthest from the
+     * equator, where they are the most.
+     */
+    private static double longitudeSpan(final double latitude, final double radiusInMeters) {
+        final double farthestLatitude =
+                Math.min(89.9, Math.abs(latitude) + latitudeSpan(radiusInMeters));
+        return radiusInMeters / GeoMath.metersPerDegreeOfLongitude(farthestLatitude);
+    }
+}
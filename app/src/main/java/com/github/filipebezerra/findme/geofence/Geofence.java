@@ -0,0 +1,61 @@
+package com.github.filipebezerra.findme.geofence;
+
+/**
+ * An area whose boundary crossings are reported by {@link GeofenceMonitor}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public abstract class Geofence {
+    private final String mId;
+
+    final double mMinLatitude;
+
+    final double mMaxLatitude;
+
+    final double mMinLongitude;
+
+    final double mMaxLongitude;
+
+    /**
+     * Position of the fence in the {@link GeofenceIndex} holding it.
+     */
+    int mIndex = -1;
+
+    Geofence(final String id, final double minLatitude, final double maxLatitude,
+            final double minLongitude, final double maxLongitude) {
+        if (id == null) {
+            throw new IllegalArgumentException("id must not be null");
+        }
+        mId = id;
+        mMinLatitude = minLatitude;
+        mMaxLatitude = maxLatitude;
+        mMinLongitude = minLongitude;
+        mMaxLongitude = maxLongitude;
+    }
+
+    public String getId() {
+        return mId;
+    }
+
+    /**
+     * Returns whether the given coordinates are within the bounding box of the fence, a cheap
+     * test to run before {@link #distanceInMeters(double, double)}.
+     */
+    final boolean boundsContain(final double latitude, final double longitude) {
+        return latitude >= mMinLatitude && latitude <= mMaxLatitude
+                && longitude >= mMinLongitude && longitude <= mMaxLongitude;
+    }
+
+    /**
+     * Returns the distance in meters from the given coordinates to the boundary of the fence,
+     * negative if they are inside it.
+     */
+    public abstract double distanceInMeters(double latitude, double longitude);
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + mId + "]";
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.filipebezerra.findme.geofence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable uniform grid over a set of fences, answering which fences may contain a coordinate
+ * without testing all of them.
+ * <p/>
+ * Every fence is put in the bucket of each grid cell its bounding box overlaps. Fences spanning
+ * more than {@code maxCellsPerFence} cells would fill too many buckets and are kept apart
+ * instead, as candidates everywhere. The buckets are stored in arrays sorted by cell, so a query
+ * is a binary search that doesn't allocate.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public class GeofenceIndex {
+    private static final Geofence[] NO_FENCES = new Geofence[0];
+
+    private final double mCellSizeInDegrees;
+
+    private final Geofence[] mFences;
+
+    private final long[] mCells;
+
+    private final Geofence[][] mBuckets;
+
+    private final Geofence[] mLargeFences;
+
+    /**
+     * @param cellSizeInDegrees side of the grid cells. Cells about the size of the typical fence
+     * give the fewest candidates per query.
+     * @throws IllegalArgumentException if a fence belongs to another index already
+     */
+    public GeofenceIndex(final Collection<? extends Geofence> fences,
+            final double cellSizeInDegrees, final int maxCellsPerFence) {
+        if (cellSizeInDegrees <= 0) {
+            throw new IllegalArgumentException("cellSizeInDegrees must be positive");
+        }
+        mCellSizeInDegrees = cellSizeInDegrees;
+        mFences = fences.toArray(new Geofence[fences.size()]);
+
+        final Map<Long, List<Geofence>> buckets = new HashMap<>();
+        final List<Geofence> largeFences = new ArrayList<>();
+
+        for (int i = 0; i < mFences.length; i++) {
+            final Geofence fence = mFences[i];
+
+            if (fence.mIndex >= 0) {
+                throw new IllegalArgumentException(fence + " is indexed already");
+            }
+            fence.mIndex = i;
+
+            final long minRow = rowOf(fence.mMinLatitude);
+            final long maxRow = rowOf(fence.mMaxLatitude);
+            final long minColumn = columnOf(fence.mMinLongitude);
+            final long maxColumn = columnOf(fence.mMaxLongitude);
+
+            if ((maxRow - minRow + 1) * (maxColumn - minColumn + 1) > maxCellsPerFence) {
+                largeFences.add(fence);
+                continue;
+            }
+
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long column = minColumn; column <= maxColumn; column++) {
+                    final Long cell = cellOf(row, column);
+                    List<Geofence> bucket = buckets.get(cell);
+
+                    if (bucket == null) {
+                        bucket = new ArrayList<>(2);
+                        buckets.put(cell, bucket);
+                    }
+                    bucket.add(fence);
+                }
+            }
+        }
+
+        mCells = new long[buckets.size()];
+        int i = 0;
+
+        for (Long cell : buckets.keySet()) {
+            mCells[i++] = cell;
+        }
+
+        Arrays.sort(mCells);
+        mBuckets = new Geofence[mCells.length][];
+
+        for (i = 0; i < mCells.length; i++) {
+            final List<Geofence> bucket = buckets.get(mCells[i]);
+            mBuckets[i] = bucket.toArray(new Geofence[bucket.size()]);
+        }
+
+        mLargeFences = largeFences.toArray(new Geofence[largeFences.size()]);
+    }
+
+    public int size() {
+        return mFences.length;
+    }
+
+    /**
+     * Returns the fence at the given position, in the order they were given.
+     */
+    public Geofence get(final int index) {
+        return mFences[index];
+    }
+
+    /**
+     * Returns the fences whose bounding box may contain the given coordinates, other than the
+     * ones returned by {@link #getLargeFences()}. The array must not be modified.
+     */
+    public Geofence[] getCandidates(final double latitude, final double longitude) {
+        final int position = Arrays.binarySearch(mCells,
+                cellOf(rowOf(latitude), columnOf(longitude)));
+        return position < 0 ? NO_FENCES : mBuckets[position];
+    }
+
+    /**
+     * Returns the fences too large to be put in buckets, candidates for any coordinates. The
+     * array must not be modified.
+     */
+    public Geofence[] getLargeFences() {
+        return mLargeFences;
+    }
+
+    private long rowOf(final double latitude) {
+        return (long) Math.floor(latitude / mCellSizeInDegrees);
+    }
+
+    private long columnOf(final double longitude) {
+        return (long) Math.floor(longitude / mCellSizeInDegrees);
+    }
+
+    private static long cellOf(final long row, final long column) {
+        return row << 32 | (column & 0xffffffffL);
+    }
+}
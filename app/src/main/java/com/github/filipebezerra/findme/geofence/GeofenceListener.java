@@ -0,0 +1,13 @@
+package com.github.filipebezerra.findme.geofence;
+
+/**
+ * Receives the transitions detected by {@link GeofenceMonitor}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public interface GeofenceListener {
+    void onGeofenceTransition(Geofence fence, GeofenceMonitor.Transition transition,
+            long timeInMillis);
+}
@@ -0,0 +1,130 @@
+package com.github.filipebezerra.findme.geofence;
+
+import com.github.filipebezerra.findme.location.Fix;
+
+/**
+ * Detects when the device enters, dwells in and leaves the fences of a {@link GeofenceIndex},
+ * from the stream of fixes received.
+ * <p/>
+ * Each fix is only tested against the candidate fences of its grid cell and the fences the
+ * device is in already. A fence is entered as soon as a fix falls inside it, but only left once
+ * a fix is farther outside than the exit hysteresis or the accuracy of the fix, whichever is
+ * more, so a device standing near the boundary doesn't flap in and out.
+ * <p/>
+ * Fixes must be fed in time order, from a single thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public class GeofenceMonitor {
+    public enum Transition {
+        ENTER,
+        /**
+         * The device stayed inside the fence for the dwell delay since entering it.
+         */
+        DWELL,
+        EXIT
+    }
+
+    private final GeofenceIndex mIndex;
+
+    private final GeofenceListener mListener;
+
+    private final double mExitHysteresisInMeters;
+
+    private final long mDwellDelayInMillis;
+
+    private final boolean[] mInside;
+
+    private final long[] mEnteredAt;
+
+    private final boolean[] mDwelling;
+
+    /**
+     * Indexes of the fences the device is in, the first {@link #mInsideCount} ones.
+     */
+    private final int[] mInsideFences;
+
+    private int mInsideCount;
+
+    public GeofenceMonitor(final GeofenceIndex index, final GeofenceListener listener,
+            final double exitHysteresisInMeters, final long dwellDelayInMillis) {
+        mIndex = index;
+        mListener = listener;
+        mExitHysteresisInMeters = exitHysteresisInMeters;
+        mDwellDelayInMillis = dwellDelayInMillis;
+        mInside = new boolean[index.size()];
+        mEnteredAt = new long[index.size()];
+        mDwelling = new boolean[index.size()];
+        mInsideFences = new int[index.size()];
+    }
+
+    /**
+     * Returns the number of fences the device is in.
+     */
+    public int getInsideCount() {
+        return mInsideCount;
+    }
+
+    public void onFix(final Fix fix) {
+        onFix(fix.time, fix.latitude, fix.longitude, fix.hasAccuracy ? fix.accuracy : 0);
+    }
+
+    /**
+     * Feeds a new fix to the monitor, notifying the listener of every transition it causes.
+     *
+     * @param accuracy the accuracy radius of the fix in meters, or 0 if unknown
+     */
+    public void onFix(final long timeInMillis, final double latitude, final double longitude,
+            final float accuracy) {
+        final double exitDistance = Math.max(mExitHysteresisInMeters, accuracy);
+
+        // Going backwards so removed fences can be swapped with the last ones.
+        for (int i = mInsideCount - 1; i >= 0; i--) {
+            final int index = mInsideFences[i];
+            final Geofence fence = mIndex.get(index);
+
+            if (fence.distanceInMeters(latitude, longitude) > exitDistance) {
+                mInside[index] = false;
+                mInsideFences[i] = mInsideFences[--mInsideCount];
+                mListener.onGeofenceTransition(fence, Transition.EXIT, timeInMillis);
+            } else if (! mDwelling[index]
+                    && timeInMillis - mEnteredAt[index] >= mDwellDelayInMillis) {
+                mDwelling[index] = true;
+                mListener.onGeofenceTransition(fence, Transition.DWELL, timeInMillis);
+            }
+        }
+
+        enter(mIndex.getCandidates(latitude, longitude), timeInMillis, latitude, longitude);
+        enter(mIndex.getLargeFences(), timeInMillis, latitude, longitude);
+    }
+
+    /**
+     * Forgets which fences the device is in, without notifying any exit.
+     */
+    public void reset() {
+        for (int i = 0; i < mInsideCount; i++) {
+            mInside[mInsideFences[i]] = false;
+        }
+        mInsideCount = 0;
+    }
+
+    private void enter(final Geofence[] candidates, final long timeInMillis,
+            final double latitude, final double longitude) {
+        for (Geofence fence : candidates) {
+            final int index = fence.mIndex;
+
+            if (mInside[index] || ! fence.boundsContain(latitude, longitude)
+                    || fence.distanceInMeters(latitude, longitude) > 0) {
+                continue;
+            }
+
+            mInside[index] = true;
+            mEnteredAt[index] = timeInMillis;
+            mDwelling[index] = false;
+            mInsideFences[mInsideCount++] = index;
+            mListener.onGeofenceTransition(fence, Transition.ENTER, timeInMillis);
+        }
+    }
+}
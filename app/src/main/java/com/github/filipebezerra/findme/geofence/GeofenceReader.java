@@ -0,0 +1,70 @@
+package com.github.filipebezerra.findme.geofence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the fences to monitor from CSV, one fence per line:
+ * {@code id,radius,latitude,longitude} for a circle, or
+ * {@code id,,latitude,longitude,latitude,longitude,...} with at least three vertices for a
+ * polygon. The radius is in meters. Blank lines and lines starting with {@code #} are skipped.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public final class GeofenceReader {
+    private GeofenceReader() {
+    }
+
+    public static List<Geofence> readCsv(final Reader reader) throws IOException {
+        final BufferedReader lines = new BufferedReader(reader);
+        final List<Geofence> fences = new ArrayList<>();
+        int lineNumber = 0;
+
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+
+            final String[] columns = line.split(",", -1);
+
+            if (columns.length < 4 || columns.length % 2 != 0) {
+                throw new IOException("Line " + lineNumber + " doesn't hold a fence");
+            }
+
+            try {
+                final String id = columns[0].trim();
+                final String radius = columns[1].trim();
+
+                if (! radius.isEmpty()) {
+                    fences.add(new CircleGeofence(id, Double.parseDouble(columns[2].trim()),
+                            Double.parseDouble(columns[3].trim()), Double.parseDouble(radius)));
+                    continue;
+                }
+
+                final int vertices = (columns.length - 2) / 2;
+                final double[] latitudes = new double[vertices];
+                final double[] longitudes = new double[vertices];
+
+                for (int i = 0; i < vertices; i++) {
+                    latitudes[i] = Double.parseDouble(columns[2 + i * 2].trim());
+                    longitudes[i] = Double.parseDouble(columns[3 + i * 2].trim());
+                }
+
+                fences.add(new PolygonGeofence(id, latitudes, longitudes));
+            } catch (IllegalArgumentException e) {
+                // Also covers NumberFormatException.
+                throw new IOException("Line " + lineNumber + " is malformed: " + e.getMessage());
+            }
+        }
+
+        return fences;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.filipebezerra.findme.geofence;
+
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * A fence covering a simple polygon, given by its vertices in order. Edges are straight lines
+ * on a flat projection, which is accurate for fences spanning up to a few kilometers.
+ *
+ * @author Filipe Bezerra
+ * @version #, 15/08/2015
+ * @since #
+ */
+public class PolygonGeofence extends Geofence {
+    private final double[] mLatitudes;
+
+    private final double[] mLongitudes;
+
+    public PolygonGeofence(final String id, final double[] latitudes, final double[] longitudes) {
+        super(id, min(latitudes), max(latitudes), min(longitudes), max(longitudes));
+        if (latitudes.length != longitudes.length || latitudes.length < 3) {
+            throw new IllegalArgumentException("A polygon needs at least 3 vertices");
+        }
+        mLatitudes = latitudes.clone();
+        mLongitudes = longitudes.clone();
+    }
+
+    @Override
+    public double distanceInMeters(final double latitude, final double longitude) {
+        final double metersPerDegreeOfLatitude = GeoMath.metersPerDegreeOfLatitude();
+        final double metersPerDegreeOfLongitude = GeoMath.metersPerDegreeOfLongitude(latitude);
+        final int count = mLatitudes.length;
+        boolean inside = false;
+        double minSquaredDistance = Double.MAX_VALUE;
+
+        // Vertices in meters from the given coordinates, which are the origin.
+        double fromY = (mLatitudes[count - 1] - latitude) * metersPerDegreeOfLatitude;
+        double fromX = (mLongitudes[count - 1] - longitude) * metersPerDegreeOfLongitude;
+
+        for (int i = 0; i < count; i++) {
+            final double toY = (mLatitudes[i] - latitude) * metersPerDegreeOfLatitude;
+            final double toX = (mLongitudes[i] - longitude) * metersPerDegreeOfLongitude;
+
+            // Ray casting along the positive x axis.
+            if ((fromY > 0) != (toY > 0) && fromX + (toX - fromX) * -fromY / (toY - fromY) > 0) {
+                inside = ! inside;
+            }
+
+            minSquaredDistance = Math.min(minSquaredDistance,
+                    squaredDistanceToSegment(fromX, fromY, toX, toY));
+            fromX = toX;
+            fromY = toY;
+        }
+
+        final double distance = Math.sqrt(minSquaredDistance);
+        return inside ? -distance : distance;
+    }
+
+    /**
+     * Returns the squared distance from the origin to the segment between the given points.
+     */
+    private static double squaredDistanceToSegment(final double fromX, final double fromY,
+            final double toX, final double toY) {
+        final double dx = toX - fromX;
+        final double dy = toY - fromY;
+        final double squaredLength = dx * dx + dy * dy;
+        double t = squaredLength == 0 ? 0 : -(fromX * dx + fromY * dy) / squaredLength;
+        t = Math.max(0, Math.min(1, t));
+        final double x = fromX + t * dx;
+        final double y = fromY + t * dy;
+        return x * x + y * y;
+    }
+
+    private static double min(final double[] values) {
+        double min = Double.MAX_VALUE;
+        for (double value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static double max(final double[] values) {
+        double max = -Double.MAX_VALUE;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
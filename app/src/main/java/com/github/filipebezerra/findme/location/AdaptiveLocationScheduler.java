@@ -0,0 +1,150 @@
+package com.github.filipebezerra.findme.location;
+
+import com.github.filipebezerra.findme.utils.Constants;
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * Decides how often location updates should be requested from the stream of fixes received.
+ * <p/>
+ * While the device moves, updates are requested at the regular interval. Once it has stayed
+ * within a small radius for a while the scheduler steps down to {@link Mode#IDLE} and then to
+ * {@link Mode#STATIONARY}, and goes straight back to {@link Mode#MOVING} as soon as a fix shows
+ * it moving again. The time spent in each mode is accounted so the number of fixes saved can be
+ * measured.
+ *
+ * @author Filipe Bezerra
+ * @version #, 06/08/2015
+ * @since #
+ */
+public class AdaptiveLocationScheduler {
+    /**
+     * How often and how accurately locations are requested.
+     */
+    public enum Mode {
+        MOVING(Constants.MOVING_UPDATE_INTERVAL_IN_MILLISECONDS),
+        IDLE(Constants.IDLE_UPDATE_INTERVAL_IN_MILLISECONDS),
+        STATIONARY(Constants.STATIONARY_UPDATE_INTERVAL_IN_MILLISECONDS);
+
+        /**
+         * The desired interval for location updates in this mode.
+         */
+        public final long intervalInMillis;
+
+        Mode(final long intervalInMillis) {
+            this.intervalInMillis = intervalInMillis;
+        }
+    }
+
+    private final long[] mTimeInModeInMillis = new long[Mode.values().length];
+
+    private Mode mMode = Mode.MOVING;
+
+    private long mModeSinceInMillis = -1;
+
+    private long mFirstFixTimeInMillis = -1;
+
+    private boolean mHasAnchor;
+
+    private double mAnchorLatitude;
+
+    private double mAnchorLongitude;
+
+    private long mAnchorTimeInMillis;
+
+    public Mode getMode() {
+        return mMode;
+    }
+
+    /**
+     * Feeds a new fix to the scheduler.
+     *
+     * @param timeInMillis when the fix was received, from a monotonic clock
+     * @param speed the reported speed in meters per second, or a negative value if unknown
+     * @return true if the mode changed and location updates should be requested again
+     */
+    public boolean onFix(final long timeInMillis, final double latitude, final double longitude,
+            final float accuracy, final float speed) {
+        if (mFirstFixTimeInMillis < 0) {
+            mFirstFixTimeInMillis = timeInMillis;
+            mModeSinceInMillis = timeInMillis;
+        }
+
+        if (! mHasAnchor) {
+            moveAnchor(timeInMillis, latitude, longitude);
+            return false;
+        }
+
+        final double displacement = GeoMath.distanceInMeters(mAnchorLatitude, mAnchorLongitude,
+                latitude, longitude);
+        // A fix can't be told apart from the anchor if it is within its own accuracy radius.
+        final double stationaryRadius = Math.max(Constants.STATIONARY_RADIUS_IN_METERS, accuracy);
+        final boolean moving = speed >= Constants.MOVING_SPEED_IN_METERS_PER_SECOND
+                || displacement > stationaryRadius;
+
+        final Mode mode;
+
+        if (moving) {
+            moveAnchor(timeInMillis, latitude, longitude);
+            mode = Mode.MOVING;
+        } else {
+            final long stillForInMillis = timeInMillis - mAnchorTimeInMillis;
+
+            if (stillForInMillis >= Constants.STATIONARY_AFTER_IN_MILLISECONDS) {
+                mode = Mode.STATIONARY;
+            } else if (stillForInMillis >= Constants.IDLE_AFTER_IN_MILLISECONDS) {
+                mode = Mode.IDLE;
+            } else {
+                mode = mMode;
+            }
+        }
+
+        if (mode == mMode) {
+            return false;
+        }
+
+        mTimeInModeInMillis[mMode.ordinal()] += timeInMillis - mModeSinceInMillis;
+        mModeSinceInMillis = timeInMillis;
+        mMode = mode;
+        return true;
+    }
+
+    /**
+     * Forgets the anchor position, e.g. after location updates were stopped for a while.
+     */
+    public void reset() {
+        mHasAnchor = false;
+    }
+
+    /**
+     * Returns how many fixes per hour were avoided, compared to requesting them at the
+     * {@link Mode#MOVING} interval all the time.
+     */
+    public double getFixesSavedPerHour(final long nowInMillis) {
+        if (mFirstFixTimeInMillis < 0 || nowInMillis <= mFirstFixTimeInMillis) {
+            return 0;
+        }
+
+        final double baselineRate = 1d / Mode.MOVING.intervalInMillis;
+        double fixesSaved = 0;
+
+        for (Mode mode : Mode.values()) {
+            long timeInMode = mTimeInModeInMillis[mode.ordinal()];
+
+            if (mode == mMode) {
+                timeInMode += nowInMillis - mModeSinceInMillis;
+            }
+
+            fixesSaved += timeInMode * (baselineRate - 1d / mode.intervalInMillis);
+        }
+
+        return fixesSaved * 3600000d / (nowInMillis - mFirstFixTimeInMillis);
+    }
+
+    private void moveAnchor(final long timeInMillis, final double latitude,
+            final double longitude) {
+        mHasAnchor = true;
+        mAnchorLatitude = latitude;
+        mAnchorLongitude = longitude;
+        mAnchorTimeInMillis = timeInMillis;
+    }
+}
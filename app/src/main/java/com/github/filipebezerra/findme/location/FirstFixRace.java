@@ -0,0 +1,163 @@
+package com.github.filipebezerra.findme.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.SystemClock;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.List;
+import timber.log.Timber;
+
+/**
+ * Gets a location on screen as soon as possible after start, then measures how long it took.
+ * <p/>
+ * When started, the race reads the last known location of every platform provider and the one
+ * persisted by the previous run, which all answer without waiting, and picks the best of them.
+ * The last location of the fused provider is offered once Google Play services connect, and
+ * live fixes replace whatever was shown as they arrive. The time until a location is shown and
+ * until the first live fix arrives are recorded in {@link FirstFixStats}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 17/08/2015
+ * @since #
+ */
+public class FirstFixRace {
+    private final Context mContext;
+
+    private final LastFixStore mStore;
+
+    private final FirstFixStats mStats;
+
+    private long mStartedAt = -1;
+
+    private boolean mShownRecorded;
+
+    private boolean mLiveRecorded;
+
+    /**
+     * Location current when the race started, which may come from a live fix of an earlier one.
+     */
+    private Location mStartLocation;
+
+    public FirstFixRace(Context context) {
+        mContext = context.getApplicationContext();
+        // Starts loading the preferences in the background right away.
+        mStore = new LastFixStore(mContext);
+        mStats = new FirstFixStats(mContext);
+    }
+
+    /**
+     * Starts a new race and returns the best location known right away, which is the given
+     * current one unless a better one was found.
+     */
+    public Location start(final Location current) {
+        mStartedAt = SystemClock.elapsedRealtime();
+        // Locations restored from the saved state show up instantly, timing them is pointless.
+        mShownRecorded = current != null;
+        mLiveRecorded = false;
+        mStartLocation = current;
+
+        if (! Constants.FAST_FIRST_FIX) {
+            return current;
+        }
+
+        Location best = offer(mStore.load(), current);
+        final LocationManager locationManager =
+                (LocationManager) mContext.getSystemService(Context.LOCATION_SERVICE);
+
+        try {
+            final List<String> providers = locationManager.getProviders(true);
+
+            for (String provider : providers) {
+                best = offer(locationManager.getLastKnownLocation(provider), best);
+            }
+        } catch (SecurityException e) {
+            Timber.e(e, "Reading the last known platform locations");
+        }
+
+        if (best != current) {
+            Timber.d("First fix from %s", best.getProvider());
+        }
+        return best;
+    }
+
+    /**
+     * Returns the candidate location if it is better than the current one, otherwise the
+     * current one.
+     */
+    public Location offer(final Location candidate, final Location current) {
+        return isBetter(candidate, current, System.currentTimeMillis()) ? candidate : current;
+    }
+
+    /**
+     * Notifies that a location is on screen.
+     */
+    public void onShown() {
+        if (! mShownRecorded && mStartedAt >= 0) {
+            mShownRecorded = true;
+            mStats.record(FirstFixStats.KIND_SHOWN, SystemClock.elapsedRealtime() - mStartedAt);
+        }
+    }
+
+    /**
+     * Notifies that a live fix is current, which ends the race unless it was already current
+     * when the race started, as when tracking was stopped since.
+     */
+    public void onLiveFix(final Location location) {
+        if (! mLiveRecorded && mStartedAt >= 0 && location != mStartLocation) {
+            mLiveRecorded = true;
+            onShown();
+            mStats.record(FirstFixStats.KIND_LIVE, SystemClock.elapsedRealtime() - mStartedAt);
+        }
+    }
+
+    /**
+     * Returns whether a live fix arrived since the race started.
+     */
+    public boolean hasLiveFix() {
+        return mLiveRecorded;
+    }
+
+    /**
+     * Persists the location shown last, to start the next race with.
+     */
+    public void save(final Location location) {
+        mStore.save(location);
+    }
+
+    /**
+     * Returns whether the candidate is recent and accurate enough to be shown, and better than
+     * the current location: much newer, or about as recent and more accurate.
+     */
+    static boolean isBetter(final Location candidate, final Location current, final long now) {
+        if (candidate == null
+                || now - candidate.getTime() > Constants.FIRST_FIX_MAX_AGE_IN_MILLISECONDS
+                || (candidate.hasAccuracy()
+                        && candidate.getAccuracy() > Constants.FIRST_FIX_MAX_ACCURACY_IN_METERS)) {
+            return false;
+        }
+
+        if (current == null) {
+            return true;
+        }
+
+        final long newerBy = candidate.getTime() - current.getTime();
+
+        if (newerBy > Constants.FIRST_FIX_SIGNIFICANTLY_NEWER_IN_MILLISECONDS) {
+            return true;
+        }
+
+        if (newerBy < -Constants.FIRST_FIX_SIGNIFICANTLY_NEWER_IN_MILLISECONDS) {
+            return false;
+        }
+
+        final float candidateAccuracy = accuracyOf(candidate);
+        final float currentAccuracy = accuracyOf(current);
+        return candidateAccuracy < currentAccuracy
+                || (candidateAccuracy == currentAccuracy && newerBy > 0);
+    }
+
+    private static float accuracyOf(final Location location) {
+        return location.hasAccuracy() ? location.getAccuracy() : Float.MAX_VALUE;
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.filipebezerra.findme.location;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.github.filipebezerra.findme.BuildConfig;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import java.util.Set;
+import java.util.TreeSet;
+import timber.log.Timber;
+
+/**
+ * Keeps the times to first fix measured by {@link FirstFixRace}, per release, so they can be
+ * compared across releases on the metrics screen.
+ *
+ * @author Filipe Bezerra
+ * @version #, 17/08/2015
+ * @since #
+ */
+public class FirstFixStats {
+    /**
+     * Time until a location is shown, possibly a cached one.
+     */
+    public static final String KIND_SHOWN = "shown";
+
+    /**
+     * Time until the first live fix arrives.
+     */
+    public static final String KIND_LIVE = "live";
+
+    private static final String PREFERENCES_NAME = "first_fix_stats";
+
+    private final SharedPreferences mPreferences;
+
+    public FirstFixStats(Context context) {
+        mPreferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Records a time to first fix of the given kind for the running release.
+     */
+    public void record(final String kind, final long timeInMillis) {
+        final String prefix = BuildConfig.VERSION_NAME + '.' + kind + '.';
+        final long count = mPreferences.getLong(prefix + "count", 0) + 1;
+        final long total = mPreferences.getLong(prefix + "total", 0) + timeInMillis;
+        final long worst = Math.max(mPreferences.getLong(prefix + "worst", 0), timeInMillis);
+
+        mPreferences.edit()
+                .putLong(prefix + "count", count)
+                .putLong(prefix + "total", total)
+                .putLong(prefix + "worst", worst)
+                .apply();
+
+        (KIND_LIVE.equals(kind) ? Metrics.FIRST_FIX_LIVE_TIME : Metrics.FIRST_FIX_SHOWN_TIME)
+                .record(timeInMillis);
+        Timber.i("Time to %s first fix %d ms, %d ms on average over %d starts of %s", kind,
+                timeInMillis, total / count, count, BuildConfig.VERSION_NAME);
+    }
+
+    /**
+     * Returns the times to first fix recorded by every release as a human readable table, one
+     * kind of a release per line, sorted by release then kind.
+     */
+    public String toText() {
+        final Set<String> prefixes = new TreeSet<>();
+
+        for (String key : mPreferences.getAll().keySet()) {
+            if (key.endsWith(".count")) {
+                prefixes.add(key.substring(0, key.length() - "count".length()));
+            }
+        }
+
+        final StringBuilder text = new StringBuilder();
+
+        for (String prefix : prefixes) {
+            final long count = mPreferences.getLong(prefix + "count", 0);
+
+            if (count > 0) {
+                text.append("first_fix.").append(prefix, 0, prefix.length() - 1)
+                        .append(": n=").append(count)
+                        .append(" mean=").append(mPreferences.getLong(prefix + "total", 0) / count)
+                        .append(" max=").append(mPreferences.getLong(prefix + "worst", 0))
+                        .append('\n');
+            }
+        }
+
+        return text.toString();
+    }
+}
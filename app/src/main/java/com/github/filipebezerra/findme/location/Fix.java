@@ -0,0 +1,83 @@
+package com.github.filipebezerra.findme.location;
+
+/**
+ * Mutable holder of a single location fix using primitive fields only, so the same instance can
+ * be reused for every fix flowing through the location pipeline without allocating.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public final class Fix {
+    /**
+     * UTC time of the fix, in milliseconds since January 1, 1970.
+     */
+    public long time;
+
+    public double latitude;
+
+    public double longitude;
+
+    /**
+     * Estimated accuracy radius in meters, if {@link #hasAccuracy}.
+     */
+    public float accuracy;
+
+    /**
+     * Speed over ground in meters per second, if {@link #hasSpeed}.
+     */
+    public float speed;
+
+    /**
+     * Bearing in degrees east of true north, if {@link #hasBearing}.
+     */
+    public float bearing;
+
+    /**
+     * Altitude in meters above the WGS 84 reference ellipsoid, if {@link #hasAltitude}.
+     */
+    public double altitude;
+
+    public boolean hasAccuracy;
+
+    public boolean hasSpeed;
+
+    public boolean hasBearing;
+
+    public boolean hasAltitude;
+
+    public Fix set(final Fix other) {
+        time = other.time;
+        latitude = other.latitude;
+        longitude = other.longitude;
+        accuracy = other.accuracy;
+        speed = other.speed;
+        bearing = other.bearing;
+        altitude = other.altitude;
+        hasAccuracy = other.hasAccuracy;
+        hasSpeed = other.hasSpeed;
+        hasBearing = other.hasBearing;
+        hasAltitude = other.hasAltitude;
+        return this;
+    }
+
+    public Fix set(final long time, final double latitude, final double longitude) {
+        this.time = time;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        hasAccuracy = false;
+        hasSpeed = false;
+        hasBearing = false;
+        hasAltitude = false;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "Fix[" + time + " " + latitude + "," + longitude
+                + (hasAccuracy ? " acc=" + accuracy : "")
+                + (hasSpeed ? " vel=" + speed : "")
+                + (hasBearing ? " bear=" + bearing : "")
+                + (hasAltitude ? " alt=" + altitude : "") + "]";
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.filipebezerra.findme.location;
+
+import android.location.Location;
+import android.os.Looper;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides fixes from the FusedLocationProviderApi of Google Play services, in batches when the
+ * request sets a max wait time.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public class FusedLocationProvider implements LocationProvider {
+    private final GoogleApiClient mGoogleApiClient;
+
+    /**
+     * The callback registered with Google Play services for each listener.
+     */
+    private final Map<LocationBatchListener, LocationCallback> mCallbacks = new HashMap<>();
+
+    public FusedLocationProvider(GoogleApiClient googleApiClient) {
+        mGoogleApiClient = googleApiClient;
+    }
+
+    @Override
+    public boolean isReady() {
+        return mGoogleApiClient.isConnected();
+    }
+
+    @Override
+    public Location getLastLocation() {
+        return LocationServices.FusedLocationApi.getLastLocation(mGoogleApiClient);
+    }
+
+    @Override
+    public void requestLocationUpdates(LocationRequest request,
+            final LocationBatchListener listener) {
+        LocationCallback callback = mCallbacks.get(listener);
+
+        if (callback == null) {
+            callback = new LocationCallback() {
+                @Override
+                public void onLocationResult(LocationResult result) {
+                    listener.onLocationsChanged(result.getLocations());
+                }
+            };
+            mCallbacks.put(listener, callback);
+        }
+
+        LocationServices.FusedLocationApi.requestLocationUpdates(mGoogleApiClient, request,
+                callback, Looper.getMainLooper());
+    }
+
+    @Override
+    public void removeLocationUpdates(LocationBatchListener listener) {
+        final LocationCallback callback = mCallbacks.remove(listener);
+
+        if (callback != null) {
+            LocationServices.FusedLocationApi.removeLocationUpdates(mGoogleApiClient, callback);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.filipebezerra.findme.location;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.location.Location;
+
+/**
+ * Persists the last location shown, so the next start can show it before any location source
+ * answers.
+ *
+ * @author Filipe Bezerra
+ * @version #, 17/08/2015
+ * @since #
+ */
+public class LastFixStore {
+    /**
+     * Provider of the locations loaded from the store.
+     */
+    public static final String PROVIDER = "persisted";
+
+    private static final String PREFERENCES_NAME = "last_fix";
+
+    private static final String KEY_TIME = "time";
+
+    private static final String KEY_LATITUDE = "latitude";
+
+    private static final String KEY_LONGITUDE = "longitude";
+
+    private static final String KEY_ACCURACY = "accuracy";
+
+    private final SharedPreferences mPreferences;
+
+    public LastFixStore(Context context) {
+        mPreferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Saves the location in the background, replacing the one saved before.
+     */
+    public void save(final Location location) {
+        final SharedPreferences.Editor editor = mPreferences.edit()
+                .putLong(KEY_TIME, location.getTime())
+                .putLong(KEY_LATITUDE, Double.doubleToRawLongBits(location.getLatitude()))
+                .putLong(KEY_LONGITUDE, Double.doubleToRawLongBits(location.getLongitude()));
+
+        if (location.hasAccuracy()) {
+            editor.putFloat(KEY_ACCURACY, location.getAccuracy());
+        } else {
+            editor.remove(KEY_ACCURACY);
+        }
+
+        editor.apply();
+    }
+
+    /**
+     * Returns the saved location, or null if there is none.
+     */
+    public Location load() {
+        if (! mPreferences.contains(KEY_TIME)) {
+            return null;
+        }
+
+        final Location location = new Location(PROVIDER);
+        location.setTime(mPreferences.getLong(KEY_TIME, 0));
+        location.setLatitude(Double.longBitsToDouble(mPreferences.getLong(KEY_LATITUDE, 0)));
+        location.setLongitude(Double.longBitsToDouble(mPreferences.getLong(KEY_LONGITUDE, 0)));
+
+        if (mPreferences.contains(KEY_ACCURACY)) {
+            location.setAccuracy(mPreferences.getFloat(KEY_ACCURACY, 0));
+        }
+
+        return location;
+    }
+}
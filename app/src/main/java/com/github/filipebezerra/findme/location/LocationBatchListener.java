@@ -0,0 +1,19 @@
+package com.github.filipebezerra.findme.location;
+
+import android.location.Location;
+import java.util.List;
+
+/**
+ * Receives location fixes from a {@link LocationProvider}, possibly several at once when the
+ * provider batches them.
+ *
+ * @author Filipe Bezerra
+ * @version #, 21/08/2015
+ * @since #
+ */
+public interface LocationBatchListener {
+    /**
+     * Receives the fixes made since the last call, oldest first.
+     */
+    void onLocationsChanged(List<Location> locations);
+}
@@ -0,0 +1,41 @@
+package com.github.filipebezerra.findme.location;
+
+import android.location.Location;
+
+/**
+ * Converts between {@link Location} and the allocation-free {@link Fix}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public final class LocationFixes {
+    private LocationFixes() {
+    }
+
+    /**
+     * Copies every field of the location into the given fix and returns it.
+     */
+    public static Fix copy(final Location location, final Fix fix) {
+        fix.time = location.getTime();
+        fix.latitude = location.getLatitude();
+        fix.longitude = location.getLongitude();
+        fix.hasAccuracy = location.hasAccuracy();
+        fix.accuracy = location.getAccuracy();
+        fix.hasSpeed = location.hasSpeed();
+        fix.speed = location.getSpeed();
+        fix.hasBearing = location.hasBearing();
+        fix.bearing = location.getBearing();
+        fix.hasAltitude = location.hasAltitude();
+        fix.altitude = location.getAltitude();
+        return fix;
+    }
+
+    /**
+     * Writes the position of the fix, which a filter may have adjusted, back into the location.
+     */
+    public static void applyPosition(final Fix fix, final Location location) {
+        location.setLatitude(fix.latitude);
+        location.setLongitude(fix.longitude);
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.filipebezerra.findme.location;
+
+import android.location.Location;
+import com.google.android.gms.location.LocationRequest;
+
+/**
+ * Source of location fixes for the app, so the location pipeline can be driven by Google Play
+ * services or by a recorded trace alike.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public interface LocationProvider {
+    /**
+     * Returns true if location updates can be requested right now.
+     */
+    boolean isReady();
+
+    /**
+     * Returns the most recent location known, or null if there is none.
+     */
+    Location getLastLocation();
+
+    /**
+     * Requests location updates on the main thread, replacing any previous request made for the
+     * same listener. Fixes may be delivered in batches, no later than the max wait time of the
+     * request.
+     */
+    void requestLocationUpdates(LocationRequest request, LocationBatchListener listener);
+
+    void removeLocationUpdates(LocationBatchListener listener);
+}
@@ -0,0 +1,54 @@
+package com.github.filipebezerra.findme.location;
+
+import android.content.Context;
+import com.github.filipebezerra.findme.BuildConfig;
+import com.github.filipebezerra.findme.location.replay.TraceReader;
+import com.github.filipebezerra.findme.utils.Constants;
+import com.google.android.gms.common.api.GoogleApiClient;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import timber.log.Timber;
+
+/**
+ * Picks the {@link LocationProvider} the app gets its fixes from.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public final class LocationProviders {
+    private LocationProviders() {
+    }
+
+    /**
+     * Returns a provider replaying the trace sideloaded as one of
+     * {@link Constants#REPLAY_TRACE_FILE_NAMES} into the app's external files directory, on debug
+     * builds only, or else the fused location provider of Google Play services.
+     */
+    public static LocationProvider create(Context context, GoogleApiClient googleApiClient) {
+        if (BuildConfig.DEBUG) {
+            final File directory = context.getExternalFilesDir(null);
+
+            for (String fileName : Constants.REPLAY_TRACE_FILE_NAMES) {
+                final File trace = new File(directory, fileName);
+
+                if (directory != null && trace.isFile()) {
+                    try {
+                        final List<Fix> fixes = TraceReader.read(trace);
+
+                        if (! fixes.isEmpty()) {
+                            Timber.i("Replaying location trace %s", trace);
+                            return new ReplayLocationProvider(fixes,
+                                    Constants.REPLAY_SPEED_FACTOR);
+                        }
+                    } catch (IOException e) {
+                        Timber.e(e, "Reading location trace %s", trace);
+                    }
+                }
+            }
+        }
+
+        return new FusedLocationProvider(googleApiClient);
+    }
+}
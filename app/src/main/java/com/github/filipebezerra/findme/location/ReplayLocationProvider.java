@@ -0,0 +1,118 @@
+package com.github.filipebezerra.findme.location;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import com.github.filipebezerra.findme.location.replay.FixListener;
+import com.github.filipebezerra.findme.location.replay.TraceReplayer;
+import com.google.android.gms.location.LocationRequest;
+import java.util.Collections;
+import java.util.List;
+import timber.log.Timber;
+
+/**
+ * Provides fixes replayed from a recorded trace, at real or accelerated speed, one at a time,
+ * ignoring the interval and max wait time of the location request. Useful for exercising the whole
+ * location pipeline without moving around, or without Google Play services at all.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public class ReplayLocationProvider implements LocationProvider {
+    private static final String PROVIDER_NAME = "replay";
+
+    private final List<Fix> mTrace;
+
+    private final double mSpeedFactor;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private TraceReplayer mReplayer;
+
+    private LocationBatchListener mListener;
+
+    private Location mLastLocation;
+
+    public ReplayLocationProvider(List<Fix> trace, double speedFactor) {
+        mTrace = trace;
+        mSpeedFactor = speedFactor;
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public Location getLastLocation() {
+        return mLastLocation;
+    }
+
+    @Override
+    public void requestLocationUpdates(LocationRequest request,
+            final LocationBatchListener listener) {
+        if (mReplayer != null) {
+            // Only the listener changes, the trace keeps playing.
+            mListener = listener;
+            return;
+        }
+
+        Timber.d("Replaying a trace of %d fixes at %.1fx", mTrace.size(), mSpeedFactor);
+        mListener = listener;
+        mReplayer = new TraceReplayer(mTrace, mSpeedFactor, true);
+        mReplayer.start(new FixListener() {
+            @Override
+            public void onFix(Fix fix) {
+                final Location location = toLocation(fix);
+
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        mLastLocation = location;
+
+                        if (mListener != null) {
+                            mListener.onLocationsChanged(Collections.singletonList(location));
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onReplayFinished() {
+                Timber.d("Trace replay finished");
+            }
+        });
+    }
+
+    @Override
+    public void removeLocationUpdates(LocationBatchListener listener) {
+        if (mListener == listener && mReplayer != null) {
+            mReplayer.stop();
+            mReplayer = null;
+            mListener = null;
+        }
+    }
+
+    private static Location toLocation(final Fix fix) {
+        final Location location = new Location(PROVIDER_NAME);
+        location.setTime(fix.time);
+        location.setLatitude(fix.latitude);
+        location.setLongitude(fix.longitude);
+
+        if (fix.hasAccuracy) {
+            location.setAccuracy(fix.accuracy);
+        }
+        if (fix.hasSpeed) {
+            location.setSpeed(fix.speed);
+        }
+        if (fix.hasBearing) {
+            location.setBearing(fix.bearing);
+        }
+        if (fix.hasAltitude) {
+            location.setAltitude(fix.altitude);
+        }
+
+        return location;
+    }
+}
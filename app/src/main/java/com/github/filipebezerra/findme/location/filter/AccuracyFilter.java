@@ -0,0 +1,27 @@
+package com.github.filipebezerra.findme.location.filter;
+
+import com.github.filipebezerra.findme.location.Fix;
+
+/**
+ * Drops fixes whose accuracy radius is unknown or larger than a maximum.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public class AccuracyFilter implements LocationFilter {
+    private final float mMaxAccuracyInMeters;
+
+    public AccuracyFilter(final float maxAccuracyInMeters) {
+        mMaxAccuracyInMeters = maxAccuracyInMeters;
+    }
+
+    @Override
+    public boolean filter(final Fix fix) {
+        return fix.hasAccuracy && fix.accuracy <= mMaxAccuracyInMeters;
+    }
+
+    @Override
+    public void reset() {
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.filipebezerra.findme.location.filter;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * Smooths the position of fixes with a constant velocity Kalman filter, weighting each
+ * measurement by its accuracy radius.
+ * <p/>
+ * Positions are tracked in meters north and east of a local origin. Both axes share the same
+ * dynamics and measurement noise, so a single 2x2 covariance matrix serves both of them and the
+ * whole state lives in a handful of primitive fields.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public class KalmanFilter implements LocationFilter {
+    /**
+     * Accuracy assumed for fixes not reporting one.
+     */
+    private static final double DEFAULT_ACCURACY_IN_METERS = 30;
+
+    /**
+     * Initial uncertainty of the velocity, in meters per second.
+     */
+    private static final double INITIAL_VELOCITY_DEVIATION = 5;
+
+    /**
+     * Distance from the origin after which it is moved, keeping the flat projection accurate.
+     */
+    private static final double MAX_DISTANCE_FROM_ORIGIN_IN_METERS = 10000;
+
+    private final double mAccelerationVariance;
+
+    private final long mMaxGapInMillis;
+
+    private boolean mInitialized;
+
+    private long mLastTime;
+
+    private double mOriginLatitude;
+
+    private double mOriginLongitude;
+
+    private double mMetersPerDegreeOfLongitude;
+
+    private double mNorth;
+
+    private double mEast;
+
+    private double mNorthVelocity;
+
+    private double mEastVelocity;
+
+    /**
+     * Position variance.
+     */
+    private double mP00;
+
+    /**
+     * Position and velocity covariance.
+     */
+    private double mP01;
+
+    /**
+     * Velocity variance.
+     */
+    private double mP11;
+
+    /**
+     * @param accelerationDeviation expected deviation from constant velocity, in meters per
+     * second squared. Higher values follow changes of direction faster but smooth less.
+     * @param maxGapInMillis gap between fixes after which the filter starts over
+     */
+    public KalmanFilter(final double accelerationDeviation, final long maxGapInMillis) {
+        mAccelerationVariance = accelerationDeviation * accelerationDeviation;
+        mMaxGapInMillis = maxGapInMillis;
+    }
+
+    @Override
+    public boolean filter(final Fix fix) {
+        final double accuracy = fix.hasAccuracy && fix.accuracy > 0
+                ? fix.accuracy : DEFAULT_ACCURACY_IN_METERS;
+        final double measurementVariance = accuracy * accuracy;
+        final long elapsedInMillis = fix.time - mLastTime;
+
+        if (! mInitialized || elapsedInMillis > mMaxGapInMillis || elapsedInMillis < 0) {
+            initialize(fix, measurementVariance);
+            return true;
+        }
+
+        predict(elapsedInMillis / 1000d);
+
+        // The covariance is the same for both axes, so is the gain.
+        final double innovationVariance = mP00 + measurementVariance;
+        final double positionGain = mP00 / innovationVariance;
+        final double velocityGain = mP01 / innovationVariance;
+
+        final double northResidual =
+                (fix.latitude - mOriginLatitude) * GeoMath.metersPerDegreeOfLatitude() - mNorth;
+        final double eastResidual =
+                (fix.longitude - mOriginLongitude) * mMetersPerDegreeOfLongitude - mEast;
+
+        mNorth += positionGain * northResidual;
+        mEast += positionGain * eastResidual;
+        mNorthVelocity += velocityGain * northResidual;
+        mEastVelocity += velocityGain * eastResidual;
+
+        mP11 -= velocityGain * mP01;
+        mP01 -= positionGain * mP01;
+        mP00 -= positionGain * mP00;
+
+        mLastTime = fix.time;
+
+        fix.latitude = mOriginLatitude + mNorth / GeoMath.metersPerDegreeOfLatitude();
+        fix.longitude = mOriginLongitude + mEast / mMetersPerDegreeOfLongitude;
+
+        if (Math.abs(mNorth) > MAX_DISTANCE_FROM_ORIGIN_IN_METERS
+                || Math.abs(mEast) > MAX_DISTANCE_FROM_ORIGIN_IN_METERS) {
+            moveOrigin(fix.latitude, fix.longitude);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        mInitialized = false;
+    }
+
+    private void initialize(final Fix fix, final double measurementVariance) {
+        mInitialized = true;
+        mLastTime = fix.time;
+        moveOrigin(fix.latitude, fix.longitude);
+        mNorthVelocity = 0;
+        mEastVelocity = 0;
+        mP00 = measurementVariance;
+        mP01 = 0;
+        mP11 = INITIAL_VELOCITY_DEVIATION * INITIAL_VELOCITY_DEVIATION;
+    }
+
+    private void predict(final double dt) {
+        mNorth += mNorthVelocity * dt;
+        mEast += mEastVelocity * dt;
+
+        final double dt2 = dt * dt;
+        mP00 += dt * (2 * mP01 + dt * mP11) + mAccelerationVariance * dt2 * dt2 / 4;
+        mP01 += dt * mP11 + mAccelerationVariance * dt2 * dt / 2;
+        mP11 += mAccelerationVariance * dt2;
+    }
+
+    private void moveOrigin(final double latitude, final double longitude) {
+        mOriginLatitude = latitude;
+        mOriginLongitude = longitude;
+        mMetersPerDegreeOfLongitude = GeoMath.metersPerDegreeOfLongitude(latitude);
+        mNorth = 0;
+        mEast = 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.filipebezerra.findme.location.filter;
+
+import com.github.filipebezerra.findme.location.Fix;
+
+/**
+ * A stage between the location provider and the consumers of its fixes. Filters are called for
+ * every fix, so implementations must not allocate.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public interface LocationFilter {
+    /**
+     * Inspects the fix, possibly adjusting it in place.
+     *
+     * @return true to pass the fix on to the consumers, false to drop it
+     */
+    boolean filter(Fix fix);
+
+    /**
+     * Forgets any state kept from previous fixes.
+     */
+    void reset();
+}
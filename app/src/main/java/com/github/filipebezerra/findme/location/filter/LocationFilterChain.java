@@ -0,0 +1,81 @@
+package com.github.filipebezerra.findme.location.filter;
+
+import com.github.filipebezerra.findme.location.Fix;
+
+/**
+ * Runs a fix through a sequence of filters, stopping at the first one dropping it.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public class LocationFilterChain implements LocationFilter {
+    private final LocationFilter[] mFilters;
+
+    private final long[] mDroppedCounts;
+
+    private long mPassedCount;
+
+    /**
+     * Position of the filter that dropped the last fix, or -1 if it passed.
+     */
+    private int mLastDroppedBy = -1;
+
+    public LocationFilterChain(final LocationFilter... filters) {
+        mFilters = filters.clone();
+        mDroppedCounts = new long[filters.length];
+    }
+
+    @Override
+    public boolean filter(final Fix fix) {
+        for (int i = 0; i < mFilters.length; i++) {
+            if (! mFilters[i].filter(fix)) {
+                mDroppedCounts[i]++;
+                mLastDroppedBy = i;
+                return false;
+            }
+        }
+
+        mLastDroppedBy = -1;
+        mPassedCount++;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        for (LocationFilter filter : mFilters) {
+            filter.reset();
+        }
+    }
+
+    public long getPassedCount() {
+        return mPassedCount;
+    }
+
+    /**
+     * Returns how many fixes the filter at the given position dropped.
+     */
+    public long getDroppedCount(final int filterIndex) {
+        return mDroppedCounts[filterIndex];
+    }
+
+    /**
+     * Returns the filter that dropped the last fix, or null if it passed.
+     */
+    public LocationFilter getLastDroppedBy() {
+        return mLastDroppedBy >= 0 ? mFilters[mLastDroppedBy] : null;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("LocationFilterChain[passed=")
+                .append(mPassedCount);
+
+        for (int i = 0; i < mFilters.length; i++) {
+            builder.append(',').append(mFilters[i].getClass().getSimpleName())
+                    .append("Dropped=").append(mDroppedCounts[i]);
+        }
+
+        return builder.append(']').toString();
+    }
+}
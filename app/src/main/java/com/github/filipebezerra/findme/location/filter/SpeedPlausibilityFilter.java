@@ -0,0 +1,75 @@
+package com.github.filipebezerra.findme.location.filter;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * Drops fixes that would imply moving faster than a plausible maximum speed since the last
+ * accepted fix, taking both accuracy radii into account.
+ * <p/>
+ * If several fixes in a row are dropped the device most likely really is somewhere else, e.g.
+ * after a long gap without a signal, so the next one is accepted and becomes the new reference.
+ * Fixes not newer than the last accepted one are always dropped, as everything downstream
+ * expects fixes in time order.
+ *
+ * @author Filipe Bezerra
+ * @version #, 07/08/2015
+ * @since #
+ */
+public class SpeedPlausibilityFilter implements LocationFilter {
+    private final double mMaxSpeedInMetersPerSecond;
+
+    private final int mMaxConsecutiveDrops;
+
+    private boolean mHasLastFix;
+
+    private long mLastTime;
+
+    private double mLastLatitude;
+
+    private double mLastLongitude;
+
+    private float mLastAccuracy;
+
+    private int mConsecutiveDrops;
+
+    public SpeedPlausibilityFilter(final double maxSpeedInMetersPerSecond,
+            final int maxConsecutiveDrops) {
+        mMaxSpeedInMetersPerSecond = maxSpeedInMetersPerSecond;
+        mMaxConsecutiveDrops = maxConsecutiveDrops;
+    }
+
+    @Override
+    public boolean filter(final Fix fix) {
+        if (mHasLastFix && fix.time <= mLastTime) {
+            return false;
+        }
+
+        if (mHasLastFix && ! isPlausible(fix) && mConsecutiveDrops < mMaxConsecutiveDrops) {
+            mConsecutiveDrops++;
+            return false;
+        }
+
+        mHasLastFix = true;
+        mLastTime = fix.time;
+        mLastLatitude = fix.latitude;
+        mLastLongitude = fix.longitude;
+        mLastAccuracy = fix.hasAccuracy ? fix.accuracy : 0;
+        mConsecutiveDrops = 0;
+        return true;
+    }
+
+    private boolean isPlausible(final Fix fix) {
+        final long elapsedInMillis = fix.time - mLastTime;
+        final double distance = GeoMath.distanceInMeters(mLastLatitude, mLastLongitude,
+                fix.latitude, fix.longitude);
+        final double uncertainty = mLastAccuracy + (fix.hasAccuracy ? fix.accuracy : 0);
+        return distance <= mMaxSpeedInMetersPerSecond * elapsedInMillis / 1000d + uncertainty;
+    }
+
+    @Override
+    public void reset() {
+        mHasLastFix = false;
+        mConsecutiveDrops = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.filipebezerra.findme.location.replay;
+
+import com.github.filipebezerra.findme.location.Fix;
+
+/**
+ * Receives the fixes of a replayed trace.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public interface FixListener {
+    /**
+     * Called on the replay thread for every fix. The fix instance is reused for the next one.
+     */
+    void onFix(Fix fix);
+
+    /**
+     * Called on the replay thread once the whole trace was replayed or the replay was stopped.
+     */
+    void onReplayFinished();
+}
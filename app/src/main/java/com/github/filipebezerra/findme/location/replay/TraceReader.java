@@ -0,0 +1,215 @@
+package com.github.filipebezerra.findme.location.replay;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Loads recorded traces to be replayed.
+ * <p/>
+ * CSV traces have one fix per line: {@code time,latitude,longitude} optionally followed by
+ * {@code accuracy,speed,bearing,altitude}, any of which may be left empty. Time is in
+ * milliseconds since January 1, 1970. Lines starting with {@code #} or a letter are skipped, so
+ * a header line is allowed.
+ * <p/>
+ * GPX traces are read from their {@code trkpt} elements, with their {@code time} and
+ * {@code ele} children.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public final class TraceReader {
+    private static final Pattern ISO_8601 = Pattern.compile(
+            "(\\d{4})-(\\d{2})-(\\d{2})T(\\d{2}):(\\d{2}):(\\d{2})(?:\\.(\\d+))?"
+                    + "(Z|([+-])(\\d{2}):?(\\d{2}))?");
+
+    private TraceReader() {
+    }
+
+    /**
+     * Reads a CSV or GPX trace, depending on the file extension.
+     */
+    public static List<Fix> read(final File file) throws IOException {
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            if (file.getName().toLowerCase().endsWith(".gpx")) {
+                return readGpx(input);
+            }
+            return readCsv(new InputStreamReader(input, "UTF-8"));
+        } finally {
+            input.close();
+        }
+    }
+
+    public static List<Fix> readCsv(final Reader reader) throws IOException {
+        final BufferedReader lines = new BufferedReader(reader);
+        final List<Fix> fixes = new ArrayList<>();
+        int lineNumber = 0;
+
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.charAt(0) == '#' || Character.isLetter(line.charAt(0))) {
+                continue;
+            }
+
+            final String[] columns = line.split(",", -1);
+
+            if (columns.length < 3) {
+                throw new IOException("Line " + lineNumber + " has less than 3 columns");
+            }
+
+            try {
+                final Fix fix = new Fix().set(Long.parseLong(columns[0].trim()),
+                        Double.parseDouble(columns[1].trim()),
+                        Double.parseDouble(columns[2].trim()));
+
+                if (hasColumn(columns, 3)) {
+                    fix.hasAccuracy = true;
+                    fix.accuracy = Float.parseFloat(columns[3].trim());
+                }
+                if (hasColumn(columns, 4)) {
+                    fix.hasSpeed = true;
+                    fix.speed = Float.parseFloat(columns[4].trim());
+                }
+                if (hasColumn(columns, 5)) {
+                    fix.hasBearing = true;
+                    fix.bearing = Float.parseFloat(columns[5].trim());
+                }
+                if (hasColumn(columns, 6)) {
+                    fix.hasAltitude = true;
+                    fix.altitude = Double.parseDouble(columns[6].trim());
+                }
+
+                fixes.add(fix);
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + " is malformed: " + e.getMessage());
+            }
+        }
+
+        return fixes;
+    }
+
+    public static List<Fix> readGpx(final InputStream input) throws IOException {
+        final GpxHandler handler = new GpxHandler();
+
+        try {
+            SAXParserFactory.newInstance().newSAXParser().parse(input, handler);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Malformed GPX trace: " + e.getMessage());
+        }
+
+        return handler.mFixes;
+    }
+
+    /**
+     * Parses an ISO 8601 timestamp as found in GPX files, e.g. {@code 2015-08-13T14:30:05Z}.
+     */
+    static long parseTime(final String text) throws SAXException {
+        final Matcher matcher = ISO_8601.matcher(text.trim());
+
+        if (! matcher.matches()) {
+            throw new SAXException("Malformed time " + text);
+        }
+
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1,
+                Integer.parseInt(matcher.group(3)), Integer.parseInt(matcher.group(4)),
+                Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)));
+
+        long time = calendar.getTimeInMillis();
+
+        final String fraction = matcher.group(7);
+        if (fraction != null) {
+            time += Math.round(Double.parseDouble("0." + fraction) * 1000);
+        }
+
+        if (matcher.group(9) != null) {
+            final long offsetInMinutes = Integer.parseInt(matcher.group(10)) * 60
+                    + Integer.parseInt(matcher.group(11));
+            time -= ("+".equals(matcher.group(9)) ? 1 : -1) * offsetInMinutes * 60000;
+        }
+
+        return time;
+    }
+
+    private static boolean hasColumn(final String[] columns, final int index) {
+        return columns.length > index && ! columns[index].trim().isEmpty();
+    }
+
+    private static final class GpxHandler extends DefaultHandler {
+        final List<Fix> mFixes = new ArrayList<>();
+
+        private final StringBuilder mText = new StringBuilder();
+
+        private Fix mFix;
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            final String name = nameOf(localName, qName);
+            mText.setLength(0);
+
+            if ("trkpt".equals(name)) {
+                try {
+                    mFix = new Fix().set(0, Double.parseDouble(attributes.getValue("lat")),
+                            Double.parseDouble(attributes.getValue("lon")));
+                } catch (NullPointerException | NumberFormatException e) {
+                    throw new SAXException("Track point without a valid lat and lon");
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            mText.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (mFix == null) {
+                return;
+            }
+
+            final String name = nameOf(localName, qName);
+
+            if ("time".equals(name)) {
+                mFix.time = parseTime(mText.toString());
+            } else if ("ele".equals(name)) {
+                try {
+                    mFix.altitude = Double.parseDouble(mText.toString().trim());
+                    mFix.hasAltitude = true;
+                } catch (NumberFormatException e) {
+                    throw new SAXException("Malformed elevation " + mText);
+                }
+            } else if ("trkpt".equals(name)) {
+                mFixes.add(mFix);
+                mFix = null;
+            }
+        }
+
+        private static String nameOf(final String localName, final String qName) {
+            return localName != null && ! localName.isEmpty() ? localName : qName;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.filipebezerra.findme.location.replay;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded trace on its own thread, at real or accelerated speed, without Google Play
+ * services or a device.
+ * <p/>
+ * Fix times are shifted so the trace starts now but keep their original spacing, so filters
+ * judging speed see the same movement at any replay speed. Replaying runs ahead of schedule
+ * rather than sleeping when it falls behind, so thousands of fixes per second can be fed.
+ *
+ * @author Filipe Bezerra
+ * @version #, 13/08/2015
+ * @since #
+ */
+public class TraceReplayer {
+    /**
+     * Speed factor replaying fixes back to back, without waiting at all.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final Fix[] mFixes;
+
+    private final double mSpeedFactor;
+
+    private final boolean mLoop;
+
+    private volatile boolean mStopped;
+
+    private volatile long mReplayedCount;
+
+    private Thread mThread;
+
+    /**
+     * @param speedFactor how many times faster than real time to replay, e.g. 1 for real time
+     * or {@link #AS_FAST_AS_POSSIBLE}
+     * @param loop whether to start over once the trace ends
+     */
+    public TraceReplayer(final List<Fix> fixes, final double speedFactor, final boolean loop) {
+        if (fixes.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to replay in an empty trace");
+        }
+        if (! (speedFactor > 0)) {
+            throw new IllegalArgumentException("speedFactor must be positive");
+        }
+        mFixes = fixes.toArray(new Fix[fixes.size()]);
+        mSpeedFactor = speedFactor;
+        mLoop = loop;
+    }
+
+    public synchronized void start(final FixListener listener) {
+        if (mThread != null) {
+            throw new IllegalStateException("Replay already started");
+        }
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    replay(listener);
+                } finally {
+                    listener.onReplayFinished();
+                }
+            }
+        }, TraceReplayer.class.getSimpleName());
+        mThread.start();
+    }
+
+    public void stop() {
+        mStopped = true;
+        LockSupport.unpark(mThread);
+    }
+
+    /**
+     * Waits until the replay finished.
+     */
+    public void join() throws InterruptedException {
+        mThread.join();
+    }
+
+    /**
+     * Returns how many fixes were replayed so far.
+     */
+    public long getReplayedCount() {
+        return mReplayedCount;
+    }
+
+    private void replay(final FixListener listener) {
+        final Fix fix = new Fix();
+        final long traceStart = mFixes[0].time;
+        final long traceDuration = mFixes[mFixes.length - 1].time - traceStart;
+        final long startNanos = System.nanoTime();
+        final long timeShift = System.currentTimeMillis() - traceStart;
+        long lapOffset = 0;
+        long count = 0;
+
+        do {
+            for (Fix recorded : mFixes) {
+                if (mStopped) {
+                    return;
+                }
+
+                final long traceOffset = lapOffset + recorded.time - traceStart;
+
+                if (mSpeedFactor != AS_FAST_AS_POSSIBLE) {
+                    final long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS
+                            .toNanos(traceOffset) / mSpeedFactor);
+
+                    for (long wait = dueNanos - System.nanoTime(); wait > 0 && ! mStopped;
+                            wait = dueNanos - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+
+                fix.set(recorded);
+                fix.time = recorded.time + lapOffset + timeShift;
+                listener.onFix(fix);
+                mReplayedCount = ++count;
+            }
+
+            // Keep times increasing across laps, one second apart.
+            lapOffset += traceDuration + 1000;
+        } while (mLoop);
+    }
+}
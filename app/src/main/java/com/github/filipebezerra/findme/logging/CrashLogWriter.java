@@ -0,0 +1,73 @@
+package com.github.filipebezerra.findme.logging;
+
+import android.content.Context;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import timber.log.Timber;
+
+/**
+ * Writes the in-memory log to a file when the application crashes, before handing the crash to
+ * the previous handler. The files are kept in the {@link Constants#LOG_DIRECTORY_NAME} directory
+ * of the app's external files, or of its private files when there is no external storage.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public class CrashLogWriter implements Thread.UncaughtExceptionHandler {
+    private final Context mContext;
+
+    private final Thread.UncaughtExceptionHandler mPreviousHandler;
+
+    private CrashLogWriter(Context context, Thread.UncaughtExceptionHandler previousHandler) {
+        mContext = context.getApplicationContext();
+        mPreviousHandler = previousHandler;
+    }
+
+    public static void install(Context context) {
+        Thread.setDefaultUncaughtExceptionHandler(
+                new CrashLogWriter(context, Thread.getDefaultUncaughtExceptionHandler()));
+    }
+
+    /**
+     * Writes the in-memory log to a new file named after the current time and the given prefix,
+     * returning the file.
+     */
+    public static File dump(Context context, String prefix) throws IOException {
+        File directory = context.getExternalFilesDir(null);
+
+        if (directory == null) {
+            directory = context.getFilesDir();
+        }
+
+        directory = new File(directory, Constants.LOG_DIRECTORY_NAME);
+
+        if (! directory.isDirectory() && ! directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+
+        final File file = new File(directory, prefix + "-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date())
+                + ".log");
+        FastLog.writeTo(file);
+        return file;
+    }
+
+    @Override
+    public void uncaughtException(Thread thread, Throwable ex) {
+        try {
+            Timber.e(ex, "Uncaught exception in thread %s", thread.getName());
+            dump(mContext, "crash");
+        } catch (Throwable t) {
+            // Nothing else can be done, the crash itself is what matters.
+        } finally {
+            if (mPreviousHandler != null) {
+                mPreviousHandler.uncaughtException(thread, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.filipebezerra.findme.logging;
+
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Entry point of the in-memory log: holds the {@link LogBuffer} shared by the {@link Logger}s of
+ * the hot paths and the {@link RingBufferTree}, and writes it to a file on demand or after a
+ * crash.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public final class FastLog {
+    /**
+     * Priorities, with the same values as {@code android.util.Log}.
+     */
+    public static final int VERBOSE = 2;
+
+    public static final int DEBUG = 3;
+
+    public static final int INFO = 4;
+
+    public static final int WARN = 5;
+
+    public static final int ERROR = 6;
+
+    private static final LogBuffer sBuffer = new LogBuffer(Constants.LOG_BUFFER_CAPACITY);
+
+    private static volatile LogSink sSink;
+
+    private static volatile int sMinPriority = DEBUG;
+
+    private FastLog() {
+    }
+
+    /**
+     * Returns a logger of the given tag keeping every entry.
+     */
+    public static Logger logger(final String tag) {
+        return new Logger(sBuffer, tag, 1, 0);
+    }
+
+    /**
+     * Returns a logger of the given tag keeping one of every {@code sampleEvery} entries, and at
+     * most {@code maxPerSecond} entries per second, or any number of them if not positive.
+     */
+    public static Logger logger(final String tag, final int sampleEvery, final int maxPerSecond) {
+        return new Logger(sBuffer, tag, sampleEvery, maxPerSecond);
+    }
+
+    public static LogBuffer getBuffer() {
+        return sBuffer;
+    }
+
+    public static LogSink getSink() {
+        return sSink;
+    }
+
+    /**
+     * Sets the sink also receiving the entries of the loggers, e.g. logcat in debug builds, or
+     * null to keep them in memory only.
+     */
+    public static void setSink(final LogSink sink) {
+        sSink = sink;
+    }
+
+    public static int getMinPriority() {
+        return sMinPriority;
+    }
+
+    public static void setMinPriority(final int priority) {
+        sMinPriority = priority;
+    }
+
+    /**
+     * Writes the entries in memory to the given file, replacing it.
+     */
+    public static void writeTo(final File file) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+
+        try {
+            sBuffer.writeTo(writer);
+        } finally {
+            writer.close();
+        }
+    }
+}
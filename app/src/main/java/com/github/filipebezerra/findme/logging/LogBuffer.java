@@ -0,0 +1,256 @@
+package com.github.filipebezerra.findme.logging;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+
+/**
+ * Preallocated ring of the last log entries, kept in memory until written out with
+ * {@link #writeTo(Writer)}, e.g. after a crash.
+ * <p/>
+ * Entries are stored unformatted: the format string, and up to {@link #MAX_ARGS} arguments as
+ * raw primitive bits or references into parallel arrays. Appending one copies a few fields and
+ * allocates nothing; messages are only formatted when written out. Object arguments are kept by
+ * reference, so they should be immutable or at least not change meaning later.
+ * <p/>
+ * Writers must hold the lock of the buffer while they claim and fill an entry, see
+ * {@link Logger}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public class LogBuffer {
+    public static final int MAX_ARGS = 4;
+
+    private static final byte TYPE_LONG = 1;
+
+    private static final byte TYPE_DOUBLE = 2;
+
+    private static final byte TYPE_OBJECT = 3;
+
+    private static final String PRIORITY_LETTERS = "??VDIWEA";
+
+    private final int mCapacity;
+
+    private final long[] mTimes;
+
+    private final int[] mPriorities;
+
+    private final String[] mTags;
+
+    private final String[] mFormats;
+
+    private final Throwable[] mThrowables;
+
+    private final byte[] mArgCounts;
+
+    private final byte[] mArgTypes;
+
+    private final long[] mArgBits;
+
+    private final Object[] mArgObjects;
+
+    /**
+     * Number of entries ever appended. The next one goes to slot {@code mCount % mCapacity}.
+     */
+    private long mCount;
+
+    private long mSuppressedCount;
+
+    public LogBuffer(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        mCapacity = capacity;
+        mTimes = new long[capacity];
+        mPriorities = new int[capacity];
+        mTags = new String[capacity];
+        mFormats = new String[capacity];
+        mThrowables = new Throwable[capacity];
+        mArgCounts = new byte[capacity];
+        mArgTypes = new byte[capacity * MAX_ARGS];
+        mArgBits = new long[capacity * MAX_ARGS];
+        mArgObjects = new Object[capacity * MAX_ARGS];
+    }
+
+    /**
+     * Claims the slot of a new entry, overwriting the oldest one if the ring is full. The
+     * arguments must then be set before releasing the lock.
+     */
+    int claim(final int priority, final String tag, final String format,
+            final Throwable throwable, final int argCount) {
+        final int slot = (int) (mCount++ % mCapacity);
+        mTimes[slot] = System.currentTimeMillis();
+        mPriorities[slot] = priority;
+        mTags[slot] = tag;
+        mFormats[slot] = format;
+        mThrowables[slot] = throwable;
+        mArgCounts[slot] = (byte) argCount;
+        return slot;
+    }
+
+    void setLong(final int slot, final int index, final long value) {
+        final int i = slot * MAX_ARGS + index;
+        mArgTypes[i] = TYPE_LONG;
+        mArgBits[i] = value;
+        mArgObjects[i] = null;
+    }
+
+    void setDouble(final int slot, final int index, final double value) {
+        final int i = slot * MAX_ARGS + index;
+        mArgTypes[i] = TYPE_DOUBLE;
+        mArgBits[i] = Double.doubleToRawLongBits(value);
+        mArgObjects[i] = null;
+    }
+
+    void setObject(final int slot, final int index, final Object value) {
+        final int i = slot * MAX_ARGS + index;
+        mArgTypes[i] = TYPE_OBJECT;
+        mArgObjects[i] = value;
+    }
+
+    /**
+     * Counts an entry dropped by sampling or rate limiting.
+     */
+    void suppressed() {
+        mSuppressedCount++;
+    }
+
+    /**
+     * Appends an already formatted entry.
+     */
+    public synchronized void append(final int priority, final String tag, final String message,
+            final Throwable throwable) {
+        claim(priority, tag, message, throwable, 0);
+    }
+
+    /**
+     * Returns the number of entries ever appended, including overwritten ones.
+     */
+    public synchronized long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Formats the entries in the ring, oldest first, into the given writer. The entries are
+     * copied under the lock, then formatted and written without holding it, so logging goes on
+     * meanwhile.
+     */
+    public void writeTo(final Writer writer) throws IOException {
+        final long count;
+        final long suppressedCount;
+        final long[] times;
+        final int[] priorities;
+        final String[] tags;
+        final String[] formats;
+        final Throwable[] throwables;
+        final Object[][] args;
+
+        synchronized (this) {
+            count = mCount;
+            suppressedCount = mSuppressedCount;
+            final long first = Math.max(0, count - mCapacity);
+            final int size = (int) (count - first);
+
+            times = new long[size];
+            priorities = new int[size];
+            tags = new String[size];
+            formats = new String[size];
+            throwables = new Throwable[size];
+            args = new Object[size][];
+
+            for (int i = 0; i < size; i++) {
+                final int slot = (int) ((first + i) % mCapacity);
+                times[i] = mTimes[slot];
+                priorities[i] = mPriorities[slot];
+                tags[i] = mTags[slot];
+                formats[i] = mFormats[slot];
+                throwables[i] = mThrowables[slot];
+                args[i] = argsOf(slot);
+            }
+        }
+
+        final SimpleDateFormat timeFormat =
+                new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        final Date date = new Date();
+
+        writer.write("--- " + times.length + " of " + count + " entries, "
+                + suppressedCount + " suppressed\n");
+
+        for (int i = 0; i < times.length; i++) {
+            final int priority = priorities[i];
+            date.setTime(times[i]);
+
+            writer.write(timeFormat.format(date));
+            writer.write(' ');
+            writer.write(priority >= 0 && priority < PRIORITY_LETTERS.length()
+                    ? PRIORITY_LETTERS.charAt(priority) : '?');
+            writer.write('/');
+            writer.write(tags[i] == null ? "FindMe" : tags[i]);
+            writer.write(": ");
+            writer.write(format(formats[i], args[i]));
+            writer.write('\n');
+
+            if (throwables[i] != null) {
+                final StringWriter stackTrace = new StringWriter();
+                throwables[i].printStackTrace(new PrintWriter(stackTrace));
+                writer.write(stackTrace.toString());
+            }
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Returns the arguments of the entry in the given slot, boxed, or null if it has none.
+     */
+    private Object[] argsOf(final int slot) {
+        final int argCount = mArgCounts[slot];
+
+        if (mFormats[slot] == null || argCount == 0) {
+            return null;
+        }
+
+        final Object[] args = new Object[argCount];
+
+        for (int index = 0; index < argCount; index++) {
+            final int i = slot * MAX_ARGS + index;
+
+            switch (mArgTypes[i]) {
+                case TYPE_LONG:
+                    args[index] = mArgBits[i];
+                    break;
+                case TYPE_DOUBLE:
+                    args[index] = Double.longBitsToDouble(mArgBits[i]);
+                    break;
+                default:
+                    args[index] = mArgObjects[i];
+                    break;
+            }
+        }
+        return args;
+    }
+
+    private static String format(final String format, final Object[] args) {
+        if (args == null) {
+            return String.valueOf(format);
+        }
+
+        try {
+            return String.format(Locale.US, format, args);
+        } catch (IllegalFormatException e) {
+            final StringBuilder message = new StringBuilder(format);
+
+            for (Object arg : args) {
+                message.append(", ").append(arg);
+            }
+            return message.toString();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.filipebezerra.findme.logging;
+
+/**
+ * Receives the entries accepted by the {@link Logger}s, already formatted, in addition to the
+ * {@link LogBuffer}. Formatting is only paid for while a sink is set, see
+ * {@link FastLog#setSink(LogSink)}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public interface LogSink {
+    void println(int priority, String tag, String message);
+}
@@ -0,0 +1,17 @@
+package com.github.filipebezerra.findme.logging;
+
+import android.util.Log;
+
+/**
+ * Echoes the entries of the {@link Logger}s to logcat, for debug builds.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public class LogcatSink implements LogSink {
+    @Override
+    public void println(int priority, String tag, String message) {
+        Log.println(priority, tag, message);
+    }
+}
@@ -0,0 +1,274 @@
+package com.github.filipebezerra.findme.logging;
+
+import java.util.IllegalFormatException;
+import java.util.Locale;
+
+/**
+ * Logger of a single tag for code run on every fix or every lookup, obtained from
+ * {@link FastLog#logger(String, int, int)} and kept in a static field.
+ * <p/>
+ * Unlike Timber, nothing is formatted or boxed when logging: the overloads take primitive
+ * arguments that are copied as they are into the {@link LogBuffer}. Entries below
+ * {@link FastLog#getMinPriority()} return before taking any lock, and only one of every
+ * {@code sampleEvery} entries, up to {@code maxPerSecond}, is kept. The others are only counted.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public final class Logger {
+    private final LogBuffer mBuffer;
+
+    private final String mTag;
+
+    private final int mSampleEvery;
+
+    private final int mMaxPerSecond;
+
+    /**
+     * Entries seen by the sampling, guarded by {@link #mBuffer}.
+     */
+    private long mSeenCount;
+
+    /**
+     * Start and number of entries kept in the current one second window, guarded by
+     * {@link #mBuffer}.
+     */
+    private long mWindowStart = Long.MIN_VALUE;
+
+    private int mWindowCount;
+
+    Logger(final LogBuffer buffer, final String tag, final int sampleEvery,
+            final int maxPerSecond) {
+        mBuffer = buffer;
+        mTag = tag;
+        mSampleEvery = Math.max(1, sampleEvery);
+        mMaxPerSecond = maxPerSecond;
+    }
+
+    public String getTag() {
+        return mTag;
+    }
+
+    public void d(final String format) {
+        log(FastLog.DEBUG, format);
+    }
+
+    public void d(final String format, final long arg) {
+        log(FastLog.DEBUG, format, arg);
+    }
+
+    public void d(final String format, final Object arg) {
+        log(FastLog.DEBUG, format, arg);
+    }
+
+    public void d(final String format, final double arg0, final double arg1) {
+        log(FastLog.DEBUG, format, arg0, arg1);
+    }
+
+    public void d(final String format, final double arg0, final double arg1, final double arg2) {
+        log(FastLog.DEBUG, format, arg0, arg1, arg2);
+    }
+
+    public void d(final String format, final double arg0, final double arg1, final Object arg2) {
+        log(FastLog.DEBUG, format, arg0, arg1, arg2);
+    }
+
+    public void i(final String format) {
+        log(FastLog.INFO, format);
+    }
+
+    public void i(final String format, final long arg) {
+        log(FastLog.INFO, format, arg);
+    }
+
+    public void i(final String format, final Object arg) {
+        log(FastLog.INFO, format, arg);
+    }
+
+    public void i(final String format, final double arg0, final double arg1) {
+        log(FastLog.INFO, format, arg0, arg1);
+    }
+
+    public void i(final String format, final double arg0, final double arg1, final double arg2) {
+        log(FastLog.INFO, format, arg0, arg1, arg2);
+    }
+
+    public void i(final String format, final double arg0, final double arg1, final Object arg2) {
+        log(FastLog.INFO, format, arg0, arg1, arg2);
+    }
+
+    public void w(final String format) {
+        log(FastLog.WARN, format);
+    }
+
+    public void w(final String format, final long arg) {
+        log(FastLog.WARN, format, arg);
+    }
+
+    public void w(final String format, final Object arg) {
+        log(FastLog.WARN, format, arg);
+    }
+
+    public void w(final String format, final double arg0, final double arg1) {
+        log(FastLog.WARN, format, arg0, arg1);
+    }
+
+    public void w(final String format, final double arg0, final double arg1, final double arg2) {
+        log(FastLog.WARN, format, arg0, arg1, arg2);
+    }
+
+    public void w(final String format, final double arg0, final double arg1, final Object arg2) {
+        log(FastLog.WARN, format, arg0, arg1, arg2);
+    }
+
+    private void log(final int priority, final String format) {
+        if (priority < FastLog.getMinPriority()) {
+            return;
+        }
+        synchronized (mBuffer) {
+            if (! accept()) {
+                return;
+            }
+            mBuffer.claim(priority, mTag, format, null, 0);
+        }
+        if (FastLog.getSink() != null) {
+            echo(priority, format);
+        }
+    }
+
+    private void log(final int priority, final String format, final long arg) {
+        if (priority < FastLog.getMinPriority()) {
+            return;
+        }
+        synchronized (mBuffer) {
+            if (! accept()) {
+                return;
+            }
+            final int slot = mBuffer.claim(priority, mTag, format, null, 1);
+            mBuffer.setLong(slot, 0, arg);
+        }
+        if (FastLog.getSink() != null) {
+            echo(priority, format, arg);
+        }
+    }
+
+    private void log(final int priority, final String format, final Object arg) {
+        if (priority < FastLog.getMinPriority()) {
+            return;
+        }
+        synchronized (mBuffer) {
+            if (! accept()) {
+                return;
+            }
+            final int slot = mBuffer.claim(priority, mTag, format, null, 1);
+            mBuffer.setObject(slot, 0, arg);
+        }
+        if (FastLog.getSink() != null) {
+            echo(priority, format, arg);
+        }
+    }
+
+    private void log(final int priority, final String format, final double arg0,
+            final double arg1) {
+        if (priority < FastLog.getMinPriority()) {
+            return;
+        }
+        synchronized (mBuffer) {
+            if (! accept()) {
+                return;
+            }
+            final int slot = mBuffer.claim(priority, mTag, format, null, 2);
+            mBuffer.setDouble(slot, 0, arg0);
+            mBuffer.setDouble(slot, 1, arg1);
+        }
+        if (FastLog.getSink() != null) {
+            echo(priority, format, arg0, arg1);
+        }
+    }
+
+    private void log(final int priority, final String format, final double arg0,
+            final double arg1, final double arg2) {
+        if (priority < FastLog.getMinPriority()) {
+            return;
+        }
+        synchronized (mBuffer) {
+            if (! accept()) {
+                return;
+            }
+            final int slot = mBuffer.claim(priority, mTag, format, null, 3);
+            mBuffer.setDouble(slot, 0, arg0);
+            mBuffer.setDouble(slot, 1, arg1);
+            mBuffer.setDouble(slot, 2, arg2);
+        }
+        if (FastLog.getSink() != null) {
+            echo(priority, format, arg0, arg1, arg2);
+        }
+    }
+
+    private void log(final int priority, final String format, final double arg0,
+            final double arg1, final Object arg2) {
+        if (priority < FastLog.getMinPriority()) {
+            return;
+        }
+        synchronized (mBuffer) {
+            if (! accept()) {
+                return;
+            }
+            final int slot = mBuffer.claim(priority, mTag, format, null, 3);
+            mBuffer.setDouble(slot, 0, arg0);
+            mBuffer.setDouble(slot, 1, arg1);
+            mBuffer.setObject(slot, 2, arg2);
+        }
+        if (FastLog.getSink() != null) {
+            echo(priority, format, arg0, arg1, arg2);
+        }
+    }
+
+    /**
+     * Applies the sampling and the rate limit. Must be called holding the lock of
+     * {@link #mBuffer}.
+     */
+    private boolean accept() {
+        if (mSampleEvery > 1 && mSeenCount++ % mSampleEvery != 0) {
+            mBuffer.suppressed();
+            return false;
+        }
+
+        if (mMaxPerSecond > 0) {
+            final long now = System.nanoTime() / 1000000;
+
+            if (now - mWindowStart >= 1000) {
+                mWindowStart = now;
+                mWindowCount = 0;
+            }
+            if (mWindowCount >= mMaxPerSecond) {
+                mBuffer.suppressed();
+                return false;
+            }
+            mWindowCount++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Formats and passes the entry to the sink, only called while there is one so the arguments
+     * aren't boxed otherwise.
+     */
+    private void echo(final int priority, final String format, final Object... args) {
+        final LogSink sink = FastLog.getSink();
+
+        if (sink == null) {
+            return;
+        }
+
+        String message;
+        try {
+            message = args.length == 0 ? format : String.format(Locale.US, format, args);
+        } catch (IllegalFormatException e) {
+            message = format;
+        }
+        sink.println(priority, mTag, message);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.filipebezerra.findme.logging;
+
+import timber.log.Timber;
+
+/**
+ * Keeps the Timber entries of at least a given priority in the {@link LogBuffer} of
+ * {@link FastLog}, so they can be written out after a crash even when nothing is logged to
+ * logcat.
+ *
+ * @author Filipe Bezerra
+ * @version #, 19/08/2015
+ * @since #
+ */
+public class RingBufferTree extends Timber.Tree {
+    private final LogBuffer mBuffer;
+
+    private final int mMinPriority;
+
+    public RingBufferTree(final int minPriority) {
+        mBuffer = FastLog.getBuffer();
+        mMinPriority = minPriority;
+    }
+
+    /**
+     * Skips formatting the entries below the minimum priority.
+     */
+    @Override
+    protected boolean isLoggable(int priority) {
+        return priority >= mMinPriority;
+    }
+
+    @Override
+    protected void log(int priority, String tag, String message, Throwable t) {
+        mBuffer.append(priority, tag, message, t);
+    }
+}
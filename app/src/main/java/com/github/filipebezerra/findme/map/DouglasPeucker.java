@@ -0,0 +1,88 @@
+package com.github.filipebezerra.findme.map;
+
+/**
+ * Simplifies polylines with the Douglas-Peucker algorithm: between two kept points, the point
+ * farthest from the segment joining them is kept too if it is farther than the tolerance, and the
+ * two halves are simplified the same way. Runs without recursion nor allocation, on scratch
+ * arrays provided by the caller.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+final class DouglasPeucker {
+    private DouglasPeucker() {
+    }
+
+    /**
+     * Marks which points of {@code [0, count)} are kept in {@code keep}. The first and the last
+     * points are always kept.
+     *
+     * @param stack scratch array of at least {@code 2 * count} entries
+     */
+    static void simplify(final double[] xs, final double[] ys, final int count,
+            final double tolerance, final boolean[] keep, final int[] stack) {
+        if (count == 0) {
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            keep[i] = false;
+        }
+        keep[0] = true;
+        keep[count - 1] = true;
+
+        final double toleranceSquared = tolerance * tolerance;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count - 1;
+
+        while (top > 0) {
+            final int last = stack[--top];
+            final int first = stack[--top];
+            double farthestSquared = toleranceSquared;
+            int farthest = -1;
+
+            for (int i = first + 1; i < last; i++) {
+                final double distanceSquared = distanceSquared(xs[i], ys[i], xs[first],
+                        ys[first], xs[last], ys[last]);
+
+                if (distanceSquared > farthestSquared) {
+                    farthestSquared = distanceSquared;
+                    farthest = i;
+                }
+            }
+
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+    }
+
+    /**
+     * Returns the squared distance from a point to the segment between two others.
+     */
+    static double distanceSquared(final double x, final double y, final double fromX,
+            final double fromY, final double toX, final double toY) {
+        final double dx = toX - fromX;
+        final double dy = toY - fromY;
+        final double lengthSquared = dx * dx + dy * dy;
+        double projectedX = fromX;
+        double projectedY = fromY;
+
+        if (lengthSquared > 0) {
+            final double t = Math.max(0, Math.min(1,
+                    ((x - fromX) * dx + (y - fromY) * dy) / lengthSquared));
+            projectedX += t * dx;
+            projectedY += t * dy;
+        }
+
+        final double ex = x - projectedX;
+        final double ey = y - projectedY;
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.filipebezerra.findme.map;
+
+/**
+ * Receives the visible runs of a {@link SimplifiedTrack}, point by point, in world coordinates
+ * of {@link WebMercator}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+public interface PolylineSink {
+    /**
+     * Starts a new run, disconnected from the previous one.
+     */
+    void startRun();
+
+    void addPoint(double x, double y);
+}
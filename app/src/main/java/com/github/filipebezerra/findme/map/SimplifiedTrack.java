@@ -0,0 +1,155 @@
+package com.github.filipebezerra.findme.map;
+
+/**
+ * The recorded track, kept simplified for every zoom level of a range so it can be drawn at any
+ * zoom with only as many points as make a visible difference.
+ * <p/>
+ * Each level keeps the points farther than a tolerance, in pixels at its zoom, from a straight
+ * line between their neighbours (see {@link DouglasPeucker}). Levels are built incrementally as
+ * fixes are added, and walked only where they cross the viewport when drawn, so the cost of
+ * drawing depends on the points visible rather than on the length of the track. Must be used by
+ * a single thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+public class SimplifiedTrack {
+    private final int mMinZoom;
+
+    private final TrackLevel[] mLevels;
+
+    private final boolean[] mKeep;
+
+    private final int[] mStack;
+
+    private int mCount;
+
+    private long mLastTime = Long.MIN_VALUE;
+
+    private double mMinX = Double.MAX_VALUE;
+
+    private double mMinY = Double.MAX_VALUE;
+
+    private double mMaxX = -Double.MAX_VALUE;
+
+    private double mMaxY = -Double.MAX_VALUE;
+
+    /**
+     * @param toleranceInPixels farthest a point may be from its simplified level, in density
+     *                          independent pixels at the level's zoom
+     * @param chunkSize         number of points simplified at once, the longest raw run
+     */
+    public SimplifiedTrack(final int minZoom, final int maxZoom, final double toleranceInPixels,
+            final int chunkSize) {
+        if (minZoom > maxZoom) {
+            throw new IllegalArgumentException("minZoom must not be greater than maxZoom");
+        }
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("chunkSize must be at least 2");
+        }
+
+        mMinZoom = minZoom;
+        mLevels = new TrackLevel[maxZoom - minZoom + 1];
+
+        for (int i = 0; i < mLevels.length; i++) {
+            mLevels[i] = new TrackLevel(
+                    WebMercator.pixelsToWorld(toleranceInPixels, minZoom + i), chunkSize);
+        }
+
+        mKeep = new boolean[chunkSize];
+        mStack = new int[2 * chunkSize];
+    }
+
+    /**
+     * Adds a fix to the end of the track, unless it isn't newer than the last one added, as when
+     * a live fix was also loaded from the recorded history.
+     *
+     * @return whether the fix was added
+     */
+    public boolean add(final long time, final double latitude, final double longitude) {
+        if (time <= mLastTime) {
+            return false;
+        }
+
+        final double x = WebMercator.x(longitude);
+        final double y = WebMercator.y(latitude);
+
+        for (TrackLevel level : mLevels) {
+            level.add(x, y, mKeep, mStack);
+        }
+
+        mLastTime = time;
+        mCount++;
+        mMinX = Math.min(mMinX, x);
+        mMinY = Math.min(mMinY, y);
+        mMaxX = Math.max(mMaxX, x);
+        mMaxY = Math.max(mMaxY, y);
+        return true;
+    }
+
+    /**
+     * Sends the runs of the track crossing the given bounds to the sink, simplified for the given
+     * zoom. Bounds whose west is east of their east cross the antimeridian.
+     */
+    public void query(final float zoom, final double south, final double west,
+            final double north, final double east, final PolylineSink sink) {
+        final TrackLevel level = levelOf(zoom);
+        final double minY = WebMercator.y(north);
+        final double maxY = WebMercator.y(south);
+
+        if (west <= east) {
+            level.query(WebMercator.x(west), minY, WebMercator.x(east), maxY, sink);
+        } else {
+            level.query(WebMercator.x(west), minY, 1, maxY, sink);
+            level.query(0, minY, WebMercator.x(east), maxY, sink);
+        }
+    }
+
+    /**
+     * Returns the number of points kept for the given zoom.
+     */
+    public int sizeAt(final float zoom) {
+        return levelOf(zoom).size();
+    }
+
+    /**
+     * Returns the number of fixes added.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    public boolean isEmpty() {
+        return mCount == 0;
+    }
+
+    public long getLastTime() {
+        return mLastTime;
+    }
+
+    public double getSouth() {
+        return WebMercator.latitude(mMaxY);
+    }
+
+    public double getWest() {
+        return WebMercator.longitude(mMinX);
+    }
+
+    public double getNorth() {
+        return WebMercator.latitude(mMinY);
+    }
+
+    public double getEast() {
+        return WebMercator.longitude(mMaxX);
+    }
+
+    /**
+     * Returns the level for the given zoom, the finest one past the range. Fractional zooms use
+     * the next level up, so points are never off by more than the tolerance.
+     */
+    private TrackLevel levelOf(final float zoom) {
+        final int index = (int) Math.ceil(zoom) - mMinZoom;
+        return mLevels[Math.max(0, Math.min(mLevels.length - 1, index))];
+    }
+}
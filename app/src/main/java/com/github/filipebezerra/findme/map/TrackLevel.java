@@ -0,0 +1,199 @@
+package com.github.filipebezerra.findme.map;
+
+import java.util.Arrays;
+
+/**
+ * The track simplified for one zoom level.
+ * <p/>
+ * Points are simplified in chunks as they come: they gather in a tail after the last point kept,
+ * and once the tail is full it is simplified with {@link DouglasPeucker} and the points kept are
+ * committed. The last point of the tail is always kept and joins the next tail, so the chunks
+ * connect. The committed points are grouped in fixed size spans, each with its bounding box,
+ * so only the spans crossing the viewport are walked when drawing.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+final class TrackLevel {
+    /**
+     * Number of committed points grouped under a bounding box.
+     */
+    static final int SPAN_SIZE = 64;
+
+    private final double mTolerance;
+
+    private double[] mXs = new double[SPAN_SIZE];
+
+    private double[] mYs = new double[SPAN_SIZE];
+
+    private int mCount;
+
+    /**
+     * Bounding boxes of the spans of committed points. Span i covers the points from
+     * {@code i * SPAN_SIZE} to the first one of the next span, inclusive, so the segment joining
+     * both spans belongs to it.
+     */
+    private double[] mSpanBounds = new double[4 * 4];
+
+    /**
+     * Points after the last committed one, the first of them being the last committed one.
+     */
+    private final double[] mTailXs;
+
+    private final double[] mTailYs;
+
+    private int mTailCount;
+
+    /**
+     * @param tolerance farthest a point may be from the simplified track, in world units
+     */
+    TrackLevel(final double tolerance, final int tailCapacity) {
+        mTolerance = tolerance;
+        mTailXs = new double[tailCapacity];
+        mTailYs = new double[tailCapacity];
+    }
+
+    /**
+     * Appends a point, simplifying the tail with the given scratch arrays if it is full.
+     */
+    void add(final double x, final double y, final boolean[] keep, final int[] stack) {
+        if (mCount == 0) {
+            commit(x, y);
+            mTailXs[0] = x;
+            mTailYs[0] = y;
+            mTailCount = 1;
+            return;
+        }
+
+        mTailXs[mTailCount] = x;
+        mTailYs[mTailCount] = y;
+        mTailCount++;
+
+        if (mTailCount == mTailXs.length) {
+            DouglasPeucker.simplify(mTailXs, mTailYs, mTailCount, mTolerance, keep, stack);
+
+            // The first point of the tail is committed already.
+            for (int i = 1; i < mTailCount; i++) {
+                if (keep[i]) {
+                    commit(mTailXs[i], mTailYs[i]);
+                }
+            }
+
+            mTailXs[0] = mTailXs[mTailCount - 1];
+            mTailYs[0] = mTailYs[mTailCount - 1];
+            mTailCount = 1;
+        }
+    }
+
+    /**
+     * Returns the number of points held, committed and in the tail.
+     */
+    int size() {
+        return mCount + mTailCount - (mTailCount > 0 ? 1 : 0);
+    }
+
+    /**
+     * Sends the runs of points whose segments may cross the given box to the sink. A single
+     * point makes no segment and is never sent.
+     */
+    void query(final double minX, final double minY, final double maxX, final double maxY,
+            final PolylineSink sink) {
+        if (mCount == 0) {
+            return;
+        }
+
+        boolean inRun = false;
+        final int spanCount = (mCount - 1 + SPAN_SIZE - 1) / SPAN_SIZE;
+
+        for (int span = 0; span < spanCount; span++) {
+            final int offset = 4 * span;
+
+            if (mSpanBounds[offset] > maxX || mSpanBounds[offset + 1] > maxY
+                    || mSpanBounds[offset + 2] < minX || mSpanBounds[offset + 3] < minY) {
+                inRun = false;
+                continue;
+            }
+
+            final int first = span * SPAN_SIZE;
+            final int last = Math.min(first + SPAN_SIZE, mCount - 1);
+
+            if (! inRun) {
+                sink.startRun();
+                sink.addPoint(mXs[first], mYs[first]);
+                inRun = true;
+            }
+
+            for (int i = first + 1; i <= last; i++) {
+                sink.addPoint(mXs[i], mYs[i]);
+            }
+        }
+
+        // The tail is still raw, but at most a chunk long, so it is walked whole.
+        if (mTailCount > 1 && tailCrosses(minX, minY, maxX, maxY)) {
+            if (! inRun) {
+                sink.startRun();
+                sink.addPoint(mTailXs[0], mTailYs[0]);
+            }
+
+            for (int i = 1; i < mTailCount; i++) {
+                sink.addPoint(mTailXs[i], mTailYs[i]);
+            }
+        }
+    }
+
+    private boolean tailCrosses(final double minX, final double minY, final double maxX,
+            final double maxY) {
+        double tailMinX = Double.MAX_VALUE;
+        double tailMinY = Double.MAX_VALUE;
+        double tailMaxX = -Double.MAX_VALUE;
+        double tailMaxY = -Double.MAX_VALUE;
+
+        for (int i = 0; i < mTailCount; i++) {
+            tailMinX = Math.min(tailMinX, mTailXs[i]);
+            tailMinY = Math.min(tailMinY, mTailYs[i]);
+            tailMaxX = Math.max(tailMaxX, mTailXs[i]);
+            tailMaxY = Math.max(tailMaxY, mTailYs[i]);
+        }
+
+        return tailMinX <= maxX && tailMinY <= maxY && tailMaxX >= minX && tailMaxY >= minY;
+    }
+
+    private void commit(final double x, final double y) {
+        if (mCount == mXs.length) {
+            mXs = Arrays.copyOf(mXs, mCount * 2);
+            mYs = Arrays.copyOf(mYs, mCount * 2);
+        }
+
+        mXs[mCount] = x;
+        mYs[mCount] = y;
+
+        // The first point of a span also closes the previous one.
+        if (mCount > 0 && mCount % SPAN_SIZE == 0) {
+            extendSpan(mCount / SPAN_SIZE - 1, x, y);
+        }
+        extendSpan(mCount / SPAN_SIZE, x, y);
+        mCount++;
+    }
+
+    private void extendSpan(final int span, final double x, final double y) {
+        final int offset = 4 * span;
+
+        if (offset + 4 > mSpanBounds.length) {
+            mSpanBounds = Arrays.copyOf(mSpanBounds, mSpanBounds.length * 2);
+        }
+
+        if (span * SPAN_SIZE == mCount) {
+            // First point of the span.
+            mSpanBounds[offset] = x;
+            mSpanBounds[offset + 1] = y;
+            mSpanBounds[offset + 2] = x;
+            mSpanBounds[offset + 3] = y;
+        } else {
+            mSpanBounds[offset] = Math.min(mSpanBounds[offset], x);
+            mSpanBounds[offset + 1] = Math.min(mSpanBounds[offset + 1], y);
+            mSpanBounds[offset + 2] = Math.max(mSpanBounds[offset + 2], x);
+            mSpanBounds[offset + 3] = Math.max(mSpanBounds[offset + 3], y);
+        }
+    }
+}
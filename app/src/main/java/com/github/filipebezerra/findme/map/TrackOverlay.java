@@ -0,0 +1,125 @@
+package com.github.filipebezerra.findme.map;
+
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws a {@link SimplifiedTrack} on a {@link GoogleMap}, as polylines of its runs crossing the
+ * viewport at the current zoom.
+ * <p/>
+ * The map pans and zooms the polylines on its own, so they are only rebuilt once the camera
+ * settles, and around the viewport by a margin so the track doesn't end at the edge of the
+ * screen while panning. Polylines are reused from one rendering to the next. Must be used from
+ * the main thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+public class TrackOverlay implements GoogleMap.OnCameraChangeListener, PolylineSink {
+    /**
+     * Part of the viewport's size added around it when querying the track.
+     */
+    private static final double VIEWPORT_MARGIN = 0.5;
+
+    private final GoogleMap mMap;
+
+    private final SimplifiedTrack mTrack;
+
+    private final int mColor;
+
+    private final float mWidth;
+
+    private final List<Polyline> mPolylines = new ArrayList<>();
+
+    private final List<List<LatLng>> mRuns = new ArrayList<>();
+
+    private List<LatLng> mRun;
+
+    /**
+     * @param width width of the polylines, in screen pixels
+     */
+    public TrackOverlay(final GoogleMap map, final SimplifiedTrack track, final int color,
+            final float width) {
+        mMap = map;
+        mTrack = track;
+        mColor = color;
+        mWidth = width;
+    }
+
+    @Override
+    public void onCameraChange(CameraPosition position) {
+        render();
+    }
+
+    /**
+     * Redraws the part of the track around the viewport, for example after fixes were added.
+     */
+    public void render() {
+        final long start = System.nanoTime();
+        final LatLngBounds bounds = mMap.getProjection().getVisibleRegion().latLngBounds;
+        final double south = bounds.southwest.latitude;
+        final double north = bounds.northeast.latitude;
+        double west = bounds.southwest.longitude;
+        double east = bounds.northeast.longitude;
+        final double height = north - south;
+        final double width = west <= east ? east - west : east - west + 360;
+
+        if (width * (1 + 2 * VIEWPORT_MARGIN) >= 360) {
+            west = -180;
+            east = 180;
+        } else {
+            west = normalizeLongitude(west - width * VIEWPORT_MARGIN);
+            east = normalizeLongitude(east + width * VIEWPORT_MARGIN);
+        }
+
+        mRuns.clear();
+        mTrack.query(mMap.getCameraPosition().zoom,
+                Math.max(-WebMercator.MAX_LATITUDE, south - height * VIEWPORT_MARGIN), west,
+                Math.min(WebMercator.MAX_LATITUDE, north + height * VIEWPORT_MARGIN), east, this);
+
+        for (int i = 0; i < mRuns.size(); i++) {
+            if (i < mPolylines.size()) {
+                mPolylines.get(i).setPoints(mRuns.get(i));
+            } else {
+                mPolylines.add(mMap.addPolyline(new PolylineOptions()
+                        .color(mColor)
+                        .width(mWidth)
+                        .addAll(mRuns.get(i))));
+            }
+        }
+
+        while (mPolylines.size() > mRuns.size()) {
+            mPolylines.remove(mPolylines.size() - 1).remove();
+        }
+
+        mRuns.clear();
+        mRun = null;
+        Metrics.TRACK_MAP_RENDER_TIME.record((System.nanoTime() - start) / 1000);
+    }
+
+    @Override
+    public void startRun() {
+        mRun = new ArrayList<>();
+        mRuns.add(mRun);
+    }
+
+    @Override
+    public void addPoint(double x, double y) {
+        mRun.add(new LatLng(WebMercator.latitude(y), WebMercator.longitude(x)));
+    }
+
+    private static double normalizeLongitude(final double longitude) {
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude > 180 ? longitude - 360 : longitude;
+    }
+}
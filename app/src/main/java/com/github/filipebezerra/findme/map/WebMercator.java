@@ -0,0 +1,50 @@
+package com.github.filipebezerra.findme.map;
+
+/**
+ * Projects coordinates onto the square world of the Web Mercator projection used by map tiles,
+ * with x growing eastwards and y southwards from 0 to 1. At zoom level z the world spans
+ * {@code 256 * 2^z} density independent pixels.
+ *
+ * @author Filipe Bezerra
+ * @version #, 26/08/2015
+ * @since #
+ */
+public final class WebMercator {
+    /**
+     * Latitudes beyond this project out of the square world.
+     */
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    /**
+     * Side of a map tile, in density independent pixels.
+     */
+    public static final int TILE_SIZE = 256;
+
+    private WebMercator() {
+    }
+
+    public static double x(final double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    public static double y(final double latitude) {
+        final double sin = Math.sin(Math.toRadians(
+                Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude))));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    public static double longitude(final double x) {
+        return x * 360 - 180;
+    }
+
+    public static double latitude(final double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+
+    /**
+     * Returns the size of the given number of pixels at the given zoom level, in world units.
+     */
+    public static double pixelsToWorld(final double pixels, final double zoom) {
+        return pixels / (TILE_SIZE * Math.pow(2, zoom));
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.filipebezerra.findme.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonically increasing count, safe to update from any thread without locking.
+ *
+ * @author Filipe Bezerra
+ * @version #, 18/08/2015
+ * @since #
+ */
+public final class Counter {
+    private final String mName;
+
+    private final AtomicLong mCount = new AtomicLong();
+
+    Counter(final String name) {
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void increment() {
+        mCount.incrementAndGet();
+    }
+
+    public void add(final long delta) {
+        mCount.addAndGet(delta);
+    }
+
+    public long get() {
+        return mCount.get();
+    }
+
+    void reset() {
+        mCount.set(0);
+    }
+}
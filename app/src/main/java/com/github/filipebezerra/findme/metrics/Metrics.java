@@ -0,0 +1,181 @@
+package com.github.filipebezerra.findme.metrics;
+
+/**
+ * The counters and histograms updated by the application, kept in constants so hot paths don't
+ * look them up by name. Names end with the unit of their values.
+ *
+ * @author Filipe Bezerra
+ * @version #, 18/08/2015
+ * @since #
+ */
+public final class Metrics {
+    private static final MetricsRegistry sRegistry = MetricsRegistry.getInstance();
+
+    /**
+     * Time from asking Google Play services to connect until connected.
+     */
+    public static final Histogram PLAY_SERVICES_CONNECT_TIME =
+            sRegistry.histogram("play_services.connect_time_ms");
+
+    /**
+     * Consumers of the GoogleApiClient finding it connected already.
+     */
+    public static final Counter PLAY_SERVICES_CONNECTION_REUSED =
+            sRegistry.counter("play_services.connection_reused");
+
+    public static final Counter PLAY_SERVICES_CONNECTION_FAILED =
+            sRegistry.counter("play_services.connection_failed");
+
+    public static final Counter PLAY_SERVICES_CONNECTION_SUSPENDED =
+            sRegistry.counter("play_services.connection_suspended");
+
+    public static final Counter FIXES_RECEIVED = sRegistry.counter("location.fixes_received");
+
+    public static final Counter FIXES_DROPPED = sRegistry.counter("location.fixes_dropped");
+
+    /**
+     * Time between consecutive fixes received from the location provider, by their own times
+     * since they arrive in batches.
+     */
+    public static final Histogram FIX_INTERVAL = sRegistry.histogram("location.fix_interval_ms");
+
+    /**
+     * Fixes delivered at once by the location provider.
+     */
+    public static final Histogram FIX_BATCH_SIZE = sRegistry.histogram("location.batch_size");
+
+    public static final Histogram FIRST_FIX_SHOWN_TIME =
+            sRegistry.histogram("location.first_fix_shown_ms");
+
+    public static final Histogram FIRST_FIX_LIVE_TIME =
+            sRegistry.histogram("location.first_fix_live_ms");
+
+    /**
+     * Time to resolve an address, whether from a cache or a geocoder.
+     */
+    public static final Histogram GEOCODE_LATENCY = sRegistry.histogram("geocode.latency_us");
+
+    public static final Counter GEOCODE_MEMORY_CACHE_HITS =
+            sRegistry.counter("geocode.memory_cache_hits");
+
+    public static final Counter GEOCODE_DISK_CACHE_HITS =
+            sRegistry.counter("geocode.disk_cache_hits");
+
+    /**
+     * Geocoder calls failing with an I/O error, usually no connectivity.
+     */
+    public static final Counter GEOCODE_IO_FAILURES = sRegistry.counter("geocode.failures.io");
+
+    public static final Counter GEOCODE_INVALID_COORDINATES =
+            sRegistry.counter("geocode.failures.invalid_coordinates");
+
+    /**
+     * Lookups for which no geocoder knew an address.
+     */
+    public static final Counter GEOCODE_NO_ADDRESS =
+            sRegistry.counter("geocode.failures.no_address");
+
+    /**
+     * Lookups answered from the locations recently found to have no address.
+     */
+    public static final Counter GEOCODE_NEGATIVE_CACHE_HITS =
+            sRegistry.counter("geocode.negative_cache_hits");
+
+    /**
+     * Geocoder calls skipped because the geocoder failed recently.
+     */
+    public static final Counter GEOCODE_BACKED_OFF = sRegistry.counter("geocode.backed_off");
+
+    /**
+     * Lookups replayed after failing while the geocoders were unavailable.
+     */
+    public static final Counter GEOCODE_RETRIES = sRegistry.counter("geocode.retries");
+
+    /**
+     * Lookups given up after too many retries, or pushed out of a full retry queue.
+     */
+    public static final Counter GEOCODE_RETRIES_DROPPED =
+            sRegistry.counter("geocode.retries_dropped");
+
+    /**
+     * Lookups made for the address following the device.
+     */
+    public static final Counter GEOCODE_AUTO_LOOKUPS = sRegistry.counter("geocode.auto_lookups");
+
+    /**
+     * Addresses dropped for arriving after a newer lookup was made.
+     */
+    public static final Counter GEOCODE_STALE_RESULTS = sRegistry.counter("geocode.stale_results");
+
+    /**
+     * Time to render a location update.
+     */
+    public static final Histogram UI_UPDATE_TIME = sRegistry.histogram("ui.location_update_us");
+
+    /**
+     * Snapshots of a state store skipped by subscribers falling behind.
+     */
+    public static final Counter STATE_SNAPSHOTS_DROPPED =
+            sRegistry.counter("state.snapshots_dropped");
+
+    /**
+     * Number of fixes in each batch queued for upload.
+     */
+    public static final Histogram UPLOAD_BATCH_FIXES = sRegistry.histogram("upload.batch_fixes");
+
+    /**
+     * Compressed size of each batch queued for upload.
+     */
+    public static final Histogram UPLOAD_BATCH_BYTES = sRegistry.histogram("upload.batch_bytes");
+
+    /**
+     * Time to send a batch the server stored.
+     */
+    public static final Histogram UPLOAD_LATENCY = sRegistry.histogram("upload.latency_ms");
+
+    public static final Counter UPLOAD_BATCHES_SENT = sRegistry.counter("upload.batches_sent");
+
+    /**
+     * Batches the server will never take, dropped from the queue.
+     */
+    public static final Counter UPLOAD_BATCHES_REJECTED =
+            sRegistry.counter("upload.batches_rejected");
+
+    /**
+     * Batches dropped from a full queue before they could be sent.
+     */
+    public static final Counter UPLOAD_BATCHES_DROPPED =
+            sRegistry.counter("upload.batches_dropped");
+
+    /**
+     * Batches that couldn't be sent, to be sent again later.
+     */
+    public static final Counter UPLOAD_FAILURES = sRegistry.counter("upload.failures");
+
+    /**
+     * Time to rebuild the polylines of the track map after the camera moved.
+     */
+    public static final Histogram TRACK_MAP_RENDER_TIME =
+            sRegistry.histogram("track_map.render_us");
+
+    /**
+     * Time to compact the recorded trail.
+     */
+    public static final Histogram TRACK_COMPACTION_TIME =
+            sRegistry.histogram("track.compaction_ms");
+
+    /**
+     * Fixes moved into the archive of the recorded trail.
+     */
+    public static final Counter TRACK_FIXES_ARCHIVED = sRegistry.counter("track.fixes_archived");
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the histogram timing the calls to the given geocoder.
+     */
+    public static Histogram geocoderLatency(final Class<?> geocoder) {
+        return sRegistry.histogram("geocode." + geocoder.getSimpleName() + ".latency_us");
+    }
+}
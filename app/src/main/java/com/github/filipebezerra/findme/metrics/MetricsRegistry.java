@@ -0,0 +1,172 @@
+package com.github.filipebezerra.findme.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the counters and histograms of the application by name. Looking them up takes a map
+ * access, so hot paths keep the instances they update, see {@link Metrics}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 18/08/2015
+ * @since #
+ */
+public class MetricsRegistry {
+    private static final MetricsRegistry sInstance = new MetricsRegistry();
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final ConcurrentMap<String, Counter> mCounters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Histogram> mHistograms = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if needed.
+     */
+    public Counter counter(final String name) {
+        Counter counter = mCounters.get(name);
+
+        if (counter == null) {
+            final Counter created = new Counter(name);
+            counter = mCounters.putIfAbsent(name, created);
+
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if needed.
+     */
+    public Histogram histogram(final String name) {
+        Histogram histogram = mHistograms.get(name);
+
+        if (histogram == null) {
+            final Histogram created = new Histogram(name);
+            histogram = mHistograms.putIfAbsent(name, created);
+
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Zeroes every counter and histogram.
+     */
+    public void reset() {
+        for (Counter counter : mCounters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : mHistograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Returns the current values as a human readable table, one metric per line, sorted by name.
+     */
+    public String toText() {
+        final StringBuilder text = new StringBuilder();
+
+        for (Counter counter : sortedCounters()) {
+            text.append(counter.getName()).append(": ").append(counter.get()).append('\n');
+        }
+
+        for (Histogram.Snapshot snapshot : sortedSnapshots()) {
+            text.append(snapshot.getName()).append(": n=").append(snapshot.getCount());
+
+            if (snapshot.getCount() > 0) {
+                text.append(String.format(Locale.US, " mean=%.1f", snapshot.getMean()));
+
+                for (double percentile : PERCENTILES) {
+                    text.append(" p").append((int) percentile).append('=')
+                            .append(snapshot.getValueAtPercentile(percentile));
+                }
+
+                text.append(" max=").append(snapshot.getMax());
+            }
+
+            text.append('\n');
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Writes the current values as a JSON object, for offline analysis.
+     *
+     * @param timeInMillis when the values were taken, in milliseconds since January 1, 1970
+     */
+    public void writeJson(final Writer writer, final long timeInMillis) throws IOException {
+        writer.write("{\"time\":" + timeInMillis + ",\"counters\":{");
+        boolean first = true;
+
+        for (Counter counter : sortedCounters()) {
+            writer.write((first ? "\"" : ",\"") + counter.getName() + "\":" + counter.get());
+            first = false;
+        }
+
+        writer.write("},\"histograms\":{");
+        first = true;
+
+        for (Histogram.Snapshot snapshot : sortedSnapshots()) {
+            writer.write((first ? "\"" : ",\"") + snapshot.getName() + "\":{\"count\":"
+                    + snapshot.getCount() + ",\"mean\":"
+                    + String.format(Locale.US, "%.3f", snapshot.getMean()));
+
+            for (double percentile : PERCENTILES) {
+                writer.write(",\"p" + (int) percentile + "\":"
+                        + snapshot.getValueAtPercentile(percentile));
+            }
+
+            writer.write(",\"p999\":" + snapshot.getValueAtPercentile(99.9) + ",\"max\":"
+                    + snapshot.getMax() + "}");
+            first = false;
+        }
+
+        writer.write("}}\n");
+        writer.flush();
+    }
+
+    private List<Counter> sortedCounters() {
+        final List<Counter> counters = new ArrayList<>(mCounters.values());
+        Collections.sort(counters, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter lhs, Counter rhs) {
+                return lhs.getName().compareTo(rhs.getName());
+            }
+        });
+        return counters;
+    }
+
+    private List<Histogram.Snapshot> sortedSnapshots() {
+        final List<Histogram.Snapshot> snapshots = new ArrayList<>();
+
+        for (Histogram histogram : mHistograms.values()) {
+            snapshots.add(histogram.snapshot());
+        }
+
+        Collections.sort(snapshots, new Comparator<Histogram.Snapshot>() {
+            @Override
+            public int compare(Histogram.Snapshot lhs, Histogram.Snapshot rhs) {
+                return lhs.getName().compareTo(rhs.getName());
+            }
+        });
+        return snapshots;
+    }
+}
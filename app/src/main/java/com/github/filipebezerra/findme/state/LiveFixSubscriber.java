@@ -0,0 +1,38 @@
+package com.github.filipebezerra.findme.state;
+
+import android.location.Location;
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.location.LocationFixes;
+
+/**
+ * Subscriber only interested in the live fixes of the location state, once each, ignoring last
+ * known locations and address changes.
+ *
+ * @author Filipe Bezerra
+ * @version #, 20/08/2015
+ * @since #
+ */
+public abstract class LiveFixSubscriber implements Subscriber<LocationState> {
+    /**
+     * Reused for every fix passed to {@link #onFix(Fix)}.
+     */
+    private final Fix mFix = new Fix();
+
+    private Location mLastLocation;
+
+    @Override
+    public final void onState(LocationState state) {
+        if (! state.live || state.location == mLastLocation) {
+            return;
+        }
+
+        mLastLocation = state.location;
+        onFix(LocationFixes.copy(state.location, mFix));
+    }
+
+    /**
+     * Receives a new live fix. The fix is reused for the next one, so it must be copied to be
+     * kept.
+     */
+    protected abstract void onFix(Fix fix);
+}
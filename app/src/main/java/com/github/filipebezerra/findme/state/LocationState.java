@@ -0,0 +1,81 @@
+package com.github.filipebezerra.findme.state;
+
+import android.location.Location;
+
+/**
+ * Immutable snapshot of where the device is and what its address is, published through a
+ * {@link StateStore}. Every change makes a new snapshot with one of the {@code with} methods.
+ *
+ * @author Filipe Bezerra
+ * @version #, 20/08/2015
+ * @since #
+ */
+public final class LocationState {
+    public static final LocationState EMPTY = new LocationState(null, 0, false, "", false);
+
+    /**
+     * The location shown, either the last fix accepted or a last known location, or null. Must
+     * not be modified.
+     */
+    public final Location location;
+
+    /**
+     * Time when the location was updated, in milliseconds since January 1, 1970.
+     */
+    public final long updateTime;
+
+    /**
+     * Whether the location is a fix received since location updates started, rather than a last
+     * known location.
+     */
+    public final boolean live;
+
+    /**
+     * The formatted address, or an error message if it couldn't be found. It may be the address
+     * of an older location.
+     */
+    public final String address;
+
+    /**
+     * Whether the user has requested an address, which is looked up once connected to Google
+     * Play services, and not delivered yet.
+     */
+    public final boolean addressRequested;
+
+    private LocationState(final Location location, final long updateTime, final boolean live,
+            final String address, final boolean addressRequested) {
+        this.location = location;
+        this.updateTime = updateTime;
+        this.live = live;
+        this.address = address;
+        this.addressRequested = addressRequested;
+    }
+
+    /**
+     * Returns a snapshot with a copy of the given location, which the caller can keep using.
+     */
+    public LocationState withLocation(final Location location, final long updateTime,
+            final boolean live) {
+        return new LocationState(new Location(location), updateTime, live, address,
+                addressRequested);
+    }
+
+    /**
+     * Returns a snapshot with the given address delivered.
+     */
+    public LocationState withAddress(final String address) {
+        return new LocationState(location, updateTime, live, address == null ? "" : address,
+                false);
+    }
+
+    public LocationState withAddressRequested(final boolean addressRequested) {
+        if (addressRequested == this.addressRequested) {
+            return this;
+        }
+        return new LocationState(location, updateTime, live, address, addressRequested);
+    }
+
+    public boolean hasLocation() {
+        return location != null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.filipebezerra.findme.state;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on the main thread, for subscribers updating the UI.
+ *
+ * @author Filipe Bezerra
+ * @version #, 20/08/2015
+ * @since #
+ */
+public final class MainThreadExecutor implements Executor {
+    private static final MainThreadExecutor sInstance = new MainThreadExecutor();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private MainThreadExecutor() {
+    }
+
+    public static MainThreadExecutor getInstance() {
+        return sInstance;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        mHandler.post(command);
+    }
+}
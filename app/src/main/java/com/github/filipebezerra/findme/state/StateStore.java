@@ -0,0 +1,204 @@
+package com.github.filipebezerra.findme.state;
+
+import com.github.filipebezerra.findme.metrics.Metrics;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the current snapshot of some immutable state, and delivers every new snapshot to its
+ * subscribers.
+ * <p/>
+ * The store has a single writer: {@link #publish(Object)} must always be called from the same
+ * thread. Any thread can read the current snapshot with {@link #get()}, without locking.
+ * <p/>
+ * Each subscriber has its own bounded queue, drained on its own executor, so publishing never
+ * waits for a subscriber. When a subscriber falls so far behind that its queue is full, the
+ * newer snapshots are dropped, counted, and the subscriber is given the latest snapshot once it
+ * has caught up. Slow subscribers may thus skip snapshots, but always end with the current one.
+ *
+ * @author Filipe Bezerra
+ * @version #, 20/08/2015
+ * @since #
+ */
+public class StateStore<S> {
+    private volatile S mState;
+
+    private final CopyOnWriteArrayList<Subscription<S>> mSubscriptions =
+            new CopyOnWriteArrayList<>();
+
+    public StateStore(final S initialState) {
+        mState = initialState;
+    }
+
+    /**
+     * Returns the current snapshot.
+     */
+    public S get() {
+        return mState;
+    }
+
+    /**
+     * Makes the given snapshot the current one and queues it for every subscriber. Must only be
+     * called by the writer of the store.
+     */
+    public void publish(final S state) {
+        mState = state;
+
+        for (Subscription<S> subscription : mSubscriptions) {
+            subscription.offer(state);
+        }
+    }
+
+    /**
+     * Delivers the snapshots published from now on to the subscriber, on the given executor and
+     * one at a time, queueing up to {@code capacity} of them. A capacity of 1 only keeps the
+     * latest snapshot, which suits subscribers that only show the current state.
+     */
+    public Subscription<S> subscribe(final Subscriber<S> subscriber, final Executor executor,
+            final int capacity) {
+        final Subscription<S> subscription =
+                new Subscription<>(this, subscriber, executor, capacity);
+        mSubscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Queue of the snapshots not delivered yet to one subscriber.
+     * <p/>
+     * The queue is a ring with a single producer, the writer of the store, and a single
+     * consumer, the drain task, which is never run twice at the same time.
+     */
+    public static final class Subscription<S> implements Runnable {
+        private final StateStore<S> mStore;
+
+        private final Subscriber<S> mSubscriber;
+
+        private final Executor mExecutor;
+
+        private final AtomicReferenceArray<S> mQueue;
+
+        private final int mMask;
+
+        /**
+         * Position of the next snapshot to deliver, only advanced by the consumer.
+         */
+        private final AtomicLong mHead = new AtomicLong();
+
+        /**
+         * Position of the next snapshot to queue, only advanced by the producer.
+         */
+        private final AtomicLong mTail = new AtomicLong();
+
+        /**
+         * Whether the drain task is submitted or running.
+         */
+        private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+        /**
+         * Whether snapshots were dropped since the last catch up with the current one.
+         */
+        private final AtomicBoolean mOverflowed = new AtomicBoolean();
+
+        private final AtomicLong mDroppedCount = new AtomicLong();
+
+        private volatile boolean mCancelled;
+
+        /**
+         * Last snapshot delivered, only touched by the consumer.
+         */
+        private S mLastDelivered;
+
+        Subscription(final StateStore<S> store, final Subscriber<S> subscriber,
+                final Executor executor, final int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+
+            int size = 1;
+            while (size < capacity) {
+                size <<= 1;
+            }
+
+            mStore = store;
+            mSubscriber = subscriber;
+            mExecutor = executor;
+            mQueue = new AtomicReferenceArray<>(size);
+            mMask = size - 1;
+        }
+
+        /**
+         * Stops the deliveries. A snapshot being delivered at the moment is not interrupted.
+         */
+        public void cancel() {
+            mCancelled = true;
+            mStore.mSubscriptions.remove(this);
+        }
+
+        /**
+         * Returns the number of snapshots this subscriber skipped for falling behind.
+         */
+        public long getDroppedCount() {
+            return mDroppedCount.get();
+        }
+
+        void offer(final S state) {
+            final long tail = mTail.get();
+
+            if (tail - mHead.get() >= mQueue.length()) {
+                mDroppedCount.incrementAndGet();
+                Metrics.STATE_SNAPSHOTS_DROPPED.increment();
+                mOverflowed.set(true);
+            } else {
+                mQueue.lazySet((int) (tail & mMask), state);
+                mTail.lazySet(tail + 1);
+            }
+
+            schedule();
+        }
+
+        private void schedule() {
+            if (mScheduled.compareAndSet(false, true)) {
+                mExecutor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers the queued snapshots, then the current one if some were dropped meanwhile.
+         */
+        @Override
+        public void run() {
+            do {
+                long head = mHead.get();
+
+                while (head < mTail.get()) {
+                    final int index = (int) (head & mMask);
+                    final S state = mQueue.get(index);
+                    mQueue.lazySet(index, null);
+                    mHead.lazySet(++head);
+                    deliver(state);
+                }
+
+                if (mOverflowed.getAndSet(false)) {
+                    deliver(mStore.get());
+                }
+
+                mScheduled.set(false);
+
+                // Whatever was queued after the checks above, but before the flag was cleared,
+                // found the task still scheduled and relies on this one to deliver it.
+            } while ((mHead.get() < mTail.get() || mOverflowed.get())
+                    && mScheduled.compareAndSet(false, true));
+        }
+
+        private void deliver(final S state) {
+            if (mCancelled || state == mLastDelivered) {
+                return;
+            }
+            mLastDelivered = state;
+            mSubscriber.onState(state);
+        }
+    }
+}
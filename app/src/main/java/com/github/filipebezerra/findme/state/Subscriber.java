@@ -0,0 +1,12 @@
+package com.github.filipebezerra.findme.state;
+
+/**
+ * Receives the snapshots published to a {@link StateStore}, on the executor it subscribed with.
+ *
+ * @author Filipe Bezerra
+ * @version #, 20/08/2015
+ * @since #
+ */
+public interface Subscriber<S> {
+    void onState(S state);
+}
@@ -1,124 +0,0 @@
-package com.github.filipebezerra.findme.tasks;
-
-import android.app.IntentService;
-import android.content.Intent;
-import android.location.Address;
-import android.location.Geocoder;
-import android.location.Location;
-import android.os.Bundle;
-import android.os.ResultReceiver;
-import android.text.TextUtils;
-import com.github.filipebezerra.findme.R;
-import com.github.filipebezerra.findme.utils.Constants;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
-import timber.log.Timber;
-
-/**
- * Asynchronously handles an intent using a worker thread. Receives a ResultReceiver object and a
- * location through an intent. Tries to fetch the address for the location using a Geocoder, and
- * sends the result to the ResultReceiver.
- */
-public class FetchAddressIntentService extends IntentService {
-    private static final String TAG = FetchAddressIntentService.class.getSimpleName();
-
-    /**
-     * The receiver where results are forwarded from this service.
-     */
-    private ResultReceiver mReceiver;
-
-    /**
-     * This constructor is required, and calls the super IntentService(String)
-     * constructor with the name for a worker thread.
-     */
-    public FetchAddressIntentService(){
-        super(TAG);
-        Timber.tag(TAG);
-    }
-
-    /**
-     * Tries to get the location address using a Geocoder. If successful, sends an address to a
-     * result receiver. If unsuccessful, sends an error message instead.
-     * Note: We define a {@link android.os.ResultReceiver} in * MainActivity to process content
-     * sent from this service.
-     *
-     * This service calls this method from the default worker thread with the intent that started
-     * the service. When this method returns, the service automatically stops.
-     */
-    @Override
-    protected void onHandleIntent(Intent intent) {
-        String errorMessage = "";
-
-        mReceiver = intent.getParcelableExtra(Constants.RECEIVER);
-
-        // Check if receiver was properly registered.
-        if (mReceiver == null) {
-            Timber.d(TAG, "No receiver received. There is nowhere to send the results.");
-            return;
-        }
-
-        Location location = intent.getParcelableExtra(Constants.LOCATION_DATA_EXTRA);
-
-        if (location == null) {
-            errorMessage = "No location data provided";
-            Timber.d(errorMessage);
-            deliverResultToReceiver(Constants.FAILURE_RESULT, errorMessage);
-            return;
-        }
-
-        // Errors could still arise from using the Geocoder (for example, if there is no
-        // connectivity, or if the Geocoder is given illegal location data). Or, the Geocoder may
-        // simply not have an address for a location. In all these cases, we communicate with the
-        // receiver using a resultCode indicating failure. If an address is found, we use a
-        // resultCode indicating success.
-
-        // The Geocoder used in this sample. The Geocoder's responses are localized for the given
-        // Locale, which represents a specific geographical or linguistic region. Locales are used
-        // to alter the presentation of information such as numbers or dates to suit the conventions
-        // in the region they describe.
-        Geocoder geocoder = new Geocoder(this, Locale.getDefault());
-
-        List<Address> addresses = null;
-
-        try {
-            addresses = geocoder.getFromLocation(location.getLatitude(), location.getLongitude(), 1);
-        } catch (IOException e) {
-            // Catch network or other I/O problems.
-            errorMessage = getString(R.string.service_not_available);
-            Timber.e(e, "Getting reverse geocoding from location %s", location.toString());
-        } catch (IllegalArgumentException  e) {
-            // Catch invalid latitude or longitude values
-            errorMessage = getString(R.string.invalid_lat_long_used);
-            Timber.e(e, "Invalid latitude and longitude from location %s", location.toString());
-        }
-
-        if (addresses == null || addresses.size() == 0) {
-            if (errorMessage.isEmpty()) {
-                errorMessage = getString(R.string.no_address_found);
-                Timber.e("None address found from location %s", location.toString());
-            }
-
-            deliverResultToReceiver(Constants.FAILURE_RESULT, errorMessage);
-        } else {
-            Address address = addresses.get(0);
-            List<String> addressFragments = new ArrayList<>();
-
-            for (int i = 0; i < address.getMaxAddressLineIndex(); i++) {
-                addressFragments.add(address.getAddressLine(i));
-            }
-
-            Timber.d("Address found from location %s", location.toString());
-            deliverResultToReceiver(Constants.SUCCESS_RESULT,
-                    TextUtils.join(System.getProperty("line.separator"), addressFragments));
-        }
-    }
-
-    private void deliverResultToReceiver(int resultCode, String message) {
-        Bundle bundle = new Bundle();
-        bundle.putString(Constants.RESULT_DATA_KEY, message);
-
-        mReceiver.send(resultCode, bundle);
-    }
-}
\ No newline at end of file
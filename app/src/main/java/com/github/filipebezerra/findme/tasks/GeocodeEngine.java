@@ -0,0 +1,330 @@
+package com.github.filipebezerra.findme.tasks;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.ResultReceiver;
+import com.github.filipebezerra.findme.geocoding.AddressResolver;
+import com.github.filipebezerra.findme.logging.FastLog;
+import com.github.filipebezerra.findme.logging.Logger;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches addresses on a small pool of worker threads and sends them to a
+ * {@link ResultReceiver}.
+ * <p/>
+ * Lookups for the same grid cell that are still pending or running are collapsed into a single
+ * Geocoder call whose result is delivered to every receiver. A request that is no longer wanted,
+ * for example because a newer fix superseded it, can be cancelled through the {@link Request}
+ * returned by {@link #submit(Location, ResultReceiver)}.
+ * <p/>
+ * Lookups failing because the geocoders are unavailable are kept in a bounded retry queue after
+ * their failure was sent. Once the geocoders may be asked again, the oldest of them is replayed
+ * alone, and once it gets any answer but another unavailable geocoder, even no address, the
+ * others are replayed too; their receivers then get the outcome as a second result.
+ *
+ * @author Filipe Bezerra
+ * @version #, 05/08/2015
+ * @since #
+ */
+public class GeocodeEngine {
+    private static final String TAG = GeocodeEngine.class.getSimpleName();
+
+    private static final Logger LOG = FastLog.logger(TAG, 1, Constants.LOG_MAX_PER_SECOND);
+
+    private static GeocodeEngine sInstance;
+
+    private final AddressResolver mResolver;
+
+    private final ThreadPoolExecutor mExecutor;
+
+    /**
+     * Lookups not finished yet, by grid cell. Guarded by this.
+     */
+    private final Map<Long, GeocodeTask> mInFlight = new HashMap<>();
+
+    /**
+     * Lookups waiting to be replayed, by grid cell, oldest first. Guarded by this.
+     */
+    private final LinkedHashMap<Long, GeocodeTask> mRetryQueue = new LinkedHashMap<>();
+
+    private final Handler mRetryHandler = new Handler(Looper.getMainLooper());
+
+    private final Runnable mRetryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            retryOldest();
+        }
+    };
+
+    /**
+     * Whether {@link #mRetryRunnable} is posted. Guarded by this.
+     */
+    private boolean mRetryScheduled;
+
+    public static synchronized GeocodeEngine getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new GeocodeEngine(new AddressResolver(context));
+        }
+        return sInstance;
+    }
+
+    GeocodeEngine(AddressResolver resolver) {
+        mResolver = resolver;
+        mExecutor = new ThreadPoolExecutor(Constants.GEOCODE_WORKER_THREADS,
+                Constants.GEOCODE_WORKER_THREADS, Constants.GEOCODE_WORKER_KEEP_ALIVE_IN_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new WorkerThreadFactory());
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Requests the address of the given location. The result is sent to the receiver with
+     * {@link Constants#SUCCESS_RESULT} or {@link Constants#FAILURE_RESULT}, and the address or
+     * error message under {@link Constants#RESULT_DATA_KEY}.
+     */
+    public synchronized Request submit(final Location location, final ResultReceiver receiver) {
+        final long cell = mResolver.cellOf(location.getLatitude(), location.getLongitude());
+        GeocodeTask task = mInFlight.get(cell);
+
+        if (task == null) {
+            task = new GeocodeTask(cell, location.getLatitude(), location.getLongitude());
+            mInFlight.put(cell, task);
+            task.mFuture = mExecutor.submit(task);
+        } else {
+            LOG.d("Joining the pending address lookup of cell %d", cell);
+        }
+
+        final Request request = new Request(task, receiver);
+        task.mRequests.add(request);
+        return request;
+    }
+
+    private synchronized void cancel(final Request request) {
+        final GeocodeTask task = request.mTask;
+
+        if (! task.mRequests.remove(request) || ! task.mRequests.isEmpty()) {
+            return;
+        }
+
+        if (task.mQueued) {
+            LOG.d("Dropping the address lookup of cell %d from the retry queue", task.mCell);
+            task.mQueued = false;
+            mRetryQueue.remove(task.mCell);
+            return;
+        }
+
+        if (task.mStarted) {
+            return;
+        }
+
+        // Nobody wants this address anymore and no Geocoder call was made yet.
+        LOG.d("Cancelling the address lookup of cell %d", task.mCell);
+        task.mFuture.cancel(false);
+        mInFlight.remove(task.mCell);
+    }
+
+    private synchronized boolean start(final GeocodeTask task) {
+        if (task.mRequests.isEmpty()) {
+            return false;
+        }
+        task.mStarted = true;
+        task.mAttempts++;
+        return true;
+    }
+
+    private synchronized List<Request> finish(final GeocodeTask task,
+            final AddressResolver.Result result) {
+        if (mInFlight.get(task.mCell) == task) {
+            mInFlight.remove(task.mCell);
+        }
+
+        final List<Request> requests = new ArrayList<>(task.mRequests);
+
+        if (result.isRetryable()) {
+            enqueueRetry(task, result.retryDelayInMillis);
+        } else if (! mRetryQueue.isEmpty()) {
+            // The geocoders are back, even if they had no address for this one, so every lookup
+            // left is worth replaying.
+            LOG.d("Replaying %d address lookups", mRetryQueue.size());
+            mRetryHandler.removeCallbacks(mRetryRunnable);
+            mRetryScheduled = false;
+
+            final List<GeocodeTask> tasks = new ArrayList<>(mRetryQueue.values());
+            mRetryQueue.clear();
+
+            for (GeocodeTask queued : tasks) {
+                replay(queued);
+            }
+        }
+        return requests;
+    }
+
+    private void enqueueRetry(final GeocodeTask task, final long delayInMillis) {
+        if (task.mRequests.isEmpty()) {
+            return;
+        }
+
+        if (task.mAttempts > Constants.GEOCODE_MAX_RETRIES) {
+            LOG.d("Giving up the address lookup of cell %d", task.mCell);
+            Metrics.GEOCODE_RETRIES_DROPPED.increment();
+            return;
+        }
+
+        final GeocodeTask queued = mRetryQueue.get(task.mCell);
+
+        if (queued != null) {
+            queued.join(task);
+        } else {
+            if (mRetryQueue.size() >= Constants.GEOCODE_RETRY_QUEUE_CAPACITY) {
+                final Iterator<GeocodeTask> eldest = mRetryQueue.values().iterator();
+                eldest.next().mQueued = false;
+                eldest.remove();
+                Metrics.GEOCODE_RETRIES_DROPPED.increment();
+            }
+            task.mQueued = true;
+            mRetryQueue.put(task.mCell, task);
+        }
+
+        if (! mRetryScheduled) {
+            mRetryScheduled = true;
+            mRetryHandler.postDelayed(mRetryRunnable, delayInMillis);
+        }
+    }
+
+    private synchronized void retryOldest() {
+        mRetryScheduled = false;
+
+        if (mRetryQueue.isEmpty()) {
+            return;
+        }
+
+        // Only one lookup probes the geocoders, the others would most likely fail the same.
+        final Iterator<GeocodeTask> oldest = mRetryQueue.values().iterator();
+        final GeocodeTask task = oldest.next();
+        oldest.remove();
+        replay(task);
+    }
+
+    private void replay(final GeocodeTask task) {
+        Metrics.GEOCODE_RETRIES.increment();
+        task.mQueued = false;
+
+        final GeocodeTask inFlight = mInFlight.get(task.mCell);
+
+        if (inFlight != null) {
+            inFlight.join(task);
+            return;
+        }
+
+        task.mStarted = false;
+        mInFlight.put(task.mCell, task);
+        task.mFuture = mExecutor.submit(task);
+    }
+
+    /**
+     * Handle to a submitted address request.
+     */
+    public final class Request {
+        /**
+         * The lookup this request waits on. Guarded by the engine.
+         */
+        private GeocodeTask mTask;
+
+        private final ResultReceiver mReceiver;
+
+        Request(GeocodeTask task, ResultReceiver receiver) {
+            mTask = task;
+            mReceiver = receiver;
+        }
+
+        /**
+         * Stops the result from being sent to this request's receiver. The Geocoder call itself
+         * is only skipped if no other request is waiting on it and it hasn't started yet.
+         */
+        public void cancel() {
+            GeocodeEngine.this.cancel(this);
+        }
+    }
+
+    private final class GeocodeTask implements Runnable {
+        final long mCell;
+
+        final double mLatitude;
+
+        final double mLongitude;
+
+        final List<Request> mRequests = new ArrayList<>(1);
+
+        Future<?> mFuture;
+
+        boolean mStarted;
+
+        boolean mQueued;
+
+        int mAttempts;
+
+        GeocodeTask(long cell, double latitude, double longitude) {
+            mCell = cell;
+            mLatitude = latitude;
+            mLongitude = longitude;
+        }
+
+        /**
+         * Takes over the requests of another lookup of the same cell. Must be called with the
+         * engine's lock held.
+         */
+        void join(final GeocodeTask other) {
+            for (Request request : other.mRequests) {
+                request.mTask = this;
+                mRequests.add(request);
+            }
+            other.mRequests.clear();
+        }
+
+        @Override
+        public void run() {
+            if (! start(this)) {
+                return;
+            }
+
+            final AddressResolver.Result result = mResolver.resolve(mLatitude, mLongitude);
+
+            for (Request request : finish(this, result)) {
+                final Bundle bundle = new Bundle();
+                bundle.putString(Constants.RESULT_DATA_KEY, result.message);
+                request.mReceiver.send(result.resultCode, bundle);
+            }
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, TAG + " #" + mCount.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * Keeps the recorded trail in tiers: every fix of a recent window in one {@link TrackRecorder},
+ * and older ones downsampled into an archive, another recorder, until they are past the
+ * retention horizon.
+ * <p/>
+ * Each run moves the fixes that left the recent window since the last one into the archive,
+ * keeping a fix only once some time passed or some distance was covered since the last one kept,
+ * as well as the last fix before a gap, so stops and the ends of recordings survive. The recent
+ * recorder is then trimmed to its window, and the archive to the horizon. The last fix read is
+ * left in the recent recorder if it wasn't kept, as whether a gap follows it is only known in a
+ * later run. Both rings being of a fixed size, storage stays bounded whatever the device records,
+ * while the archive spans months in the room a few days of fixes take. Must run on the thread
+ * appending fixes to both.
+ *
+ * @author Filipe Bezerra
+ * @version #, 28/08/2015
+ * @since #
+ */
+public class TrackCompactor {
+    private final TrackRecorder mRecent;
+
+    private final TrackRecorder mArchive;
+
+    private final long mRecentWindowInMillis;
+
+    private final long mRetentionInMillis;
+
+    private final long mMinIntervalInMillis;
+
+    private final double mMinDistanceInMeters;
+
+    private final Fix mFix = new Fix();
+
+    private final Fix mLastKept = new Fix();
+
+    /**
+     * Last fix read that wasn't kept, kept after all if a gap follows it.
+     */
+    private final Fix mSkipped = new Fix();
+
+    /**
+     * @param recent               recorder of the live fixes
+     * @param archive              recorder of the downsampled ones
+     * @param recentWindowInMillis how long fixes stay in the recent recorder
+     * @param retentionInMillis    how long fixes stay in the archive
+     * @param minIntervalInMillis  time after which the next fix is archived
+     * @param minDistanceInMeters  distance from which the next fix is archived
+     */
+    public TrackCompactor(final TrackRecorder recent, final TrackRecorder archive,
+            final long recentWindowInMillis, final long retentionInMillis,
+            final long minIntervalInMillis, final double minDistanceInMeters) {
+        mRecent = recent;
+        mArchive = archive;
+        mRecentWindowInMillis = recentWindowInMillis;
+        mRetentionInMillis = retentionInMillis;
+        mMinIntervalInMillis = minIntervalInMillis;
+        mMinDistanceInMeters = minDistanceInMeters;
+    }
+
+    /**
+     * Archives the recent fixes older than the window as of {@code now}, then deletes those
+     * from the recent recorder, and the archived ones past the horizon.
+     *
+     * @return the number of fixes archived
+     */
+    public int compact(final long now) {
+        final long recentStart = now - mRecentWindowInMillis;
+        final long horizon = now - mRetentionInMillis;
+        boolean hasLastKept = mArchive.readNewest(mLastKept);
+        boolean hasSkipped = false;
+        int archived = 0;
+
+        final TrackRecorder.Cursor cursor = mRecent.query(
+                hasLastKept ? Math.max(horizon, mLastKept.time + 1) : horizon, recentStart - 1);
+
+        while (cursor.next(mFix)) {
+            if (hasSkipped && mFix.time - mSkipped.time >= mMinIntervalInMillis) {
+                archive(mSkipped);
+                archived++;
+            }
+
+            if (! hasLastKept || mFix.time - mLastKept.time >= mMinIntervalInMillis
+                    || GeoMath.distanceInMeters(mLastKept.latitude, mLastKept.longitude,
+                    mFix.latitude, mFix.longitude) >= mMinDistanceInMeters) {
+                archive(mFix);
+                archived++;
+                hasLastKept = true;
+                hasSkipped = false;
+            } else {
+                mSkipped.set(mFix);
+                hasSkipped = true;
+            }
+        }
+
+        // The next run reads the fix not kept again, and archives it if a gap follows.
+        mRecent.trimBefore(hasSkipped ? mSkipped.time : recentStart);
+        mArchive.trimBefore(horizon);
+        return archived;
+    }
+
+    private void archive(final Fix fix) {
+        mArchive.append(fix);
+        mLastKept.set(fix);
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.github.filipebezerra.findme.tracking.TrackFormat.ACCURACY_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.ALTITUDE_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.BEARING_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.COORDINATE_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_ACCURACY;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_ALTITUDE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_BEARING;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_SPEED;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.MAGIC;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.SPEED_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.VERSION;
+
+/**
+ * Reads fixes lazily, one at a time, from a stream written by {@link TrackEncoder}.
+ *
+ * @author Filipe Bezerra
+ * @version #, 12/08/2015
+ * @since #
+ */
+public class TrackDecoder implements Closeable {
+    private static final int BUFFER_SIZE = 4096;
+
+    private final InputStream mInput;
+
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+
+    private int mPosition;
+
+    private int mLength;
+
+    private long mLastTime;
+
+    private long mLastLatitude;
+
+    private long mLastLongitude;
+
+    private long mLastAltitude;
+
+    /**
+     * @throws IOException if the stream doesn't start with a supported track header
+     */
+    public TrackDecoder(final InputStream input) throws IOException {
+        mInput = input;
+
+        final int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+
+        if (magic != MAGIC) {
+            throw new IOException("Not a track stream");
+        }
+
+        final int version = readByte();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported track version " + version);
+        }
+    }
+
+    /**
+     * Reads the next fix into the given one.
+     *
+     * @return false at the end of the stream
+     * @throws IOException if the stream ends in the middle of a fix or can't be read
+     */
+    public boolean next(final Fix fix) throws IOException {
+        if (mPosition == mLength && ! fill()) {
+            return false;
+        }
+
+        final int flags = readByte();
+
+        mLastTime += readSignedVarLong();
+        mLastLatitude += readSignedVarLong();
+        mLastLongitude += readSignedVarLong();
+
+        fix.time = mLastTime;
+        fix.latitude = mLastLatitude / COORDINATE_SCALE;
+        fix.longitude = mLastLongitude / COORDINATE_SCALE;
+
+        fix.hasAccuracy = (flags & FLAG_ACCURACY) != 0;
+        fix.accuracy = fix.hasAccuracy ? readVarLong() / ACCURACY_SCALE : 0f;
+
+        fix.hasSpeed = (flags & FLAG_SPEED) != 0;
+        fix.speed = fix.hasSpeed ? readVarLong() / SPEED_SCALE : 0f;
+
+        fix.hasBearing = (flags & FLAG_BEARING) != 0;
+        fix.bearing = fix.hasBearing ? readVarLong() / BEARING_SCALE : 0f;
+
+        fix.hasAltitude = (flags & FLAG_ALTITUDE) != 0;
+        if (fix.hasAltitude) {
+            mLastAltitude += readSignedVarLong();
+            fix.altitude = mLastAltitude / ALTITUDE_SCALE;
+        } else {
+            fix.altitude = 0;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInput.close();
+    }
+
+    private boolean fill() throws IOException {
+        final int read = mInput.read(mBuffer, 0, mBuffer.length);
+
+        if (read <= 0) {
+            return false;
+        }
+
+        mPosition = 0;
+        mLength = read;
+        return true;
+    }
+
+    private int readByte() throws IOException {
+        if (mPosition == mLength && ! fill()) {
+            throw new EOFException("Track stream truncated");
+        }
+        return mBuffer[mPosition++] & 0xFF;
+    }
+
+    private long readSignedVarLong() throws IOException {
+        final long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed varint in track stream");
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.github.filipebezerra.findme.tracking.TrackFormat.ACCURACY_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.ALTITUDE_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.BEARING_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.COORDINATE_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_ACCURACY;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_ALTITUDE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_BEARING;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.FLAG_SPEED;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.MAGIC;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.SPEED_SCALE;
+import static com.github.filipebezerra.findme.tracking.TrackFormat.VERSION;
+
+/**
+ * Writes fixes one at a time to a stream in the compact track format (see {@link TrackFormat}).
+ * A typical fix takes 8 to 12 bytes instead of the 40 or more of a raw {@code Location}.
+ * <p/>
+ * Encoded bytes are collected in an internal buffer and only written to the stream when it
+ * fills up or on {@link #flush()}, so feeding a fix doesn't allocate nor touch the stream.
+ *
+ * @author Filipe Bezerra
+ * @version #, 12/08/2015
+ * @since #
+ */
+public class TrackEncoder implements Closeable {
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Longest possible encoding of a single fix.
+     */
+    private static final int MAX_FIX_SIZE = 1 + 3 * 10 + 3 * 5 + 10;
+
+    private final OutputStream mOutput;
+
+    private final byte[] mBuffer = new byte[BUFFER_SIZE];
+
+    private int mLength;
+
+    private long mLastTime;
+
+    private long mLastLatitude;
+
+    private long mLastLongitude;
+
+    private long mLastAltitude;
+
+    private long mFixCount;
+
+    private long mByteCount;
+
+    public TrackEncoder(final OutputStream output) throws IOException {
+        mOutput = output;
+        writeFixedInt(MAGIC);
+        mBuffer[mLength++] = (byte) VERSION;
+    }
+
+    public void write(final Fix fix) throws IOException {
+        if (mLength + MAX_FIX_SIZE > mBuffer.length) {
+            drain();
+        }
+
+        final long latitude = Math.round(fix.latitude * COORDINATE_SCALE);
+        final long longitude = Math.round(fix.longitude * COORDINATE_SCALE);
+        final int flags = (fix.hasAccuracy ? FLAG_ACCURACY : 0)
+                | (fix.hasSpeed ? FLAG_SPEED : 0)
+                | (fix.hasBearing ? FLAG_BEARING : 0)
+                | (fix.hasAltitude ? FLAG_ALTITUDE : 0);
+
+        mBuffer[mLength++] = (byte) flags;
+        writeSignedVarLong(fix.time - mLastTime);
+        writeSignedVarLong(latitude - mLastLatitude);
+        writeSignedVarLong(longitude - mLastLongitude);
+
+        if (fix.hasAccuracy) {
+            writeVarLong(Math.round(Math.max(0f, fix.accuracy) * ACCURACY_SCALE));
+        }
+
+        if (fix.hasSpeed) {
+            writeVarLong(Math.round(Math.max(0f, fix.speed) * SPEED_SCALE));
+        }
+
+        if (fix.hasBearing) {
+            final float bearing = fix.bearing % 360f;
+            writeVarLong(Math.round((bearing < 0 ? bearing + 360f : bearing) * BEARING_SCALE));
+        }
+
+        if (fix.hasAltitude) {
+            final long altitude = Math.round(fix.altitude * ALTITUDE_SCALE);
+            writeSignedVarLong(altitude - mLastAltitude);
+            mLastAltitude = altitude;
+        }
+
+        mLastTime = fix.time;
+        mLastLatitude = latitude;
+        mLastLongitude = longitude;
+        mFixCount++;
+    }
+
+    /**
+     * Returns the number of fixes written so far.
+     */
+    public long getFixCount() {
+        return mFixCount;
+    }
+
+    /**
+     * Returns the number of bytes encoded so far, including the ones still buffered.
+     */
+    public long getByteCount() {
+        return mByteCount + mLength;
+    }
+
+    public void flush() throws IOException {
+        drain();
+        mOutput.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            mOutput.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (mLength > 0) {
+            mOutput.write(mBuffer, 0, mLength);
+            mByteCount += mLength;
+            mLength = 0;
+        }
+    }
+
+    private void writeFixedInt(final int value) {
+        mBuffer[mLength++] = (byte) (value >>> 24);
+        mBuffer[mLength++] = (byte) (value >>> 16);
+        mBuffer[mLength++] = (byte) (value >>> 8);
+        mBuffer[mLength++] = (byte) value;
+    }
+
+    /**
+     * Zig-zag encodes the value so small negative deltas take as few bytes as positive ones.
+     */
+    private void writeSignedVarLong(final long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            mBuffer[mLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mLength++] = (byte) value;
+    }
+}
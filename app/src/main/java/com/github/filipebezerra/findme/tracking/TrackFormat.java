@@ -0,0 +1,56 @@
+package com.github.filipebezerra.findme.tracking;
+
+/**
+ * Constants of the compact track format written by {@link TrackEncoder} and read by
+ * {@link TrackDecoder}.
+ * <p/>
+ * A stream starts with {@link #MAGIC} and {@link #VERSION}, followed by one entry per fix: a
+ * flags byte telling which optional fields are present, then the zig-zag varint deltas from the
+ * previous fix of the time, latitude and longitude, and finally the optional fields. Coordinates
+ * are stored as fixed-point integers of 10<sup>-7</sup> degrees, about a centimeter.
+ *
+ * @author Filipe Bezerra
+ * @version #, 12/08/2015
+ * @since #
+ */
+final class TrackFormat {
+    static final int MAGIC = 0x464d544b; // "FMTK"
+
+    static final int VERSION = 1;
+
+    static final int FLAG_ACCURACY = 1;
+
+    static final int FLAG_SPEED = 1 << 1;
+
+    static final int FLAG_BEARING = 1 << 2;
+
+    static final int FLAG_ALTITUDE = 1 << 3;
+
+    /**
+     * Fixed-point units per degree of latitude or longitude.
+     */
+    static final double COORDINATE_SCALE = 1e7;
+
+    /**
+     * Accuracy is stored as an unsigned varint of decimeters.
+     */
+    static final float ACCURACY_SCALE = 10f;
+
+    /**
+     * Speed is stored as an unsigned varint of centimeters per second.
+     */
+    static final float SPEED_SCALE = 100f;
+
+    /**
+     * Bearing is stored as an unsigned varint of tenths of a degree.
+     */
+    static final float BEARING_SCALE = 10f;
+
+    /**
+     * Altitude is stored as the zig-zag varint delta in decimeters from the last altitude.
+     */
+    static final double ALTITUDE_SCALE = 10d;
+
+    private TrackFormat() {
+    }
+}
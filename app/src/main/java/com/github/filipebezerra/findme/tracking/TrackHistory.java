@@ -0,0 +1,84 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+
+/**
+ * Reads the whole recorded trail, the downsampled fixes of the archive kept by a
+ * {@link TrackCompactor} followed by the fixes of the recent recorder, as a single range.
+ * <p/>
+ * Archived fixes are only read up to the oldest recent one, so the fixes archived but not
+ * trimmed yet are never read twice. A query running while the fixes are compacted may miss those
+ * being moved.
+ *
+ * @author Filipe Bezerra
+ * @version #, 28/08/2015
+ * @since #
+ */
+public class TrackHistory {
+    private final TrackRecorder mArchive;
+
+    private final TrackRecorder mRecent;
+
+    /**
+     * @param archive recorder of the downsampled fixes, or null if there is none
+     * @param recent  recorder of the live fixes
+     */
+    public TrackHistory(final TrackRecorder archive, final TrackRecorder recent) {
+        mArchive = archive;
+        mRecent = recent;
+    }
+
+    /**
+     * Returns a cursor over the recorded fixes with a time between {@code fromTime} and
+     * {@code toTime}, both inclusive.
+     */
+    public Cursor query(final long fromTime, final long toTime) {
+        return query(fromTime, toTime, -90, -180, 90, 180);
+    }
+
+    /**
+     * Returns a cursor over the recorded fixes with a time between {@code fromTime} and
+     * {@code toTime}, both inclusive, and a position within the given bounds, as
+     * {@link TrackRecorder#query(long, long, double, double, double, double)} does.
+     */
+    public Cursor query(final long fromTime, final long toTime, final double south,
+            final double west, final double north, final double east) {
+        final long recentStart = mRecent.getOldestTime();
+        final TrackRecorder.Cursor archived = mArchive == null || fromTime >= recentStart
+                ? null
+                : mArchive.query(fromTime, Math.min(toTime, recentStart - 1), south, west,
+                        north, east);
+
+        return new Cursor(archived,
+                mRecent.query(fromTime, toTime, south, west, north, east));
+    }
+
+    /**
+     * Iterates over the archived fixes of a range then the recent ones, oldest first.
+     */
+    public static final class Cursor {
+        private TrackRecorder.Cursor mArchived;
+
+        private final TrackRecorder.Cursor mRecent;
+
+        Cursor(final TrackRecorder.Cursor archived, final TrackRecorder.Cursor recent) {
+            mArchived = archived;
+            mRecent = recent;
+        }
+
+        /**
+         * Reads the next fix of the range into the given one.
+         *
+         * @return false when there are no more fixes in the range
+         */
+        public boolean next(final Fix fix) {
+            if (mArchived != null) {
+                if (mArchived.next(fix)) {
+                    return true;
+                }
+                mArchived = null;
+            }
+            return mRecent.next(fix);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.filipebezerra.findme.tracking;
+
+/**
+ * Sparse index of a {@link TrackRecorder}: the time range and bounding box of every block of
+ * {@link #BLOCK_SIZE} consecutive fixes, so range queries can skip whole blocks without reading
+ * their records.
+ * <p/>
+ * The index is kept in memory, rebuilt from the ring when it is opened, and updated by the
+ * writer as fixes are appended. A block is only entered once complete, before the fix completing
+ * it is published, so readers never see it half done. Entries live in a ring of their own a
+ * couple of blocks longer than the ring of fixes, so the entry of a block is only reused long
+ * after the block itself was overwritten.
+ *
+ * @author Filipe Bezerra
+ * @version #, 27/08/2015
+ * @since #
+ */
+final class TrackIndex {
+    /**
+     * Number of consecutive fixes summarized by an entry.
+     */
+    static final int BLOCK_SIZE = 256;
+
+    /**
+     * Block each slot holds the entry of, or -1.
+     */
+    private final long[] mBlocks;
+
+    private final long[] mMinTimes;
+
+    private final long[] mMaxTimes;
+
+    private final double[] mSouths;
+
+    private final double[] mWests;
+
+    private final double[] mNorths;
+
+    private final double[] mEasts;
+
+    /**
+     * Summary of the block being written, only used by the writer.
+     */
+    private long mOpenMinTime;
+
+    private long mOpenMaxTime;
+
+    private double mOpenSouth;
+
+    private double mOpenWest;
+
+    private double mOpenNorth;
+
+    private double mOpenEast;
+
+    private long mOpenStart = -1;
+
+    TrackIndex(final int capacity) {
+        final int slots = (capacity + BLOCK_SIZE - 1) / BLOCK_SIZE + 2;
+
+        mBlocks = new long[slots];
+        mMinTimes = new long[slots];
+        mMaxTimes = new long[slots];
+        mSouths = new double[slots];
+        mWests = new double[slots];
+        mNorths = new double[slots];
+        mEasts = new double[slots];
+
+        for (int i = 0; i < slots; i++) {
+            mBlocks[i] = -1;
+        }
+    }
+
+    /**
+     * Adds the fix at the given position to the summary of its block, entering the block once
+     * the fix completes it. Must be called for consecutive positions, by the writer only.
+     */
+    void add(final long position, final long time, final double latitude,
+            final double longitude) {
+        final long block = position / BLOCK_SIZE;
+
+        if (mOpenStart < 0 || mOpenStart / BLOCK_SIZE != block) {
+            mOpenStart = position;
+            mOpenMinTime = time;
+            mOpenMaxTime = time;
+            mOpenSouth = latitude;
+            mOpenWest = longitude;
+            mOpenNorth = latitude;
+            mOpenEast = longitude;
+        } else {
+            mOpenMinTime = Math.min(mOpenMinTime, time);
+            mOpenMaxTime = Math.max(mOpenMaxTime, time);
+            mOpenSouth = Math.min(mOpenSouth, latitude);
+            mOpenWest = Math.min(mOpenWest, longitude);
+            mOpenNorth = Math.max(mOpenNorth, latitude);
+            mOpenEast = Math.max(mOpenEast, longitude);
+        }
+
+        if ((position + 1) % BLOCK_SIZE == 0) {
+            final int slot = (int) (block % mBlocks.length);
+
+            mMinTimes[slot] = mOpenMinTime;
+            mMaxTimes[slot] = mOpenMaxTime;
+            mSouths[slot] = mOpenSouth;
+            mWests[slot] = mOpenWest;
+            mNorths[slot] = mOpenNorth;
+            mEasts[slot] = mOpenEast;
+            mBlocks[slot] = block;
+            mOpenStart = -1;
+        }
+    }
+
+    /**
+     * Returns whether the given block may hold fixes in the given time range and bounds, which
+     * it does unless its entry proves otherwise. Bounds whose west is east of their east cross
+     * the antimeridian.
+     */
+    boolean mayContain(final long block, final long fromTime, final long toTime,
+            final double south, final double west, final double north, final double east) {
+        final int slot = (int) (block % mBlocks.length);
+
+        if (mBlocks[slot] != block) {
+            return true;
+        }
+
+        if (mMaxTimes[slot] < fromTime || mMinTimes[slot] > toTime
+                || mNorths[slot] < south || mSouths[slot] > north) {
+            return false;
+        }
+
+        if (west <= east) {
+            return mEasts[slot] >= west && mWests[slot] <= east;
+        }
+        return mEasts[slot] >= west || mWests[slot] <= east;
+    }
+}
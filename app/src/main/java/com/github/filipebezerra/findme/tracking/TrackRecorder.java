@@ -0,0 +1,477 @@
+package com.github.filipebezerra.findme.tracking;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Records the trail of fixes into a fixed size ring file, mapped into memory. Once the ring is
+ * full the oldest fixes are overwritten.
+ * <p/>
+ * Appending a fix only writes into the mapped pages, without allocating or making a system
+ * call; the kernel writes them back to the file. Every record ends with a commit marker written
+ * after its fields, and the header count is only advanced after that, so a crash can lose at
+ * most the fix being written. {@link #flush()} forces the pages to storage, to survive power loss
+ * as well.
+ * <p/>
+ * Fixes must be appended by a single thread, in time order: older ones are dropped. Any thread
+ * can read them back with {@link #query(long, long)}, or only those within some bounds with
+ * {@link #query(long, long, double, double, double, double)}. Queries find where their time range
+ * starts with a binary search, then read the records straight from the mapped file as they are
+ * iterated, skipping the blocks a {@link TrackIndex} tells are out of range.
+ * <p/>
+ * The fixes before some time can also be deleted ahead of being overwritten with
+ * {@link #trimBefore(long)}, as done by a {@link TrackCompactor} once it archived them.
+ *
+ * @author Filipe Bezerra
+ * @version #, 11/08/2015
+ * @since #
+ */
+public class TrackRecorder {
+    private static final int MAGIC = 0x464d5452; // "FMTR"
+
+    private static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+
+    static final int RECORD_SIZE = 40;
+
+    private static final int HEADER_MAGIC = 0;
+
+    private static final int HEADER_VERSION = 4;
+
+    private static final int HEADER_CAPACITY = 8;
+
+    private static final int HEADER_COUNT = 16;
+
+    /**
+     * Position of the first fix not trimmed, 0 in files never trimmed.
+     */
+    private static final int HEADER_FIRST = 24;
+
+    private static final int RECORD_TIME = 0;
+
+    private static final int RECORD_LATITUDE = 8;
+
+    private static final int RECORD_LONGITUDE = 16;
+
+    private static final int RECORD_ACCURACY = 24;
+
+    private static final int RECORD_SPEED = 28;
+
+    private static final int RECORD_BEARING = 32;
+
+    private static final int RECORD_COMMIT = 36;
+
+    private final RandomAccessFile mFile;
+
+    private final MappedByteBuffer mBuffer;
+
+    private final int mCapacity;
+
+    private final TrackIndex mIndex;
+
+    /**
+     * Number of fixes ever appended. The next one goes to slot {@code mCount % mCapacity}.
+     */
+    private volatile long mCount;
+
+    /**
+     * Position of the first fix not trimmed. Fixes before it are gone even if their slot wasn't
+     * overwritten yet.
+     */
+    private volatile long mFirst;
+
+    /**
+     * Time of the newest fix appended, only used by the writer.
+     */
+    private long mLastTime = Long.MIN_VALUE;
+
+    /**
+     * Opens the ring file, creating it if it doesn't exist or was created with another capacity.
+     */
+    public static TrackRecorder open(final File file, final int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        return new TrackRecorder(file, capacity);
+    }
+
+    private TrackRecorder(final File file, final int capacity) throws IOException {
+        final long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+
+        mFile = new RandomAccessFile(file, "rw");
+        mCapacity = capacity;
+        mIndex = new TrackIndex(capacity);
+
+        try {
+            final boolean existing = mFile.length() == size;
+
+            if (! existing) {
+                mFile.setLength(0);
+                mFile.setLength(size);
+            }
+
+            mBuffer = mFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if (existing && mBuffer.getInt(HEADER_MAGIC) == MAGIC
+                    && mBuffer.getInt(HEADER_VERSION) == VERSION
+                    && mBuffer.getInt(HEADER_CAPACITY) == capacity) {
+                final long first = mBuffer.getLong(HEADER_FIRST);
+                mCount = recoverCount(mBuffer.getLong(HEADER_COUNT), first);
+                mFirst = Math.max(0, Math.min(first, mCount));
+                rebuildIndex();
+
+                if (mCount > getOldestPosition()) {
+                    mLastTime = timeAt(mCount - 1);
+                }
+            } else {
+                mBuffer.putInt(HEADER_MAGIC, MAGIC);
+                mBuffer.putInt(HEADER_VERSION, VERSION);
+                mBuffer.putInt(HEADER_CAPACITY, capacity);
+                mBuffer.putLong(HEADER_COUNT, 0);
+                mBuffer.putLong(HEADER_FIRST, 0);
+                mCount = 0;
+                mFirst = 0;
+            }
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the fix to the ring. Unknown accuracy, speed and bearing are stored as NaN.
+     *
+     * @return false if the fix is older than the last one appended, and was dropped
+     */
+    public boolean append(final Fix fix) {
+        return append(fix.time, fix.latitude, fix.longitude,
+                fix.hasAccuracy ? fix.accuracy : Float.NaN,
+                fix.hasSpeed ? fix.speed : Float.NaN,
+                fix.hasBearing ? fix.bearing : Float.NaN);
+    }
+
+    public boolean append(final long time, final double latitude, final double longitude,
+            final float accuracy, final float speed, final float bearing) {
+        // Queries binary search the times, and reopening stops at the first one going back.
+        if (time < mLastTime) {
+            return false;
+        }
+
+        final long count = mCount;
+        final int offset = offsetOf(count);
+
+        // Invalidate the slot first, so a torn record is never mistaken for the one it replaces.
+        mBuffer.putInt(offset + RECORD_COMMIT, 0);
+        mBuffer.putLong(offset + RECORD_TIME, time);
+        mBuffer.putDouble(offset + RECORD_LATITUDE, latitude);
+        mBuffer.putDouble(offset + RECORD_LONGITUDE, longitude);
+        mBuffer.putFloat(offset + RECORD_ACCURACY, accuracy);
+        mBuffer.putFloat(offset + RECORD_SPEED, speed);
+        mBuffer.putFloat(offset + RECORD_BEARING, bearing);
+        mBuffer.putInt(offset + RECORD_COMMIT, commitMarkerOf(count));
+        mIndex.add(count, time, latitude, longitude);
+        mBuffer.putLong(HEADER_COUNT, count + 1);
+        mCount = count + 1;
+        mLastTime = time;
+        return true;
+    }
+
+    /**
+     * Deletes the fixes with a time before the given one, clearing their records. Must be called
+     * by the thread appending fixes. Cursors reading them meanwhile skip ahead as if they were
+     * overwritten.
+     *
+     * @return the number of fixes deleted
+     */
+    public int trimBefore(final long time) {
+        final long oldest = getOldestPosition();
+        final long first = firstPositionAtOrAfter(time, oldest, mCount);
+
+        if (first == oldest) {
+            return 0;
+        }
+
+        // Published before the records are cleared, so readers skip them rather than fail.
+        mBuffer.putLong(HEADER_FIRST, first);
+        mFirst = first;
+
+        for (long position = oldest; position < first; position++) {
+            final int offset = offsetOf(position);
+
+            mBuffer.putInt(offset + RECORD_COMMIT, 0);
+            for (int field = 0; field < RECORD_COMMIT; field += 4) {
+                mBuffer.putInt(offset + field, 0);
+            }
+        }
+        return (int) (first - oldest);
+    }
+
+    /**
+     * Forces the appended fixes to storage.
+     */
+    public void flush() {
+        mBuffer.force();
+    }
+
+    public void close() throws IOException {
+        flush();
+        mFile.close();
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Returns the number of fixes ever appended, including overwritten ones.
+     */
+    public long getCount() {
+        return mCount;
+    }
+
+    /**
+     * Returns the position of the oldest fix still in the ring.
+     */
+    public long getOldestPosition() {
+        return Math.max(mFirst, mCount - mCapacity);
+    }
+
+    /**
+     * Returns the time of the oldest fix still in the ring, or {@link Long#MAX_VALUE} if it is
+     * empty.
+     */
+    long getOldestTime() {
+        final long position = getOldestPosition();
+        return position < mCount ? timeAt(position) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Reads the newest fix into {@code fix}. Must be called by the thread appending fixes.
+     *
+     * @return false if the ring is empty
+     */
+    boolean readNewest(final Fix fix) {
+        final long count = mCount;
+        return count > getOldestPosition() && read(count - 1, fix);
+    }
+
+    /**
+     * Returns a cursor over the recorded fixes with a time between {@code fromTime} and
+     * {@code toTime}, both inclusive. Fixes are read straight from the mapped file one at a time
+     * while iterating.
+     */
+    public Cursor query(final long fromTime, final long toTime) {
+        return query(fromTime, toTime, -90, -180, 90, 180);
+    }
+
+    /**
+     * Returns a cursor over the recorded fixes with a time between {@code fromTime} and
+     * {@code toTime}, both inclusive, and a position within the given bounds, edges included.
+     * Bounds whose west is east of their east cross the antimeridian.
+     */
+    public Cursor query(final long fromTime, final long toTime, final double south,
+            final double west, final double north, final double east) {
+        final long end = mCount;
+        return new Cursor(firstPositionAtOrAfter(fromTime, getOldestPosition(), end), end,
+                fromTime, toTime, south, west, north, east);
+    }
+
+    /**
+     * Returns the position of the first fix with a time not before the given one in
+     * {@code [from, to)}, or {@code to} if there is none.
+     */
+    long firstPositionAtOrAfter(final long time, long from, long to) {
+        while (from < to) {
+            final long middle = (from + to) >>> 1;
+
+            if (timeAt(middle) < time) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    long timeAt(final long position) {
+        return mBuffer.getLong(offsetOf(position) + RECORD_TIME);
+    }
+
+    double latitudeAt(final long position) {
+        return mBuffer.getDouble(offsetOf(position) + RECORD_LATITUDE);
+    }
+
+    double longitudeAt(final long position) {
+        return mBuffer.getDouble(offsetOf(position) + RECORD_LONGITUDE);
+    }
+
+    /**
+     * Reads the fix at the given position into {@code fix}.
+     *
+     * @return false if it was overwritten by newer fixes meanwhile
+     */
+    boolean read(final long position, final Fix fix) {
+        final int offset = offsetOf(position);
+        final int marker = commitMarkerOf(position);
+
+        if (mBuffer.getInt(offset + RECORD_COMMIT) != marker) {
+            return false;
+        }
+
+        fix.time = mBuffer.getLong(offset + RECORD_TIME);
+        fix.latitude = mBuffer.getDouble(offset + RECORD_LATITUDE);
+        fix.longitude = mBuffer.getDouble(offset + RECORD_LONGITUDE);
+        fix.accuracy = mBuffer.getFloat(offset + RECORD_ACCURACY);
+        fix.speed = mBuffer.getFloat(offset + RECORD_SPEED);
+        fix.bearing = mBuffer.getFloat(offset + RECORD_BEARING);
+        fix.hasAccuracy = ! Float.isNaN(fix.accuracy);
+        fix.hasSpeed = ! Float.isNaN(fix.speed);
+        fix.hasBearing = ! Float.isNaN(fix.bearing);
+        fix.hasAltitude = false;
+
+        // The writer may have lapped us while the fields were read.
+        return mBuffer.getInt(offset + RECORD_COMMIT) == marker;
+    }
+
+    private int offsetOf(final long position) {
+        return HEADER_SIZE + (int) (position % mCapacity) * RECORD_SIZE;
+    }
+
+    /**
+     * Returns the marker committing the record at the given position. It differs between
+     * consecutive laps over the same slot, and is never 0.
+     */
+    private static int commitMarkerOf(final long position) {
+        return (int) (position % 0x7fffffffL) + 1;
+    }
+
+    private void rebuildIndex() {
+        for (long position = getOldestPosition(); position < mCount; position++) {
+            mIndex.add(position, timeAt(position), latitudeAt(position), longitudeAt(position));
+        }
+    }
+
+    /**
+     * The header count may lag behind the last committed record, or point past a torn one. The
+     * records before the first fix not trimmed are cleared, and never count.
+     */
+    private long recoverCount(long count, final long first) {
+        while (count > first && count > 0 && mBuffer.getInt(offsetOf(count - 1) + RECORD_COMMIT)
+                != commitMarkerOf(count - 1)) {
+            count--;
+        }
+
+        while (mBuffer.getInt(offsetOf(count) + RECORD_COMMIT) == commitMarkerOf(count)
+                && (count == 0 || timeAt(count) >= timeAt(count - 1))) {
+            count++;
+        }
+
+        mBuffer.putLong(HEADER_COUNT, count);
+        return count;
+    }
+
+    /**
+     * Iterates over a range of recorded fixes, oldest first, without loading them into the heap.
+     */
+    public final class Cursor {
+        private final long mEnd;
+
+        private final long mFromTime;
+
+        private final long mToTime;
+
+        private final double mSouth;
+
+        private final double mWest;
+
+        private final double mNorth;
+
+        private final double mEast;
+
+        private long mPosition;
+
+        /**
+         * Position where the next block starts, to be looked up in the index before it is read.
+         */
+        private long mNextBlockStart;
+
+        private int mReadCount;
+
+        Cursor(long start, long end, long fromTime, long toTime, double south, double west,
+                double north, double east) {
+            mPosition = start;
+            mEnd = end;
+            mFromTime = fromTime;
+            mToTime = toTime;
+            mSouth = south;
+            mWest = west;
+            mNorth = north;
+            mEast = east;
+            mNextBlockStart = start;
+        }
+
+        /**
+         * Reads the next fix of the range into the given one.
+         *
+         * @return false when there are no more fixes in the range
+         */
+        public boolean next(final Fix fix) {
+            while (mPosition < mEnd) {
+                if (mPosition >= mNextBlockStart) {
+                    final long block = mPosition / TrackIndex.BLOCK_SIZE;
+                    mNextBlockStart = (block + 1) * TrackIndex.BLOCK_SIZE;
+
+                    // Only complete blocks are in the index, those before the end of the range
+                    // were complete before the query started.
+                    if (mNextBlockStart <= mEnd && ! mIndex.mayContain(block, mFromTime,
+                            mToTime, mSouth, mWest, mNorth, mEast)) {
+                        mPosition = mNextBlockStart;
+                        continue;
+                    }
+                }
+
+                final long position = mPosition++;
+                mReadCount++;
+
+                if (! read(position, fix)) {
+                    // Overwritten since the query started, skip ahead to what is left.
+                    mPosition = Math.max(mPosition, getOldestPosition());
+                    continue;
+                }
+
+                if (fix.time > mToTime) {
+                    mPosition = mEnd;
+                    return false;
+                }
+
+                if (contains(fix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Returns the number of records read so far, including those out of bounds.
+         */
+        int getReadCount() {
+            return mReadCount;
+        }
+
+        private boolean contains(final Fix fix) {
+            if (fix.latitude < mSouth || fix.latitude > mNorth) {
+                return false;
+            }
+
+            if (mWest <= mEast) {
+                return fix.longitude >= mWest && fix.longitude <= mEast;
+            }
+            return fix.longitude >= mWest || fix.longitude <= mEast;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.github.filipebezerra.findme.tracking;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.os.Bundle;
+import android.os.IBinder;
+import android.os.SystemClock;
+import android.support.v4.app.NotificationCompat;
+import com.github.filipebezerra.findme.FindMeApplication;
+import com.github.filipebezerra.findme.GoogleApiClientManager;
+import com.github.filipebezerra.findme.R;
+import com.github.filipebezerra.findme.activities.MainActivity;
+import com.github.filipebezerra.findme.location.AdaptiveLocationScheduler;
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.location.LocationBatchListener;
+import com.github.filipebezerra.findme.location.LocationFixes;
+import com.github.filipebezerra.findme.location.LocationProvider;
+import com.github.filipebezerra.findme.location.LocationProviders;
+import com.github.filipebezerra.findme.location.filter.AccuracyFilter;
+import com.github.filipebezerra.findme.location.filter.KalmanFilter;
+import com.github.filipebezerra.findme.location.filter.LocationFilterChain;
+import com.github.filipebezerra.findme.location.filter.SpeedPlausibilityFilter;
+import com.github.filipebezerra.findme.logging.FastLog;
+import com.github.filipebezerra.findme.logging.Logger;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.state.LocationState;
+import com.github.filipebezerra.findme.state.StateStore;
+import com.github.filipebezerra.findme.utils.Constants;
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.location.LocationRequest;
+import java.util.List;
+import timber.log.Timber;
+
+import static com.github.filipebezerra.findme.utils.ConnectionResultError.getConnectionResultErrorMessage;
+import static com.github.filipebezerra.findme.utils.ConnectionResultError.getConnectionSuspendedCauseMessage;
+import static com.google.android.gms.common.api.GoogleApiClient.ConnectionCallbacks;
+import static com.google.android.gms.common.api.GoogleApiClient.OnConnectionFailedListener;
+
+/**
+ * Foreground service tracking the device for as long as it runs, whether the UI is visible or
+ * not. It owns the location updates: every fix is filtered and published to the location state
+ * store, from where the recorder and the geofences take it, and the recorder is flushed once per
+ * batch.
+ * <p/>
+ * While no screen shows the live fixes, they are requested with a max wait time of
+ * {@link Constants#TRACKING_BATCH_INTERVALS} update intervals, so the location provider delivers
+ * them in batches and the CPU wakes up once per batch rather than once per fix. Screens showing
+ * them register with {@link #addViewer()} while resumed, and get every fix as soon as it arrives.
+ *
+ * @author Filipe Bezerra
+ * @version #, 21/08/2015
+ * @since #
+ */
+public class TrackingService extends Service
+        implements ConnectionCallbacks, OnConnectionFailedListener, LocationBatchListener {
+    private static final Logger LOCATION_LOG = FastLog.logger("Location",
+            Constants.LOG_SAMPLE_EVERY, Constants.LOG_MAX_PER_SECOND);
+
+    private static final int NOTIFICATION_ID = 1;
+
+    private static final String ACTION_STOP =
+            "com.github.filipebezerra.findme.action.STOP_TRACKING";
+
+    private static volatile boolean sRunning;
+
+    /**
+     * Number of resumed screens showing the live fixes, only used on the main thread.
+     */
+    private static int sViewerCount;
+
+    /**
+     * The running service, only used on the main thread.
+     */
+    private static TrackingService sInstance;
+
+    private FindMeApplication mApplication;
+
+    private GoogleApiClientManager mGoogleApiClientManager;
+
+    private LocationProvider mLocationProvider;
+
+    private StateStore<LocationState> mLocationStateStore;
+
+    /**
+     * Stores parameters for requests to the LocationProvider.
+     */
+    private LocationRequest mLocationRequest;
+
+    /**
+     * Steps the location request interval and priority down while the device stands still.
+     */
+    private final AdaptiveLocationScheduler mLocationScheduler = new AdaptiveLocationScheduler();
+
+    /**
+     * Drops inaccurate and implausible fixes and smooths the remaining ones.
+     */
+    private final LocationFilterChain mLocationFilter = new LocationFilterChain(
+            new AccuracyFilter(Constants.MAX_FIX_ACCURACY_IN_METERS),
+            new SpeedPlausibilityFilter(Constants.MAX_PLAUSIBLE_SPEED_IN_METERS_PER_SECOND,
+                    Constants.MAX_CONSECUTIVE_OUTLIERS),
+            new KalmanFilter(Constants.SMOOTHING_ACCELERATION_DEVIATION,
+                    Constants.SMOOTHING_MAX_GAP_IN_MILLISECONDS));
+
+    /**
+     * Reused for every fix passed to {@link #mLocationFilter}.
+     */
+    private final Fix mFix = new Fix();
+
+    /**
+     * Time of the last fix received, or -1.
+     */
+    private long mLastFixTime = -1;
+
+    public static void start(Context context) {
+        context.startService(new Intent(context, TrackingService.class));
+    }
+
+    public static void stop(Context context) {
+        context.stopService(new Intent(context, TrackingService.class));
+    }
+
+    /**
+     * Returns whether the device is being tracked.
+     */
+    public static boolean isRunning() {
+        return sRunning;
+    }
+
+    /**
+     * Notifies that a screen showing the live fixes was resumed, so they are no longer batched.
+     * Must be called on the main thread, and balanced with {@link #removeViewer()}.
+     */
+    public static void addViewer() {
+        if (sViewerCount++ == 0 && sInstance != null) {
+            sInstance.onViewersChanged();
+        }
+    }
+
+    /**
+     * Notifies that a screen showing the live fixes was paused, so they are batched again once
+     * none is left.
+     */
+    public static void removeViewer() {
+        if (--sViewerCount == 0 && sInstance != null) {
+            sInstance.onViewersChanged();
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        sRunning = true;
+        sInstance = this;
+        mApplication = FindMeApplication.get(this);
+        mLocationStateStore = mApplication.getLocationStateStore();
+        mGoogleApiClientManager = mApplication.getGoogleApiClientManager();
+        mLocationProvider = LocationProviders.create(this, mGoogleApiClientManager.getClient());
+        createLocationRequest();
+        startForeground(NOTIFICATION_ID, buildNotification());
+
+        // Replayed traces don't need Google Play services to be connected.
+        startLocationUpdates();
+        mGoogleApiClientManager.acquire(this, this);
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            stopSelf();
+            return START_NOT_STICKY;
+        }
+
+        // Restarted after being killed, as tracking was still on.
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        stopLocationUpdates();
+        mGoogleApiClientManager.release(this, this);
+        mApplication.flushTrackRecorder();
+        mApplication.flushUploads();
+        stopForeground(true);
+        sInstance = null;
+        sRunning = false;
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onConnected(Bundle bundle) {
+        startLocationUpdates();
+    }
+
+    @Override
+    public void onConnectionSuspended(int cause) {
+        // The GoogleApiClientManager reconnects, and updates are requested again once connected.
+        Timber.d("Tracking suspended, %s", getConnectionSuspendedCauseMessage(cause));
+
+        // Whether the device stood still meanwhile is unknown, so stillness is timed afresh.
+        mLocationScheduler.reset();
+    }
+
+    @Override
+    public void onConnectionFailed(ConnectionResult result) {
+        Timber.w("Tracking without Google Play Services, %s",
+                getConnectionResultErrorMessage(result.getErrorCode()));
+    }
+
+    @Override
+    public void onLocationsChanged(List<Location> locations) {
+        Metrics.FIX_BATCH_SIZE.record(locations.size());
+
+        for (int i = 0; i < locations.size(); i++) {
+            onLocationChanged(locations.get(i));
+        }
+
+        // Queued behind the fixes of this batch on the recorder's thread.
+        mApplication.flushTrackRecorder();
+    }
+
+    private void onLocationChanged(Location location) {
+        LOCATION_LOG.d("Fix %.6f, %.6f accurate to %.0f m", location.getLatitude(),
+                location.getLongitude(), location.getAccuracy());
+
+        Metrics.FIXES_RECEIVED.increment();
+        if (mLastFixTime >= 0) {
+            Metrics.FIX_INTERVAL.record(location.getTime() - mLastFixTime);
+        }
+        mLastFixTime = location.getTime();
+
+        // Fed before filtering, as the coarse fixes of the slower modes are too inaccurate to be
+        // passed on, yet are what the scheduler must see to notice the device moving again. It
+        // weighs them by their accuracy itself.
+        scheduleLocationUpdates(location);
+
+        if (! mLocationFilter.filter(LocationFixes.copy(location, mFix))) {
+            LOCATION_LOG.d("Fix %.6f, %.6f dropped by %s", location.getLatitude(),
+                    location.getLongitude(),
+                    mLocationFilter.getLastDroppedBy().getClass().getSimpleName());
+            Metrics.FIXES_DROPPED.increment();
+            return;
+        }
+
+        // A copy, as the provider may still hold the location it delivered.
+        final Location smoothed = new Location(location);
+        LocationFixes.applyPosition(mFix, smoothed);
+        // The time of the fix itself, as those of a batch all arrive at once.
+        mLocationStateStore.publish(mLocationStateStore.get().withLocation(smoothed,
+                smoothed.getTime(), true));
+    }
+
+    private void onViewersChanged() {
+        createLocationRequest();
+        startLocationUpdates();
+    }
+
+    /**
+     * Feeds the fix to the scheduler and requests location updates again if it decided on a new
+     * interval.
+     */
+    private void scheduleLocationUpdates(Location location) {
+        final AdaptiveLocationScheduler.Mode previousMode = mLocationScheduler.getMode();
+        // Fixes of a batch are fed with their own times on the monotonic clock, estimated from
+        // their age, rather than all with the time they arrived.
+        final long time = SystemClock.elapsedRealtime()
+                - Math.max(0, System.currentTimeMillis() - location.getTime());
+
+        if (mLocationScheduler.onFix(time, location.getLatitude(), location.getLongitude(),
+                location.getAccuracy(), location.hasSpeed() ? location.getSpeed() : -1)) {
+            Timber.i("Location updates switched from %s to %s, saving %.1f fixes per hour",
+                    previousMode, mLocationScheduler.getMode(),
+                    mLocationScheduler.getFixesSavedPerHour(time));
+            createLocationRequest();
+            startLocationUpdates();
+        }
+    }
+
+    /**
+     * Sets up the location request for the current mode of the scheduler: while moving, fixes
+     * are accurate to within a few feet with a fast update interval; while the device stands
+     * still, a longer interval and a lower power priority are enough.
+     */
+    private void createLocationRequest() {
+        final AdaptiveLocationScheduler.Mode mode = mLocationScheduler.getMode();
+        Timber.d("Creating location request for mode %s", mode);
+        mLocationRequest = new LocationRequest();
+
+        // Sets the desired interval for active location updates. This interval is inexact.
+        mLocationRequest.setInterval(mode.intervalInMillis);
+
+        // Sets the fastest rate for active location updates. This interval is exact.
+        mLocationRequest.setFastestInterval(Constants.MOVING_UPDATE_INTERVAL_IN_MILLISECONDS / 2);
+
+        // Lets the provider hold fixes back and deliver them together, unless they are shown.
+        mLocationRequest.setMaxWaitTime(sViewerCount > 0
+                ? 0 : mode.intervalInMillis * Constants.TRACKING_BATCH_INTERVALS);
+
+        // Standing still doesn't need GPS, Wi-Fi and cell towers are enough to notice movement.
+        mLocationRequest.setPriority(mode == AdaptiveLocationScheduler.Mode.MOVING
+                ? LocationRequest.PRIORITY_HIGH_ACCURACY
+                : LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY);
+    }
+
+    private void startLocationUpdates() {
+        if (mLocationProvider.isReady()) {
+            Timber.d("Starting location updates");
+            mLocationProvider.requestLocationUpdates(mLocationRequest, this);
+        }
+    }
+
+    private void stopLocationUpdates() {
+        if (mLocationProvider.isReady()) {
+            Timber.d("Stopping location updates");
+            mLocationProvider.removeLocationUpdates(this);
+        }
+    }
+
+    private Notification buildNotification() {
+        final PendingIntent contentIntent = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class), PendingIntent.FLAG_UPDATE_CURRENT);
+        final PendingIntent stopIntent = PendingIntent.getService(this, 0,
+                new Intent(this, TrackingService.class).setAction(ACTION_STOP),
+                PendingIntent.FLAG_UPDATE_CURRENT);
+
+        return new NotificationCompat.Builder(this)
+                .setSmallIcon(R.mipmap.ic_location_updates_tracking)
+                .setContentTitle(getString(R.string.tracking_notification_title))
+                .setContentText(getString(R.string.tracking_notification_text))
+                .setContentIntent(contentIntent)
+                .setOngoing(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .addAction(R.mipmap.ic_location_updates_off,
+                        getString(R.string.action_location_updates_stop), stopIntent)
+                .build();
+    }
+}
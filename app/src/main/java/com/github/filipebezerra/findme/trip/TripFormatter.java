@@ -0,0 +1,64 @@
+package com.github.filipebezerra.findme.trip;
+
+import com.github.filipebezerra.findme.utils.CoordinateFormatter;
+
+/**
+ * Formats the summary of a trip, as "12.34 km &middot; 5.6 km/h &middot; 1:02:03" for the
+ * distance, the average moving speed and the moving time, straight into a caller provided char
+ * array, so it can be rebuilt for every fix without allocating strings.
+ *
+ * @author Filipe Bezerra
+ * @version #, 27/08/2015
+ * @since #
+ */
+public final class TripFormatter {
+    /**
+     * Room needed to format a summary, for trips up to a million kilometers and hours.
+     */
+    public static final int MAX_LENGTH = 64;
+
+    private static final String SEPARATOR = " \u00b7 ";
+
+    private static final String KILOMETERS = " km";
+
+    private static final String KILOMETERS_PER_HOUR = " km/h";
+
+    private TripFormatter() {
+    }
+
+    /**
+     * Writes the summary of the trip into the buffer, which must have room for
+     * {@link #MAX_LENGTH} characters.
+     *
+     * @return the number of characters written
+     */
+    public static int format(final TripSnapshot trip, final char[] buffer) {
+        // Hundredths of kilometers.
+        final long distance = Math.round(trip.distanceInMeters / 10);
+        int position = CoordinateFormatter.writeDigits(distance / 100, 1, buffer, 0);
+        buffer[position++] = '.';
+        position = CoordinateFormatter.writeDigits(distance % 100, 2, buffer, position);
+        position = write(KILOMETERS, buffer, position);
+        position = write(SEPARATOR, buffer, position);
+
+        // Tenths of kilometers per hour.
+        final long speed = Math.round(trip.getAverageMovingSpeed() * 36);
+        position = CoordinateFormatter.writeDigits(speed / 10, 1, buffer, position);
+        buffer[position++] = '.';
+        position = CoordinateFormatter.writeDigits(speed % 10, 1, buffer, position);
+        position = write(KILOMETERS_PER_HOUR, buffer, position);
+        position = write(SEPARATOR, buffer, position);
+
+        final long seconds = trip.movingTimeInMillis / 1000;
+        position = CoordinateFormatter.writeDigits(seconds / 3600, 1, buffer, position);
+        buffer[position++] = ':';
+        position = CoordinateFormatter.writeDigits(seconds / 60 % 60, 2, buffer, position);
+        buffer[position++] = ':';
+        return CoordinateFormatter.writeDigits(seconds % 60, 2, buffer, position);
+    }
+
+    private static int write(final String text, final char[] buffer, final int position) {
+        text.getChars(0, text.length(), buffer, position);
+        return position + text.length();
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.filipebezerra.findme.trip;
+
+/**
+ * Immutable snapshot of the statistics of a trip, made by {@link TripStatistics} and published
+ * to the UI.
+ *
+ * @author Filipe Bezerra
+ * @version #, 27/08/2015
+ * @since #
+ */
+public final class TripSnapshot {
+    public static final TripSnapshot EMPTY =
+            new TripSnapshot(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    /**
+     * Number of fixes the statistics were computed from.
+     */
+    public final int fixCount;
+
+    /**
+     * Time of the first fix of the trip, in milliseconds since January 1, 1970.
+     */
+    public final long startTime;
+
+    /**
+     * Time of the last fix of the trip, in milliseconds since January 1, 1970.
+     */
+    public final long endTime;
+
+    /**
+     * Distance travelled while moving, in meters.
+     */
+    public final double distanceInMeters;
+
+    public final long movingTimeInMillis;
+
+    public final long stationaryTimeInMillis;
+
+    /**
+     * Highest speed while moving, in meters per second.
+     */
+    public final double maxSpeed;
+
+    /**
+     * Recent speed, smoothed over the last fixes, in meters per second.
+     */
+    public final double currentSpeed;
+
+    /**
+     * Sum of the climbs, in meters.
+     */
+    public final double elevationGainInMeters;
+
+    /**
+     * Sum of the descents, in meters.
+     */
+    public final double elevationLossInMeters;
+
+    TripSnapshot(final int fixCount, final long startTime, final long endTime,
+            final double distanceInMeters, final long movingTimeInMillis,
+            final long stationaryTimeInMillis, final double maxSpeed, final double currentSpeed,
+            final double elevationGainInMeters, final double elevationLossInMeters) {
+        this.fixCount = fixCount;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.distanceInMeters = distanceInMeters;
+        this.movingTimeInMillis = movingTimeInMillis;
+        this.stationaryTimeInMillis = stationaryTimeInMillis;
+        this.maxSpeed = maxSpeed;
+        this.currentSpeed = currentSpeed;
+        this.elevationGainInMeters = elevationGainInMeters;
+        this.elevationLossInMeters = elevationLossInMeters;
+    }
+
+    /**
+     * Returns the average speed while moving, in meters per second.
+     */
+    public double getAverageMovingSpeed() {
+        return movingTimeInMillis > 0 ? distanceInMeters * 1000 / movingTimeInMillis : 0;
+    }
+
+    /**
+     * Returns the time from the first to the last fix, pauses in the recording included.
+     */
+    public long getElapsedTimeInMillis() {
+        return endTime - startTime;
+    }
+
+    public boolean isEmpty() {
+        return fixCount == 0;
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.filipebezerra.findme.trip;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.GeoMath;
+
+/**
+ * Keeps the running statistics of a trip as fixes arrive: the distance travelled, the time
+ * spent moving and stopped, the highest and the recent speed, and the elevation climbed and
+ * descended.
+ * <p/>
+ * Every fix updates the totals in constant time and without allocating, from the last counted
+ * position alone, so the whole history is never walked again. The totals are exposed as
+ * immutable {@link TripSnapshot}s, made on demand and at most once per fix.
+ * <p/>
+ * The way is measured from the last counted position, not from the previous fix, so a slow
+ * walker whose every step is within the accuracy of the fixes still adds up. The device is
+ * moving when its speed, as reported or else as derived from the distance covered since that
+ * position, reaches a threshold. A distance within the combined accuracy of both fixes, the
+ * root sum square of their accuracies, may be mere jitter: it derives no speed, and is left
+ * undecided until a device moving at the threshold would have covered it. Distance is only
+ * added while moving, so the jitter of the fixes of a device standing still doesn't count.
+ * Fixes further apart than a maximum gap, as when the recording was paused, restart the measure
+ * from the newer fix. Elevation only counts changes of at least a threshold from the last
+ * counted altitude, as altitude is far noisier than position. Must be used by a single thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 27/08/2015
+ * @since #
+ */
+public class TripStatistics {
+    private final double mMovingSpeed;
+
+    private final long mMaxGapInMillis;
+
+    private final double mSpeedSmoothingInMillis;
+
+    private final double mElevationThresholdInMeters;
+
+    private int mFixCount;
+
+    private long mStartTime;
+
+    private long mLastTime;
+
+    /**
+     * Time of the last counted position, the way and the time since which are still undecided.
+     */
+    private long mAnchorTime;
+
+    private double mAnchorLatitude;
+
+    private double mAnchorLongitude;
+
+    /**
+     * Accuracy of the last counted position in meters, 0 if it had none.
+     */
+    private double mAnchorAccuracy;
+
+    private double mDistanceInMeters;
+
+    private long mMovingTimeInMillis;
+
+    private long mStationaryTimeInMillis;
+
+    private double mMaxSpeed;
+
+    private double mCurrentSpeed;
+
+    private boolean mHasReferenceAltitude;
+
+    /**
+     * Altitude the next climb or descent is measured from.
+     */
+    private double mReferenceAltitude;
+
+    private double mElevationGainInMeters;
+
+    private double mElevationLossInMeters;
+
+    /**
+     * Snapshot of the current totals, null when they changed since it was made.
+     */
+    private TripSnapshot mSnapshot = TripSnapshot.EMPTY;
+
+    /**
+     * @param movingSpeed                speed from which the device is moving, in meters per
+     *                                   second
+     * @param maxGapInMillis             longest time between two fixes still measured
+     * @param speedSmoothingInMillis     time constant of the smoothing of the current speed
+     * @param elevationThresholdInMeters smallest change of altitude counted
+     */
+    public TripStatistics(final double movingSpeed, final long maxGapInMillis,
+            final long speedSmoothingInMillis, final double elevationThresholdInMeters) {
+        mMovingSpeed = movingSpeed;
+        mMaxGapInMillis = maxGapInMillis;
+        mSpeedSmoothingInMillis = speedSmoothingInMillis;
+        mElevationThresholdInMeters = elevationThresholdInMeters;
+    }
+
+    /**
+     * Adds a fix to the trip, unless it isn't newer than the last one.
+     *
+     * @return whether the fix was added
+     */
+    public boolean add(final Fix fix) {
+        if (mFixCount == 0) {
+            mStartTime = fix.time;
+            anchor(fix);
+            accept(fix);
+            return true;
+        }
+
+        final long interval = fix.time - mLastTime;
+
+        if (interval <= 0) {
+            return false;
+        }
+
+        if (interval <= mMaxGapInMillis) {
+            measure(fix);
+        } else {
+            anchor(fix);
+        }
+
+        accept(fix);
+        return true;
+    }
+
+    /**
+     * Starts a new trip from the next fix.
+     */
+    public void reset() {
+        mFixCount = 0;
+        mStartTime = 0;
+        mLastTime = 0;
+        mDistanceInMeters = 0;
+        mMovingTimeInMillis = 0;
+        mStationaryTimeInMillis = 0;
+        mMaxSpeed = 0;
+        mCurrentSpeed = 0;
+        mHasReferenceAltitude = false;
+        mElevationGainInMeters = 0;
+        mElevationLossInMeters = 0;
+        mSnapshot = TripSnapshot.EMPTY;
+    }
+
+    /**
+     * Returns a snapshot of the current totals, the same one until another fix is added.
+     */
+    public TripSnapshot snapshot() {
+        if (mSnapshot == null) {
+            mSnapshot = new TripSnapshot(mFixCount, mStartTime, mLastTime, mDistanceInMeters,
+                    mMovingTimeInMillis, mStationaryTimeInMillis, mMaxSpeed, mCurrentSpeed,
+                    mElevationGainInMeters, mElevationLossInMeters);
+        }
+        return mSnapshot;
+    }
+
+    /**
+     * Updates the totals with the way from the last counted position to the given fix, once it
+     * can be told whether the device moved.
+     */
+    private void measure(final Fix fix) {
+        final long interval = fix.time - mAnchorTime;
+        final double distance = GeoMath.distanceInMeters(mAnchorLatitude, mAnchorLongitude,
+                fix.latitude, fix.longitude);
+        final double speed;
+
+        if (fix.hasSpeed) {
+            speed = fix.speed;
+        } else {
+            final double accuracy = fix.hasAccuracy ? fix.accuracy : 0;
+            final double uncertainty =
+                    Math.sqrt(mAnchorAccuracy * mAnchorAccuracy + accuracy * accuracy);
+
+            if (distance > uncertainty) {
+                speed = distance * 1000 / interval;
+            } else if (distance * 1000 / interval < mMovingSpeed) {
+                speed = 0;
+            } else {
+                // Maybe jitter, maybe the first steps of a slow move.
+                return;
+            }
+        }
+
+        if (speed >= mMovingSpeed) {
+            mDistanceInMeters += distance;
+            mMovingTimeInMillis += interval;
+            mMaxSpeed = Math.max(mMaxSpeed, speed);
+        } else {
+            mStationaryTimeInMillis += interval;
+        }
+
+        // Weighs the new speed by how long it held, so bursts of fixes don't skew it.
+        mCurrentSpeed += (1 - Math.exp(-interval / mSpeedSmoothingInMillis))
+                * (speed - mCurrentSpeed);
+        anchor(fix);
+    }
+
+    private void anchor(final Fix fix) {
+        mAnchorTime = fix.time;
+        mAnchorLatitude = fix.latitude;
+        mAnchorLongitude = fix.longitude;
+        mAnchorAccuracy = fix.hasAccuracy ? fix.accuracy : 0;
+    }
+
+    private void accept(final Fix fix) {
+        mFixCount++;
+        mLastTime = fix.time;
+
+        if (fix.hasAltitude) {
+            if (! mHasReferenceAltitude) {
+                mReferenceAltitude = fix.altitude;
+                mHasReferenceAltitude = true;
+            } else if (fix.altitude - mReferenceAltitude >= mElevationThresholdInMeters) {
+                mElevationGainInMeters += fix.altitude - mReferenceAltitude;
+                mReferenceAltitude = fix.altitude;
+            } else if (mReferenceAltitude - fix.altitude >= mElevationThresholdInMeters) {
+                mElevationLossInMeters += mReferenceAltitude - fix.altitude;
+                mReferenceAltitude = fix.altitude;
+            }
+        }
+
+        mSnapshot = null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.filipebezerra.findme.upload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Posts batches from the {@link UploadQueue} to the server, one request per batch.
+ * <p/>
+ * The gzipped body is streamed from its file as is, with the batch id as the
+ * {@code Idempotency-Key}, so the server can tell a retry of a batch it already stored from a
+ * new one. The response tells whether the batch is stored, must be sent again later, or will
+ * never be accepted.
+ *
+ * @author Filipe Bezerra
+ * @version #, 25/08/2015
+ * @since #
+ */
+public class BatchSender {
+    /**
+     * The server stored the batch.
+     */
+    public static final int SENT = 0;
+
+    /**
+     * The batch couldn't be sent or the server couldn't take it for now.
+     */
+    public static final int RETRY = 1;
+
+    /**
+     * The server will never take the batch, sending it again is pointless.
+     */
+    public static final int REJECTED = 2;
+
+    public static final String CONTENT_TYPE = "application/vnd.findme.track";
+
+    public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    public static final String HEADER_DEVICE_ID = "X-Device-Id";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final URL mUrl;
+
+    private final String mDeviceId;
+
+    private final int mTimeoutInMillis;
+
+    public BatchSender(final URL url, final String deviceId, final int timeoutInMillis) {
+        mUrl = url;
+        mDeviceId = deviceId;
+        mTimeoutInMillis = timeoutInMillis;
+    }
+
+    /**
+     * Sends the batch stored in the given file.
+     *
+     * @return {@link #SENT}, {@link #RETRY} or {@link #REJECTED}
+     */
+    public int send(final String id, final File file) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        final HttpURLConnection connection = (HttpURLConnection) mUrl.openConnection();
+        connection.setConnectTimeout(mTimeoutInMillis);
+        connection.setReadTimeout(mTimeoutInMillis);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode((int) file.length());
+        connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+        connection.setRequestProperty("Content-Encoding", "gzip");
+        connection.setRequestProperty(HEADER_IDEMPOTENCY_KEY, id);
+        connection.setRequestProperty(HEADER_DEVICE_ID, mDeviceId);
+
+        final InputStream input = new FileInputStream(file);
+
+        try {
+            final OutputStream output = connection.getOutputStream();
+
+            try {
+                copy(input, output, buffer);
+            } finally {
+                output.close();
+            }
+        } finally {
+            input.close();
+        }
+
+        final int status = connection.getResponseCode();
+
+        if (status == -1) {
+            throw new IOException("Not an HTTP response from " + mUrl);
+        }
+
+        // Reading the response to its end lets the connection be reused for the next batch.
+        final InputStream response = status < 400
+                ? connection.getInputStream() : connection.getErrorStream();
+
+        if (response != null) {
+            try {
+                copy(response, null, buffer);
+            } finally {
+                response.close();
+            }
+        }
+
+        return outcomeOf(status);
+    }
+
+    /**
+     * Returns what to do with a batch the server answered with the given status. Timeouts, rate
+     * limits, conflicts with a concurrent retry of the same batch and server errors are worth
+     * retrying, any other status isn't, redirects included, as the endpoint is misconfigured.
+     */
+    static int outcomeOf(final int status) {
+        if (status >= 200 && status < 300) {
+            return SENT;
+        }
+
+        if (status == 408 || status == 409 || status == 429 || status >= 500) {
+            return RETRY;
+        }
+        return REJECTED;
+    }
+
+    private static void copy(final InputStream input, final OutputStream output,
+            final byte[] buffer) throws IOException {
+        int count;
+
+        while ((count = input.read(buffer)) != -1) {
+            if (output != null) {
+                output.write(buffer, 0, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.filipebezerra.findme.upload;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.util.UUID;
+
+/**
+ * Identifies this installation to the upload server, with a random id created on first use,
+ * so batches can be told apart by device without any hardware identifier.
+ *
+ * @author Filipe Bezerra
+ * @version #, 25/08/2015
+ * @since #
+ */
+public final class DeviceId {
+    private static final String PREFERENCES_NAME = "upload";
+
+    private static final String KEY_DEVICE_ID = "device_id";
+
+    private DeviceId() {
+    }
+
+    /**
+     * Returns the id of this installation, creating it on first call. Reads the preferences, so
+     * it shouldn't be called from the main thread.
+     */
+    public static synchronized String get(Context context) {
+        final SharedPreferences preferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        String id = preferences.getString(KEY_DEVICE_ID, null);
+
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+            preferences.edit().putString(KEY_DEVICE_ID, id).commit();
+        }
+        return id;
+    }
+}
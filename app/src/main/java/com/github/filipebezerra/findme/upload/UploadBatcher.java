@@ -0,0 +1,117 @@
+package com.github.filipebezerra.findme.upload;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.tracking.TrackEncoder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gathers fixes into batches for upload, each one the gzipped track format of its fixes (see
+ * {@link com.github.filipebezerra.findme.tracking.TrackFormat}), and stores them in an
+ * {@link UploadQueue}.
+ * <p/>
+ * A batch is sealed once it holds a maximum number of fixes, or when a fix comes more than a
+ * maximum age after the first one of the batch, so a slowly moving device still shows up
+ * regularly. Fixes are encoded as they come, so only the compressed batch is kept in memory.
+ * Must be used by a single thread.
+ *
+ * @author Filipe Bezerra
+ * @version #, 25/08/2015
+ * @since #
+ */
+public class UploadBatcher {
+    /**
+     * Receives the id of every batch stored in the queue.
+     */
+    public interface Listener {
+        void onBatchQueued(String id);
+    }
+
+    private final UploadQueue mQueue;
+
+    private final int mMaxFixes;
+
+    private final long mMaxAgeInMillis;
+
+    private final Listener mListener;
+
+    private ByteArrayOutputStream mBuffer;
+
+    private TrackEncoder mEncoder;
+
+    private long mFirstFixTime;
+
+    /**
+     * @param maxAgeInMillis longest time between the first and the last fix of a batch
+     * @param listener       receives the id of every batch queued, may be null
+     */
+    public UploadBatcher(final UploadQueue queue, final int maxFixes, final long maxAgeInMillis,
+            final Listener listener) {
+        if (maxFixes <= 0) {
+            throw new IllegalArgumentException("maxFixes must be positive");
+        }
+        mQueue = queue;
+        mMaxFixes = maxFixes;
+        mMaxAgeInMillis = maxAgeInMillis;
+        mListener = listener;
+    }
+
+    /**
+     * Adds a fix to the current batch, sealing it first if the fix is too late to join it, and
+     * after if it is full.
+     */
+    public void add(final Fix fix) throws IOException {
+        if (mEncoder != null && fix.time - mFirstFixTime > mMaxAgeInMillis) {
+            seal();
+        }
+
+        if (mEncoder == null) {
+            mBuffer = new ByteArrayOutputStream();
+            mEncoder = new TrackEncoder(new GZIPOutputStream(mBuffer));
+            mFirstFixTime = fix.time;
+        }
+
+        mEncoder.write(fix);
+
+        if (mEncoder.getFixCount() >= mMaxFixes) {
+            seal();
+        }
+    }
+
+    /**
+     * Queues the current batch, if it has any fix, even if it isn't full yet.
+     *
+     * @return the id of the batch queued, or null if there was none
+     */
+    public String seal() throws IOException {
+        if (mEncoder == null) {
+            return null;
+        }
+
+        final TrackEncoder encoder = mEncoder;
+        mEncoder = null;
+        // Closing finishes the gzip stream, an in-memory one can't fail.
+        encoder.close();
+
+        final byte[] body = mBuffer.toByteArray();
+        mBuffer = null;
+
+        final String id = mQueue.enqueue(body);
+        Metrics.UPLOAD_BATCH_FIXES.record(encoder.getFixCount());
+        Metrics.UPLOAD_BATCH_BYTES.record(body.length);
+
+        if (mListener != null) {
+            mListener.onBatchQueued(id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of fixes in the current batch.
+     */
+    public long getPendingFixCount() {
+        return mEncoder != null ? mEncoder.getFixCount() : 0;
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.filipebezerra.findme.upload;
+
+import com.github.filipebezerra.findme.metrics.Metrics;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Durable queue of the batches waiting to be uploaded, one file per batch in a directory of its
+ * own, so they survive going offline as well as the process being killed.
+ * <p/>
+ * Every batch is named after its id, which starts with its creation time so that the names sort
+ * oldest first. The id is what makes uploading a batch idempotent: retries of the same batch
+ * always send the same id. Batches are written to a temporary file then renamed, so a crash
+ * never leaves a partial batch in the queue. Once it holds its maximum number of batches, the
+ * oldest ones are dropped to make room.
+ * <p/>
+ * The ids are kept sorted in memory, read from the directory only once when the queue is
+ * created, to recover the batches left by a previous run.
+ *
+ * @author Filipe Bezerra
+ * @version #, 25/08/2015
+ * @since #
+ */
+public class UploadQueue {
+    private static final String BATCH_SUFFIX = ".batch";
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final File mDirectory;
+
+    private final int mMaxBatches;
+
+    /**
+     * Ids of the batches in the queue, oldest first. Guarded by this.
+     */
+    private final TreeSet<String> mIds = new TreeSet<>();
+
+    private long mDroppedCount;
+
+    /**
+     * Creation time in the id of the last batch queued.
+     */
+    private long mLastTime;
+
+    public UploadQueue(final File directory, final int maxBatches) {
+        if (maxBatches <= 0) {
+            throw new IllegalArgumentException("maxBatches must be positive");
+        }
+        mDirectory = directory;
+        mMaxBatches = maxBatches;
+        recover();
+    }
+
+    /**
+     * Stores a batch and returns its id.
+     */
+    public synchronized String enqueue(final byte[] body) throws IOException {
+        if (! mDirectory.isDirectory() && ! mDirectory.mkdirs()) {
+            throw new IOException("Can't create the upload queue at " + mDirectory);
+        }
+
+        // Batches queued within the same millisecond still get ids sorting in their order.
+        mLastTime = Math.max(System.currentTimeMillis(), mLastTime + 1);
+        final String id = String.format(Locale.US, "%012x-%s", mLastTime, UUID.randomUUID());
+        final File temporary = new File(mDirectory, id + TEMPORARY_SUFFIX);
+        final FileOutputStream output = new FileOutputStream(temporary);
+
+        try {
+            output.write(body);
+            output.getFD().sync();
+        } finally {
+            output.close();
+        }
+
+        if (! temporary.renameTo(fileOf(id))) {
+            temporary.delete();
+            throw new IOException("Can't move the batch " + id + " into the upload queue");
+        }
+
+        mIds.add(id);
+        trimToSize();
+        return id;
+    }
+
+    /**
+     * Returns the ids of the batches in the queue, oldest first.
+     */
+    public synchronized List<String> getIds() {
+        return new ArrayList<>(mIds);
+    }
+
+    /**
+     * Returns the ids of the oldest batches in the queue, at most {@code maxCount} of them,
+     * oldest first.
+     */
+    public synchronized List<String> getOldestIds(final int maxCount) {
+        final List<String> ids = new ArrayList<>(Math.min(maxCount, mIds.size()));
+        final Iterator<String> iterator = mIds.iterator();
+
+        while (ids.size() < maxCount && iterator.hasNext()) {
+            ids.add(iterator.next());
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the file holding the batch with the given id, which may no longer exist.
+     */
+    public File fileOf(final String id) {
+        return new File(mDirectory, id + BATCH_SUFFIX);
+    }
+
+    /**
+     * Removes the batch with the given id, once uploaded or given up.
+     */
+    public synchronized void remove(final String id) {
+        if (mIds.remove(id)) {
+            fileOf(id).delete();
+        }
+    }
+
+    public synchronized int size() {
+        return mIds.size();
+    }
+
+    /**
+     * Returns the number of batches dropped for lack of room since the queue was created.
+     */
+    public synchronized long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * Reads the ids of the batches already in the directory, and deletes the temporary files of
+     * batches that were being written when the process died.
+     */
+    private void recover() {
+        final File[] files = mDirectory.listFiles();
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            final String name = file.getName();
+
+            if (name.endsWith(BATCH_SUFFIX) && file.isFile()) {
+                mIds.add(name.substring(0, name.length() - BATCH_SUFFIX.length()));
+            } else if (name.endsWith(TEMPORARY_SUFFIX)) {
+                file.delete();
+            }
+        }
+
+        // Batches left over from a larger queue.
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        while (mIds.size() > mMaxBatches) {
+            fileOf(mIds.pollFirst()).delete();
+            mDroppedCount++;
+            Metrics.UPLOAD_BATCHES_DROPPED.increment();
+        }
+    }
+}
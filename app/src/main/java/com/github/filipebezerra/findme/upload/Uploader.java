@@ -0,0 +1,238 @@
+package com.github.filipebezerra.findme.upload;
+
+import android.os.Process;
+import com.github.filipebezerra.findme.logging.FastLog;
+import com.github.filipebezerra.findme.logging.Logger;
+import com.github.filipebezerra.findme.metrics.Metrics;
+import com.github.filipebezerra.findme.utils.ExponentialBackoff;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import timber.log.Timber;
+
+/**
+ * Sends the batches of an {@link UploadQueue} in the background, oldest first, with at most a
+ * given number of requests at a time.
+ * <p/>
+ * A batch is only removed from the queue once the server stored or rejected it. When sending
+ * fails, no new batch is sent for a delay that doubles with every failure in a row, minus a
+ * random jitter, while the queue keeps growing on disk. Any batch sent successfully, or
+ * {@link #retryNow()}, for example once the network is back, ends the wait.
+ *
+ * @author Filipe Bezerra
+ * @version #, 25/08/2015
+ * @since #
+ */
+public class Uploader implements UploadBatcher.Listener {
+    private static final String TAG = Uploader.class.getSimpleName();
+
+    private static final Logger LOG = FastLog.logger(TAG);
+
+    /**
+     * Outcome of a batch dropped from the queue before it could be sent.
+     */
+    private static final int DROPPED = -1;
+
+    private final UploadQueue mQueue;
+
+    private final BatchSender mSender;
+
+    private final int mMaxConcurrent;
+
+    private final ExponentialBackoff mRetryDelays;
+
+    private final ScheduledThreadPoolExecutor mExecutor;
+
+    private final Runnable mRetryRunnable = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (Uploader.this) {
+                mRetry = null;
+            }
+            drain();
+        }
+    };
+
+    /**
+     * Ids of the batches being sent. Guarded by this.
+     */
+    private final Set<String> mInFlight = new HashSet<>();
+
+    /**
+     * Sending failures in a row. Guarded by this.
+     */
+    private int mFailureCount;
+
+    /**
+     * The end of the wait after a failure, while waiting. Guarded by this.
+     */
+    private ScheduledFuture<?> mRetry;
+
+    /**
+     * @param maxConcurrent number of batches sent at the same time
+     */
+    public Uploader(final UploadQueue queue, final BatchSender sender, final int maxConcurrent,
+            final long retryBaseDelayInMillis, final long retryMaxDelayInMillis) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        mQueue = queue;
+        mSender = sender;
+        mMaxConcurrent = maxConcurrent;
+        mRetryDelays = new ExponentialBackoff(retryBaseDelayInMillis, retryMaxDelayInMillis,
+                new Random());
+        mExecutor = new ScheduledThreadPoolExecutor(maxConcurrent, new SenderThreadFactory());
+        mExecutor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void onBatchQueued(String id) {
+        drain();
+    }
+
+    /**
+     * Starts sending the oldest batches of the queue, as many as allowed at a time, unless
+     * waiting after a failure.
+     */
+    public synchronized void drain() {
+        if (mRetry != null || mInFlight.size() >= mMaxConcurrent || mExecutor.isShutdown()) {
+            return;
+        }
+
+        // The batches being sent are among the oldest ones, so the first few hold enough others.
+        for (String id : mQueue.getOldestIds(mMaxConcurrent)) {
+            if (mInFlight.size() >= mMaxConcurrent) {
+                break;
+            }
+
+            if (mInFlight.add(id)) {
+                mExecutor.execute(new SendTask(id));
+            }
+        }
+    }
+
+    /**
+     * Ends the wait after a failure and starts sending again right away.
+     */
+    public void retryNow() {
+        synchronized (this) {
+            mFailureCount = 0;
+
+            if (mRetry != null) {
+                mRetry.cancel(false);
+                mRetry = null;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Returns the number of batches being sent.
+     */
+    public synchronized int getInFlightCount() {
+        return mInFlight.size();
+    }
+
+    /**
+     * Returns the number of sending failures in a row, 0 once a batch was sent.
+     */
+    public synchronized int getFailureCount() {
+        return mFailureCount;
+    }
+
+    /**
+     * Stops sending batches. Those being sent complete, the others stay in the queue.
+     */
+    public void shutdown() {
+        mExecutor.shutdown();
+    }
+
+    private void onSent(final String id, final int outcome, final long elapsedInMillis) {
+        synchronized (this) {
+            mInFlight.remove(id);
+
+            switch (outcome) {
+                case BatchSender.SENT:
+                    Metrics.UPLOAD_BATCHES_SENT.increment();
+                    Metrics.UPLOAD_LATENCY.record(elapsedInMillis);
+                    mQueue.remove(id);
+                    mFailureCount = 0;
+
+                    // The server is back, no need to wait for the end of a failure's delay.
+                    if (mRetry != null) {
+                        mRetry.cancel(false);
+                        mRetry = null;
+                    }
+                    break;
+                case DROPPED:
+                    // Forgets the id too if the file went missing otherwise.
+                    mQueue.remove(id);
+                    break;
+                case BatchSender.REJECTED:
+                    Metrics.UPLOAD_BATCHES_REJECTED.increment();
+                    mQueue.remove(id);
+                    break;
+                default:
+                    Metrics.UPLOAD_FAILURES.increment();
+                    mFailureCount++;
+
+                    if (mRetry == null && ! mExecutor.isShutdown()) {
+                        final long delay = mRetryDelays.getDelay(mFailureCount);
+                        LOG.d("Sending again in %d ms", delay);
+                        mRetry = mExecutor.schedule(mRetryRunnable, delay,
+                                TimeUnit.MILLISECONDS);
+                    }
+                    break;
+            }
+        }
+        drain();
+    }
+
+    private final class SendTask implements Runnable {
+        private final String mId;
+
+        SendTask(String id) {
+            mId = id;
+        }
+
+        @Override
+        public void run() {
+            final long start = System.nanoTime();
+            final File file = mQueue.fileOf(mId);
+            int outcome;
+
+            try {
+                // The queue may have dropped the oldest batches to make room meanwhile.
+                outcome = file.isFile() ? mSender.send(mId, file) : DROPPED;
+            } catch (IOException e) {
+                Timber.e(e, "Sending the batch %s", mId);
+                outcome = BatchSender.RETRY;
+            }
+
+            onSent(mId, outcome, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private static final class SenderThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, TAG + " #" + mCount.incrementAndGet());
+        }
+    }
+}
@@ -14,9 +14,420 @@ public final class Constants {
 
     public static final String PACKAGE_NAME = "com.github.filipebezerra.findme";
 
-    public static final String RECEIVER = PACKAGE_NAME + ".RECEIVER";
-
     public static final String RESULT_DATA_KEY = PACKAGE_NAME + ".RESULT_DATA_KEY";
 
-    public static final String LOCATION_DATA_EXTRA = PACKAGE_NAME + ".LOCATION_DATA_EXTRA";
+    /**
+     * Maximum number of reverse geocoding results kept in memory.
+     */
+    public static final int GEOCODE_CACHE_MAX_ENTRIES = 128;
+
+    /**
+     * Decimal places of latitude and longitude used to key cached addresses. 4 decimal places
+     * are roughly 11 meters.
+     */
+    public static final int GEOCODE_CACHE_PRECISION = 4;
+
+    /**
+     * How long a cached address is considered valid.
+     */
+    public static final long GEOCODE_CACHE_TTL_IN_MILLISECONDS = 30 * 60 * 1000;
+
+    /**
+     * Maximum number of reverse geocoding results persisted on disk.
+     */
+    public static final int GEOCODE_DISK_CACHE_MAX_ENTRIES = 2000;
+
+    /**
+     * How long a persisted address is considered valid.
+     */
+    public static final long GEOCODE_DISK_CACHE_TTL_IN_MILLISECONDS = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Number of persisted addresses written between checks of the disk cache size.
+     */
+    public static final int GEOCODE_DISK_CACHE_TRIM_EVERY = 32;
+
+    /**
+     * Number of persisted addresses loaded into memory when the application starts.
+     */
+    public static final int GEOCODE_CACHE_WARM_UP_ENTRIES = 64;
+
+    /**
+     * Maximum number of locations known to have no address kept in memory.
+     */
+    public static final int GEOCODE_NEGATIVE_CACHE_MAX_ENTRIES = 64;
+
+    /**
+     * How long a location stays known to have no address, short so that a geocoder learning of
+     * it later is asked again soon.
+     */
+    public static final long GEOCODE_NEGATIVE_CACHE_TTL_IN_MILLISECONDS = 2 * 60 * 1000;
+
+    /**
+     * How long a geocoder is left alone after it first failed to reach its service. The delay
+     * doubles with every failure in a row.
+     */
+    public static final long GEOCODE_BACKOFF_UNAVAILABLE_BASE_IN_MILLISECONDS = 5000;
+
+    /**
+     * How long a geocoder is left alone after it first timed out. The delay doubles with every
+     * timeout in a row.
+     */
+    public static final long GEOCODE_BACKOFF_TIMEOUT_BASE_IN_MILLISECONDS = 2000;
+
+    /**
+     * Longest a geocoder is left alone after failing.
+     */
+    public static final long GEOCODE_BACKOFF_MAX_IN_MILLISECONDS = 5 * 60 * 1000;
+
+    /**
+     * Maximum number of lookups waiting for the geocoders to be available again.
+     */
+    public static final int GEOCODE_RETRY_QUEUE_CAPACITY = 16;
+
+    /**
+     * Number of times a lookup is replayed before it is given up.
+     */
+    public static final int GEOCODE_MAX_RETRIES = 5;
+
+    /**
+     * How long the shared GoogleApiClient stays connected after its last user stopped, so it is
+     * reused across rotations and quick navigation.
+     */
+    public static final long GOOGLE_API_CLIENT_DISCONNECT_GRACE_IN_MILLISECONDS = 10000;
+
+    /**
+     * Number of threads looking up addresses concurrently.
+     */
+    public static final int GEOCODE_WORKER_THREADS = 2;
+
+    /**
+     * How long an idle address lookup thread is kept alive.
+     */
+    public static final long GEOCODE_WORKER_KEEP_ALIVE_IN_SECONDS = 30;
+
+    /**
+     * Gazetteer of the offline geocoder, sideloaded into the app's external files directory or
+     * bundled in the assets.
+     */
+    public static final String OFFLINE_GEOCODER_GAZETTEER_FILE_NAME = "places.csv";
+
+    /**
+     * Index of the places of the gazetteer, built in app-private storage or sideloaded prebuilt.
+     */
+    public static final String OFFLINE_GEOCODER_INDEX_FILE_NAME = "places.idx";
+
+    /**
+     * How far the nearest place found offline may be for it to be shown as the address.
+     */
+    public static final double OFFLINE_GEOCODER_MAX_DISTANCE_IN_METERS = 2000;
+
+    /**
+     * How long the offline geocoder waits before looking for a gazetteer again, when there was
+     * none or its index couldn't be opened.
+     */
+    public static final long OFFLINE_GEOCODER_REOPEN_DELAY_IN_MILLISECONDS = 5 * 60 * 1000;
+
+    /**
+     * Whether addresses are looked up offline before asking the platform Geocoder. Otherwise the
+     * offline geocoder is only asked when the platform one fails.
+     */
+    public static final boolean OFFLINE_GEOCODER_FIRST = false;
+
+    /**
+     * The desired interval for location updates while the device is moving.
+     */
+    public static final long MOVING_UPDATE_INTERVAL_IN_MILLISECONDS = 10000;
+
+    /**
+     * The desired interval for location updates after the device stood still for a while.
+     */
+    public static final long IDLE_UPDATE_INTERVAL_IN_MILLISECONDS = 30000;
+
+    /**
+     * The desired interval for location updates after the device stood still for long.
+     */
+    public static final long STATIONARY_UPDATE_INTERVAL_IN_MILLISECONDS = 120000;
+
+    /**
+     * How many update intervals the location provider may hold fixes back, to deliver them in a
+     * single batch while tracking.
+     */
+    public static final int TRACKING_BATCH_INTERVALS = 6;
+
+    /**
+     * How long the device must stand still before location updates are slowed down.
+     */
+    public static final long IDLE_AFTER_IN_MILLISECONDS = 60 * 1000;
+
+    /**
+     * How long the device must stand still before location updates are slowed down further.
+     */
+    public static final long STATIONARY_AFTER_IN_MILLISECONDS = 5 * 60 * 1000;
+
+    /**
+     * Fixes closer than this to where the device stopped don't count as movement.
+     */
+    public static final double STATIONARY_RADIUS_IN_METERS = 30;
+
+    /**
+     * Fixes reporting at least this speed count as movement.
+     */
+    public static final float MOVING_SPEED_IN_METERS_PER_SECOND = 1f;
+
+    /**
+     * Whether the last known locations of the platform providers and of the previous run are
+     * shown while waiting for Google Play services and the first live fix.
+     */
+    public static final boolean FAST_FIRST_FIX = true;
+
+    /**
+     * Last known locations older than this aren't shown.
+     */
+    public static final long FIRST_FIX_MAX_AGE_IN_MILLISECONDS = 30 * 60 * 1000;
+
+    /**
+     * Last known locations less accurate than this aren't shown.
+     */
+    public static final float FIRST_FIX_MAX_ACCURACY_IN_METERS = 5000f;
+
+    /**
+     * A last known location this much newer than another is preferred, whatever their accuracy.
+     */
+    public static final long FIRST_FIX_SIGNIFICANTLY_NEWER_IN_MILLISECONDS = 2 * 60 * 1000;
+
+    /**
+     * Fixes less accurate than this are dropped before reaching the UI.
+     */
+    public static final float MAX_FIX_ACCURACY_IN_METERS = 100f;
+
+    /**
+     * Fixes implying a faster movement than this since the previous fix are dropped as outliers.
+     */
+    public static final double MAX_PLAUSIBLE_SPEED_IN_METERS_PER_SECOND = 70;
+
+    /**
+     * Consecutive implausible fixes after which the next one is trusted again.
+     */
+    public static final int MAX_CONSECUTIVE_OUTLIERS = 3;
+
+    /**
+     * Expected deviation from a constant velocity when smoothing fixes, in meters per second
+     * squared.
+     */
+    public static final double SMOOTHING_ACCELERATION_DEVIATION = 2;
+
+    /**
+     * Gap between fixes after which smoothing starts over.
+     */
+    public static final long SMOOTHING_MAX_GAP_IN_MILLISECONDS = 60 * 1000;
+
+    /**
+     * Fences to monitor, sideloaded into the app's external files directory.
+     */
+    public static final String GEOFENCES_FILE_NAME = "geofences.csv";
+
+    /**
+     * Side of the cells of the grid indexing the fences, about a kilometer.
+     */
+    public static final double GEOFENCE_GRID_CELL_IN_DEGREES = 0.01;
+
+    /**
+     * Fences spanning more grid cells than this are tested on every fix instead.
+     */
+    public static final int GEOFENCE_MAX_CELLS_PER_FENCE = 64;
+
+    /**
+     * How far outside a fence a fix must be for the device to leave it.
+     */
+    public static final double GEOFENCE_EXIT_HYSTERESIS_IN_METERS = 25;
+
+    /**
+     * How long the device must stay inside a fence to be dwelling in it.
+     */
+    public static final long GEOFENCE_DWELL_DELAY_IN_MILLISECONDS = 5 * 60 * 1000;
+
+    /**
+     * Name of the ring file holding the recorded trail, in app-private storage.
+     */
+    public static final String TRACK_FILE_NAME = "track.ring";
+
+    /**
+     * Number of fixes kept in the recorded trail, about a week of fixes at the moving interval.
+     */
+    public static final int TRACK_CAPACITY = 65536;
+
+    /**
+     * How long every recorded fix is kept, well within what {@link #TRACK_CAPACITY} holds.
+     */
+    public static final long TRACK_RECENT_WINDOW_IN_MILLISECONDS = 3 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * How long the downsampled fixes older than the recent window are kept.
+     */
+    public static final long TRACK_RETENTION_IN_MILLISECONDS = 90 * 24 * 60 * 60 * 1000L;
+
+    /**
+     * Name of the ring file holding the downsampled fixes, in app-private storage.
+     */
+    public static final String TRACK_ARCHIVE_FILE_NAME = "track-archive.ring";
+
+    /**
+     * Number of downsampled fixes kept, the retention at one fix every minute, about 5 MB.
+     */
+    public static final int TRACK_ARCHIVE_CAPACITY = 131072;
+
+    /**
+     * Time after which the next fix is archived, even if the device didn't move.
+     */
+    public static final long TRACK_ARCHIVE_MIN_INTERVAL_IN_MILLISECONDS = 5 * 60 * 1000;
+
+    /**
+     * Distance from the last archived fix from which the next fix is archived.
+     */
+    public static final double TRACK_ARCHIVE_MIN_DISTANCE_IN_METERS = 500;
+
+    /**
+     * How often the recorded trail is compacted while recording.
+     */
+    public static final long TRACK_COMPACTION_INTERVAL_IN_MILLISECONDS = 6 * 60 * 60 * 1000;
+
+    /**
+     * Coarsest zoom level the track map keeps a simplified track for.
+     */
+    public static final int TRACK_MAP_MIN_ZOOM = 2;
+
+    /**
+     * Finest zoom level the track map keeps a simplified track for, also used past it.
+     */
+    public static final int TRACK_MAP_MAX_ZOOM = 18;
+
+    /**
+     * Farthest a fix may be from the track drawn on the map, in density independent pixels.
+     */
+    public static final double TRACK_MAP_TOLERANCE_IN_PIXELS = 1;
+
+    /**
+     * Number of fixes simplified at once while building the track map.
+     */
+    public static final int TRACK_MAP_CHUNK_SIZE = 256;
+
+    /**
+     * Longest time between two fixes still measured by the trip statistics. Longer gaps, as when
+     * the recording was paused, aren't counted as moving nor as stationary.
+     */
+    public static final long TRIP_MAX_GAP_IN_MILLISECONDS = 10 * 60 * 1000;
+
+    /**
+     * Time constant of the smoothing of the current speed of a trip.
+     */
+    public static final long TRIP_SPEED_SMOOTHING_IN_MILLISECONDS = 30000;
+
+    /**
+     * Smallest change of altitude counted as a climb or a descent of a trip.
+     */
+    public static final double TRIP_ELEVATION_THRESHOLD_IN_METERS = 5;
+
+    /**
+     * Traces replayed instead of real locations on debug builds, if found in the app's external
+     * files directory.
+     */
+    public static final String[] REPLAY_TRACE_FILE_NAMES = {"replay.csv", "replay.gpx"};
+
+    /**
+     * How many times faster than real time a trace is replayed.
+     */
+    public static final double REPLAY_SPEED_FACTOR = 1;
+
+    /**
+     * Number of log entries kept in memory, to be written out on demand or after a crash.
+     */
+    public static final int LOG_BUFFER_CAPACITY = 2048;
+
+    /**
+     * Directory, in the app's external files, of the log files written from memory.
+     */
+    public static final String LOG_DIRECTORY_NAME = "logs";
+
+    /**
+     * Only one of this many fixes, and of this many address lookups, is logged.
+     */
+    public static final int LOG_SAMPLE_EVERY = 10;
+
+    /**
+     * Maximum number of entries per second logged by each hot path logger.
+     */
+    public static final int LOG_MAX_PER_SECOND = 5;
+
+    /**
+     * Number of location state snapshots queued for each background subscriber, such as the
+     * recorder, before it starts skipping some.
+     */
+    public static final int LOCATION_STATE_QUEUE_CAPACITY = 64;
+
+    /**
+     * How far the device must move before the address following it is looked up again, unless
+     * it left its geocode cell first.
+     */
+    public static final double AUTO_ADDRESS_MIN_DISPLACEMENT_IN_METERS = 100;
+
+    /**
+     * Decimal places of the cells whose crossing makes the address following the device be looked
+     * up again. 3 places make cells of about 110 meters.
+     */
+    public static final int AUTO_ADDRESS_CELL_PRECISION = 3;
+
+    /**
+     * How far beyond the accuracy of its fixes the device must move for leaving its geocode cell
+     * to count, so jitter across a cell edge doesn't.
+     */
+    public static final double AUTO_ADDRESS_CELL_HYSTERESIS_IN_METERS = 20;
+
+    /**
+     * Minimum time between two lookups of the address following the device.
+     */
+    public static final long AUTO_ADDRESS_DEBOUNCE_IN_MILLISECONDS = 15000;
+
+    /**
+     * Maximum number of fixes uploaded in a single batch.
+     */
+    public static final int UPLOAD_BATCH_MAX_FIXES = 256;
+
+    /**
+     * Longest time between the first and the last fix of a batch, so the device shows up on the
+     * server at least this often while tracking.
+     */
+    public static final long UPLOAD_BATCH_MAX_AGE_IN_MILLISECONDS = 2 * 60 * 1000;
+
+    /**
+     * Directory, in app-private storage, of the batches waiting to be uploaded.
+     */
+    public static final String UPLOAD_QUEUE_DIRECTORY_NAME = "uploads";
+
+    /**
+     * Maximum number of batches waiting to be uploaded, about a week of tracking offline at the
+     * maximum batch age. The oldest ones are dropped past it.
+     */
+    public static final int UPLOAD_QUEUE_MAX_BATCHES = 5000;
+
+    /**
+     * Number of batches uploaded at the same time.
+     */
+    public static final int UPLOAD_MAX_CONCURRENT_REQUESTS = 2;
+
+    /**
+     * How long to wait for the server to connect, and then to answer.
+     */
+    public static final int UPLOAD_TIMEOUT_IN_MILLISECONDS = 15000;
+
+    /**
+     * How long to wait after a first failed upload before uploading again. The delay doubles
+     * with every failure in a row.
+     */
+    public static final long UPLOAD_RETRY_BASE_IN_MILLISECONDS = 10000;
+
+    /**
+     * Longest wait after a failed upload, unless the network comes back first.
+     */
+    public static final long UPLOAD_RETRY_MAX_IN_MILLISECONDS = 15 * 60 * 1000;
 }
@@ -0,0 +1,83 @@
+package com.github.filipebezerra.findme.utils;
+
+/**
+ * Formats coordinates straight into a caller provided char array, so the location text can be
+ * rebuilt for every fix without allocating strings.
+ *
+ * @author Filipe Bezerra
+ * @version #, 10/08/2015
+ * @since #
+ */
+public final class CoordinateFormatter {
+    /**
+     * Decimal places written for each coordinate. 6 decimal places are roughly 11 centimeters.
+     */
+    public static final int DECIMALS = 6;
+
+    /**
+     * Room needed to format a pair of coordinates.
+     */
+    public static final int MAX_PAIR_LENGTH = 2 * (1 + 3 + 1 + DECIMALS) + 2;
+
+    private static final String SEPARATOR = ", ";
+
+    private static final long SCALE = 1000000L;
+
+    private CoordinateFormatter() {
+    }
+
+    /**
+     * Writes "latitude, longitude" into the buffer, which must have room for
+     * {@link #MAX_PAIR_LENGTH} characters.
+     *
+     * @return the number of characters written
+     */
+    public static int formatPair(final double latitude, final double longitude,
+            final char[] buffer) {
+        int position = format(latitude, buffer, 0);
+        SEPARATOR.getChars(0, SEPARATOR.length(), buffer, position);
+        position += SEPARATOR.length();
+        return format(longitude, buffer, position);
+    }
+
+    /**
+     * Writes a single coordinate with {@link #DECIMALS} decimal places into the buffer.
+     *
+     * @return the position following the last character written
+     */
+    public static int format(final double coordinate, final char[] buffer, int position) {
+        final long scaled = Math.round(Math.abs(coordinate) * SCALE);
+
+        if (coordinate < 0 && scaled != 0) {
+            buffer[position++] = '-';
+        }
+
+        position = writeDigits(scaled / SCALE, 1, buffer, position);
+        buffer[position++] = '.';
+        return writeDigits(scaled % SCALE, DECIMALS, buffer, position);
+    }
+
+    /**
+     * Writes a non-negative number into the buffer, padded with leading zeros to at least
+     * {@code minDigits} digits.
+     *
+     * @return the position following the last character written
+     */
+    public static int writeDigits(long value, final int minDigits, final char[] buffer,
+            final int position) {
+        int digits = 1;
+
+        for (long remaining = value / 10; remaining != 0; remaining /= 10) {
+            digits++;
+        }
+
+        digits = Math.max(digits, minDigits);
+
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+
+        return position + digits;
+    }
+}
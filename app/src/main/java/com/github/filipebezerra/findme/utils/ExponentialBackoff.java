@@ -0,0 +1,46 @@
+package com.github.filipebezerra.findme.utils;
+
+import java.util.Random;
+
+/**
+ * Delays before trying again after failures in a row: the delay doubles with every failure, from
+ * a base delay up to a maximum, and a random part of up to half of it is jittered away so that
+ * the clients failing together don't all come back at once.
+ *
+ * @author Filipe Bezerra
+ * @version #, 29/08/2015
+ * @since #
+ */
+public class ExponentialBackoff {
+    /**
+     * Failures in a row past this don't make the delay grow anymore, which keeps the shift from
+     * overflowing.
+     */
+    private static final int MAX_DOUBLINGS = 30;
+
+    private final long mBaseDelayInMillis;
+
+    private final long mMaxDelayInMillis;
+
+    private final Random mRandom;
+
+    /**
+     * @param baseDelayInMillis delay after the first failure
+     */
+    public ExponentialBackoff(final long baseDelayInMillis, final long maxDelayInMillis,
+            final Random random) {
+        mBaseDelayInMillis = baseDelayInMillis;
+        mMaxDelayInMillis = maxDelayInMillis;
+        mRandom = random;
+    }
+
+    /**
+     * Returns the delay before trying again after the given number of failures in a row, at
+     * least one.
+     */
+    public long getDelay(final int failureCount) {
+        final int doublings = Math.min(failureCount - 1, MAX_DOUBLINGS);
+        final long delay = Math.min(mBaseDelayInMillis << doublings, mMaxDelayInMillis);
+        return delay - (long) (mRandom.nextDouble() * (delay / 2));
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.filipebezerra.findme.utils;
+
+/**
+ * Geodesic helpers working on primitive coordinates, usable off the main thread and without
+ * allocating {@link android.location.Location} instances.
+ *
+ * @author Filipe Bezerra
+ * @version #, 06/08/2015
+ * @since #
+ */
+public final class GeoMath {
+    /**
+     * Mean radius of the Earth, in meters.
+     */
+    public static final double EARTH_RADIUS_IN_METERS = 6371008.8;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Returns the great-circle distance in meters between two coordinates, using the haversine
+     * formula.
+     */
+    public static double distanceInMeters(final double fromLatitude, final double fromLongitude,
+            final double toLatitude, final double toLongitude) {
+        final double fromLatRadians = Math.toRadians(fromLatitude);
+        final double toLatRadians = Math.toRadians(toLatitude);
+        final double sinHalfDeltaLat = Math.sin((toLatRadians - fromLatRadians) / 2);
+        final double sinHalfDeltaLon = Math.sin(Math.toRadians(toLongitude - fromLongitude) / 2);
+        final double a = sinHalfDeltaLat * sinHalfDeltaLat
+                + Math.cos(fromLatRadians) * Math.cos(toLatRadians)
+                * sinHalfDeltaLon * sinHalfDeltaLon;
+        return 2 * EARTH_RADIUS_IN_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Returns how many meters one degree of longitude spans at the given latitude.
+     */
+    public static double metersPerDegreeOfLongitude(final double latitude) {
+        return metersPerDegreeOfLatitude() * Math.cos(Math.toRadians(latitude));
+    }
+
+    /**
+     * Returns how many meters one degree of latitude spans.
+     */
+    public static double metersPerDegreeOfLatitude() {
+        return Math.PI * EARTH_RADIUS_IN_METERS / 180d;
+    }
+}
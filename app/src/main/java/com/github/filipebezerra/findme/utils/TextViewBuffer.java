@@ -0,0 +1,76 @@
+package com.github.filipebezerra.findme.utils;
+
+import android.widget.TextView;
+
+/**
+ * Keeps the characters shown by a {@link TextView} so new text is only set when it differs from
+ * what is already visible, sparing a relayout.
+ * <p/>
+ * Text is set with {@link TextView#setText(char[], int, int)}, which shows the array without
+ * copying it. The displayed array is therefore only ever changed right before handing it to the
+ * TextView again, as that method requires.
+ *
+ * @author Filipe Bezerra
+ * @version #, 10/08/2015
+ * @since #
+ */
+public final class TextViewBuffer {
+    private char[] mScratch;
+
+    private char[] mDisplayed;
+
+    private int mDisplayedLength = -1;
+
+    public TextViewBuffer(final int capacity) {
+        mScratch = new char[capacity];
+        mDisplayed = new char[capacity];
+    }
+
+    /**
+     * Returns the array new text should be written into before calling
+     * {@link #commit(TextView, char[], int)}.
+     */
+    public char[] scratch() {
+        return mScratch;
+    }
+
+    /**
+     * Shows the first {@code length} characters of the given array, unless the view already
+     * shows them.
+     *
+     * @param text the array returned by {@link #scratch()}, or a bigger replacement for it
+     * @return true if the view's text was changed
+     */
+    public boolean commit(final TextView view, final char[] text, final int length) {
+        mScratch = text;
+
+        if (length == mDisplayedLength && regionEquals(text, mDisplayed, length)) {
+            return false;
+        }
+
+        if (mDisplayed.length < length) {
+            mDisplayed = new char[text.length];
+        }
+
+        System.arraycopy(text, 0, mDisplayed, 0, length);
+        mDisplayedLength = length;
+        view.setText(mDisplayed, 0, length);
+        return true;
+    }
+
+    /**
+     * Forgets what is displayed, e.g. after the view was recreated.
+     */
+    public void invalidate() {
+        mDisplayedLength = -1;
+    }
+
+    private static boolean regionEquals(final char[] a, final char[] b, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
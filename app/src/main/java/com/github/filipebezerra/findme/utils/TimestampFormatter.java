@@ -0,0 +1,58 @@
+package com.github.filipebezerra.findme.utils;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.util.Date;
+
+/**
+ * Formats timestamps with the default date and time format into a caller provided char array,
+ * reusing the same formatter and buffers. Timestamps within the same second as the previous one
+ * aren't formatted again.
+ * <p/>
+ * Instances are not thread safe.
+ *
+ * @author Filipe Bezerra
+ * @version #, 10/08/2015
+ * @since #
+ */
+public final class TimestampFormatter {
+    private final DateFormat mDateFormat = DateFormat.getDateTimeInstance();
+
+    private final Date mDate = new Date();
+
+    private final StringBuffer mBuffer = new StringBuffer(32);
+
+    private final FieldPosition mFieldPosition = new FieldPosition(0);
+
+    private long mFormattedSecond = Long.MIN_VALUE;
+
+    /**
+     * Writes the formatted timestamp into the given buffer, growing it if needed.
+     *
+     * @return the buffer holding the text, which is the given one unless it was too small
+     */
+    public char[] format(final long timeInMillis, char[] buffer) {
+        final long second = timeInMillis / 1000;
+
+        if (second != mFormattedSecond) {
+            mFormattedSecond = second;
+            mDate.setTime(timeInMillis);
+            mBuffer.setLength(0);
+            mDateFormat.format(mDate, mBuffer, mFieldPosition);
+        }
+
+        if (buffer.length < mBuffer.length()) {
+            buffer = new char[mBuffer.length()];
+        }
+
+        mBuffer.getChars(0, mBuffer.length(), buffer, 0);
+        return buffer;
+    }
+
+    /**
+     * Returns the length of the last formatted timestamp.
+     */
+    public int length() {
+        return mBuffer.length();
+    }
+}
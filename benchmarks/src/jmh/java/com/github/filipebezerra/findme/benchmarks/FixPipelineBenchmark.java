@@ -0,0 +1,132 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.location.AdaptiveLocationScheduler;
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.location.filter.AccuracyFilter;
+import com.github.filipebezerra.findme.location.filter.KalmanFilter;
+import com.github.filipebezerra.findme.location.filter.LocationFilter;
+import com.github.filipebezerra.findme.location.filter.LocationFilterChain;
+import com.github.filipebezerra.findme.location.filter.SpeedPlausibilityFilter;
+import com.github.filipebezerra.findme.tracking.TrackEncoder;
+import com.github.filipebezerra.findme.tracking.TrackRecorder;
+import com.github.filipebezerra.findme.trip.TripStatistics;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of handling a single fix along the location pipeline: filtering, scheduling, recording,
+ * encoding and adding to the trip statistics, each on its own, and the first three together as
+ * {@code onLocationChanged} does.
+ */
+@State(Scope.Thread)
+public class FixPipelineBenchmark {
+    private static final int TRAIL_LENGTH = 4096;
+
+    private Fix[] mTrail;
+
+    private int mNext;
+
+    private final Fix mFix = new Fix();
+
+    private LocationFilter mFilter;
+
+    private AdaptiveLocationScheduler mScheduler;
+
+    private File mRecorderFile;
+
+    private TrackRecorder mRecorder;
+
+    private TrackEncoder mEncoder;
+
+    private TripStatistics mTrip;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mTrail = Trails.randomWalk(42, TRAIL_LENGTH);
+        mFilter = new LocationFilterChain(
+                new AccuracyFilter(Constants.MAX_FIX_ACCURACY_IN_METERS),
+                new SpeedPlausibilityFilter(Constants.MAX_PLAUSIBLE_SPEED_IN_METERS_PER_SECOND,
+                        Constants.MAX_CONSECUTIVE_OUTLIERS),
+                new KalmanFilter(Constants.SMOOTHING_ACCELERATION_DEVIATION,
+                        Constants.SMOOTHING_MAX_GAP_IN_MILLISECONDS));
+        mScheduler = new AdaptiveLocationScheduler();
+        mRecorderFile = File.createTempFile("track", ".ring");
+        mRecorder = TrackRecorder.open(mRecorderFile, Constants.TRACK_CAPACITY);
+        mTrip = new TripStatistics(Constants.MOVING_SPEED_IN_METERS_PER_SECOND,
+                Constants.TRIP_MAX_GAP_IN_MILLISECONDS,
+                Constants.TRIP_SPEED_SMOOTHING_IN_MILLISECONDS,
+                Constants.TRIP_ELEVATION_THRESHOLD_IN_METERS);
+        mEncoder = new TrackEncoder(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mRecorder.close();
+        mRecorderFile.delete();
+    }
+
+    /**
+     * Returns the next fix of the trail, shifted in time so the trail can be replayed endlessly.
+     */
+    private Fix nextFix() {
+        final int index = mNext++;
+        final Fix recorded = mTrail[index % TRAIL_LENGTH];
+        mFix.set(recorded);
+        mFix.time += (long) (index / TRAIL_LENGTH) * 50000000L;
+        return mFix;
+    }
+
+    @Benchmark
+    public boolean filter() {
+        return mFilter.filter(nextFix());
+    }
+
+    @Benchmark
+    public boolean schedule() {
+        final Fix fix = nextFix();
+        return mScheduler.onFix(fix.time, fix.latitude, fix.longitude, fix.accuracy, fix.speed);
+    }
+
+    @Benchmark
+    public void record() {
+        mRecorder.append(nextFix());
+    }
+
+    @Benchmark
+    public void encode() throws IOException {
+        mEncoder.write(nextFix());
+    }
+
+    @Benchmark
+    public boolean trip() {
+        return mTrip.add(nextFix());
+    }
+
+    @Benchmark
+    public boolean onLocationChanged() {
+        final Fix fix = nextFix();
+
+        if (! mFilter.filter(fix)) {
+            return false;
+        }
+
+        mRecorder.append(fix);
+        return mScheduler.onFix(fix.time, fix.latitude, fix.longitude, fix.accuracy, fix.speed);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.geocoding.AddressFormatter;
+import com.github.filipebezerra.findme.utils.CoordinateFormatter;
+import com.github.filipebezerra.findme.utils.TimestampFormatter;
+import java.text.DateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the text formatting done for every fix and every address, next to the naive
+ * formatting it replaced.
+ */
+@State(Scope.Thread)
+public class FormattingBenchmark {
+    private final List<String> mAddressLines = Arrays.asList("Rodovia R2, 123",
+            "Setor Universitario", "Goiania - GO", "74605-010");
+
+    private final char[] mCoordinateBuffer = new char[CoordinateFormatter.MAX_PAIR_LENGTH];
+
+    private char[] mTimestampBuffer = new char[32];
+
+    private final TimestampFormatter mTimestampFormatter = new TimestampFormatter();
+
+    private double mLatitude = -16.6009500;
+
+    private double mLongitude = -49.2706748;
+
+    private long mTime = 1438387200000L;
+
+    @Benchmark
+    public String addressLines() {
+        return AddressFormatter.join(mAddressLines);
+    }
+
+    @Benchmark
+    public int coordinates() {
+        mLatitude += 1e-6;
+        return CoordinateFormatter.formatPair(mLatitude, mLongitude, mCoordinateBuffer);
+    }
+
+    @Benchmark
+    public String coordinatesConcat() {
+        mLatitude += 1e-6;
+        return String.valueOf(mLatitude).concat(", ").concat(String.valueOf(mLongitude));
+    }
+
+    /**
+     * A fix every 10 seconds, each needing a new timestamp.
+     */
+    @Benchmark
+    public char[] timestamp() {
+        mTime += 10000;
+        mTimestampBuffer = mTimestampFormatter.format(mTime, mTimestampBuffer);
+        return mTimestampBuffer;
+    }
+
+    @Benchmark
+    public String timestampNewDateFormat() {
+        mTime += 10000;
+        return DateFormat.getDateTimeInstance().format(new Date(mTime));
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.geocoding.GeocodeCache;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of reverse geocode cache lookups, hitting and missing, and of keying coordinates.
+ */
+@State(Scope.Thread)
+public class GeocodeCacheBenchmark {
+    private static final int COORDINATES = 1024;
+
+    private GeocodeCache mCache;
+
+    private final double[] mCachedLatitudes = new double[COORDINATES];
+
+    private final double[] mCachedLongitudes = new double[COORDINATES];
+
+    private final double[] mMissingLatitudes = new double[COORDINATES];
+
+    private final double[] mMissingLongitudes = new double[COORDINATES];
+
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mCache = new GeocodeCache(COORDINATES * 2, Constants.GEOCODE_CACHE_PRECISION,
+                1, TimeUnit.DAYS);
+        final Random random = new Random(42);
+
+        for (int i = 0; i < COORDINATES; i++) {
+            mCachedLatitudes[i] = -16.6 + random.nextDouble() * 0.1;
+            mCachedLongitudes[i] = -49.3 + random.nextDouble() * 0.1;
+            mCache.put(mCachedLatitudes[i], mCachedLongitudes[i], "Rodovia R2, " + i);
+
+            // Far enough from the cached ones to never share a cell.
+            mMissingLatitudes[i] = 10 + random.nextDouble();
+            mMissingLongitudes[i] = 10 + random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public String hit() {
+        final int i = mNext++ & (COORDINATES - 1);
+        return mCache.get(mCachedLatitudes[i], mCachedLongitudes[i]);
+    }
+
+    @Benchmark
+    public String miss() {
+        final int i = mNext++ & (COORDINATES - 1);
+        return mCache.get(mMissingLatitudes[i], mMissingLongitudes[i]);
+    }
+
+    @Benchmark
+    public void put() {
+        final int i = mNext++ & (COORDINATES - 1);
+        mCache.put(mCachedLatitudes[i], mCachedLongitudes[i], "Rodovia R2");
+    }
+
+    @Benchmark
+    public long cellOf() {
+        final int i = mNext++ & (COORDINATES - 1);
+        return mCache.getQuantizer().cellOf(mCachedLatitudes[i], mCachedLongitudes[i]);
+    }
+}
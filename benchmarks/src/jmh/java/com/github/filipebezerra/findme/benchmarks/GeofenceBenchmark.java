@@ -0,0 +1,99 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.geofence.CircleGeofence;
+import com.github.filipebezerra.findme.geofence.Geofence;
+import com.github.filipebezerra.findme.geofence.GeofenceIndex;
+import com.github.filipebezerra.findme.geofence.GeofenceListener;
+import com.github.filipebezerra.findme.geofence.GeofenceMonitor;
+import com.github.filipebezerra.findme.geofence.PolygonGeofence;
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of evaluating a fix against thousands of fences spread over a city sized area, with the
+ * grid index and by testing every fence.
+ */
+@State(Scope.Thread)
+public class GeofenceBenchmark implements GeofenceListener {
+    private static final int TRAIL_LENGTH = 4096;
+
+    @Param({"1000", "10000"})
+    public int fences;
+
+    private Fix[] mTrail;
+
+    private int mNext;
+
+    private Geofence[] mFences;
+
+    private GeofenceMonitor mMonitor;
+
+    private int mTransitions;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final List<Geofence> fenceList = new ArrayList<>(fences);
+
+        // Customer sites within half a degree of the trail, 10% of them polygons.
+        for (int i = 0; i < fences; i++) {
+            final double latitude = -16.85 + random.nextDouble() * 0.5;
+            final double longitude = -49.5 + random.nextDouble() * 0.5;
+
+            if (i % 10 == 0) {
+                final double span = 0.001 + random.nextDouble() * 0.002;
+                fenceList.add(new PolygonGeofence("site-" + i,
+                        new double[] {latitude, latitude + span, latitude + span, latitude},
+                        new double[] {longitude, longitude, longitude + span,
+                                longitude + span}));
+            } else {
+                fenceList.add(new CircleGeofence("site-" + i, latitude, longitude,
+                        50 + random.nextDouble() * 450));
+            }
+        }
+
+        mFences = fenceList.toArray(new Geofence[fences]);
+        mMonitor = new GeofenceMonitor(new GeofenceIndex(fenceList,
+                Constants.GEOFENCE_GRID_CELL_IN_DEGREES, Constants.GEOFENCE_MAX_CELLS_PER_FENCE),
+                this, Constants.GEOFENCE_EXIT_HYSTERESIS_IN_METERS,
+                Constants.GEOFENCE_DWELL_DELAY_IN_MILLISECONDS);
+        mTrail = Trails.randomWalk(42, TRAIL_LENGTH);
+    }
+
+    @Override
+    public void onGeofenceTransition(Geofence fence, GeofenceMonitor.Transition transition,
+            long timeInMillis) {
+        mTransitions++;
+    }
+
+    @Benchmark
+    public int indexed() {
+        mMonitor.onFix(mTrail[mNext++ & (TRAIL_LENGTH - 1)]);
+        return mTransitions;
+    }
+
+    /**
+     * What every fix cost before: testing all the fences.
+     */
+    @Benchmark
+    public int bruteForce() {
+        final Fix fix = mTrail[mNext++ & (TRAIL_LENGTH - 1)];
+        int inside = 0;
+
+        for (Geofence fence : mFences) {
+            if (fence.distanceInMeters(fix.latitude, fix.longitude) <= 0) {
+                inside++;
+            }
+        }
+
+        return inside;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.logging.FastLog;
+import com.github.filipebezerra.findme.logging.Logger;
+import java.util.Locale;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of logging a fix into the in-memory log, kept, sampled or rate limited, compared with
+ * formatting the message eagerly as Timber does.
+ */
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+    private final Logger mKeepAll = FastLog.logger("KeepAll");
+
+    private final Logger mSampled = FastLog.logger("Sampled", 10, 0);
+
+    private final Logger mRateLimited = FastLog.logger("RateLimited", 1, 5);
+
+    private double mLatitude = -16.6869;
+
+    @Benchmark
+    public void keepAll() {
+        mKeepAll.d("Fix %.6f, %.6f accurate to %.0f m", mLatitude += 1e-6, -49.2648, 12.0);
+    }
+
+    @Benchmark
+    public void sampled() {
+        mSampled.d("Fix %.6f, %.6f accurate to %.0f m", mLatitude += 1e-6, -49.2648, 12.0);
+    }
+
+    @Benchmark
+    public void rateLimited() {
+        mRateLimited.d("Fix %.6f, %.6f accurate to %.0f m", mLatitude += 1e-6, -49.2648, 12.0);
+    }
+
+    @Benchmark
+    public String formatEagerly() {
+        return String.format(Locale.US, "Fix %.6f, %.6f accurate to %.0f m",
+                mLatitude += 1e-6, -49.2648, 12.0);
+    }
+}
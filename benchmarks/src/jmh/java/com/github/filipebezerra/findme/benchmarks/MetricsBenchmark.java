@@ -0,0 +1,38 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.metrics.Counter;
+import com.github.filipebezerra.findme.metrics.Histogram;
+import com.github.filipebezerra.findme.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Overhead the metrics add to the instrumented paths, alone and with threads contending.
+ */
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private final Counter mCounter = MetricsRegistry.getInstance().counter("benchmark.counter");
+
+    private final Histogram mHistogram =
+            MetricsRegistry.getInstance().histogram("benchmark.latency_us");
+
+    private long mValue;
+
+    @Benchmark
+    public void increment() {
+        mCounter.increment();
+    }
+
+    @Benchmark
+    public void record() {
+        mHistogram.record(mValue++ & 0xffff);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        mHistogram.record(System.nanoTime() & 0xffff);
+    }
+}
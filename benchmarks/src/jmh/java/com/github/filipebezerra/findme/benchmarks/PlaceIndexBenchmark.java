@@ -0,0 +1,67 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.geocoding.offline.PlaceIndex;
+import com.github.filipebezerra.findme.geocoding.offline.PlaceIndexWriter;
+import com.github.filipebezerra.findme.utils.Constants;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of an offline reverse geocoding lookup, a nearest place query over gazetteers of
+ * increasing size spread over a state sized area.
+ */
+@State(Scope.Thread)
+public class PlaceIndexBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "1000000"})
+    public int places;
+
+    private File mFile;
+
+    private PlaceIndex mIndex;
+
+    private final double[] mLatitudes = new double[QUERIES];
+
+    private final double[] mLongitudes = new double[QUERIES];
+
+    private int mNext;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(42);
+        final PlaceIndexWriter writer = new PlaceIndexWriter();
+
+        for (int i = 0; i < places; i++) {
+            writer.add(-19 + random.nextDouble() * 6, -53 + random.nextDouble() * 7, "Place " + i);
+        }
+
+        mFile = File.createTempFile("places", ".idx");
+        writer.write(mFile);
+        mIndex = PlaceIndex.open(mFile);
+
+        for (int i = 0; i < QUERIES; i++) {
+            mLatitudes[i] = -19 + random.nextDouble() * 6;
+            mLongitudes[i] = -53 + random.nextDouble() * 7;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mFile.delete();
+    }
+
+    @Benchmark
+    public String nearest() {
+        final int i = mNext++ & (QUERIES - 1);
+        return mIndex.nearest(mLatitudes[i], mLongitudes[i],
+                Constants.OFFLINE_GEOCODER_MAX_DISTANCE_IN_METERS);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.tracking.TrackDecoder;
+import com.github.filipebezerra.findme.tracking.TrackEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of reading back a trail in the compact track format, as done for every uploaded batch.
+ * Encoding a single fix is measured by {@link FixPipelineBenchmark#encode()}.
+ */
+@State(Scope.Thread)
+public class TrackCodecBenchmark {
+    private static final int TRAIL_LENGTH = 4096;
+
+    private byte[] mEncoded;
+
+    private final Fix mFix = new Fix();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TrackEncoder encoder = new TrackEncoder(output);
+
+        for (Fix fix : Trails.randomWalk(42, TRAIL_LENGTH)) {
+            encoder.write(fix);
+        }
+
+        encoder.close();
+        mEncoded = output.toByteArray();
+    }
+
+    @Benchmark
+    public int decode() throws IOException {
+        final TrackDecoder decoder = new TrackDecoder(new ByteArrayInputStream(mEncoded));
+        int count = 0;
+
+        while (decoder.next(mFix)) {
+            count++;
+        }
+
+        decoder.close();
+        return count;
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.map.PolylineSink;
+import com.github.filipebezerra.findme.map.SimplifiedTrack;
+import com.github.filipebezerra.findme.utils.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the track map on a 100k fix trail: adding a live fix to every zoom level, and finding
+ * the points to draw after the camera moved, for a phone sized viewport at a city and a street
+ * level zoom.
+ */
+@State(Scope.Thread)
+public class TrackMapBenchmark implements PolylineSink {
+    private static final int TRAIL_LENGTH = 100000;
+
+    private static final int VIEWPORTS = 1024;
+
+    @Param({"12", "16"})
+    public int zoom;
+
+    private Fix[] mTrail;
+
+    private SimplifiedTrack mTrack;
+
+    private SimplifiedTrack mGrowingTrack;
+
+    private int mNext;
+
+    private int mViewport;
+
+    private int mPoints;
+
+    @Setup
+    public void setUp() {
+        mTrail = Trails.randomWalk(42, TRAIL_LENGTH);
+        mTrack = newTrack();
+
+        for (Fix fix : mTrail) {
+            mTrack.add(fix.time, fix.latitude, fix.longitude);
+        }
+
+        mGrowingTrack = newTrack();
+    }
+
+    @Override
+    public void startRun() {
+    }
+
+    @Override
+    public void addPoint(double x, double y) {
+        mPoints++;
+    }
+
+    @Benchmark
+    public int add() {
+        // Starts over once the trail has been added whole, as it can't go back in time.
+        if (mNext == TRAIL_LENGTH) {
+            mGrowingTrack = newTrack();
+            mNext = 0;
+        }
+
+        final Fix fix = mTrail[mNext++];
+        mGrowingTrack.add(fix.time, fix.latitude, fix.longitude);
+        return mGrowingTrack.size();
+    }
+
+    @Benchmark
+    public int query() {
+        final Fix center =
+                mTrail[(mViewport++ & (VIEWPORTS - 1)) * (TRAIL_LENGTH / VIEWPORTS)];
+        // A phone screen covers about 360 / 2^zoom degrees of longitude across.
+        final double halfWidth = 180.0 / (1 << zoom);
+
+        mTrack.query(zoom, center.latitude - 2 * halfWidth, center.longitude - halfWidth,
+                center.latitude + 2 * halfWidth, center.longitude + halfWidth, this);
+        return mPoints;
+    }
+
+    private static SimplifiedTrack newTrack() {
+        return new SimplifiedTrack(Constants.TRACK_MAP_MIN_ZOOM, Constants.TRACK_MAP_MAX_ZOOM,
+                Constants.TRACK_MAP_TOLERANCE_IN_PIXELS, Constants.TRACK_MAP_CHUNK_SIZE);
+    }
+}
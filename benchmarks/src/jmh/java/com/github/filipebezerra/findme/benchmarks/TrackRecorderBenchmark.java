@@ -0,0 +1,77 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.tracking.TrackRecorder;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of reading back half an hour of a full ring of recorded fixes, within bounds of a
+ * couple of hundred meters around a recorded fix, as the map does for the visible part of the
+ * trail. Appending a fix is measured by {@link FixPipelineBenchmark#record()}.
+ */
+@State(Scope.Thread)
+public class TrackRecorderBenchmark {
+    private static final int TRAIL_LENGTH = 65536;
+
+    private static final int QUERIES = 1024;
+
+    private static final long DURATION_IN_MILLIS = 30 * 60 * 1000;
+
+    private static final double HALF_SIZE_IN_DEGREES = 0.001;
+
+    private File mFile;
+
+    private TrackRecorder mRecorder;
+
+    private final Fix[] mCenters = new Fix[QUERIES];
+
+    private final Fix mFix = new Fix();
+
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final Fix[] trail = Trails.randomWalk(42, TRAIL_LENGTH);
+        final Random random = new Random(42);
+
+        mFile = File.createTempFile("track", ".ring");
+        mRecorder = TrackRecorder.open(mFile, TRAIL_LENGTH);
+
+        for (Fix fix : trail) {
+            mRecorder.append(fix);
+        }
+
+        for (int i = 0; i < QUERIES; i++) {
+            mCenters[i] = trail[random.nextInt(TRAIL_LENGTH)];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mRecorder.close();
+        mFile.delete();
+    }
+
+    @Benchmark
+    public int queryBounds() {
+        final Fix center = mCenters[mNext++ & (QUERIES - 1)];
+        final TrackRecorder.Cursor cursor = mRecorder.query(center.time,
+                center.time + DURATION_IN_MILLIS, center.latitude - HALF_SIZE_IN_DEGREES,
+                center.longitude - HALF_SIZE_IN_DEGREES, center.latitude + HALF_SIZE_IN_DEGREES,
+                center.longitude + HALF_SIZE_IN_DEGREES);
+        int count = 0;
+
+        while (cursor.next(mFix)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.location.Fix;
+import java.util.Random;
+
+/**
+ * Generates synthetic trails for the benchmarks.
+ */
+final class Trails {
+    private Trails() {
+    }
+
+    /**
+     * Returns a plausible trail: a fix every 10 seconds or so, a few meters apart, with the
+     * occasional inaccurate fix and outlier jump.
+     */
+    static Fix[] randomWalk(final long seed, final int count) {
+        final Random random = new Random(seed);
+        final Fix[] fixes = new Fix[count];
+        long time = 1438387200000L;
+        double latitude = -16.6009500;
+        double longitude = -49.2706748;
+
+        for (int i = 0; i < count; i++) {
+            time += 9000 + random.nextInt(2000);
+            latitude += (random.nextDouble() - 0.5) * 0.0005;
+            longitude += (random.nextDouble() - 0.5) * 0.0005;
+
+            final boolean outlier = random.nextInt(50) == 0;
+            final Fix fix = new Fix().set(time, latitude + (outlier ? 0.05 : 0), longitude);
+            fix.hasAccuracy = true;
+            fix.accuracy = random.nextInt(20) == 0 ? 500 : 3 + random.nextFloat() * 30;
+            fix.hasSpeed = true;
+            fix.speed = random.nextFloat() * 3;
+            fix.hasBearing = true;
+            fix.bearing = random.nextFloat() * 359;
+            fixes[i] = fix;
+        }
+
+        return fixes;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.filipebezerra.findme.benchmarks;
+
+import com.github.filipebezerra.findme.location.Fix;
+import com.github.filipebezerra.findme.tracking.TrackEncoder;
+import com.github.filipebezerra.findme.upload.BatchSender;
+import com.github.filipebezerra.findme.upload.UploadQueue;
+import com.github.filipebezerra.findme.utils.Constants;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Cost of uploading a batch of fixes: storing it in a full {@link UploadQueue}, which drops the
+ * oldest batch to make room, and posting it to a local server answering right away, so that
+ * only the client side of the request is measured.
+ */
+@State(Scope.Thread)
+public class UploadBenchmark {
+    private byte[] mBody;
+
+    private File mDirectory;
+
+    private UploadQueue mQueue;
+
+    private File mBatch;
+
+    private HttpServer mServer;
+
+    private BatchSender mSender;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TrackEncoder encoder = new TrackEncoder(new GZIPOutputStream(output));
+
+        for (Fix fix : Trails.randomWalk(42, Constants.UPLOAD_BATCH_MAX_FIXES)) {
+            encoder.write(fix);
+        }
+
+        encoder.close();
+        mBody = output.toByteArray();
+
+        mDirectory = File.createTempFile("uploads", "");
+        mDirectory.delete();
+        mQueue = new UploadQueue(mDirectory, Constants.UPLOAD_QUEUE_MAX_BATCHES);
+
+        for (int i = 0; i < Constants.UPLOAD_QUEUE_MAX_BATCHES; i++) {
+            mQueue.enqueue(mBody);
+        }
+
+        mBatch = File.createTempFile("batch", ".batch");
+        final FileOutputStream batch = new FileOutputStream(mBatch);
+
+        try {
+            batch.write(mBody);
+        } finally {
+            batch.close();
+        }
+
+        mServer = HttpServer.create(
+                new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0), 0);
+        mServer.createContext("/batches", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final InputStream input = exchange.getRequestBody();
+                final byte[] buffer = new byte[8192];
+
+                while (input.read(buffer) != -1) {
+                    // Only read to the end, so the connection can be kept alive.
+                }
+
+                exchange.sendResponseHeaders(201, -1);
+                exchange.close();
+            }
+        });
+        mServer.start();
+
+        mSender = new BatchSender(new URL("http://127.0.0.1:" + mServer.getAddress().getPort()
+                + "/batches"), "benchmark", Constants.UPLOAD_TIMEOUT_IN_MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mServer.stop(0);
+
+        for (String id : mQueue.getIds()) {
+            mQueue.remove(id);
+        }
+
+        mDirectory.delete();
+        mBatch.delete();
+    }
+
+    @Benchmark
+    public String enqueue() throws IOException {
+        return mQueue.enqueue(mBody);
+    }
+
+    @Benchmark
+    public int send() throws IOException {
+        return mSender.send("benchmark", mBatch);
+    }
+}